@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.benchmarks;
+
+import com.microsoft.azure.management.Azure;
+import com.microsoft.rest.RestClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating the {@link Azure} entry point of a subscription, and the first access to one of
+ * its collections which creates the service manager behind it.
+ * <p>
+ * The cost of the startup is mostly the heap it allocates, so the benchmark is meant to run with the
+ * GC profiler, reporting the bytes allocated per operation as gc.alloc.rate.norm: {@link #main(String[])}
+ * runs it that way, as does <code>java -jar benchmarks.jar AzureStartupBenchmark -prof gc</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AzureStartupBenchmark {
+    private RestClient restClient;
+
+    /**
+     * Builds the REST client shared by the entry points, as an application would once.
+     */
+    @Setup
+    public void setup() {
+        restClient = Fixtures.restClient("https://management.azure.com/");
+    }
+
+    @Benchmark
+    public Azure createEntryPoint() {
+        return Azure.authenticate(restClient, "tenant").withSubscription(Fixtures.SUBSCRIPTION_ID);
+    }
+
+    @Benchmark
+    public Object createEntryPointAndAccessVirtualMachines() {
+        return Azure.authenticate(restClient, "tenant").withSubscription(Fixtures.SUBSCRIPTION_ID).virtualMachines();
+    }
+
+    /**
+     * Runs the benchmark with the GC profiler.
+     *
+     * @param args the command line arguments, unused
+     * @throws RunnerException if the benchmark cannot run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AzureStartupBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.benchmarks;
+
+import com.microsoft.azure.management.compute.EncryptionStatus;
+import com.microsoft.azure.management.compute.PowerState;
+import com.microsoft.azure.management.resources.fluentcore.arm.Region;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures looking up the values of the expandable enums, done for every model wrapping an inner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpandableStringEnumBenchmark {
+    private String powerState = "PowerState/running";
+    private String differentlyCasedPowerState = "PowerState/Running";
+    private String encryptionStatus = "Encrypted";
+    private String region = "westus";
+
+    @Benchmark
+    public PowerState powerStateFromString() {
+        return PowerState.fromString(powerState);
+    }
+
+    @Benchmark
+    public PowerState powerStateFromDifferentlyCasedString() {
+        return PowerState.fromString(differentlyCasedPowerState);
+    }
+
+    @Benchmark
+    public EncryptionStatus encryptionStatusFromString() {
+        return EncryptionStatus.fromString(encryptionStatus);
+    }
+
+    @Benchmark
+    public Region regionFromName() {
+        return Region.fromName(region);
+    }
+}
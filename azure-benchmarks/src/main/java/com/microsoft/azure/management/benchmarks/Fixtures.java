@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.benchmarks;
+
+import com.microsoft.azure.AzureEnvironment;
+import com.microsoft.azure.AzureResponseBuilder;
+import com.microsoft.azure.credentials.AzureTokenCredentials;
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import com.microsoft.rest.RestClient;
+
+/**
+ * The Azure Resource Manager payloads the benchmarks work with, shaped like the ones returned by
+ * the live service.
+ */
+final class Fixtures {
+    static final String SUBSCRIPTION_ID = "00000000-0000-0000-0000-000000000000";
+    static final String RESOURCE_GROUP = "rg-benchmark";
+    private static final String GROUP_ID = "/subscriptions/" + SUBSCRIPTION_ID + "/resourceGroups/" + RESOURCE_GROUP;
+
+    private static final String VIRTUAL_MACHINE = "{\"id\":\"" + GROUP_ID + "/providers/Microsoft.Compute/virtualMachines/vm{i}\","
+            + "\"name\":\"vm{i}\",\"type\":\"Microsoft.Compute/virtualMachines\",\"location\":\"westus\",\"tags\":{\"env\":\"benchmark\"},"
+            + "\"properties\":{\"vmId\":\"2b0b9b0c-0000-0000-0000-00000000{i}\",\"hardwareProfile\":{\"vmSize\":\"Standard_D2_v2\"},"
+            + "\"storageProfile\":{\"imageReference\":{\"publisher\":\"Canonical\",\"offer\":\"UbuntuServer\",\"sku\":\"16.04-LTS\",\"version\":\"latest\"},"
+            + "\"osDisk\":{\"osType\":\"Linux\",\"name\":\"osdisk{i}\",\"caching\":\"ReadWrite\",\"createOption\":\"FromImage\",\"diskSizeGB\":30,"
+            + "\"managedDisk\":{\"storageAccountType\":\"Standard_LRS\",\"id\":\"" + GROUP_ID + "/providers/Microsoft.Compute/disks/osdisk{i}\"}},"
+            + "\"dataDisks\":[{\"lun\":0,\"name\":\"datadisk{i}\",\"caching\":\"None\",\"createOption\":\"Empty\",\"diskSizeGB\":100,"
+            + "\"managedDisk\":{\"storageAccountType\":\"Premium_LRS\",\"id\":\"" + GROUP_ID + "/providers/Microsoft.Compute/disks/datadisk{i}\"}}]},"
+            + "\"osProfile\":{\"computerName\":\"vm{i}\",\"adminUsername\":\"azureuser\",\"linuxConfiguration\":{\"disablePasswordAuthentication\":true,"
+            + "\"ssh\":{\"publicKeys\":[{\"path\":\"/home/azureuser/.ssh/authorized_keys\",\"keyData\":\"ssh-rsa AAAAB3NzaC1yc2EAAAADAQABAAABAQC benchmark\"}]}},"
+            + "\"secrets\":[]},\"networkProfile\":{\"networkInterfaces\":[{\"id\":\"" + GROUP_ID + "/providers/Microsoft.Network/networkInterfaces/nic{i}\","
+            + "\"properties\":{\"primary\":true}}]},\"diagnosticsProfile\":{\"bootDiagnostics\":{\"enabled\":false}},\"provisioningState\":\"Succeeded\"}}";
+
+    private static final String NETWORK_INTERFACE = "{\"id\":\"" + GROUP_ID + "/providers/Microsoft.Network/networkInterfaces/nic{i}\","
+            + "\"name\":\"nic{i}\",\"etag\":\"W/\\\"6c1d5e2a-0000-0000-0000-00000000{i}\\\"\",\"type\":\"Microsoft.Network/networkInterfaces\","
+            + "\"location\":\"westus\",\"properties\":{\"provisioningState\":\"Succeeded\",\"resourceGuid\":\"6c1d5e2a-0000-0000-0000-00000000{i}\","
+            + "\"ipConfigurations\":[{\"id\":\"" + GROUP_ID + "/providers/Microsoft.Network/networkInterfaces/nic{i}/ipConfigurations/primary\","
+            + "\"name\":\"primary\",\"etag\":\"W/\\\"6c1d5e2a-0000-0000-0000-00000000{i}\\\"\",\"properties\":{\"provisioningState\":\"Succeeded\","
+            + "\"privateIPAddress\":\"10.0.0.4\",\"privateIPAllocationMethod\":\"Dynamic\","
+            + "\"subnet\":{\"id\":\"" + GROUP_ID + "/providers/Microsoft.Network/virtualNetworks/vnet/subnets/default\"},"
+            + "\"primary\":true,\"privateIPAddressVersion\":\"IPv4\"}}],\"dnsSettings\":{\"dnsServers\":[],\"appliedDnsServers\":[]},"
+            + "\"macAddress\":\"00-0D-3A-00-00-00\",\"enableAcceleratedNetworking\":false,\"enableIPForwarding\":false,\"primary\":true,"
+            + "\"virtualMachine\":{\"id\":\"" + GROUP_ID + "/providers/Microsoft.Compute/virtualMachines/vm{i}\"}}}";
+
+    private static final String WEB_APP = "{\"id\":\"" + GROUP_ID + "/providers/Microsoft.Web/sites/app{i}\",\"name\":\"app{i}\","
+            + "\"type\":\"Microsoft.Web/sites\",\"kind\":\"app\",\"location\":\"West US\",\"tags\":{},\"properties\":{\"name\":\"app{i}\","
+            + "\"state\":\"Running\",\"hostNames\":[\"app{i}.azurewebsites.net\"],\"webSpace\":\"rg-benchmark-WestUSwebspace\","
+            + "\"repositorySiteName\":\"app{i}\",\"usageState\":\"Normal\",\"enabled\":true,"
+            + "\"enabledHostNames\":[\"app{i}.azurewebsites.net\",\"app{i}.scm.azurewebsites.net\"],\"availabilityState\":\"Normal\","
+            + "\"hostNameSslStates\":[{\"name\":\"app{i}.azurewebsites.net\",\"sslState\":\"Disabled\",\"hostType\":\"Standard\"},"
+            + "{\"name\":\"app{i}.scm.azurewebsites.net\",\"sslState\":\"Disabled\",\"hostType\":\"Repository\"}],"
+            + "\"serverFarmId\":\"" + GROUP_ID + "/providers/Microsoft.Web/serverfarms/plan\",\"reserved\":false,"
+            + "\"lastModifiedTimeUtc\":\"2017-09-01T00:00:00.000Z\",\"scmSiteAlsoStopped\":false,\"clientAffinityEnabled\":true,"
+            + "\"clientCertEnabled\":false,\"hostNamesDisabled\":false,\"outboundIpAddresses\":\"13.91.40.166,13.91.40.167,13.91.40.168\","
+            + "\"containerSize\":0,\"dailyMemoryTimeQuota\":0,\"resourceGroup\":\"rg-benchmark\",\"defaultHostName\":\"app{i}.azurewebsites.net\"}}";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Builds a REST client sending the requests to a base URL with a fixed access token.
+     *
+     * @param baseUrl the base URL
+     * @return the REST client
+     */
+    static RestClient restClient(String baseUrl) {
+        return new RestClient.Builder()
+                .withBaseUrl(baseUrl)
+                .withCredentials(new AzureTokenCredentials(AzureEnvironment.AZURE, "tenant") {
+                    @Override
+                    public String getToken(String resource) {
+                        return "benchmark-token";
+                    }
+                })
+                .withSerializerAdapter(new AzureJacksonAdapter())
+                .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                .build();
+    }
+
+    /**
+     * @param index the index of the virtual machine
+     * @return the resource ID of a virtual machine
+     */
+    static String virtualMachineId(int index) {
+        return GROUP_ID + "/providers/Microsoft.Compute/virtualMachines/vm" + index;
+    }
+
+    /**
+     * @param index the index of the subnet
+     * @return the resource ID of a subnet, a child resource
+     */
+    static String subnetId(int index) {
+        return GROUP_ID + "/providers/Microsoft.Network/virtualNetworks/vnet" + index + "/subnets/subnet" + index;
+    }
+
+    static String virtualMachinesPage(int first, int count, String nextLink) {
+        return page(VIRTUAL_MACHINE, first, count, nextLink);
+    }
+
+    static String networkInterfacesPage(int first, int count, String nextLink) {
+        return page(NETWORK_INTERFACE, first, count, nextLink);
+    }
+
+    static String webAppsPage(int first, int count, String nextLink) {
+        return page(WEB_APP, first, count, nextLink);
+    }
+
+    private static String page(String template, int first, int count, String nextLink) {
+        StringBuilder builder = new StringBuilder(template.length() * count + 64).append("{\"value\":[");
+        for (int i = first; i < first + count; i++) {
+            if (i > first) {
+                builder.append(',');
+            }
+            builder.append(template.replace("{i}", String.valueOf(i)));
+        }
+        builder.append(']');
+        if (nextLink != null) {
+            builder.append(",\"nextLink\":\"").append(nextLink).append('"');
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.benchmarks;
+
+import com.microsoft.azure.management.Azure;
+import com.microsoft.azure.management.compute.VirtualMachine;
+import com.microsoft.azure.management.resources.core.MockArmServer;
+import com.microsoft.rest.RestClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures listing the virtual machines of a resource group end to end, from the HTTP requests to
+ * the fluent models, against an in-process {@link MockArmServer} serving prebuilt pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListVirtualMachinesBenchmark {
+    @Param({"5"})
+    private int pageCount;
+
+    @Param({"100"})
+    private int pageSize;
+
+    private MockArmServer server;
+    private Azure azure;
+
+    /**
+     * Starts the server and creates the entry point sending requests to it.
+     *
+     * @throws IOException if the server cannot be started
+     */
+    @Setup
+    public void setup() throws IOException {
+        server = new MockArmServer().start();
+        // The pages link to each other, so they are added once the URL of the server is known
+        String listPath = "subscriptions/" + Fixtures.SUBSCRIPTION_ID + "/resourceGroups/" + Fixtures.RESOURCE_GROUP
+                + "/providers/Microsoft.Compute/virtualMachines";
+        for (int i = 0; i < pageCount; i++) {
+            String path = i == 0 ? listPath : listPath + "/nextPage" + i;
+            String nextLink = i + 1 < pageCount ? server.baseUrl() + listPath + "/nextPage" + (i + 1) : null;
+            server.withResponse("GET", Pattern.quote("/" + path), 200, Fixtures.virtualMachinesPage(i * pageSize, pageSize, nextLink));
+        }
+        RestClient restClient = Fixtures.restClient(server.baseUrl());
+        azure = Azure.authenticate(restClient, "tenant").withSubscription(Fixtures.SUBSCRIPTION_ID);
+    }
+
+    /**
+     * Stops the server.
+     */
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public int listByResourceGroup() {
+        int count = 0;
+        for (VirtualMachine virtualMachine : azure.virtualMachines().listByResourceGroup(Fixtures.RESOURCE_GROUP)) {
+            if (virtualMachine.name() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
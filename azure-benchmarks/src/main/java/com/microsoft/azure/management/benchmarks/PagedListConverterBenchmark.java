@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.benchmarks;
+
+import com.microsoft.azure.Page;
+import com.microsoft.azure.PagedList;
+import com.microsoft.azure.management.resources.fluentcore.utils.PagedListConverter;
+import com.microsoft.azure.management.resources.implementation.PageImpl;
+import com.microsoft.rest.RestException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rx.Observable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting a paged list with {@link PagedListConverter} and iterating the converted list
+ * through all of its pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PagedListConverterBenchmark {
+    @Param({"10"})
+    private int pageCount;
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private List<List<String>> pages;
+
+    /**
+     * Builds the items of the pages.
+     */
+    @Setup
+    public void setup() {
+        pages = new ArrayList<>();
+        for (int i = 0; i < pageCount; i++) {
+            List<String> items = new ArrayList<>();
+            for (int j = 0; j < pageSize; j++) {
+                items.add(Fixtures.virtualMachineId(i * pageSize + j));
+            }
+            pages.add(items);
+        }
+    }
+
+    @Benchmark
+    public long convertAndIterate() {
+        PagedList<Integer> converted = new PagedListConverter<String, Integer>() {
+            @Override
+            public Observable<Integer> typeConvertAsync(String id) {
+                return Observable.just(id.length());
+            }
+        }.convert(newPagedList());
+        long sum = 0;
+        for (Integer length : converted) {
+            sum += length;
+        }
+        return sum;
+    }
+
+    private PagedList<String> newPagedList() {
+        return new PagedList<String>(page(0)) {
+            @Override
+            public Page<String> nextPage(String nextPageLink) throws RestException, IOException {
+                return page(Integer.parseInt(nextPageLink));
+            }
+        };
+    }
+
+    private Page<String> page(int index) {
+        PageImpl<String> page = new PageImpl<>();
+        page.setItems(pages.get(index));
+        page.setNextPageLink(index + 1 < pageCount ? String.valueOf(index + 1) : null);
+        return page;
+    }
+}
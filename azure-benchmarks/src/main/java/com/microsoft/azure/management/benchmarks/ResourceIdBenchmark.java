@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.benchmarks;
+
+import com.microsoft.azure.management.resources.fluentcore.arm.ResourceId;
+import com.microsoft.azure.management.resources.fluentcore.arm.ResourceUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsing of resource IDs through {@link ResourceId} and {@link ResourceUtils}, against
+ * the previous parser kept as {@link LegacyResourceId}.
+ * <p>
+ * The IDs parsed cycle through a set of distinct strings, so that the parsing is not answered from
+ * a cache of the last ID parsed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceIdBenchmark {
+    private static final int ID_COUNT = 1024;
+
+    private String[] virtualMachineIds;
+    private String[] subnetIds;
+    private int next;
+
+    /**
+     * Builds the IDs to parse.
+     */
+    @Setup
+    public void setup() {
+        virtualMachineIds = new String[ID_COUNT];
+        subnetIds = new String[ID_COUNT];
+        for (int i = 0; i < ID_COUNT; i++) {
+            virtualMachineIds[i] = Fixtures.virtualMachineId(i);
+            subnetIds[i] = Fixtures.subnetId(i);
+        }
+    }
+
+    @Benchmark
+    public ResourceId parseTopLevelId() {
+        return ResourceId.fromString(virtualMachineIds[nextIndex()]);
+    }
+
+    @Benchmark
+    public ResourceId parseChildId() {
+        return ResourceId.fromString(subnetIds[nextIndex()]);
+    }
+
+    @Benchmark
+    public void readParsedId(Blackhole blackhole) {
+        ResourceId id = ResourceId.fromString(subnetIds[nextIndex()]);
+        blackhole.consume(id.subscriptionId());
+        blackhole.consume(id.resourceGroupName());
+        blackhole.consume(id.name());
+        blackhole.consume(id.fullResourceType());
+        blackhole.consume(id.parent());
+    }
+
+    @Benchmark
+    public LegacyResourceId parseTopLevelIdLegacy() {
+        return LegacyResourceId.fromString(virtualMachineIds[nextIndex()]);
+    }
+
+    @Benchmark
+    public LegacyResourceId parseChildIdLegacy() {
+        return LegacyResourceId.fromString(subnetIds[nextIndex()]);
+    }
+
+    @Benchmark
+    public void readParsedIdLegacy(Blackhole blackhole) {
+        LegacyResourceId id = LegacyResourceId.fromString(subnetIds[nextIndex()]);
+        blackhole.consume(id.subscriptionId());
+        blackhole.consume(id.resourceGroupName());
+        blackhole.consume(id.name());
+        blackhole.consume(id.fullResourceType());
+        blackhole.consume(id.parent());
+    }
+
+    @Benchmark
+    public void resourceUtils(Blackhole blackhole) {
+        String id = subnetIds[nextIndex()];
+        blackhole.consume(ResourceUtils.groupFromResourceId(id));
+        blackhole.consume(ResourceUtils.nameFromResourceId(id));
+        blackhole.consume(ResourceUtils.resourceProviderFromResourceId(id));
+        blackhole.consume(ResourceUtils.resourceTypeFromResourceId(id));
+        blackhole.consume(ResourceUtils.parentResourceIdFromResourceId(id));
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (ID_COUNT - 1);
+        return next;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.benchmarks;
+
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.microsoft.azure.management.appservice.implementation.SiteInner;
+import com.microsoft.azure.management.compute.implementation.PageImpl1;
+import com.microsoft.azure.management.compute.implementation.VirtualMachineInner;
+import com.microsoft.azure.management.network.implementation.NetworkInterfaceInner;
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the deserialization of the list pages of virtual machines, network interfaces and web
+ * apps, and the serialization of virtual machines, with the serializer of the SDK.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private AzureJacksonAdapter adapter;
+    private String virtualMachinesPage;
+    private String networkInterfacesPage;
+    private String webAppsPage;
+    private Type virtualMachinesPageType;
+    private Type networkInterfacesPageType;
+    private Type webAppsPageType;
+    private PageImpl1<VirtualMachineInner> virtualMachines;
+
+    /**
+     * Builds the pages and the types to deserialize them to.
+     *
+     * @throws IOException if a page cannot be deserialized
+     */
+    @Setup
+    public void setup() throws IOException {
+        adapter = new AzureJacksonAdapter();
+        TypeFactory typeFactory = adapter.serializer().getTypeFactory();
+        virtualMachinesPage = Fixtures.virtualMachinesPage(0, pageSize, "https://management.azure.com/next");
+        networkInterfacesPage = Fixtures.networkInterfacesPage(0, pageSize, "https://management.azure.com/next");
+        webAppsPage = Fixtures.webAppsPage(0, pageSize, "https://management.azure.com/next");
+        virtualMachinesPageType = typeFactory.constructParametrizedType(PageImpl1.class, PageImpl1.class, VirtualMachineInner.class);
+        networkInterfacesPageType = typeFactory.constructParametrizedType(
+                com.microsoft.azure.management.network.implementation.PageImpl.class,
+                com.microsoft.azure.management.network.implementation.PageImpl.class,
+                NetworkInterfaceInner.class);
+        webAppsPageType = typeFactory.constructParametrizedType(
+                com.microsoft.azure.management.appservice.implementation.PageImpl.class,
+                com.microsoft.azure.management.appservice.implementation.PageImpl.class,
+                SiteInner.class);
+        virtualMachines = adapter.deserialize(virtualMachinesPage, virtualMachinesPageType);
+    }
+
+    @Benchmark
+    public Object deserializeVirtualMachinesPage() throws IOException {
+        return adapter.deserialize(virtualMachinesPage, virtualMachinesPageType);
+    }
+
+    @Benchmark
+    public Object deserializeNetworkInterfacesPage() throws IOException {
+        return adapter.deserialize(networkInterfacesPage, networkInterfacesPageType);
+    }
+
+    @Benchmark
+    public Object deserializeWebAppsPage() throws IOException {
+        return adapter.deserialize(webAppsPage, webAppsPageType);
+    }
+
+    @Benchmark
+    public String serializeVirtualMachines() throws IOException {
+        return adapter.serialize(virtualMachines.items());
+    }
+}
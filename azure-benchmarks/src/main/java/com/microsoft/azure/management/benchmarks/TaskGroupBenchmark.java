@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.benchmarks;
+
+import com.microsoft.azure.management.resources.fluentcore.dag.TaskGroup;
+import com.microsoft.azure.management.resources.fluentcore.dag.TaskGroupTerminateOnErrorStrategy;
+import com.microsoft.azure.management.resources.fluentcore.dag.TaskItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rx.Observable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the dependency graph of a {@link TaskGroup} and invoking its tasks.
+ * <p>
+ * The graph is a root depending on chains of tasks, the shape of a batch creation of resources
+ * each depending on a few others. The tasks complete immediately, so that the time measured is
+ * the one spent by the task group itself. The sizes are those of large batch deployments, where
+ * the cost of the graph grows visible.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskGroupBenchmark {
+    private static final int CHAIN_LENGTH = 4;
+
+    @Param({"10000", "100000"})
+    private int taskCount;
+
+    @Benchmark
+    public Object buildGraph() {
+        return newGraph();
+    }
+
+    @Benchmark
+    public Object buildAndInvoke() {
+        TaskGroup<String, NoOpTask> group = newGraph();
+        return group.invokeAsync(group.newInvocationContext()).toBlocking().last();
+    }
+
+    @Benchmark
+    public Object buildAndInvokeWithBoundedConcurrency() {
+        TaskGroup<String, NoOpTask> group = newGraph();
+        TaskGroup.InvocationContext context = group.newInvocationContext().withMaxConcurrency(16);
+        return group.invokeAsync(context).toBlocking().last();
+    }
+
+    private TaskGroup<String, NoOpTask> newGraph() {
+        TaskGroup<String, NoOpTask> root = newTaskGroup("root");
+        for (int chain = 0; chain < taskCount / CHAIN_LENGTH; chain++) {
+            TaskGroup<String, NoOpTask> previous = null;
+            for (int i = 0; i < CHAIN_LENGTH; i++) {
+                TaskGroup<String, NoOpTask> current = newTaskGroup("task" + chain + "-" + i);
+                if (previous != null) {
+                    current.addDependencyTaskGroup(previous);
+                }
+                previous = current;
+            }
+            root.addDependencyTaskGroup(previous);
+        }
+        return root;
+    }
+
+    private static TaskGroup<String, NoOpTask> newTaskGroup(String id) {
+        return new TaskGroup<>(id, new NoOpTask(id), TaskGroupTerminateOnErrorStrategy.TERMINATE_ON_INPROGRESS_TASKS_COMPLETION);
+    }
+
+    /**
+     * A task completing immediately with its ID.
+     */
+    private static final class NoOpTask implements TaskItem<String> {
+        private final String id;
+        private String result;
+
+        NoOpTask(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String result() {
+            return result;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public boolean isHot() {
+            return false;
+        }
+
+        @Override
+        public Observable<String> invokeAsync(TaskGroup.InvocationContext context) {
+            result = id;
+            return Observable.just(id);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License. See License.txt in the project root for
+// license information.
+
+/**
+ * This package contains the JMH benchmarks of the client side hot paths of the SDK.
+ */
+package com.microsoft.azure.management.benchmarks;
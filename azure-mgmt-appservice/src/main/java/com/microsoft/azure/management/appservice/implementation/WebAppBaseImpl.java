@@ -54,7 +54,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
 
 /**
  * The implementation for WebAppBase.
@@ -794,16 +793,10 @@ abstract class WebAppBaseImpl<
                     return createOrUpdateSourceControl(sourceControl.inner());
                 }
             })
-            .delay(new Func1<SiteSourceControlInner, Observable<Long>>() {
+            .flatMap(new Func1<SiteSourceControlInner, Observable<SiteSourceControlInner>>() {
                 @Override
-                public Observable<Long> call(SiteSourceControlInner siteSourceControlInner) {
-                    return Observable.fromCallable(new Callable<Long>() {
-                        @Override
-                        public Long call() throws Exception {
-                            SdkContext.sleep(30000);
-                            return 30000L;
-                        }
-                    });
+                public Observable<SiteSourceControlInner> call(SiteSourceControlInner siteSourceControlInner) {
+                    return SdkContext.delayedEmitAsync(siteSourceControlInner, 30000);
                 }
             })
             .map(new Func1<SiteSourceControlInner, SiteInner>() {
@@ -13,11 +13,14 @@ import com.microsoft.azure.management.batch.BatchAccounts;
 import com.microsoft.azure.management.resources.fluentcore.arm.AzureConfigurable;
 import com.microsoft.azure.management.resources.fluentcore.arm.implementation.AzureConfigurableImpl;
 import com.microsoft.azure.management.resources.fluentcore.arm.implementation.Manager;
+import com.microsoft.azure.management.resources.fluentcore.utils.MetricsInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ProviderRegistrationInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ResourceManagerThrottlingInterceptor;
 import com.microsoft.azure.management.storage.implementation.StorageManager;
 import com.microsoft.azure.serializer.AzureJacksonAdapter;
 import com.microsoft.rest.RestClient;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
 
 /**
  * Entry point to Azure Batch service management.
@@ -53,13 +56,16 @@ public class BatchManager extends Manager<BatchManager, BatchManagementClientImp
      * @return the BatchManager
      */
     public static BatchManager authenticate(AzureTokenCredentials credentials, String subscriptionId) {
-        return new BatchManager(new RestClient.Builder()
+        return new BatchManager(new RestClient.Builder(new OkHttpClient.Builder(), new Retrofit.Builder()
+                .addCallAdapterFactory(ResourceManagerThrottlingInterceptor.callAdapterFactory()))
                 .withBaseUrl(credentials.environment(), AzureEnvironment.Endpoint.RESOURCE_MANAGER)
                 .withCredentials(credentials)
                 .withSerializerAdapter(new AzureJacksonAdapter())
                 .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                .withInterceptor(MetricsInterceptor.retryCounter())
                 .withInterceptor(new ProviderRegistrationInterceptor(credentials))
                 .withInterceptor(new ResourceManagerThrottlingInterceptor())
+                .withNetworkInterceptor(new MetricsInterceptor())
                 .build(), subscriptionId);
     }
 
@@ -14,10 +14,13 @@ import com.microsoft.azure.management.apigeneration.Beta;
 import com.microsoft.azure.management.resources.fluentcore.arm.AzureConfigurable;
 import com.microsoft.azure.management.resources.fluentcore.arm.implementation.AzureConfigurableImpl;
 import com.microsoft.azure.management.resources.fluentcore.arm.implementation.Manager;
+import com.microsoft.azure.management.resources.fluentcore.utils.MetricsInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ProviderRegistrationInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ResourceManagerThrottlingInterceptor;
 import com.microsoft.azure.serializer.AzureJacksonAdapter;
 import com.microsoft.rest.RestClient;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
 
 /**
  * Entry point to Azure CognitiveServices resource management.
@@ -40,13 +43,16 @@ public final class CognitiveServicesManager extends Manager<CognitiveServicesMan
     * @return the CognitiveServicesManager
     */
     public static CognitiveServicesManager authenticate(AzureTokenCredentials credentials, String subscriptionId) {
-        return new CognitiveServicesManager(new RestClient.Builder()
+        return new CognitiveServicesManager(new RestClient.Builder(new OkHttpClient.Builder(), new Retrofit.Builder()
+                .addCallAdapterFactory(ResourceManagerThrottlingInterceptor.callAdapterFactory()))
                 .withBaseUrl(credentials.environment(), AzureEnvironment.Endpoint.RESOURCE_MANAGER)
                 .withCredentials(credentials)
                 .withSerializerAdapter(new AzureJacksonAdapter())
                 .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                .withInterceptor(MetricsInterceptor.retryCounter())
                 .withInterceptor(new ProviderRegistrationInterceptor(credentials))
                 .withInterceptor(new ResourceManagerThrottlingInterceptor())
+                .withNetworkInterceptor(new MetricsInterceptor())
                 .build(), subscriptionId);
     }
     /**
@@ -0,0 +1,347 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.resources.fluentcore.utils.SdkContext;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import rx.Observable;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.functions.Func2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads a blob, such as the export of a managed disk or a snapshot through its SAS URI,
+ * into a file by fetching ranges of the blob concurrently.
+ * <p>
+ * The file is preallocated to the size of the blob and every range is written at its position,
+ * so the ranges complete in any order. The ranges a page blob reports as never written are zero
+ * and are not downloaded. A range failing with a transient error, a network failure, a throttled request
+ * or a server error, is downloaded again after a delay doubling with every retry, up to the configured
+ * number of retries.
+ */
+@Beta(Beta.SinceVersion.V1_4_0)
+public final class BlobRangeDownloader {
+    /**
+     * The default size in bytes of the ranges downloaded in one request.
+     */
+    public static final long DEFAULT_CHUNK_SIZE = 4L * 1024 * 1024;
+    /**
+     * The default maximum number of ranges downloaded at the same time.
+     */
+    public static final int DEFAULT_PARALLELISM = 8;
+    /**
+     * The default number of times a failed range is downloaded again.
+     */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    /**
+     * The default delay in milliseconds before the first retry of a range.
+     */
+    public static final int DEFAULT_RETRY_DELAY_MILLIS = 1000;
+
+    private static final String STORAGE_VERSION = "2016-05-31";
+    private static final Pattern PAGE_RANGE = Pattern.compile("<PageRange>\\s*<Start>(\\d+)</Start>\\s*<End>(\\d+)</End>\\s*</PageRange>");
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final OkHttpClient httpClient;
+    private long chunkSize = DEFAULT_CHUNK_SIZE;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private int retryDelayMillis = DEFAULT_RETRY_DELAY_MILLIS;
+
+    /**
+     * Creates a downloader with its own HTTP client.
+     */
+    public BlobRangeDownloader() {
+        this(new OkHttpClient.Builder()
+                .readTimeout(2, TimeUnit.MINUTES)
+                .build());
+    }
+
+    /**
+     * Creates a downloader sending its requests through the given HTTP client.
+     * <p>
+     * The SAS URI carries the authorization, the client must not add Azure Resource Manager credentials.
+     *
+     * @param httpClient the HTTP client
+     */
+    public BlobRangeDownloader(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Sets the size of the ranges downloaded in one request.
+     *
+     * @param chunkSize the size in bytes of a range
+     * @return the downloader itself
+     */
+    public BlobRangeDownloader withChunkSize(long chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive.");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Limits the number of ranges downloaded at the same time.
+     *
+     * @param parallelism the maximum number of ranges downloaded at the same time
+     * @return the downloader itself
+     */
+    public BlobRangeDownloader withParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive.");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the number of times a failed range is downloaded again.
+     *
+     * @param maxRetries the number of retries of a range, 0 to not retry
+     * @return the downloader itself
+     */
+    public BlobRangeDownloader withMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative.");
+        }
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * Sets the delay before the first retry of a range, the delay doubles with every retry.
+     *
+     * @param retryDelayMillis the delay in milliseconds before the first retry
+     * @return the downloader itself
+     */
+    public BlobRangeDownloader withRetryDelay(int retryDelayMillis) {
+        if (retryDelayMillis < 0) {
+            throw new IllegalArgumentException("retryDelayMillis must not be negative.");
+        }
+        this.retryDelayMillis = retryDelayMillis;
+        return this;
+    }
+
+    /**
+     * @return the size in bytes of the ranges downloaded in one request
+     */
+    public long chunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * @return the maximum number of ranges downloaded at the same time
+     */
+    public int parallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * @return the number of times a failed range is downloaded again
+     */
+    public int maxRetries() {
+        return this.maxRetries;
+    }
+
+    /**
+     * @return the delay in milliseconds before the first retry of a range
+     */
+    public int retryDelay() {
+        return this.retryDelayMillis;
+    }
+
+    /**
+     * Downloads a blob into a file, replacing the content of the file.
+     *
+     * @param url the URL of the blob, including its SAS token
+     * @param file the file to write
+     * @return the number of bytes downloaded, not counting the zero ranges skipped
+     */
+    public long download(String url, File file) {
+        return downloadAsync(url, file).reduce(0L, new Func2<Long, Long, Long>() {
+            @Override
+            public Long call(Long total, Long bytes) {
+                return total + bytes;
+            }
+        }).toBlocking().single();
+    }
+
+    /**
+     * Downloads a blob into a file asynchronously, replacing the content of the file.
+     *
+     * @param url the URL of the blob, including its SAS token
+     * @param file the file to write
+     * @return an observable that emits the number of bytes of every range as it is written
+     */
+    public Observable<Long> downloadAsync(final String url, final File file) {
+        return Observable.fromCallable(new Callable<List<long[]>>() {
+            @Override
+            public List<long[]> call() throws Exception {
+                return planRanges(url);
+            }
+        }).subscribeOn(SdkContext.getRxScheduler()).flatMap(new Func1<List<long[]>, Observable<Long>>() {
+            @Override
+            public Observable<Long> call(final List<long[]> plan) {
+                return Observable.using(new Func0<RandomAccessFile>() {
+                    @Override
+                    public RandomAccessFile call() {
+                        try {
+                            RandomAccessFile target = new RandomAccessFile(file, "rw");
+                            // Truncate first so that the ranges not downloaded read as zero
+                            target.setLength(0);
+                            target.setLength(plan.get(0)[1]);
+                            return target;
+                        } catch (IOException e) {
+                            throw new IllegalStateException("Cannot preallocate " + file, e);
+                        }
+                    }
+                }, new Func1<RandomAccessFile, Observable<Long>>() {
+                    @Override
+                    public Observable<Long> call(final RandomAccessFile target) {
+                        return Observable.from(plan.subList(1, plan.size()))
+                                .flatMap(new Func1<long[], Observable<Long>>() {
+                                    @Override
+                                    public Observable<Long> call(long[] range) {
+                                        return downloadRangeAsync(url, target.getChannel(), range[0], range[1]);
+                                    }
+                                }, parallelism);
+                    }
+                }, new Action1<RandomAccessFile>() {
+                    @Override
+                    public void call(RandomAccessFile target) {
+                        try {
+                            target.close();
+                        } catch (IOException e) {
+                            // The ranges are written, there is nothing to recover
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Gets the size of the blob and the ranges to download.
+     *
+     * @return the size of the blob as the end of a first range, then the ranges as inclusive start and end offsets
+     */
+    private List<long[]> planRanges(String url) throws IOException {
+        long size;
+        try (Response response = httpClient.newCall(new Request.Builder()
+                .url(url)
+                .head()
+                .header("x-ms-version", STORAGE_VERSION)
+                .build()).execute()) {
+            if (!response.isSuccessful()) {
+                throw new StorageRequestRetry.StatusCodeException("Cannot get the properties of the blob", response.code());
+            }
+            String length = response.header("x-ms-blob-content-length", response.header("Content-Length"));
+            if (length == null) {
+                throw new IOException("The size of the blob is unknown");
+            }
+            size = Long.parseLong(length);
+        }
+
+        List<long[]> plan = new ArrayList<>();
+        plan.add(new long[] {0, size});
+        List<long[]> written = pageRanges(url);
+        if (written == null) {
+            written = new ArrayList<>();
+            if (size > 0) {
+                written.add(new long[] {0, size - 1});
+            }
+        }
+        for (long[] range : written) {
+            for (long start = range[0]; start <= range[1]; start += chunkSize) {
+                plan.add(new long[] {start, Math.min(start + chunkSize - 1, range[1])});
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @return the ranges of a page blob that hold data, or null if the blob does not report them
+     */
+    private List<long[]> pageRanges(String url) throws IOException {
+        String pageListUrl = url + (url.indexOf('?') < 0 ? "?" : "&") + "comp=pagelist";
+        try (Response response = httpClient.newCall(new Request.Builder()
+                .url(pageListUrl)
+                .get()
+                .header("x-ms-version", STORAGE_VERSION)
+                .build()).execute()) {
+            if (response.code() != 200) {
+                return null;
+            }
+            String body = response.body().string();
+            if (!body.contains("<PageList")) {
+                return null;
+            }
+            List<long[]> ranges = new ArrayList<>();
+            Matcher matcher = PAGE_RANGE.matcher(body);
+            while (matcher.find()) {
+                ranges.add(new long[] {Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))});
+            }
+            return ranges;
+        }
+    }
+
+    private Observable<Long> downloadRangeAsync(final String url, final FileChannel channel, final long start, final long end) {
+        return Observable.fromCallable(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return downloadRange(url, channel, start, end);
+            }
+        }).subscribeOn(SdkContext.getRxScheduler()).retryWhen(new StorageRequestRetry(maxRetries, retryDelayMillis));
+    }
+
+    private long downloadRange(String url, FileChannel channel, long start, long end) throws IOException {
+        try (Response response = httpClient.newCall(new Request.Builder()
+                .url(url)
+                .get()
+                .header("Range", "bytes=" + start + "-" + end)
+                .header("x-ms-version", STORAGE_VERSION)
+                .build()).execute()) {
+            if (response.code() != 206 && !(response.code() == 200 && start == 0)) {
+                throw new StorageRequestRetry.StatusCodeException("Cannot download the range " + start + "-" + end, response.code());
+            }
+            long length = end - start + 1;
+            long position = start;
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            InputStream input = response.body().byteStream();
+            int read;
+            while (position <= end && (read = input.read(buffer, 0, (int) Math.min(buffer.length, end - position + 1))) != -1) {
+                ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+                while (bytes.hasRemaining()) {
+                    position += channel.write(bytes, position);
+                }
+            }
+            if (position != end + 1) {
+                throw new IOException("The range " + start + "-" + end + " ended after " + (position - start) + " of " + length + " bytes");
+            }
+            return length;
+        }
+    }
+}
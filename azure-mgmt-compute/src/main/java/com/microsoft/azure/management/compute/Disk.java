@@ -22,6 +22,7 @@ import com.microsoft.rest.ServiceFuture;
 import rx.Completable;
 import rx.Observable;
 
+import java.io.File;
 import java.util.Set;
 
 /**
@@ -119,6 +120,43 @@ public interface Disk extends
      */
     ServiceFuture<Void> revokeAccessAsync(ServiceCallback<Void> callback);
 
+    /**
+     * Exports the content of the disk into a file.
+     * <p>
+     * Access to the disk is granted for the duration of the export and revoked once the export completes or fails.
+     *
+     * @param file the file to write
+     * @param accessDurationInSeconds the access duration in seconds, long enough for the whole export
+     * @return the number of bytes downloaded, not counting the zero ranges skipped
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    long exportToFile(File file, int accessDurationInSeconds);
+
+    /**
+     * Exports the content of the disk into a file asynchronously.
+     * <p>
+     * Access to the disk is granted for the duration of the export and revoked once the export completes or fails.
+     *
+     * @param file the file to write
+     * @param accessDurationInSeconds the access duration in seconds, long enough for the whole export
+     * @return a representation of the deferred computation of this call emitting the number of bytes of every range written
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<Long> exportToFileAsync(File file, int accessDurationInSeconds);
+
+    /**
+     * Exports the content of the disk into a file asynchronously, using the given downloader.
+     * <p>
+     * Access to the disk is granted for the duration of the export and revoked once the export completes or fails.
+     *
+     * @param file the file to write
+     * @param accessDurationInSeconds the access duration in seconds, long enough for the whole export
+     * @param downloader the downloader with the chunk size, parallelism and retries to use
+     * @return a representation of the deferred computation of this call emitting the number of bytes of every range written
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<Long> exportToFileAsync(File file, int accessDurationInSeconds, BlobRangeDownloader downloader);
+
     /**
      * The entirety of the managed disk definition.
      */
@@ -206,6 +244,20 @@ public interface Disk extends
              * @return the next stage of the definition
              */
             WithCreateAndSize withWindowsFromVhd(String vhdUrl);
+
+            /**
+             * Specifies a local Windows OS VHD file to upload into a page blob, the blob is then the source of the disk.
+             * <p>
+             * The upload runs when the disk is created, before the disk creation request.
+             *
+             * @param vhdFile the local VHD file
+             * @param vhdUrl the URL of the page blob to create, without SAS token, which becomes the source of the disk
+             * @param sasToken the SAS token allowing to create and write the page blob, only used by the upload
+             * @param uploader the uploader with the chunk size, parallelism, retries and checkpoint to use
+             * @return the next stage of the definition
+             */
+            @Beta(Beta.SinceVersion.V1_4_0)
+            WithCreateAndSize withWindowsFromVhd(File vhdFile, String vhdUrl, String sasToken, PageBlobUploader uploader);
         }
 
         /**
@@ -251,6 +303,20 @@ public interface Disk extends
              * @return the next stage of the definition
              */
             WithCreateAndSize withLinuxFromVhd(String vhdUrl);
+
+            /**
+             * Specifies a local Linux OS VHD file to upload into a page blob, the blob is then the source of the disk.
+             * <p>
+             * The upload runs when the disk is created, before the disk creation request.
+             *
+             * @param vhdFile the local VHD file
+             * @param vhdUrl the URL of the page blob to create, without SAS token, which becomes the source of the disk
+             * @param sasToken the SAS token allowing to create and write the page blob, only used by the upload
+             * @param uploader the uploader with the chunk size, parallelism, retries and checkpoint to use
+             * @return the next stage of the definition
+             */
+            @Beta(Beta.SinceVersion.V1_4_0)
+            WithCreateAndSize withLinuxFromVhd(File vhdFile, String vhdUrl, String sasToken, PageBlobUploader uploader);
         }
 
         /**
@@ -292,6 +358,20 @@ public interface Disk extends
              * @return the next stage of the definition
              */
             WithCreateAndSize fromVhd(String vhdUrl);
+
+            /**
+             * Specifies a local data VHD file to upload into a page blob, the blob is then the source of the disk.
+             * <p>
+             * The upload runs when the disk is created, before the disk creation request.
+             *
+             * @param vhdFile the local VHD file
+             * @param vhdUrl the URL of the page blob to create, without SAS token, which becomes the source of the disk
+             * @param sasToken the SAS token allowing to create and write the page blob, only used by the upload
+             * @param uploader the uploader with the chunk size, parallelism, retries and checkpoint to use
+             * @return the next stage of the definition
+             */
+            @Beta(Beta.SinceVersion.V1_4_0)
+            WithCreateAndSize fromVhd(File vhdFile, String vhdUrl, String sasToken, PageBlobUploader uploader);
         }
 
         /**
@@ -0,0 +1,495 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.resources.fluentcore.utils.SdkContext;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.ByteString;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.functions.Func2;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads a local VHD file into a page blob by writing pages of the blob concurrently,
+ * so that it can be the source of a managed disk or an image.
+ * <p>
+ * The pages of the file that hold only zeros are not uploaded, the page blob stays sparse: every chunk
+ * is written as the ranges of consecutive pages that hold data.
+ * Every page write carries the MD5 of its content, which the storage service verifies.
+ * A page write failing with a transient error, a network failure, a throttled request or a server error,
+ * is sent again after a delay doubling with every retry.
+ * With a checkpoint file, the chunks written or found empty are recorded as they complete and an upload
+ * interrupted can be resumed with only the chunks left.
+ */
+@Beta(Beta.SinceVersion.V1_4_0)
+public final class PageBlobUploader {
+    /**
+     * The size in bytes of a page of a page blob, the size of the file must be a multiple of it.
+     */
+    public static final int PAGE_SIZE = 512;
+    /**
+     * The largest size in bytes of the range written by one page write, which is also the default.
+     */
+    public static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+    /**
+     * The default maximum number of page writes at the same time.
+     */
+    public static final int DEFAULT_PARALLELISM = 8;
+    /**
+     * The default number of times a failed page write is sent again.
+     */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    /**
+     * The default delay in milliseconds before the first retry of a request.
+     */
+    public static final int DEFAULT_RETRY_DELAY_MILLIS = 1000;
+
+    private static final String STORAGE_VERSION = "2016-05-31";
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
+    private final OkHttpClient httpClient;
+    private int chunkSize = MAX_CHUNK_SIZE;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private int retryDelayMillis = DEFAULT_RETRY_DELAY_MILLIS;
+    private File checkpointFile;
+
+    /**
+     * Creates an uploader with its own HTTP client.
+     */
+    public PageBlobUploader() {
+        this(new OkHttpClient.Builder()
+                .writeTimeout(2, TimeUnit.MINUTES)
+                .readTimeout(2, TimeUnit.MINUTES)
+                .build());
+    }
+
+    /**
+     * Creates an uploader sending its requests through the given HTTP client.
+     * <p>
+     * The SAS URL of the blob carries the authorization, the client must not add Azure Resource Manager credentials.
+     *
+     * @param httpClient the HTTP client
+     */
+    public PageBlobUploader(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Sets the size of the range written by one page write.
+     *
+     * @param chunkSize the size in bytes, a multiple of {@link #PAGE_SIZE} up to {@link #MAX_CHUNK_SIZE}
+     * @return the uploader itself
+     */
+    public PageBlobUploader withChunkSize(int chunkSize) {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE || chunkSize % PAGE_SIZE != 0) {
+            throw new IllegalArgumentException("chunkSize must be a multiple of " + PAGE_SIZE + " up to " + MAX_CHUNK_SIZE + ".");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Limits the number of page writes at the same time.
+     *
+     * @param parallelism the maximum number of page writes at the same time
+     * @return the uploader itself
+     */
+    public PageBlobUploader withParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive.");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the number of times a failed page write is sent again.
+     *
+     * @param maxRetries the number of retries of a page write, 0 to not retry
+     * @return the uploader itself
+     */
+    public PageBlobUploader withMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative.");
+        }
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * Sets the delay before the first retry of a request, the delay doubles with every retry.
+     *
+     * @param retryDelayMillis the delay in milliseconds before the first retry
+     * @return the uploader itself
+     */
+    public PageBlobUploader withRetryDelay(int retryDelayMillis) {
+        if (retryDelayMillis < 0) {
+            throw new IllegalArgumentException("retryDelayMillis must not be negative.");
+        }
+        this.retryDelayMillis = retryDelayMillis;
+        return this;
+    }
+
+    /**
+     * Records the pages written into a file, to resume an interrupted upload of the same VHD to the same blob.
+     * <p>
+     * The checkpoint file is deleted once the upload completes.
+     *
+     * @param checkpointFile the checkpoint file
+     * @return the uploader itself
+     */
+    public PageBlobUploader withCheckpointFile(File checkpointFile) {
+        this.checkpointFile = checkpointFile;
+        return this;
+    }
+
+    /**
+     * @return the size in bytes of the range written by one page write
+     */
+    public int chunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * @return the maximum number of page writes at the same time
+     */
+    public int parallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * @return the number of times a failed page write is sent again
+     */
+    public int maxRetries() {
+        return this.maxRetries;
+    }
+
+    /**
+     * @return the delay in milliseconds before the first retry of a request
+     */
+    public int retryDelay() {
+        return this.retryDelayMillis;
+    }
+
+    /**
+     * @return the checkpoint file, null if the upload is not checkpointed
+     */
+    public File checkpointFile() {
+        return this.checkpointFile;
+    }
+
+    /**
+     * Uploads a VHD file into a page blob, creating the blob.
+     *
+     * @param vhdFile the VHD file
+     * @param blobUrl the URL of the page blob, including a SAS token allowing to create and write it
+     * @return the number of bytes uploaded, not counting the empty pages skipped
+     */
+    public long upload(File vhdFile, String blobUrl) {
+        return uploadAsync(vhdFile, blobUrl).reduce(0L, new Func2<Long, Long, Long>() {
+            @Override
+            public Long call(Long total, Long bytes) {
+                return total + bytes;
+            }
+        }).toBlocking().single();
+    }
+
+    /**
+     * Uploads a VHD file into a page blob, creating the blob.
+     *
+     * @param vhdFile the VHD file
+     * @param blobUrl the URL of the page blob, without SAS token
+     * @param sasToken the SAS token allowing to create and write the blob
+     * @return the number of bytes uploaded, not counting the empty pages skipped
+     */
+    public long upload(File vhdFile, String blobUrl, String sasToken) {
+        return upload(vhdFile, withSasToken(blobUrl, sasToken));
+    }
+
+    /**
+     * Uploads a VHD file into a page blob asynchronously, creating the blob unless the upload resumes from a checkpoint.
+     *
+     * @param vhdFile the VHD file
+     * @param blobUrl the URL of the page blob, without SAS token
+     * @param sasToken the SAS token allowing to create and write the blob
+     * @return an observable that emits the number of bytes of every range as it is written
+     */
+    public Observable<Long> uploadAsync(File vhdFile, String blobUrl, String sasToken) {
+        return uploadAsync(vhdFile, withSasToken(blobUrl, sasToken));
+    }
+
+    /**
+     * Uploads a VHD file into a page blob asynchronously, creating the blob unless the upload resumes from a checkpoint.
+     *
+     * @param vhdFile the VHD file
+     * @param blobUrl the URL of the page blob, including a SAS token allowing to create and write it
+     * @return an observable that emits the number of bytes of every range as it is written
+     */
+    public Observable<Long> uploadAsync(final File vhdFile, final String blobUrl) {
+        return Observable.using(new Func0<Upload>() {
+            @Override
+            public Upload call() {
+                try {
+                    return new Upload(vhdFile, blobUrl);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot open " + vhdFile, e);
+                }
+            }
+        }, new Func1<Upload, Observable<Long>>() {
+            @Override
+            public Observable<Long> call(final Upload upload) {
+                final StorageRequestRetry retry = new StorageRequestRetry(maxRetries, retryDelayMillis);
+                return Observable.fromCallable(new Callable<List<Long>>() {
+                    @Override
+                    public List<Long> call() throws Exception {
+                        return upload.start();
+                    }
+                }).subscribeOn(SdkContext.getRxScheduler()).retryWhen(retry).flatMap(new Func1<List<Long>, Observable<Long>>() {
+                    @Override
+                    public Observable<Long> call(List<Long> offsets) {
+                        return Observable.from(offsets).flatMap(new Func1<Long, Observable<Long>>() {
+                            @Override
+                            public Observable<Long> call(final Long offset) {
+                                return Observable.fromCallable(new Callable<Long>() {
+                                    @Override
+                                    public Long call() throws Exception {
+                                        return upload.writeChunk(offset);
+                                    }
+                                }).subscribeOn(SdkContext.getRxScheduler()).retryWhen(retry);
+                            }
+                        }, parallelism);
+                    }
+                }).filter(new Func1<Long, Boolean>() {
+                    @Override
+                    public Boolean call(Long bytes) {
+                        return bytes > 0;
+                    }
+                }).doOnCompleted(new Action0() {
+                    @Override
+                    public void call() {
+                        upload.complete();
+                    }
+                });
+            }
+        }, new Action1<Upload>() {
+            @Override
+            public void call(Upload upload) {
+                upload.close();
+            }
+        });
+    }
+
+    private static String withSasToken(String blobUrl, String sasToken) {
+        if (blobUrl.indexOf('?') >= 0) {
+            throw new IllegalArgumentException("blobUrl must not include a query, pass the SAS token separately.");
+        }
+        if (sasToken == null || sasToken.isEmpty()) {
+            return blobUrl;
+        }
+        return blobUrl + (sasToken.startsWith("?") ? sasToken : "?" + sasToken);
+    }
+
+    /**
+     * The state of one upload: the VHD file open for reading and the checkpoint open for appending.
+     */
+    private final class Upload {
+        private final String blobUrl;
+        private final RandomAccessFile vhd;
+        private final long length;
+        private final String checkpointHeader;
+        private OutputStream checkpoint;
+
+        Upload(File vhdFile, String blobUrl) throws IOException {
+            this.blobUrl = blobUrl;
+            this.vhd = new RandomAccessFile(vhdFile, "r");
+            this.length = this.vhd.length();
+            // The query of the URL is a SAS token that may change between attempts
+            int query = blobUrl.indexOf('?');
+            this.checkpointHeader = this.length + " " + chunkSize + " " + (query < 0 ? blobUrl : blobUrl.substring(0, query));
+        }
+
+        /**
+         * Creates the page blob or reads the checkpoint.
+         *
+         * @return the offsets of the chunks left to write
+         */
+        List<Long> start() throws IOException {
+            if (length % PAGE_SIZE != 0) {
+                throw new IllegalArgumentException("The size of a VHD must be a multiple of " + PAGE_SIZE + " bytes.");
+            }
+            Set<Long> written = readCheckpoint();
+            if (written == null) {
+                createBlob();
+                if (checkpointFile != null) {
+                    checkpoint = new FileOutputStream(checkpointFile, false);
+                    appendCheckpoint(checkpointHeader);
+                }
+            } else {
+                checkpoint = new FileOutputStream(checkpointFile, true);
+            }
+            List<Long> offsets = new ArrayList<>();
+            for (long offset = 0; offset < length; offset += chunkSize) {
+                if (written == null || !written.contains(offset)) {
+                    offsets.add(offset);
+                }
+            }
+            return offsets;
+        }
+
+        /**
+         * @return the offsets of the chunks written, or null if there is no checkpoint of this upload
+         */
+        private Set<Long> readCheckpoint() throws IOException {
+            if (checkpointFile == null || !checkpointFile.isFile()) {
+                return null;
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(checkpointFile), StandardCharsets.UTF_8))) {
+                if (!checkpointHeader.equals(reader.readLine())) {
+                    return null;
+                }
+                Set<Long> written = new HashSet<>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // A line cut short by an interruption is not a chunk written
+                    if (line.endsWith(";")) {
+                        written.add(Long.parseLong(line.substring(0, line.length() - 1)));
+                    }
+                }
+                return written;
+            }
+        }
+
+        private void createBlob() throws IOException {
+            try (Response response = httpClient.newCall(new Request.Builder()
+                    .url(blobUrl)
+                    .put(RequestBody.create(OCTET_STREAM, new byte[0]))
+                    .header("x-ms-blob-type", "PageBlob")
+                    .header("x-ms-blob-content-length", String.valueOf(length))
+                    .header("x-ms-version", STORAGE_VERSION)
+                    .build()).execute()) {
+                if (response.code() != 201) {
+                    throw new StorageRequestRetry.StatusCodeException("Cannot create the page blob", response.code());
+                }
+            }
+        }
+
+        /**
+         * Writes the ranges of pages of a chunk that are not empty and records the chunk in the checkpoint.
+         *
+         * @return the number of bytes written, 0 if the chunk is empty
+         */
+        long writeChunk(long offset) throws IOException {
+            int size = (int) Math.min(chunkSize, length - offset);
+            byte[] content = new byte[size];
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            FileChannel channel = vhd.getChannel();
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("The VHD ended before " + (offset + size) + " bytes");
+                }
+            }
+            long written = 0;
+            int rangeStart = -1;
+            for (int page = 0; page <= size; page += PAGE_SIZE) {
+                boolean empty = page == size || isEmpty(content, page, PAGE_SIZE);
+                if (!empty && rangeStart < 0) {
+                    rangeStart = page;
+                } else if (empty && rangeStart >= 0) {
+                    writePages(offset, content, rangeStart, page - rangeStart);
+                    written += page - rangeStart;
+                    rangeStart = -1;
+                }
+            }
+            // The empty chunks are recorded as well, so that a resumed upload does not read them again
+            appendCheckpoint(offset + ";");
+            return written;
+        }
+
+        private void writePages(long chunkOffset, byte[] content, int start, int size) throws IOException {
+            String md5 = ByteString.of(content, start, size).md5().base64();
+            String range = "bytes=" + (chunkOffset + start) + "-" + (chunkOffset + start + size - 1);
+            try (Response response = httpClient.newCall(new Request.Builder()
+                    .url(blobUrl + (blobUrl.indexOf('?') < 0 ? "?" : "&") + "comp=page")
+                    .put(RequestBody.create(OCTET_STREAM, content, start, size))
+                    .header("x-ms-page-write", "update")
+                    .header("x-ms-range", range)
+                    .header("Content-MD5", md5)
+                    .header("x-ms-version", STORAGE_VERSION)
+                    .build()).execute()) {
+                if (response.code() != 201) {
+                    throw new StorageRequestRetry.StatusCodeException("Cannot write the pages " + range, response.code());
+                }
+                String echoed = response.header("Content-MD5");
+                if (echoed != null && !echoed.equals(md5)) {
+                    throw new IOException("The MD5 of the pages " + range + " does not match, sent " + md5 + ", stored " + echoed);
+                }
+            }
+        }
+
+        private boolean isEmpty(byte[] content, int start, int size) {
+            for (int i = start; i < start + size; i++) {
+                if (content[i] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private synchronized void appendCheckpoint(String line) throws IOException {
+            if (checkpoint != null) {
+                checkpoint.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                checkpoint.flush();
+            }
+        }
+
+        synchronized void complete() {
+            close();
+            if (checkpointFile != null) {
+                checkpointFile.delete();
+            }
+        }
+
+        synchronized void close() {
+            try {
+                vhd.close();
+                if (checkpoint != null) {
+                    checkpoint.close();
+                    checkpoint = null;
+                }
+            } catch (IOException e) {
+                // Nothing to recover, the pages written are recorded
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A command to run on virtual machines, such as a shell script or one of the predefined commands
+ * of the Run Command service.
+ */
+@Beta(Beta.SinceVersion.V1_4_0)
+public final class RunCommandInput {
+    private String commandId;
+    private List<String> script;
+    private final List<RunCommandInputParameter> parameters = new ArrayList<>();
+
+    /**
+     * Sets the command to run.
+     *
+     * @param commandId the ID of the command, such as "RunShellScript", "RunPowerShellScript" or "ifconfig"
+     * @return the input itself
+     */
+    public RunCommandInput withCommandId(String commandId) {
+        if (commandId == null || commandId.isEmpty()) {
+            throw new IllegalArgumentException("commandId must not be empty.");
+        }
+        this.commandId = commandId;
+        return this;
+    }
+
+    /**
+     * Sets the script the command runs.
+     *
+     * @param scriptLines the lines of the script
+     * @return the input itself
+     */
+    public RunCommandInput withScript(List<String> scriptLines) {
+        this.script = scriptLines == null ? null : new ArrayList<>(scriptLines);
+        return this;
+    }
+
+    /**
+     * Sets the script the command runs.
+     *
+     * @param scriptLines the lines of the script
+     * @return the input itself
+     */
+    public RunCommandInput withScript(String... scriptLines) {
+        return this.withScript(Arrays.asList(scriptLines));
+    }
+
+    /**
+     * Adds a parameter of the command.
+     *
+     * @param name the name of the parameter
+     * @param value the value of the parameter
+     * @return the input itself
+     */
+    public RunCommandInput withParameter(String name, String value) {
+        this.parameters.add(new RunCommandInputParameter().withName(name).withValue(value));
+        return this;
+    }
+
+    /**
+     * Adds parameters of the command.
+     *
+     * @param parameters the parameters
+     * @return the input itself
+     */
+    public RunCommandInput withParameters(List<RunCommandInputParameter> parameters) {
+        if (parameters != null) {
+            this.parameters.addAll(parameters);
+        }
+        return this;
+    }
+
+    /**
+     * @return the ID of the command
+     */
+    public String commandId() {
+        return this.commandId;
+    }
+
+    /**
+     * @return the lines of the script the command runs, null if the command runs no script
+     */
+    public List<String> script() {
+        return this.script == null ? null : Collections.unmodifiableList(this.script);
+    }
+
+    /**
+     * @return the parameters of the command
+     */
+    public List<RunCommandInputParameter> parameters() {
+        return Collections.unmodifiableList(this.parameters);
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.apigeneration.Fluent;
+import com.microsoft.azure.management.compute.implementation.RunCommandResultInner;
+import com.microsoft.azure.management.resources.fluentcore.model.HasInner;
+
+/**
+ * The result of running a command or a script on a virtual machine.
+ */
+@Fluent
+@Beta(Beta.SinceVersion.V1_4_0)
+public interface RunCommandResult extends HasInner<RunCommandResultInner> {
+    /**
+     * @return the resource ID of the virtual machine the command ran on
+     */
+    String virtualMachineId();
+
+    /**
+     * @return the status of the run command operation, null if it failed
+     */
+    String status();
+
+    /**
+     * @return the output of the command, null if it failed
+     */
+    Object output();
+
+    /**
+     * @return the error the command failed with when it ran on many virtual machines at once, null otherwise
+     */
+    Throwable error();
+}
@@ -6,6 +6,7 @@
 
 package com.microsoft.azure.management.compute;
 
+import com.microsoft.azure.management.apigeneration.Beta;
 import com.microsoft.azure.management.apigeneration.Fluent;
 import com.microsoft.azure.management.compute.implementation.ComputeManager;
 import com.microsoft.azure.management.compute.implementation.SnapshotInner;
@@ -20,6 +21,8 @@ import com.microsoft.rest.ServiceFuture;
 import rx.Completable;
 import rx.Observable;
 
+import java.io.File;
+
 /**
  * An immutable client-side representation of an Azure managed snapshot.
  */
@@ -98,6 +101,43 @@ public interface Snapshot extends
      */
     ServiceFuture<Void> revokeAccessAsync(ServiceCallback<Void> callback);
 
+    /**
+     * Exports the content of the snapshot into a file.
+     * <p>
+     * Access to the snapshot is granted for the duration of the export and revoked once the export completes or fails.
+     *
+     * @param file the file to write
+     * @param accessDurationInSeconds the access duration in seconds, long enough for the whole export
+     * @return the number of bytes downloaded, not counting the zero ranges skipped
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    long exportToFile(File file, int accessDurationInSeconds);
+
+    /**
+     * Exports the content of the snapshot into a file asynchronously.
+     * <p>
+     * Access to the snapshot is granted for the duration of the export and revoked once the export completes or fails.
+     *
+     * @param file the file to write
+     * @param accessDurationInSeconds the access duration in seconds, long enough for the whole export
+     * @return a representation of the deferred computation of this call emitting the number of bytes of every range written
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<Long> exportToFileAsync(File file, int accessDurationInSeconds);
+
+    /**
+     * Exports the content of the snapshot into a file asynchronously, using the given downloader.
+     * <p>
+     * Access to the snapshot is granted for the duration of the export and revoked once the export completes or fails.
+     *
+     * @param file the file to write
+     * @param accessDurationInSeconds the access duration in seconds, long enough for the whole export
+     * @param downloader the downloader with the chunk size, parallelism and retries to use
+     * @return a representation of the deferred computation of this call emitting the number of bytes of every range written
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<Long> exportToFileAsync(File file, int accessDurationInSeconds, BlobRangeDownloader downloader);
+
     /**
      * The entirety of the managed snapshot definition.
      */
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.management.resources.fluentcore.utils.SdkContext;
+import rx.Observable;
+import rx.functions.Func1;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Retries the requests to the storage service that fail with a transient error, a network failure,
+ * a throttled request (429) or a server error (5xx), waiting twice as long before every retry.
+ * <p>
+ * Other errors, such as an expired or read-only SAS token (403), are not retried.
+ */
+final class StorageRequestRetry implements Func1<Observable<? extends Throwable>, Observable<?>> {
+    private static final int MAX_RETRY_DELAY_MILLIS = 60 * 1000;
+
+    private final int maxRetries;
+    private final int retryDelayMillis;
+
+    /**
+     * @param maxRetries the number of retries, 0 to not retry
+     * @param retryDelayMillis the delay in milliseconds before the first retry
+     */
+    StorageRequestRetry(int maxRetries, int retryDelayMillis) {
+        this.maxRetries = maxRetries;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    @Override
+    public Observable<?> call(Observable<? extends Throwable> errors) {
+        // Called once per subscription, so every request counts its own attempts
+        final AtomicInteger retries = new AtomicInteger();
+        return errors.flatMap(new Func1<Throwable, Observable<Boolean>>() {
+            @Override
+            public Observable<Boolean> call(Throwable error) {
+                int retry = retries.incrementAndGet();
+                if (retry > maxRetries || !isTransient(error)) {
+                    return Observable.error(error);
+                }
+                long delay = (long) retryDelayMillis << Math.min(retry - 1, 16);
+                return SdkContext.delayedEmitAsync(true, (int) Math.min(delay, MAX_RETRY_DELAY_MILLIS));
+            }
+        });
+    }
+
+    private static boolean isTransient(Throwable error) {
+        if (error instanceof StatusCodeException) {
+            int statusCode = ((StatusCodeException) error).statusCode();
+            return statusCode == 429 || statusCode >= 500;
+        }
+        return error instanceof IOException;
+    }
+
+    /**
+     * A request answered by the storage service with an unexpected status code.
+     */
+    static final class StatusCodeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        StatusCodeException(String message, int statusCode) {
+            super(message + ", status code " + statusCode);
+            this.statusCode = statusCode;
+        }
+
+        int statusCode() {
+            return this.statusCode;
+        }
+    }
+}
@@ -30,6 +30,7 @@ import com.microsoft.rest.ServiceFuture;
 import rx.Completable;
 import rx.Observable;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -163,6 +164,64 @@ public interface VirtualMachine extends
      */
     ServiceFuture<Void> redeployAsync(ServiceCallback<Void> callback);
 
+    /**
+     * Runs a command on the virtual machine.
+     *
+     * @param inputCommand the command to run
+     * @return the result of the command
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    RunCommandResult runCommand(RunCommandInput inputCommand);
+
+    /**
+     * Runs a command on the virtual machine asynchronously.
+     *
+     * @param inputCommand the command to run
+     * @return an observable that emits the result of the command once it completes
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<RunCommandResult> runCommandAsync(RunCommandInput inputCommand);
+
+    /**
+     * Runs a shell script on the Linux virtual machine.
+     *
+     * @param scriptLines the lines of the script
+     * @param scriptParameters the parameters of the script, or null
+     * @return the result of the script
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    RunCommandResult runShellScript(List<String> scriptLines, List<RunCommandInputParameter> scriptParameters);
+
+    /**
+     * Runs a shell script on the Linux virtual machine asynchronously.
+     *
+     * @param scriptLines the lines of the script
+     * @param scriptParameters the parameters of the script, or null
+     * @return an observable that emits the result of the script once it completes
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<RunCommandResult> runShellScriptAsync(List<String> scriptLines, List<RunCommandInputParameter> scriptParameters);
+
+    /**
+     * Runs a PowerShell script on the Windows virtual machine.
+     *
+     * @param scriptLines the lines of the script
+     * @param scriptParameters the parameters of the script, or null
+     * @return the result of the script
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    RunCommandResult runPowerShellScript(List<String> scriptLines, List<RunCommandInputParameter> scriptParameters);
+
+    /**
+     * Runs a PowerShell script on the Windows virtual machine asynchronously.
+     *
+     * @param scriptLines the lines of the script
+     * @param scriptParameters the parameters of the script, or null
+     * @return an observable that emits the result of the script once it completes
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<RunCommandResult> runPowerShellScriptAsync(List<String> scriptLines, List<RunCommandInputParameter> scriptParameters);
+
     /**
      * @return entry point to enabling, disabling and querying disk encryption
      */
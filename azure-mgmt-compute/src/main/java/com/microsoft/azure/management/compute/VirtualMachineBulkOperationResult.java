@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.apigeneration.Fluent;
+
+/**
+ * The outcome of one attempt of an operation applied to many virtual machines at once.
+ */
+@Fluent
+@Beta(Beta.SinceVersion.V1_4_0)
+public interface VirtualMachineBulkOperationResult {
+    /**
+     * The outcomes of an attempt.
+     */
+    enum Outcome {
+        /** The operation succeeded. */
+        SUCCEEDED,
+        /** The attempt failed with a transient error, the operation will be retried. */
+        RETRIED,
+        /** The operation failed and will not be retried. */
+        FAILED
+    }
+
+    /**
+     * @return the resource ID of the virtual machine
+     */
+    String virtualMachineId();
+
+    /**
+     * @return the outcome of the attempt
+     */
+    Outcome outcome();
+
+    /**
+     * @return the number of the attempt, starting at 1
+     */
+    int attempt();
+
+    /**
+     * @return the error of a retried or failed attempt, null if the operation succeeded
+     */
+    Throwable error();
+}
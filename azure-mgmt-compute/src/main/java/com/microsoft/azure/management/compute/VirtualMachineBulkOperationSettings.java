@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+
+/**
+ * The settings of an operation applied to many virtual machines at once, such as deallocating
+ * all the virtual machines of a list.
+ */
+@Beta(Beta.SinceVersion.V1_4_0)
+public final class VirtualMachineBulkOperationSettings {
+    /**
+     * The default maximum number of virtual machines operated on at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+    /**
+     * The default number of times the operation on a virtual machine is retried after a transient failure.
+     */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    /**
+     * The default delay in milliseconds before the first retry, when the service does not ask for one.
+     */
+    public static final int DEFAULT_RETRY_DELAY_MILLIS = 10000;
+
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private int startIntervalPerSubscriptionMillis;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private int retryDelayMillis = DEFAULT_RETRY_DELAY_MILLIS;
+
+    /**
+     * Limits the number of virtual machines operated on at the same time.
+     *
+     * @param maxConcurrency the maximum number of virtual machines operated on at the same time
+     * @return the settings themselves
+     */
+    public VirtualMachineBulkOperationSettings withMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive.");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * Paces the requests sent to each subscription by spacing out the start of the operations.
+     *
+     * @param startIntervalMillis the minimum time in milliseconds between the starts of two operations
+     *                            on virtual machines of the same subscription, 0 to not pace
+     * @return the settings themselves
+     */
+    public VirtualMachineBulkOperationSettings withStartIntervalPerSubscription(int startIntervalMillis) {
+        if (startIntervalMillis < 0) {
+            throw new IllegalArgumentException("startIntervalMillis must not be negative.");
+        }
+        this.startIntervalPerSubscriptionMillis = startIntervalMillis;
+        return this;
+    }
+
+    /**
+     * Sets how the operations failing with a transient error, such as throttling, are retried.
+     * <p>
+     * When the service does not say when to retry, the delay doubles with every retry.
+     *
+     * @param maxRetries the number of times the operation on a virtual machine is retried, 0 to not retry
+     * @param retryDelayMillis the delay in milliseconds before the first retry
+     * @return the settings themselves
+     */
+    public VirtualMachineBulkOperationSettings withRetries(int maxRetries, int retryDelayMillis) {
+        if (maxRetries < 0 || retryDelayMillis < 0) {
+            throw new IllegalArgumentException("maxRetries and retryDelayMillis must not be negative.");
+        }
+        this.maxRetries = maxRetries;
+        this.retryDelayMillis = retryDelayMillis;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of virtual machines operated on at the same time
+     */
+    public int maxConcurrency() {
+        return this.maxConcurrency;
+    }
+
+    /**
+     * @return the minimum time in milliseconds between the starts of two operations in the same subscription
+     */
+    public int startIntervalPerSubscription() {
+        return this.startIntervalPerSubscriptionMillis;
+    }
+
+    /**
+     * @return the number of times the operation on a virtual machine is retried
+     */
+    public int maxRetries() {
+        return this.maxRetries;
+    }
+
+    /**
+     * @return the delay in milliseconds before the first retry
+     */
+    public int retryDelay() {
+        return this.retryDelayMillis;
+    }
+}
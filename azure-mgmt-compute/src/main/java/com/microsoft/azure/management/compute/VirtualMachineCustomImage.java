@@ -6,6 +6,7 @@
 
 package com.microsoft.azure.management.compute;
 
+import com.microsoft.azure.management.apigeneration.Beta;
 import com.microsoft.azure.management.apigeneration.Fluent;
 import com.microsoft.azure.management.apigeneration.Method;
 import com.microsoft.azure.management.compute.implementation.ComputeManager;
@@ -18,6 +19,7 @@ import com.microsoft.azure.management.resources.fluentcore.model.Creatable;
 import com.microsoft.azure.management.resources.fluentcore.model.Refreshable;
 import com.microsoft.azure.management.resources.fluentcore.model.HasInner;
 
+import java.io.File;
 import java.util.Map;
 
 /**
@@ -98,6 +100,21 @@ public interface VirtualMachineCustomImage extends
              */
             WithCreateAndDataDiskImageOSDiskSettings withWindowsFromVhd(String sourceVhdUrl, OperatingSystemStateTypes osState);
 
+            /**
+             * Specifies a local Windows VHD file to upload into a page blob, the blob is then the source of the OS disk image.
+             * <p>
+             * The upload runs when the image is created, before the image creation request.
+             *
+             * @param vhdFile the local Windows VHD file
+             * @param sourceVhdUrl the URL of the page blob to create, without SAS token, which becomes the source of the image
+             * @param sasToken the SAS token allowing to create and write the page blob, only used by the upload
+             * @param osState operating system state
+             * @param uploader the uploader with the chunk size, parallelism, retries and checkpoint to use
+             * @return the next stage of the definition
+             */
+            @Beta(Beta.SinceVersion.V1_4_0)
+            WithCreateAndDataDiskImageOSDiskSettings withWindowsFromVhd(File vhdFile, String sourceVhdUrl, String sasToken, OperatingSystemStateTypes osState, PageBlobUploader uploader);
+
             /**
              * Specifies the Linux source native VHD for the OS disk image.
              *
@@ -107,6 +124,21 @@ public interface VirtualMachineCustomImage extends
              */
             WithCreateAndDataDiskImageOSDiskSettings withLinuxFromVhd(String sourceVhdUrl, OperatingSystemStateTypes osState);
 
+            /**
+             * Specifies a local Linux VHD file to upload into a page blob, the blob is then the source of the OS disk image.
+             * <p>
+             * The upload runs when the image is created, before the image creation request.
+             *
+             * @param vhdFile the local Linux VHD file
+             * @param sourceVhdUrl the URL of the page blob to create, without SAS token, which becomes the source of the image
+             * @param sasToken the SAS token allowing to create and write the page blob, only used by the upload
+             * @param osState operating system state
+             * @param uploader the uploader with the chunk size, parallelism, retries and checkpoint to use
+             * @return the next stage of the definition
+             */
+            @Beta(Beta.SinceVersion.V1_4_0)
+            WithCreateAndDataDiskImageOSDiskSettings withLinuxFromVhd(File vhdFile, String sourceVhdUrl, String sasToken, OperatingSystemStateTypes osState, PageBlobUploader uploader);
+
             /**
              * Specifies the Windows source snapshot for the OS disk image.
              *
@@ -6,14 +6,43 @@
 
 package com.microsoft.azure.management.compute;
 
+import com.microsoft.azure.PagedList;
+import com.microsoft.azure.management.apigeneration.Beta;
 import com.microsoft.azure.management.apigeneration.Fluent;
 import com.microsoft.azure.management.resources.fluentcore.collection.SupportsListingByRegion;
+import rx.Observable;
 
 /**
  *  Entry point to virtual machine extension image management.
  */
 @Fluent
 public interface VirtualMachineExtensionImages extends SupportsListingByRegion<VirtualMachineExtensionImage> {
+    /**
+     * Lists all the virtual machine extension images available in a region, loading the extension types and versions
+     * of up to the given number of parents in parallel.
+     *
+     * @param regionName the name of the region
+     * @param maxConcurrency the maximum number of child lists loaded in parallel at each level
+     * @param preserveOrder true to list the images in catalog order, false to list them in the
+     *                      order their child lists are loaded
+     * @return the list of virtual machine extension images
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    PagedList<VirtualMachineExtensionImage> listByRegion(String regionName, int maxConcurrency, boolean preserveOrder);
+
+    /**
+     * Lists all the virtual machine extension images available in a region asynchronously, loading the
+     * extension types and versions of up to the given number of parents in parallel.
+     * <p>
+     * The images are emitted as soon as they are loaded, not in catalog order.
+     *
+     * @param regionName the name of the region
+     * @param maxConcurrency the maximum number of child lists loaded in parallel at each level
+     * @return an observable that emits the virtual machine extension images
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineExtensionImage> listByRegionAsync(String regionName, int maxConcurrency);
+
     /**
      * @return entry point to virtual machine extension image publishers
      */
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.apigeneration.Fluent;
+
+import java.util.List;
+
+/**
+ * A locally cached view of the virtual machine image and extension image catalog.
+ * <p>
+ * The publishers, offers, SKUs, image versions, extension types and extension versions of
+ * a region are listed once and persisted to a local cache file, so that lookups are served
+ * from memory. The catalog of a region is listed again once its time to live has elapsed;
+ * while one caller refreshes it, the other callers keep being served the expired catalog.
+ */
+@Fluent
+@Beta(Beta.SinceVersion.V1_4_0)
+public interface VirtualMachineImageCatalog {
+    /**
+     * Lists the names of the image publishers available in a region.
+     *
+     * @param regionName the name of the region
+     * @return the publisher names
+     */
+    List<String> publisherNames(String regionName);
+
+    /**
+     * Lists the names of the image offers of a publisher.
+     *
+     * @param regionName the name of the region
+     * @param publisherName the publisher name
+     * @return the offer names, empty if the publisher is unknown
+     */
+    List<String> offerNames(String regionName, String publisherName);
+
+    /**
+     * Lists the names of the SKUs of an image offer.
+     *
+     * @param regionName the name of the region
+     * @param publisherName the publisher name
+     * @param offerName the offer name
+     * @return the SKU names, empty if the offer is unknown
+     */
+    List<String> skuNames(String regionName, String publisherName, String offerName);
+
+    /**
+     * Lists the image versions of a SKU, from the oldest to the latest.
+     *
+     * @param regionName the name of the region
+     * @param publisherName the publisher name
+     * @param offerName the offer name
+     * @param skuName the SKU name
+     * @return the image versions, empty if the SKU is unknown
+     */
+    List<String> imageVersions(String regionName, String publisherName, String offerName, String skuName);
+
+    /**
+     * Gets the latest image version of a SKU.
+     *
+     * @param regionName the name of the region
+     * @param publisherName the publisher name
+     * @param offerName the offer name
+     * @param skuName the SKU name
+     * @return the latest image version, null if the SKU is unknown or has no images
+     */
+    String latestImageVersion(String regionName, String publisherName, String offerName, String skuName);
+
+    /**
+     * Lists the names of the extension image types of a publisher.
+     *
+     * @param regionName the name of the region
+     * @param publisherName the publisher name
+     * @return the extension image type names, empty if the publisher is unknown
+     */
+    List<String> extensionTypeNames(String regionName, String publisherName);
+
+    /**
+     * Lists the versions of an extension image type, from the oldest to the latest.
+     *
+     * @param regionName the name of the region
+     * @param publisherName the publisher name
+     * @param typeName the extension image type name
+     * @return the extension image versions, empty if the type is unknown
+     */
+    List<String> extensionVersions(String regionName, String publisherName, String typeName);
+
+    /**
+     * Gets the latest version of an extension image type.
+     *
+     * @param regionName the name of the region
+     * @param publisherName the publisher name
+     * @param typeName the extension image type name
+     * @return the latest extension image version, null if the type is unknown or has no versions
+     */
+    String latestExtensionVersion(String regionName, String publisherName, String typeName);
+
+    /**
+     * Refreshes the cached catalog of a region now, regardless of its time to live.
+     *
+     * @param regionName the name of the region
+     */
+    void refresh(String regionName);
+
+    /**
+     * Discards the cached catalog of a region, both in memory and on disk, so that the
+     * next lookup lists the whole catalog of the region again.
+     *
+     * @param regionName the name of the region
+     */
+    void invalidate(String regionName);
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.apigeneration.Fluent;
+
+/**
+ * The power and provisioning state of a virtual machine instance in a scale set, as listed
+ * together with the instance views of all the instances.
+ */
+@Fluent
+@Beta(Beta.SinceVersion.V1_4_0)
+public interface VirtualMachineScaleSetVMInstanceState {
+    /**
+     * @return the resource ID of the virtual machine instance
+     */
+    String id();
+
+    /**
+     * @return the instance ID of the virtual machine instance
+     */
+    String instanceId();
+
+    /**
+     * @return the name of the virtual machine instance
+     */
+    String name();
+
+    /**
+     * @return the power state of the virtual machine instance
+     */
+    PowerState powerState();
+
+    /**
+     * @return the provisioning state of the virtual machine instance
+     */
+    String provisioningState();
+
+    /**
+     * @return true if the latest scale set model is applied to the virtual machine instance
+     */
+    boolean isLatestScaleSetUpdateApplied();
+}
@@ -6,12 +6,14 @@
 
 package com.microsoft.azure.management.compute;
 
+import com.microsoft.azure.PagedList;
 import com.microsoft.azure.management.apigeneration.Beta;
 import com.microsoft.azure.management.apigeneration.Fluent;
 import com.microsoft.azure.management.compute.implementation.VirtualMachineScaleSetVMsInner;
 import com.microsoft.azure.management.resources.fluentcore.collection.SupportsListing;
 import com.microsoft.azure.management.resources.fluentcore.model.HasInner;
 import rx.Completable;
+import rx.Observable;
 
 import java.util.Collection;
 
@@ -22,6 +24,49 @@ import java.util.Collection;
 public interface VirtualMachineScaleSetVMs extends
         SupportsListing<VirtualMachineScaleSetVM>,
     HasInner<VirtualMachineScaleSetVMsInner> {
+    /**
+     * Lists the virtual machine instances of the scale set, with the listing options passed through to the service.
+     * <p>
+     * When the instance views are expanded, the instance view and the power state of the instances listed are
+     * available without a request per instance.
+     *
+     * @param filter the OData filter of the instances to list, or null to list all the instances
+     * @param select the OData select expression, or null to select all the properties
+     * @param expand the expand option, {@link InstanceViewTypes#INSTANCE_VIEW} to include the instance views, or null
+     * @return the virtual machine instances
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    PagedList<VirtualMachineScaleSetVM> list(String filter, String select, InstanceViewTypes expand);
+
+    /**
+     * Lists the virtual machine instances of the scale set, with the listing options passed through to the service.
+     *
+     * @param filter the OData filter of the instances to list, or null to list all the instances
+     * @param select the OData select expression, or null to select all the properties
+     * @param expand the expand option, {@link InstanceViewTypes#INSTANCE_VIEW} to include the instance views, or null
+     * @return an observable that emits the virtual machine instances
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineScaleSetVM> listAsync(String filter, String select, InstanceViewTypes expand);
+
+    /**
+     * Lists the power and provisioning states of all the virtual machine instances of the scale set, in one
+     * sweep through the pages of the instances with their instance views.
+     *
+     * @return the states of the virtual machine instances
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    PagedList<VirtualMachineScaleSetVMInstanceState> listInstanceStates();
+
+    /**
+     * Lists the power and provisioning states of all the virtual machine instances of the scale set, in one
+     * sweep through the pages of the instances with their instance views.
+     *
+     * @return an observable that emits the states of the virtual machine instances
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineScaleSetVMInstanceState> listInstanceStatesAsync();
+
     /**
      * Deletes the specified virtual machine instances from the scale set.
      *
@@ -6,6 +6,7 @@
 
 package com.microsoft.azure.management.compute;
 
+import com.microsoft.azure.management.apigeneration.Beta;
 import com.microsoft.azure.management.apigeneration.Fluent;
 import com.microsoft.azure.management.compute.implementation.ComputeManager;
 import com.microsoft.azure.management.compute.implementation.VirtualMachinesInner;
@@ -25,6 +26,9 @@ import com.microsoft.rest.ServiceFuture;
 import rx.Completable;
 import rx.Observable;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  *  Entry point to virtual machine management API.
  */
@@ -274,4 +278,236 @@ public interface VirtualMachines extends
      * @return a handle to cancel the request
      */
     ServiceFuture<Void> migrateToManagedAsync(String groupName, String name, ServiceCallback<Void> callback);
+
+    /**
+     * Shuts down the virtual machines and releases their compute resources asynchronously, with the default settings of
+     * {@link VirtualMachineBulkOperationSettings}.
+     * <p>
+     * A failure on one virtual machine does not stop the others.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @return an observable that emits the outcome of every attempt on every virtual machine
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineBulkOperationResult> deallocateAsync(Collection<String> ids);
+
+    /**
+     * Shuts down the virtual machines and releases their compute resources asynchronously.
+     * <p>
+     * A failure on one virtual machine does not stop the others.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @param settings the concurrency, pacing and retry settings
+     * @return an observable that emits the outcome of every attempt on every virtual machine
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineBulkOperationResult> deallocateAsync(Collection<String> ids, VirtualMachineBulkOperationSettings settings);
+
+    /**
+     * Powers off the virtual machines asynchronously, with the default settings of
+     * {@link VirtualMachineBulkOperationSettings}.
+     * <p>
+     * A failure on one virtual machine does not stop the others.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @return an observable that emits the outcome of every attempt on every virtual machine
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineBulkOperationResult> powerOffAsync(Collection<String> ids);
+
+    /**
+     * Powers off the virtual machines asynchronously.
+     * <p>
+     * A failure on one virtual machine does not stop the others.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @param settings the concurrency, pacing and retry settings
+     * @return an observable that emits the outcome of every attempt on every virtual machine
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineBulkOperationResult> powerOffAsync(Collection<String> ids, VirtualMachineBulkOperationSettings settings);
+
+    /**
+     * Restarts the virtual machines asynchronously, with the default settings of
+     * {@link VirtualMachineBulkOperationSettings}.
+     * <p>
+     * A failure on one virtual machine does not stop the others.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @return an observable that emits the outcome of every attempt on every virtual machine
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineBulkOperationResult> restartAsync(Collection<String> ids);
+
+    /**
+     * Restarts the virtual machines asynchronously.
+     * <p>
+     * A failure on one virtual machine does not stop the others.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @param settings the concurrency, pacing and retry settings
+     * @return an observable that emits the outcome of every attempt on every virtual machine
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineBulkOperationResult> restartAsync(Collection<String> ids, VirtualMachineBulkOperationSettings settings);
+
+    /**
+     * Starts the virtual machines asynchronously, with the default settings of
+     * {@link VirtualMachineBulkOperationSettings}.
+     * <p>
+     * A failure on one virtual machine does not stop the others.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @return an observable that emits the outcome of every attempt on every virtual machine
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineBulkOperationResult> startAsync(Collection<String> ids);
+
+    /**
+     * Starts the virtual machines asynchronously.
+     * <p>
+     * A failure on one virtual machine does not stop the others.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @param settings the concurrency, pacing and retry settings
+     * @return an observable that emits the outcome of every attempt on every virtual machine
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineBulkOperationResult> startAsync(Collection<String> ids, VirtualMachineBulkOperationSettings settings);
+
+    /**
+     * Redeploys the virtual machines asynchronously, with the default settings of
+     * {@link VirtualMachineBulkOperationSettings}.
+     * <p>
+     * A failure on one virtual machine does not stop the others.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @return an observable that emits the outcome of every attempt on every virtual machine
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineBulkOperationResult> redeployAsync(Collection<String> ids);
+
+    /**
+     * Redeploys the virtual machines asynchronously.
+     * <p>
+     * A failure on one virtual machine does not stop the others.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @param settings the concurrency, pacing and retry settings
+     * @return an observable that emits the outcome of every attempt on every virtual machine
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<VirtualMachineBulkOperationResult> redeployAsync(Collection<String> ids, VirtualMachineBulkOperationSettings settings);
+
+    /**
+     * Runs a command on a virtual machine.
+     *
+     * @param groupName the name of the resource group the virtual machine is in
+     * @param name the virtual machine name
+     * @param inputCommand the command to run
+     * @return the result of the command
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    RunCommandResult runCommand(String groupName, String name, RunCommandInput inputCommand);
+
+    /**
+     * Runs a command on a virtual machine asynchronously.
+     *
+     * @param groupName the name of the resource group the virtual machine is in
+     * @param name the virtual machine name
+     * @param inputCommand the command to run
+     * @return an observable that emits the result of the command once it completes
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<RunCommandResult> runCommandAsync(String groupName, String name, RunCommandInput inputCommand);
+
+    /**
+     * Runs a shell script on a Linux virtual machine.
+     *
+     * @param groupName the name of the resource group the virtual machine is in
+     * @param name the virtual machine name
+     * @param scriptLines the lines of the script
+     * @param scriptParameters the parameters of the script, or null
+     * @return the result of the script
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    RunCommandResult runShellScript(String groupName, String name, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters);
+
+    /**
+     * Runs a shell script on a Linux virtual machine asynchronously.
+     *
+     * @param groupName the name of the resource group the virtual machine is in
+     * @param name the virtual machine name
+     * @param scriptLines the lines of the script
+     * @param scriptParameters the parameters of the script, or null
+     * @return an observable that emits the result of the script once it completes
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<RunCommandResult> runShellScriptAsync(String groupName, String name, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters);
+
+    /**
+     * Runs a PowerShell script on a Windows virtual machine.
+     *
+     * @param groupName the name of the resource group the virtual machine is in
+     * @param name the virtual machine name
+     * @param scriptLines the lines of the script
+     * @param scriptParameters the parameters of the script, or null
+     * @return the result of the script
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    RunCommandResult runPowerShellScript(String groupName, String name, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters);
+
+    /**
+     * Runs a PowerShell script on a Windows virtual machine asynchronously.
+     *
+     * @param groupName the name of the resource group the virtual machine is in
+     * @param name the virtual machine name
+     * @param scriptLines the lines of the script
+     * @param scriptParameters the parameters of the script, or null
+     * @return an observable that emits the result of the script once it completes
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<RunCommandResult> runPowerShellScriptAsync(String groupName, String name, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters);
+
+    /**
+     * Runs a command on many virtual machines at once.
+     * <p>
+     * Every run is a long running operation polled without blocking a thread, so the number of
+     * virtual machines the command runs on at the same time is only bounded by the given limit.
+     * A failure on one virtual machine is emitted as the result of that virtual machine and does not stop the others.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @param inputCommand the command to run
+     * @param maxConcurrency the maximum number of virtual machines the command runs on at the same time
+     * @return an observable that emits the result of every virtual machine as it completes
+     * @throws IllegalArgumentException if maxConcurrency is not positive
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<RunCommandResult> runCommandAsync(Collection<String> ids, RunCommandInput inputCommand, int maxConcurrency);
+
+    /**
+     * Runs a shell script on many Linux virtual machines at once.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @param scriptLines the lines of the script
+     * @param scriptParameters the parameters of the script, or null
+     * @param maxConcurrency the maximum number of virtual machines the script runs on at the same time
+     * @return an observable that emits the result of every virtual machine as it completes
+     * @throws IllegalArgumentException if maxConcurrency is not positive
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<RunCommandResult> runShellScriptAsync(Collection<String> ids, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters, int maxConcurrency);
+
+    /**
+     * Runs a PowerShell script on many Windows virtual machines at once.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @param scriptLines the lines of the script
+     * @param scriptParameters the parameters of the script, or null
+     * @param maxConcurrency the maximum number of virtual machines the script runs on at the same time
+     * @return an observable that emits the result of every virtual machine as it completes
+     * @throws IllegalArgumentException if maxConcurrency is not positive
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    Observable<RunCommandResult> runPowerShellScriptAsync(Collection<String> ids, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters, int maxConcurrency);
 }
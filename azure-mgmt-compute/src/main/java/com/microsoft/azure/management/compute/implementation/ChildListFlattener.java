@@ -8,25 +8,49 @@ package com.microsoft.azure.management.compute.implementation;
 import com.microsoft.azure.CloudException;
 import com.microsoft.azure.Page;
 import com.microsoft.azure.PagedList;
+import com.microsoft.azure.management.resources.fluentcore.utils.SdkContext;
 import com.microsoft.rest.RestException;
+import rx.Observable;
+import rx.functions.Action1;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * ChildListFlattener that can take a paged list of parents and flatten their child lists
  * as a single lazy paged list.
+ * <p>
+ * The child lists of up to maxConcurrency parents are loaded in parallel ahead of the
+ * consumer. The children are returned in parent order unless ordering is relaxed, in
+ * which case the child list loaded first is returned first.
  *
  * @param <ParentT> the type of parent paged list item
  * @param <ChildT> the type of child paged list item
  */
 final class ChildListFlattener<ParentT, ChildT> {
+    /**
+     * The default number of parents whose child lists are loaded in parallel.
+     */
+    static final int DEFAULT_MAX_CONCURRENCY = 8;
+
     private final String switchToCousin = "switchToCousin";
     private Iterator<ParentT> parentItr;
     private PagedList<ChildT> currentChildList;
     private final ChildListLoader<ParentT, ChildT> childListLoader;
+    private final int maxConcurrency;
+    private final boolean preserveOrder;
+    // The child list loads in flight, in parent order
+    private final LinkedList<FutureTask<PagedList<ChildT>>> inFlight = new LinkedList<>();
+    // The child list loads completed, in completion order, used when the order is relaxed
+    private final BlockingQueue<FutureTask<PagedList<ChildT>>> completed = new LinkedBlockingQueue<>();
 
     /**
      * Interface that will be implemented by the consumer of {@link ChildListFlattener}.
@@ -56,8 +80,29 @@ final class ChildListFlattener<ParentT, ChildT> {
      * @param childListLoader {@link ChildListLoader} for fetching child paged list associated any parent
      */
     ChildListFlattener(PagedList<ParentT> parentList, ChildListLoader<ParentT, ChildT> childListLoader) {
+        this(parentList, childListLoader, 1, true);
+    }
+
+    /**
+     * Creates ChildListFlattener that loads the child lists of multiple parents in parallel.
+     *
+     * @param parentList a paged list of parents
+     * @param childListLoader {@link ChildListLoader} for fetching child paged list associated any parent
+     * @param maxConcurrency the maximum number of child lists loaded in parallel
+     * @param preserveOrder true to return the children in parent order, false to return the
+     *                      children of the parent whose child list is loaded first
+     */
+    ChildListFlattener(PagedList<ParentT> parentList,
+                       ChildListLoader<ParentT, ChildT> childListLoader,
+                       int maxConcurrency,
+                       boolean preserveOrder) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive.");
+        }
         this.parentItr = parentList.iterator();
         this.childListLoader = childListLoader;
+        this.maxConcurrency = maxConcurrency;
+        this.preserveOrder = preserveOrder;
     }
 
     /**
@@ -93,20 +138,102 @@ final class ChildListFlattener<ParentT, ChildT> {
      * <p>
      * This method iterate the parent list from where it stopped last time and return
      * a non-empty child paged list of a parent. If there is no parent with non-empty child list
-     * or if the parent list iteration is finished then this method returns null.
+     * or if the parent list iteration is finished then this method returns an empty paged list.
      *
      * @return a child paged list {@link PagedList}
      * @throws CloudException exceptions thrown from the cloud
      * @throws IOException exceptions thrown from serialization/deserialization
      */
     private PagedList<ChildT> nextChildList() {
-        while (parentItr.hasNext()) {
-            PagedList<ChildT> nextChildList = childListLoader.loadList(parentItr.next());
-            if (nextChildList.iterator().hasNext()) {
+        while (true) {
+            startLoads();
+            if (inFlight.isEmpty()) {
+                return emptyPagedList();
+            }
+            FutureTask<PagedList<ChildT>> load;
+            if (preserveOrder) {
+                load = inFlight.removeFirst();
+            } else {
+                load = takeCompleted();
+                inFlight.remove(load);
+            }
+            PagedList<ChildT> nextChildList = await(load);
+            if (nextChildList != null) {
+                // Keep the window full while the consumer iterates this list
+                startLoads();
                 return nextChildList;
             }
         }
-        return emptyPagedList();
+    }
+
+    /**
+     * @return true if there are parents whose child list is not returned yet
+     */
+    private boolean hasMoreParents() {
+        return !inFlight.isEmpty() || parentItr.hasNext();
+    }
+
+    /**
+     * Starts loading the child lists of the next parents until maxConcurrency loads are in flight.
+     */
+    private void startLoads() {
+        while (inFlight.size() < maxConcurrency && parentItr.hasNext()) {
+            final ParentT parent = parentItr.next();
+            final FutureTask<PagedList<ChildT>> load = new FutureTask<PagedList<ChildT>>(new Callable<PagedList<ChildT>>() {
+                @Override
+                public PagedList<ChildT> call() {
+                    PagedList<ChildT> childList = childListLoader.loadList(parent);
+                    // Probing may fetch pages, so it is done as part of the load; empty lists are skipped
+                    if (childList == null || !childList.iterator().hasNext()) {
+                        return null;
+                    }
+                    return childList;
+                }
+            }) {
+                @Override
+                protected void done() {
+                    if (!preserveOrder) {
+                        completed.add(this);
+                    }
+                }
+            };
+            inFlight.add(load);
+            if (maxConcurrency == 1) {
+                load.run();
+            } else {
+                Observable.just(load)
+                        .subscribeOn(SdkContext.getRxScheduler())
+                        .subscribe(new Action1<FutureTask<PagedList<ChildT>>>() {
+                            @Override
+                            public void call(FutureTask<PagedList<ChildT>> task) {
+                                task.run();
+                            }
+                        });
+            }
+        }
+    }
+
+    private FutureTask<PagedList<ChildT>> takeCompleted() {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private PagedList<ChildT> await(FutureTask<PagedList<ChildT>> load) {
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
     }
 
     /**
@@ -127,7 +254,7 @@ final class ChildListFlattener<ParentT, ChildT> {
                    return page.nextPageLink();
                 }
 
-                if (parentItr.hasNext()) {
+                if (hasMoreParents()) {
                     // The current child paged list has no more pages so switch to it's cousin list
                     return switchToCousin;
                 }
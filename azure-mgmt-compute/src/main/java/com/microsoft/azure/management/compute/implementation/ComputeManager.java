@@ -17,6 +17,7 @@ import com.microsoft.azure.management.compute.Disks;
 import com.microsoft.azure.management.compute.Snapshots;
 import com.microsoft.azure.management.compute.VirtualMachineCustomImages;
 import com.microsoft.azure.management.compute.VirtualMachineExtensionImages;
+import com.microsoft.azure.management.compute.VirtualMachineImageCatalog;
 import com.microsoft.azure.management.compute.VirtualMachineImages;
 import com.microsoft.azure.management.compute.VirtualMachineScaleSets;
 import com.microsoft.azure.management.compute.VirtualMachines;
@@ -26,11 +27,17 @@ import com.microsoft.azure.management.network.implementation.NetworkManager;
 import com.microsoft.azure.management.resources.fluentcore.arm.AzureConfigurable;
 import com.microsoft.azure.management.resources.fluentcore.arm.implementation.AzureConfigurableImpl;
 import com.microsoft.azure.management.resources.fluentcore.arm.implementation.Manager;
+import com.microsoft.azure.management.resources.fluentcore.utils.MetricsInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ProviderRegistrationInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ResourceManagerThrottlingInterceptor;
 import com.microsoft.azure.management.storage.implementation.StorageManager;
 import com.microsoft.azure.serializer.AzureJacksonAdapter;
 import com.microsoft.rest.RestClient;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Entry point to Azure compute resource management.
@@ -70,13 +77,16 @@ public final class ComputeManager extends Manager<ComputeManager, ComputeManagem
      * @return the ComputeManager
      */
     public static ComputeManager authenticate(AzureTokenCredentials credentials, String subscriptionId) {
-        return new ComputeManager(new RestClient.Builder()
+        return new ComputeManager(new RestClient.Builder(new OkHttpClient.Builder(), new Retrofit.Builder()
+                .addCallAdapterFactory(ResourceManagerThrottlingInterceptor.callAdapterFactory()))
                 .withBaseUrl(credentials.environment(), AzureEnvironment.Endpoint.RESOURCE_MANAGER)
                 .withCredentials(credentials)
                 .withSerializerAdapter(new AzureJacksonAdapter())
                 .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                .withInterceptor(MetricsInterceptor.retryCounter())
                 .withInterceptor(new ProviderRegistrationInterceptor(credentials))
                 .withInterceptor(new ResourceManagerThrottlingInterceptor())
+                .withNetworkInterceptor(new MetricsInterceptor())
                 .build(), subscriptionId);
     }
 
@@ -172,6 +182,25 @@ public final class ComputeManager extends Manager<ComputeManager, ComputeManagem
         return virtualMachineImages;
     }
 
+    /**
+     * Creates a locally cached view of the virtual machine image and extension image catalog.
+     * <p>
+     * The catalog of each region is persisted to a file in the given directory and shared by
+     * all the catalogs created with the same directory.
+     *
+     * @param cacheDirectory the directory the catalog cache files are stored in
+     * @param timeToLive the time after which the catalog of a region is refreshed
+     * @param unit the time unit of the time to live
+     * @return the cached image catalog
+     */
+    @Beta(SinceVersion.V1_4_0)
+    public VirtualMachineImageCatalog virtualMachineImageCatalog(File cacheDirectory, long timeToLive, TimeUnit unit) {
+        return new VirtualMachineImageCatalogImpl(cacheDirectory,
+                unit.toMillis(timeToLive),
+                super.innerManagementClient.virtualMachineImages(),
+                super.innerManagementClient.virtualMachineExtensionImages());
+    }
+
     /**
      * @return the virtual machine extension image resource management API entry point
      */
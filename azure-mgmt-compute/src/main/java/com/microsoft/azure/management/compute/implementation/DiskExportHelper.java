@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute.implementation;
+
+import com.microsoft.azure.management.apigeneration.LangDefinition;
+import com.microsoft.azure.management.compute.BlobRangeDownloader;
+import rx.Completable;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Utility class to export a managed disk or a snapshot into a file through a read-only SAS URI.
+ */
+@LangDefinition
+final class DiskExportHelper {
+    private DiskExportHelper() {
+    }
+
+    /**
+     * Downloads the blob behind the SAS URI granted, then revokes the access however the export ends:
+     * once the download completed, after it failed, or when the subscriber unsubscribes before the end.
+     *
+     * @param grantAccess the observable granting access and emitting the SAS URI
+     * @param revokeAccess the completable revoking the access
+     * @param file the file to write
+     * @param downloader the downloader
+     * @return an observable emitting the number of bytes of every range written
+     */
+    static Observable<Long> exportAsync(final Observable<String> grantAccess,
+                                        final Completable revokeAccess,
+                                        final File file,
+                                        final BlobRangeDownloader downloader) {
+        return Observable.defer(new Func0<Observable<Long>>() {
+            @Override
+            public Observable<Long> call() {
+                final AtomicBoolean revoked = new AtomicBoolean();
+                final Completable revokeOnce = Completable.defer(new Func0<Completable>() {
+                    @Override
+                    public Completable call() {
+                        return revoked.compareAndSet(false, true) ? revokeAccess : Completable.complete();
+                    }
+                });
+                return grantAccess.last().flatMap(new Func1<String, Observable<Long>>() {
+                    @Override
+                    public Observable<Long> call(String sasUri) {
+                        if (sasUri == null) {
+                            return Observable.error(new IllegalStateException("The service did not return a SAS URI"));
+                        }
+                        return downloader.downloadAsync(sasUri, file);
+                    }
+                }).onErrorResumeNext(new Func1<Throwable, Observable<Long>>() {
+                    @Override
+                    public Observable<Long> call(final Throwable throwable) {
+                        // Report the export failure rather than a failure to revoke
+                        return revokeOnce.onErrorComplete()
+                                .<Long>toObservable()
+                                .concatWith(Observable.<Long>error(throwable));
+                    }
+                }).concatWith(revokeOnce.<Long>toObservable()).doOnUnsubscribe(new Action0() {
+                    @Override
+                    public void call() {
+                        // Unsubscribed before the end, nobody waits for the revocation any more
+                        revokeOnce.onErrorComplete().subscribe();
+                    }
+                });
+            }
+        });
+    }
+}
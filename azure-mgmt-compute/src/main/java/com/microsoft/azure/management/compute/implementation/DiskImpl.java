@@ -8,6 +8,7 @@ package com.microsoft.azure.management.compute.implementation;
 
 import com.microsoft.azure.management.apigeneration.LangDefinition;
 import com.microsoft.azure.management.compute.AccessLevel;
+import com.microsoft.azure.management.compute.BlobRangeDownloader;
 import com.microsoft.azure.management.compute.CreationData;
 import com.microsoft.azure.management.compute.Disk;
 import com.microsoft.azure.management.compute.DiskCreateOption;
@@ -15,6 +16,7 @@ import com.microsoft.azure.management.compute.CreationSource;
 import com.microsoft.azure.management.compute.DiskSku;
 import com.microsoft.azure.management.compute.DiskSkuTypes;
 import com.microsoft.azure.management.compute.OperatingSystemTypes;
+import com.microsoft.azure.management.compute.PageBlobUploader;
 import com.microsoft.azure.management.compute.Snapshot;
 import com.microsoft.azure.management.resources.fluentcore.arm.AvailabilityZoneId;
 import com.microsoft.azure.management.resources.fluentcore.arm.models.implementation.GroupableResourceImpl;
@@ -24,7 +26,9 @@ import com.microsoft.rest.ServiceFuture;
 import rx.Completable;
 import rx.Observable;
 import rx.functions.Func1;
+import rx.functions.Func2;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -44,6 +48,9 @@ class DiskImpl
         Disk,
         Disk.Definition,
         Disk.Update  {
+    private File vhdFileToUpload;
+    private PageBlobUploader vhdUploader;
+    private String vhdSasToken;
 
     DiskImpl(String name, DiskInner innerModel, final ComputeManager computeManager) {
         super(name, innerModel, computeManager);
@@ -138,6 +145,29 @@ class DiskImpl
         return ServiceFuture.fromBody(this.revokeAccessAsync(), callback);
     }
 
+    @Override
+    public long exportToFile(File file, int accessDurationInSeconds) {
+        return this.exportToFileAsync(file, accessDurationInSeconds).reduce(0L, new Func2<Long, Long, Long>() {
+            @Override
+            public Long call(Long total, Long bytes) {
+                return total + bytes;
+            }
+        }).toBlocking().single();
+    }
+
+    @Override
+    public Observable<Long> exportToFileAsync(File file, int accessDurationInSeconds) {
+        return this.exportToFileAsync(file, accessDurationInSeconds, new BlobRangeDownloader());
+    }
+
+    @Override
+    public Observable<Long> exportToFileAsync(File file, int accessDurationInSeconds, BlobRangeDownloader downloader) {
+        return DiskExportHelper.exportAsync(this.grantAccessAsync(accessDurationInSeconds),
+                this.revokeAccessAsync(),
+                file,
+                downloader);
+    }
+
     @Override
     public DiskImpl withLinuxFromVhd(String vhdUrl) {
         this.inner()
@@ -146,7 +176,13 @@ class DiskImpl
                 .creationData()
                 .withCreateOption(DiskCreateOption.IMPORT)
                 .withSourceUri(vhdUrl);
-        return this;
+        return this.withVhdToUpload(null, null, null);
+    }
+
+    @Override
+    public DiskImpl withLinuxFromVhd(File vhdFile, String vhdUrl, String sasToken, PageBlobUploader uploader) {
+        this.withLinuxFromVhd(vhdUrl);
+        return this.withVhdToUpload(vhdFile, sasToken, uploader);
     }
 
     @Override
@@ -199,7 +235,13 @@ class DiskImpl
                 .creationData()
                 .withCreateOption(DiskCreateOption.IMPORT)
                 .withSourceUri(vhdUrl);
-        return this;
+        return this.withVhdToUpload(null, null, null);
+    }
+
+    @Override
+    public DiskImpl withWindowsFromVhd(File vhdFile, String vhdUrl, String sasToken, PageBlobUploader uploader) {
+        this.withWindowsFromVhd(vhdUrl);
+        return this.withVhdToUpload(vhdFile, sasToken, uploader);
     }
 
     @Override
@@ -260,7 +302,13 @@ class DiskImpl
                 .creationData()
                 .withCreateOption(DiskCreateOption.IMPORT)
                 .withSourceUri(vhdUrl);
-        return this;
+        return this.withVhdToUpload(null, null, null);
+    }
+
+    @Override
+    public DiskImpl fromVhd(File vhdFile, String vhdUrl, String sasToken, PageBlobUploader uploader) {
+        this.fromVhd(vhdUrl);
+        return this.withVhdToUpload(vhdFile, sasToken, uploader);
     }
 
     @Override
@@ -326,10 +374,37 @@ class DiskImpl
         return this;
     }
 
+    /**
+     * Sets the VHD file to upload before the creation, null if the source VHD is already in place.
+     */
+    private DiskImpl withVhdToUpload(File vhdFile, String sasToken, PageBlobUploader uploader) {
+        this.vhdFileToUpload = vhdFile;
+        this.vhdSasToken = sasToken;
+        this.vhdUploader = uploader;
+        return this;
+    }
+
     @Override
     public Observable<Disk> createResourceAsync() {
-        return manager().inner().disks().createOrUpdateAsync(resourceGroupName(), name(), this.inner())
+        final Observable<Disk> create = manager().inner().disks().createOrUpdateAsync(resourceGroupName(), name(), this.inner())
                 .map(innerToFluentMap(this));
+        if (this.vhdFileToUpload == null) {
+            return create;
+        }
+        final File vhdFile = this.vhdFileToUpload;
+        final PageBlobUploader uploader = this.vhdUploader;
+        final String sasToken = this.vhdSasToken;
+        this.withVhdToUpload(null, null, null);
+        // The SAS token only authorizes the upload, the source URI sent to the service does not carry it
+        return uploader.uploadAsync(vhdFile, this.inner().creationData().sourceUri(), sasToken)
+                .ignoreElements()
+                .map(new Func1<Long, Disk>() {
+                    @Override
+                    public Disk call(Long bytes) {
+                        return null;
+                    }
+                })
+                .concatWith(create);
     }
 
     @Override
@@ -0,0 +1,313 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+package com.microsoft.azure.management.compute.implementation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable snapshot of the image and extension image catalog of one region, which can be
+ * persisted to and loaded from a compact binary cache file.
+ * <p>
+ * All the names are looked up case insensitively and the versions are kept sorted from the
+ * oldest to the latest.
+ */
+final class ImageCatalogSnapshot {
+    private static final int MAGIC = 0x564D4943;
+    private static final int FORMAT_VERSION = 1;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Orders image and extension versions such as "16.04.201701130" by their numeric parts.
+     */
+    static final Comparator<String> VERSION_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String left, String right) {
+            String[] leftParts = left.split("\\.");
+            String[] rightParts = right.split("\\.");
+            for (int i = 0; i < Math.min(leftParts.length, rightParts.length); i++) {
+                int result = compareParts(leftParts[i], rightParts[i]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            if (leftParts.length != rightParts.length) {
+                return leftParts.length - rightParts.length;
+            }
+            return left.compareToIgnoreCase(right);
+        }
+
+        private int compareParts(String left, String right) {
+            if (isNumeric(left) && isNumeric(right)) {
+                String leftDigits = stripLeadingZeros(left);
+                String rightDigits = stripLeadingZeros(right);
+                if (leftDigits.length() != rightDigits.length()) {
+                    return leftDigits.length() - rightDigits.length();
+                }
+                return leftDigits.compareTo(rightDigits);
+            }
+            return left.compareToIgnoreCase(right);
+        }
+
+        private boolean isNumeric(String part) {
+            if (part.isEmpty()) {
+                return false;
+            }
+            for (int i = 0; i < part.length(); i++) {
+                if (!Character.isDigit(part.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String stripLeadingZeros(String digits) {
+            int i = 0;
+            while (i < digits.length() - 1 && digits.charAt(i) == '0') {
+                i++;
+            }
+            return digits.substring(i);
+        }
+    };
+
+    private final String regionName;
+    private final long refreshedAtMillis;
+    private final TreeMap<String, Publisher> publishers;
+
+    ImageCatalogSnapshot(String regionName, long refreshedAtMillis, List<Publisher> publishers) {
+        this.regionName = regionName;
+        this.refreshedAtMillis = refreshedAtMillis;
+        this.publishers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Publisher publisher : publishers) {
+            this.publishers.put(publisher.name(), publisher);
+        }
+    }
+
+    /**
+     * @return the name of the region the catalog belongs to
+     */
+    String regionName() {
+        return this.regionName;
+    }
+
+    /**
+     * @return the time the catalog was listed, in milliseconds since the epoch
+     */
+    long refreshedAtMillis() {
+        return this.refreshedAtMillis;
+    }
+
+    /**
+     * @return the publisher names
+     */
+    List<String> publisherNames() {
+        return Collections.unmodifiableList(new ArrayList<>(this.publishers.keySet()));
+    }
+
+    /**
+     * @param publisherName the publisher name
+     * @return the publisher, null if it is not in the catalog
+     */
+    Publisher publisher(String publisherName) {
+        return this.publishers.get(publisherName);
+    }
+
+    /**
+     * Writes the snapshot to a cache file, replacing the existing file only once the new one
+     * is completely written.
+     *
+     * @param file the cache file
+     * @throws IOException exceptions thrown from the file system
+     */
+    void writeTo(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the image catalog cache directory " + directory);
+        }
+        File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(this.refreshedAtMillis);
+                writeString(out, this.regionName);
+                out.writeInt(this.publishers.size());
+                for (Publisher publisher : this.publishers.values()) {
+                    writeString(out, publisher.name());
+                    writeChildren(out, publisher.offers);
+                    writeVersions(out, publisher.extensionTypes);
+                }
+            }
+            try {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * Loads a snapshot from a cache file, memory mapping the file while it is read.
+     *
+     * @param file the cache file
+     * @return the snapshot, null if the file does not exist or is not a valid cache file
+     * @throws IOException exceptions thrown from the file system
+     */
+    static ImageCatalogSnapshot readFrom(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long refreshedAtMillis = buffer.getLong();
+            String regionName = readString(buffer);
+            int publisherCount = buffer.getInt();
+            List<Publisher> publishers = new ArrayList<>(publisherCount);
+            for (int i = 0; i < publisherCount; i++) {
+                String name = readString(buffer);
+                Map<String, Map<String, List<String>>> offers = readChildren(buffer);
+                Map<String, List<String>> extensionTypes = readVersions(buffer);
+                publishers.add(new Publisher(name, offers, extensionTypes));
+            }
+            return new ImageCatalogSnapshot(regionName, refreshedAtMillis, publishers);
+        } catch (RuntimeException e) {
+            // A truncated or corrupted cache file is treated as a cache miss
+            return null;
+        }
+    }
+
+    private static void writeChildren(DataOutputStream out, Map<String, Map<String, List<String>>> children) throws IOException {
+        out.writeInt(children.size());
+        for (Map.Entry<String, Map<String, List<String>>> child : children.entrySet()) {
+            writeString(out, child.getKey());
+            writeVersions(out, child.getValue());
+        }
+    }
+
+    private static void writeVersions(DataOutputStream out, Map<String, List<String>> versionsByName) throws IOException {
+        out.writeInt(versionsByName.size());
+        for (Map.Entry<String, List<String>> entry : versionsByName.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (String version : entry.getValue()) {
+                writeString(out, version);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Map<String, Map<String, List<String>>> readChildren(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        Map<String, Map<String, List<String>>> children = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < count; i++) {
+            String name = readString(buffer);
+            children.put(name, readVersions(buffer));
+        }
+        return children;
+    }
+
+    private static Map<String, List<String>> readVersions(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        Map<String, List<String>> versionsByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < count; i++) {
+            String name = readString(buffer);
+            int versionCount = buffer.getInt();
+            List<String> versions = new ArrayList<>(versionCount);
+            for (int j = 0; j < versionCount; j++) {
+                versions.add(readString(buffer));
+            }
+            versionsByName.put(name, versions);
+        }
+        return versionsByName;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    /**
+     * The cached catalog of an image publisher.
+     */
+    static final class Publisher {
+        private final String name;
+        // offer name -> SKU name -> image versions
+        private final Map<String, Map<String, List<String>>> offers;
+        // extension type name -> extension versions
+        private final Map<String, List<String>> extensionTypes;
+
+        Publisher(String name, Map<String, Map<String, List<String>>> offers, Map<String, List<String>> extensionTypes) {
+            this.name = name;
+            this.offers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Map.Entry<String, Map<String, List<String>>> offer : offers.entrySet()) {
+                this.offers.put(offer.getKey(), sortedVersions(offer.getValue()));
+            }
+            this.extensionTypes = sortedVersions(extensionTypes);
+        }
+
+        String name() {
+            return this.name;
+        }
+
+        List<String> offerNames() {
+            return Collections.unmodifiableList(new ArrayList<>(this.offers.keySet()));
+        }
+
+        /**
+         * @param offerName the offer name
+         * @return the image versions by SKU name, null if the offer is not in the catalog
+         */
+        Map<String, List<String>> skus(String offerName) {
+            return this.offers.get(offerName);
+        }
+
+        /**
+         * @return the extension versions by extension type name
+         */
+        Map<String, List<String>> extensionTypes() {
+            return this.extensionTypes;
+        }
+
+        private static Map<String, List<String>> sortedVersions(Map<String, List<String>> versionsByName) {
+            Map<String, List<String>> sorted = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Map.Entry<String, List<String>> entry : versionsByName.entrySet()) {
+                List<String> versions = new ArrayList<>(entry.getValue());
+                Collections.sort(versions, VERSION_ORDER);
+                sorted.put(entry.getKey(), Collections.unmodifiableList(versions));
+            }
+            return Collections.unmodifiableMap(sorted);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+package com.microsoft.azure.management.compute.implementation;
+
+import com.microsoft.azure.management.apigeneration.LangDefinition;
+import com.microsoft.azure.management.compute.RunCommandResult;
+import com.microsoft.azure.management.resources.fluentcore.model.implementation.WrapperImpl;
+
+/**
+ * Implementation of RunCommandResult.
+ */
+@LangDefinition
+class RunCommandResultImpl
+        extends WrapperImpl<RunCommandResultInner>
+        implements RunCommandResult {
+    private final String virtualMachineId;
+    private final Throwable error;
+
+    RunCommandResultImpl(String virtualMachineId, RunCommandResultInner inner, Throwable error) {
+        super(inner);
+        this.virtualMachineId = virtualMachineId;
+        this.error = error;
+    }
+
+    @Override
+    public String virtualMachineId() {
+        return this.virtualMachineId;
+    }
+
+    @Override
+    public String status() {
+        return this.inner() == null ? null : this.inner().status();
+    }
+
+    @Override
+    public Object output() {
+        return this.inner() == null ? null : this.inner().output();
+    }
+
+    @Override
+    public Throwable error() {
+        return this.error;
+    }
+}
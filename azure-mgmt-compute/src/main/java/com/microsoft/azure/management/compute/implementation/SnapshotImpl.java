@@ -8,6 +8,7 @@ package com.microsoft.azure.management.compute.implementation;
 
 import com.microsoft.azure.management.apigeneration.LangDefinition;
 import com.microsoft.azure.management.compute.AccessLevel;
+import com.microsoft.azure.management.compute.BlobRangeDownloader;
 import com.microsoft.azure.management.compute.CreationData;
 import com.microsoft.azure.management.compute.Disk;
 import com.microsoft.azure.management.compute.DiskCreateOption;
@@ -23,6 +24,9 @@ import com.microsoft.rest.ServiceFuture;
 import rx.Completable;
 import rx.Observable;
 import rx.functions.Func1;
+import rx.functions.Func2;
+
+import java.io.File;
 
 /**
  * The implementation for Snapshot and its create and update interfaces.
@@ -113,6 +117,29 @@ class SnapshotImpl
         return ServiceFuture.fromBody(this.revokeAccessAsync(), callback);
     }
 
+    @Override
+    public long exportToFile(File file, int accessDurationInSeconds) {
+        return this.exportToFileAsync(file, accessDurationInSeconds).reduce(0L, new Func2<Long, Long, Long>() {
+            @Override
+            public Long call(Long total, Long bytes) {
+                return total + bytes;
+            }
+        }).toBlocking().single();
+    }
+
+    @Override
+    public Observable<Long> exportToFileAsync(File file, int accessDurationInSeconds) {
+        return this.exportToFileAsync(file, accessDurationInSeconds, new BlobRangeDownloader());
+    }
+
+    @Override
+    public Observable<Long> exportToFileAsync(File file, int accessDurationInSeconds, BlobRangeDownloader downloader) {
+        return DiskExportHelper.exportAsync(this.grantAccessAsync(accessDurationInSeconds),
+                this.revokeAccessAsync(),
+                file,
+                downloader);
+    }
+
     @Override
     public SnapshotImpl withLinuxFromVhd(String vhdUrl) {
         this.inner()
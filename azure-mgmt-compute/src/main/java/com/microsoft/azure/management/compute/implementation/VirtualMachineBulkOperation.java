@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+package com.microsoft.azure.management.compute.implementation;
+
+import com.microsoft.azure.CloudException;
+import com.microsoft.azure.management.compute.VirtualMachineBulkOperationResult;
+import com.microsoft.azure.management.compute.VirtualMachineBulkOperationResult.Outcome;
+import com.microsoft.azure.management.compute.VirtualMachineBulkOperationSettings;
+import com.microsoft.azure.management.resources.fluentcore.arm.ResourceUtils;
+import com.microsoft.azure.management.resources.fluentcore.utils.SdkContext;
+import rx.Completable;
+import rx.Observable;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An operation applied to many virtual machines, with a bounded number of virtual machines
+ * operated on at the same time, the starts paced per subscription and the transient failures retried.
+ */
+abstract class VirtualMachineBulkOperation {
+    private static final int MAX_RETRY_DELAY_MILLIS = 5 * 60 * 1000;
+
+    /**
+     * Applies the operation to one virtual machine.
+     *
+     * @param resourceGroupName the name of the resource group of the virtual machine
+     * @param name the name of the virtual machine
+     * @return a representation of the deferred computation of the operation
+     */
+    abstract Completable operateAsync(String resourceGroupName, String name);
+
+    /**
+     * Applies the operation to the virtual machines.
+     *
+     * @param ids the resource IDs of the virtual machines
+     * @param settings the concurrency, pacing and retry settings
+     * @return an observable that emits the outcome of every attempt on every virtual machine
+     */
+    Observable<VirtualMachineBulkOperationResult> applyAsync(Collection<String> ids,
+                                                             final VirtualMachineBulkOperationSettings settings) {
+        if (ids == null || ids.isEmpty()) {
+            return Observable.empty();
+        }
+        // The next time an operation may start, per subscription, for this invocation
+        final ConcurrentMap<String, AtomicLong> nextStartTimes = new ConcurrentHashMap<>();
+        return Observable.from(ids).flatMap(new Func1<String, Observable<VirtualMachineBulkOperationResult>>() {
+            @Override
+            public Observable<VirtualMachineBulkOperationResult> call(String id) {
+                return attemptAsync(id, 1, settings, nextStartTimes);
+            }
+        }, settings.maxConcurrency());
+    }
+
+    private Observable<VirtualMachineBulkOperationResult> attemptAsync(final String id,
+                                                                      final int attempt,
+                                                                      final VirtualMachineBulkOperationSettings settings,
+                                                                      final ConcurrentMap<String, AtomicLong> nextStartTimes) {
+        final Observable<VirtualMachineBulkOperationResult> operation = Observable.defer(new Func0<Observable<VirtualMachineBulkOperationResult>>() {
+            @Override
+            public Observable<VirtualMachineBulkOperationResult> call() {
+                return operateAsync(ResourceUtils.groupFromResourceId(id), ResourceUtils.nameFromResourceId(id))
+                        .andThen(Observable.<VirtualMachineBulkOperationResult>just(
+                                new VirtualMachineBulkOperationResultImpl(id, Outcome.SUCCEEDED, attempt, null)));
+            }
+        }).onErrorResumeNext(new Func1<Throwable, Observable<VirtualMachineBulkOperationResult>>() {
+            @Override
+            public Observable<VirtualMachineBulkOperationResult> call(Throwable error) {
+                if (attempt > settings.maxRetries() || !isTransient(error)) {
+                    return Observable.<VirtualMachineBulkOperationResult>just(
+                            new VirtualMachineBulkOperationResultImpl(id, Outcome.FAILED, attempt, error));
+                }
+                Observable<VirtualMachineBulkOperationResult> retry = SdkContext.delayedEmitAsync(true, retryDelay(error, attempt, settings))
+                        .flatMap(new Func1<Boolean, Observable<VirtualMachineBulkOperationResult>>() {
+                            @Override
+                            public Observable<VirtualMachineBulkOperationResult> call(Boolean ignored) {
+                                return attemptAsync(id, attempt + 1, settings, nextStartTimes);
+                            }
+                        });
+                return Observable.<VirtualMachineBulkOperationResult>just(
+                        new VirtualMachineBulkOperationResultImpl(id, Outcome.RETRIED, attempt, error)).concatWith(retry);
+            }
+        });
+
+        int delay = reserveStart(id, settings.startIntervalPerSubscription(), nextStartTimes);
+        if (delay <= 0) {
+            return operation;
+        }
+        return SdkContext.delayedEmitAsync(true, delay).flatMap(new Func1<Boolean, Observable<VirtualMachineBulkOperationResult>>() {
+            @Override
+            public Observable<VirtualMachineBulkOperationResult> call(Boolean ignored) {
+                return operation;
+            }
+        });
+    }
+
+    /**
+     * Reserves the next start slot of the subscription of a virtual machine.
+     *
+     * @return the time in milliseconds to wait for the slot
+     */
+    private static int reserveStart(String id, int interval, ConcurrentMap<String, AtomicLong> nextStartTimes) {
+        if (interval <= 0) {
+            return 0;
+        }
+        String subscriptionId = ResourceUtils.subscriptionFromResourceId(id);
+        String key = subscriptionId == null ? "" : subscriptionId.toLowerCase(Locale.ROOT);
+        AtomicLong nextStartTime = nextStartTimes.get(key);
+        if (nextStartTime == null) {
+            nextStartTimes.putIfAbsent(key, new AtomicLong());
+            nextStartTime = nextStartTimes.get(key);
+        }
+        while (true) {
+            long now = System.currentTimeMillis();
+            long current = nextStartTime.get();
+            long start = Math.max(now, current);
+            if (nextStartTime.compareAndSet(current, start + interval)) {
+                return (int) (start - now);
+            }
+        }
+    }
+
+    private static boolean isTransient(Throwable error) {
+        if (error instanceof IOException) {
+            return true;
+        }
+        if (error instanceof CloudException && ((CloudException) error).response() != null) {
+            int code = ((CloudException) error).response().code();
+            return code == 429 || code >= 500;
+        }
+        return false;
+    }
+
+    private static int retryDelay(Throwable error, int attempt, VirtualMachineBulkOperationSettings settings) {
+        if (error instanceof CloudException && ((CloudException) error).response() != null) {
+            String retryAfter = ((CloudException) error).response().headers().get("Retry-After");
+            if (retryAfter != null) {
+                try {
+                    return Math.min(Integer.parseInt(retryAfter.trim()) * 1000, MAX_RETRY_DELAY_MILLIS);
+                } catch (NumberFormatException e) {
+                    // Not a number of seconds, back off instead
+                }
+            }
+        }
+        long delay = (long) settings.retryDelay() << Math.min(attempt - 1, 16);
+        return (int) Math.min(delay, MAX_RETRY_DELAY_MILLIS);
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+package com.microsoft.azure.management.compute.implementation;
+
+import com.microsoft.azure.management.apigeneration.LangDefinition;
+import com.microsoft.azure.management.compute.VirtualMachineBulkOperationResult;
+
+/**
+ * Implementation of VirtualMachineBulkOperationResult.
+ */
+@LangDefinition
+class VirtualMachineBulkOperationResultImpl implements VirtualMachineBulkOperationResult {
+    private final String virtualMachineId;
+    private final Outcome outcome;
+    private final int attempt;
+    private final Throwable error;
+
+    VirtualMachineBulkOperationResultImpl(String virtualMachineId, Outcome outcome, int attempt, Throwable error) {
+        this.virtualMachineId = virtualMachineId;
+        this.outcome = outcome;
+        this.attempt = attempt;
+        this.error = error;
+    }
+
+    @Override
+    public String virtualMachineId() {
+        return this.virtualMachineId;
+    }
+
+    @Override
+    public Outcome outcome() {
+        return this.outcome;
+    }
+
+    @Override
+    public int attempt() {
+        return this.attempt;
+    }
+
+    @Override
+    public Throwable error() {
+        return this.error;
+    }
+}
@@ -15,12 +15,15 @@ import com.microsoft.azure.management.compute.ImageOSDisk;
 import com.microsoft.azure.management.compute.ImageStorageProfile;
 import com.microsoft.azure.management.compute.OperatingSystemStateTypes;
 import com.microsoft.azure.management.compute.OperatingSystemTypes;
+import com.microsoft.azure.management.compute.PageBlobUploader;
 import com.microsoft.azure.management.compute.Snapshot;
 import com.microsoft.azure.management.compute.VirtualMachine;
 import com.microsoft.azure.management.compute.VirtualMachineCustomImage;
 import com.microsoft.azure.management.resources.fluentcore.arm.models.implementation.GroupableResourceImpl;
 import rx.Observable;
+import rx.functions.Func1;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -40,6 +43,9 @@ class VirtualMachineCustomImageImpl
         implements
             VirtualMachineCustomImage,
             VirtualMachineCustomImage.Definition {
+    private File vhdFileToUpload;
+    private PageBlobUploader vhdUploader;
+    private String vhdSasToken;
 
     VirtualMachineCustomImageImpl(final String name, ImageInner innerModel, final ComputeManager computeManager) {
         super(name, innerModel, computeManager);
@@ -96,7 +102,13 @@ class VirtualMachineCustomImageImpl
                 .withOsState(osState)
                 .withOsType(OperatingSystemTypes.WINDOWS)
                 .withBlobUri(sourceVhdUrl);
-        return this;
+        return this.withVhdToUpload(null, null, null);
+    }
+
+    @Override
+    public VirtualMachineCustomImageImpl withWindowsFromVhd(File vhdFile, String sourceVhdUrl, String sasToken, OperatingSystemStateTypes osState, PageBlobUploader uploader) {
+        this.withWindowsFromVhd(sourceVhdUrl, osState);
+        return this.withVhdToUpload(vhdFile, sasToken, uploader);
     }
 
     @Override
@@ -105,7 +117,13 @@ class VirtualMachineCustomImageImpl
                 .withOsState(osState)
                 .withOsType(OperatingSystemTypes.LINUX)
                 .withBlobUri(sourceVhdUrl);
-        return this;
+        return this.withVhdToUpload(null, null, null);
+    }
+
+    @Override
+    public VirtualMachineCustomImageImpl withLinuxFromVhd(File vhdFile, String sourceVhdUrl, String sasToken, OperatingSystemStateTypes osState, PageBlobUploader uploader) {
+        this.withLinuxFromVhd(sourceVhdUrl, osState);
+        return this.withVhdToUpload(vhdFile, sasToken, uploader);
     }
 
     @Override
@@ -210,11 +228,38 @@ class VirtualMachineCustomImageImpl
         return this;
     }
 
+    /**
+     * Sets the VHD file to upload before the creation, null if the source VHD is already in place.
+     */
+    private VirtualMachineCustomImageImpl withVhdToUpload(File vhdFile, String sasToken, PageBlobUploader uploader) {
+        this.vhdFileToUpload = vhdFile;
+        this.vhdSasToken = sasToken;
+        this.vhdUploader = uploader;
+        return this;
+    }
+
     @Override
     public Observable<VirtualMachineCustomImage> createResourceAsync() {
         ensureDefaultLuns();
-        return this.manager().inner().images().createOrUpdateAsync(resourceGroupName(), name(), this.inner())
+        final Observable<VirtualMachineCustomImage> create = this.manager().inner().images().createOrUpdateAsync(resourceGroupName(), name(), this.inner())
                 .map(innerToFluentMap(this));
+        if (this.vhdFileToUpload == null) {
+            return create;
+        }
+        final File vhdFile = this.vhdFileToUpload;
+        final PageBlobUploader uploader = this.vhdUploader;
+        final String sasToken = this.vhdSasToken;
+        this.withVhdToUpload(null, null, null);
+        // The SAS token only authorizes the upload, the blob URI sent to the service does not carry it
+        return uploader.uploadAsync(vhdFile, this.inner().storageProfile().osDisk().blobUri(), sasToken)
+                .ignoreElements()
+                .map(new Func1<Long, VirtualMachineCustomImage>() {
+                    @Override
+                    public VirtualMachineCustomImage call(Long bytes) {
+                        return null;
+                    }
+                })
+                .concatWith(create);
     }
 
     @Override
@@ -37,6 +37,11 @@ class VirtualMachineExtensionImagesImpl
 
     @Override
     public PagedList<VirtualMachineExtensionImage> listByRegion(String regionName) {
+        return listByRegion(regionName, ChildListFlattener.DEFAULT_MAX_CONCURRENCY, true);
+    }
+
+    @Override
+    public PagedList<VirtualMachineExtensionImage> listByRegion(String regionName, int maxConcurrency, boolean preserveOrder) {
         PagedList<VirtualMachinePublisher> publishers = this.publishers().listByRegion(regionName);
 
         PagedList<VirtualMachineExtensionImageType> extensionTypes =
@@ -45,7 +50,7 @@ class VirtualMachineExtensionImagesImpl
                     public PagedList<VirtualMachineExtensionImageType> loadList(VirtualMachinePublisher publisher)  {
                         return publisher.extensionTypes().list();
                     }
-                }).flatten();
+                }, maxConcurrency, preserveOrder).flatten();
 
         PagedList<VirtualMachineExtensionImageVersion> extensionTypeVersions =
                 new ChildListFlattener<>(extensionTypes, new ChildListFlattener.ChildListLoader<VirtualMachineExtensionImageType, VirtualMachineExtensionImageVersion>() {
@@ -53,7 +58,7 @@ class VirtualMachineExtensionImagesImpl
                     public PagedList<VirtualMachineExtensionImageVersion> loadList(VirtualMachineExtensionImageType type)  {
                         return type.versions().list();
                     }
-                }).flatten();
+                }, maxConcurrency, preserveOrder).flatten();
 
         PagedListConverter<VirtualMachineExtensionImageVersion, VirtualMachineExtensionImage> converter =
                 new PagedListConverter<VirtualMachineExtensionImageVersion, VirtualMachineExtensionImage>() {
@@ -73,23 +78,28 @@ class VirtualMachineExtensionImagesImpl
 
     @Override
     public Observable<VirtualMachineExtensionImage> listByRegionAsync(String regionName) {
+        return listByRegionAsync(regionName, ChildListFlattener.DEFAULT_MAX_CONCURRENCY);
+    }
+
+    @Override
+    public Observable<VirtualMachineExtensionImage> listByRegionAsync(String regionName, int maxConcurrency) {
         return this.publishers().listByRegionAsync(regionName)
                 .flatMap(new Func1<VirtualMachinePublisher, Observable<VirtualMachineExtensionImageType>>() {
                     @Override
                     public Observable<VirtualMachineExtensionImageType> call(VirtualMachinePublisher virtualMachinePublisher) {
                         return virtualMachinePublisher.extensionTypes().listAsync();
                     }
-                }).flatMap(new Func1<VirtualMachineExtensionImageType, Observable<VirtualMachineExtensionImageVersion>>() {
+                }, maxConcurrency).flatMap(new Func1<VirtualMachineExtensionImageType, Observable<VirtualMachineExtensionImageVersion>>() {
                     @Override
                     public Observable<VirtualMachineExtensionImageVersion> call(VirtualMachineExtensionImageType virtualMachineExtensionImageType) {
                         return virtualMachineExtensionImageType.versions().listAsync();
                     }
-                }).flatMap(new Func1<VirtualMachineExtensionImageVersion, Observable<VirtualMachineExtensionImage>>() {
+                }, maxConcurrency).flatMap(new Func1<VirtualMachineExtensionImageVersion, Observable<VirtualMachineExtensionImage>>() {
                     @Override
                     public Observable<VirtualMachineExtensionImage> call(VirtualMachineExtensionImageVersion virtualMachineExtensionImageVersion) {
                         return virtualMachineExtensionImageVersion.getImageAsync();
                     }
-                });
+                }, maxConcurrency);
     }
 
     @Override
@@ -0,0 +1,366 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+package com.microsoft.azure.management.compute.implementation;
+
+import com.microsoft.azure.management.apigeneration.LangDefinition;
+import com.microsoft.azure.management.compute.VirtualMachineImageCatalog;
+import com.microsoft.azure.management.resources.fluentcore.utils.SdkContext;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+import rx.exceptions.Exceptions;
+import rx.functions.Func1;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The implementation for {@link VirtualMachineImageCatalog}.
+ */
+@LangDefinition
+class VirtualMachineImageCatalogImpl implements VirtualMachineImageCatalog {
+    private static final String CACHE_FILE_EXTENSION = ".vmimagecatalog";
+
+    private final File cacheDirectory;
+    private final long timeToLiveMillis;
+    private final int maxConcurrency;
+    private final CatalogSource source;
+    private final ConcurrentMap<String, ImageCatalogSnapshot> snapshots = new ConcurrentHashMap<>();
+    // The refresh in progress of each region, shared by the callers needing it
+    private final ConcurrentMap<String, FutureTask<ImageCatalogSnapshot>> refreshes = new ConcurrentHashMap<>();
+
+    /**
+     * Lists the catalog names of a region, implemented on top of the image clients.
+     */
+    interface CatalogSource {
+        List<String> listPublishers(String regionName);
+
+        List<String> listOffers(String regionName, String publisherName);
+
+        List<String> listSkus(String regionName, String publisherName, String offerName);
+
+        List<String> listImageVersions(String regionName, String publisherName, String offerName, String skuName);
+
+        List<String> listExtensionTypes(String regionName, String publisherName);
+
+        List<String> listExtensionVersions(String regionName, String publisherName, String typeName);
+    }
+
+    VirtualMachineImageCatalogImpl(File cacheDirectory,
+                                   long timeToLiveMillis,
+                                   VirtualMachineImagesInner imagesClient,
+                                   VirtualMachineExtensionImagesInner extensionImagesClient) {
+        this(cacheDirectory, timeToLiveMillis, ChildListFlattener.DEFAULT_MAX_CONCURRENCY,
+                new InnerCatalogSource(imagesClient, extensionImagesClient));
+    }
+
+    VirtualMachineImageCatalogImpl(File cacheDirectory, long timeToLiveMillis, int maxConcurrency, CatalogSource source) {
+        if (timeToLiveMillis < 0) {
+            throw new IllegalArgumentException("The time to live must not be negative.");
+        }
+        this.cacheDirectory = cacheDirectory;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.maxConcurrency = maxConcurrency;
+        this.source = source;
+    }
+
+    @Override
+    public List<String> publisherNames(String regionName) {
+        return snapshot(regionName).publisherNames();
+    }
+
+    @Override
+    public List<String> offerNames(String regionName, String publisherName) {
+        ImageCatalogSnapshot.Publisher publisher = snapshot(regionName).publisher(publisherName);
+        if (publisher == null) {
+            return Collections.emptyList();
+        }
+        return publisher.offerNames();
+    }
+
+    @Override
+    public List<String> skuNames(String regionName, String publisherName, String offerName) {
+        Map<String, List<String>> skus = skus(regionName, publisherName, offerName);
+        if (skus == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(skus.keySet()));
+    }
+
+    @Override
+    public List<String> imageVersions(String regionName, String publisherName, String offerName, String skuName) {
+        Map<String, List<String>> skus = skus(regionName, publisherName, offerName);
+        if (skus == null || !skus.containsKey(skuName)) {
+            return Collections.emptyList();
+        }
+        return skus.get(skuName);
+    }
+
+    @Override
+    public String latestImageVersion(String regionName, String publisherName, String offerName, String skuName) {
+        return latest(imageVersions(regionName, publisherName, offerName, skuName));
+    }
+
+    @Override
+    public List<String> extensionTypeNames(String regionName, String publisherName) {
+        ImageCatalogSnapshot.Publisher publisher = snapshot(regionName).publisher(publisherName);
+        if (publisher == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(publisher.extensionTypes().keySet()));
+    }
+
+    @Override
+    public List<String> extensionVersions(String regionName, String publisherName, String typeName) {
+        ImageCatalogSnapshot.Publisher publisher = snapshot(regionName).publisher(publisherName);
+        if (publisher == null || !publisher.extensionTypes().containsKey(typeName)) {
+            return Collections.emptyList();
+        }
+        return publisher.extensionTypes().get(typeName);
+    }
+
+    @Override
+    public String latestExtensionVersion(String regionName, String publisherName, String typeName) {
+        return latest(extensionVersions(regionName, publisherName, typeName));
+    }
+
+    @Override
+    public void refresh(String regionName) {
+        refreshShared(regionName, null);
+    }
+
+    @Override
+    public void invalidate(String regionName) {
+        this.snapshots.remove(key(regionName));
+        try {
+            Files.deleteIfExists(cacheFile(regionName).toPath());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Map<String, List<String>> skus(String regionName, String publisherName, String offerName) {
+        ImageCatalogSnapshot.Publisher publisher = snapshot(regionName).publisher(publisherName);
+        if (publisher == null) {
+            return null;
+        }
+        return publisher.skus(offerName);
+    }
+
+    private static String latest(List<String> versions) {
+        if (versions.isEmpty()) {
+            return null;
+        }
+        return versions.get(versions.size() - 1);
+    }
+
+    /**
+     * Gets the catalog of a region, loading it from the cache file or refreshing it when
+     * it is not cached yet or its time to live has elapsed.
+     */
+    private ImageCatalogSnapshot snapshot(String regionName) {
+        String key = key(regionName);
+        ImageCatalogSnapshot snapshot = this.snapshots.get(key);
+        if (snapshot == null) {
+            snapshot = readCacheFile(regionName);
+            if (snapshot != null) {
+                ImageCatalogSnapshot loaded = this.snapshots.putIfAbsent(key, snapshot);
+                if (loaded != null) {
+                    snapshot = loaded;
+                }
+            }
+        }
+        if (snapshot != null && !isExpired(snapshot)) {
+            return snapshot;
+        }
+        return refreshShared(regionName, snapshot);
+    }
+
+    /**
+     * Refreshes the catalog of a region, or joins the refresh another caller started.
+     * <p>
+     * No lock is held while the catalog is listed, the refreshed catalog replaces the previous one in one step.
+     *
+     * @param regionName the name of the region
+     * @param expired the catalog to return while another caller refreshes it, null to wait for that refresh
+     * @return the catalog
+     */
+    private ImageCatalogSnapshot refreshShared(final String regionName, ImageCatalogSnapshot expired) {
+        final String key = key(regionName);
+        FutureTask<ImageCatalogSnapshot> refresh = new FutureTask<>(new Callable<ImageCatalogSnapshot>() {
+            @Override
+            public ImageCatalogSnapshot call() {
+                ImageCatalogSnapshot snapshot = listCatalog(regionName);
+                snapshots.put(key, snapshot);
+                return snapshot;
+            }
+        });
+        FutureTask<ImageCatalogSnapshot> inProgress = this.refreshes.putIfAbsent(key, refresh);
+        if (inProgress == null) {
+            try {
+                refresh.run();
+            } finally {
+                this.refreshes.remove(key, refresh);
+            }
+            inProgress = refresh;
+        } else if (expired != null) {
+            return expired;
+        }
+        try {
+            return inProgress.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Exceptions.propagate(e);
+        } catch (ExecutionException e) {
+            throw Exceptions.propagate(e.getCause());
+        }
+    }
+
+    private boolean isExpired(ImageCatalogSnapshot snapshot) {
+        return System.currentTimeMillis() - snapshot.refreshedAtMillis() >= this.timeToLiveMillis;
+    }
+
+    private ImageCatalogSnapshot readCacheFile(String regionName) {
+        try {
+            return ImageCatalogSnapshot.readFrom(cacheFile(regionName));
+        } catch (IOException e) {
+            // An unreadable cache file is treated as a cache miss
+            return null;
+        }
+    }
+
+    private ImageCatalogSnapshot listCatalog(final String regionName) {
+        long refreshedAtMillis = System.currentTimeMillis();
+        List<ImageCatalogSnapshot.Publisher> publishers = Observable.from(this.source.listPublishers(regionName))
+                .flatMap(new Func1<String, Observable<ImageCatalogSnapshot.Publisher>>() {
+                    @Override
+                    public Observable<ImageCatalogSnapshot.Publisher> call(String publisherName) {
+                        return Observable.just(publisherName)
+                                .subscribeOn(SdkContext.getRxScheduler())
+                                .map(new Func1<String, ImageCatalogSnapshot.Publisher>() {
+                                    @Override
+                                    public ImageCatalogSnapshot.Publisher call(String publisherName) {
+                                        return listPublisher(regionName, publisherName);
+                                    }
+                                });
+                    }
+                }, this.maxConcurrency)
+                .toList()
+                .toBlocking()
+                .single();
+        ImageCatalogSnapshot snapshot = new ImageCatalogSnapshot(regionName, refreshedAtMillis, publishers);
+        try {
+            snapshot.writeTo(cacheFile(regionName));
+        } catch (IOException e) {
+            // The cache file only saves listing the catalog again, the lookups can go on without it
+            LoggerFactory.getLogger(VirtualMachineImageCatalogImpl.class)
+                    .warn("Cannot write the image catalog cache file of " + regionName, e);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Lists the catalog of a publisher, including the versions of every SKU and extension type.
+     */
+    private ImageCatalogSnapshot.Publisher listPublisher(String regionName, String publisherName) {
+        Map<String, Map<String, List<String>>> offers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String offerName : this.source.listOffers(regionName, publisherName)) {
+            Map<String, List<String>> skus = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (String skuName : this.source.listSkus(regionName, publisherName, offerName)) {
+                skus.put(skuName, this.source.listImageVersions(regionName, publisherName, offerName, skuName));
+            }
+            offers.put(offerName, skus);
+        }
+
+        Map<String, List<String>> extensionTypes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String typeName : this.source.listExtensionTypes(regionName, publisherName)) {
+            extensionTypes.put(typeName, this.source.listExtensionVersions(regionName, publisherName, typeName));
+        }
+        return new ImageCatalogSnapshot.Publisher(publisherName, offers, extensionTypes);
+    }
+
+    private File cacheFile(String regionName) {
+        return new File(this.cacheDirectory, key(regionName) + CACHE_FILE_EXTENSION);
+    }
+
+    private static String key(String regionName) {
+        return regionName.replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The {@link CatalogSource} listing the catalog through the image clients.
+     */
+    private static class InnerCatalogSource implements CatalogSource {
+        private final VirtualMachineImagesInner imagesClient;
+        private final VirtualMachineExtensionImagesInner extensionImagesClient;
+
+        InnerCatalogSource(VirtualMachineImagesInner imagesClient, VirtualMachineExtensionImagesInner extensionImagesClient) {
+            this.imagesClient = imagesClient;
+            this.extensionImagesClient = extensionImagesClient;
+        }
+
+        @Override
+        public List<String> listPublishers(String regionName) {
+            return imageNames(this.imagesClient.listPublishers(regionName));
+        }
+
+        @Override
+        public List<String> listOffers(String regionName, String publisherName) {
+            return imageNames(this.imagesClient.listOffers(regionName, publisherName));
+        }
+
+        @Override
+        public List<String> listSkus(String regionName, String publisherName, String offerName) {
+            return imageNames(this.imagesClient.listSkus(regionName, publisherName, offerName));
+        }
+
+        @Override
+        public List<String> listImageVersions(String regionName, String publisherName, String offerName, String skuName) {
+            return imageNames(this.imagesClient.list(regionName, publisherName, offerName, skuName));
+        }
+
+        @Override
+        public List<String> listExtensionTypes(String regionName, String publisherName) {
+            return extensionNames(this.extensionImagesClient.listTypes(regionName, publisherName));
+        }
+
+        @Override
+        public List<String> listExtensionVersions(String regionName, String publisherName, String typeName) {
+            return extensionNames(this.extensionImagesClient.listVersions(regionName, publisherName, typeName));
+        }
+
+        private static List<String> imageNames(List<VirtualMachineImageResourceInner> inners) {
+            List<String> names = new ArrayList<>();
+            if (inners != null) {
+                for (VirtualMachineImageResourceInner inner : inners) {
+                    names.add(inner.name());
+                }
+            }
+            return names;
+        }
+
+        private static List<String> extensionNames(List<VirtualMachineExtensionImageInner> inners) {
+            List<String> names = new ArrayList<>();
+            if (inners != null) {
+                for (VirtualMachineExtensionImageInner inner : inners) {
+                    names.add(inner.name());
+                }
+            }
+            return names;
+        }
+    }
+}
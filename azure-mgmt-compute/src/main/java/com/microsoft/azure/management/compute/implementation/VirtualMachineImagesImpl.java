@@ -74,6 +74,11 @@ class VirtualMachineImagesImpl
 
     @Override
     public PagedList<VirtualMachineImage> listByRegion(String regionName) {
+        return listByRegion(regionName, ChildListFlattener.DEFAULT_MAX_CONCURRENCY, true);
+    }
+
+    @Override
+    public PagedList<VirtualMachineImage> listByRegion(String regionName, int maxConcurrency, boolean preserveOrder) {
         PagedList<VirtualMachinePublisher> publishers = this.publishers().listByRegion(regionName);
 
         PagedList<VirtualMachineOffer> offers =
@@ -82,7 +87,7 @@ class VirtualMachineImagesImpl
                     public PagedList<VirtualMachineOffer> loadList(VirtualMachinePublisher publisher)  {
                         return publisher.offers().list();
                     }
-                }).flatten();
+                }, maxConcurrency, preserveOrder).flatten();
 
         PagedList<VirtualMachineSku> skus =
                 new ChildListFlattener<>(offers, new ChildListFlattener.ChildListLoader<VirtualMachineOffer, VirtualMachineSku>() {
@@ -90,7 +95,7 @@ class VirtualMachineImagesImpl
                     public PagedList<VirtualMachineSku> loadList(VirtualMachineOffer offer)  {
                         return offer.skus().list();
                     }
-                }).flatten();
+                }, maxConcurrency, preserveOrder).flatten();
 
         PagedList<VirtualMachineImage> images =
                 new ChildListFlattener<>(skus, new ChildListFlattener.ChildListLoader<VirtualMachineSku, VirtualMachineImage>() {
@@ -98,7 +103,7 @@ class VirtualMachineImagesImpl
                     public PagedList<VirtualMachineImage> loadList(VirtualMachineSku sku)  {
                         return sku.images().list();
                     }
-                }).flatten();
+                }, maxConcurrency, preserveOrder).flatten();
 
         return images;
     }
@@ -110,23 +115,28 @@ class VirtualMachineImagesImpl
 
     @Override
     public Observable<VirtualMachineImage> listByRegionAsync(String regionName) {
+        return listByRegionAsync(regionName, ChildListFlattener.DEFAULT_MAX_CONCURRENCY);
+    }
+
+    @Override
+    public Observable<VirtualMachineImage> listByRegionAsync(String regionName, int maxConcurrency) {
         return this.publishers().listByRegionAsync(regionName)
                 .flatMap(new Func1<VirtualMachinePublisher, Observable<VirtualMachineOffer>>() {
                     @Override
                     public Observable<VirtualMachineOffer> call(VirtualMachinePublisher virtualMachinePublisher) {
                         return virtualMachinePublisher.offers().listAsync();
                     }
-                }).flatMap(new Func1<VirtualMachineOffer, Observable<VirtualMachineSku>>() {
+                }, maxConcurrency).flatMap(new Func1<VirtualMachineOffer, Observable<VirtualMachineSku>>() {
                     @Override
                     public Observable<VirtualMachineSku> call(VirtualMachineOffer virtualMachineExtensionImageType) {
                         return virtualMachineExtensionImageType.skus().listAsync();
                     }
-                }).flatMap(new Func1<VirtualMachineSku, Observable<VirtualMachineImage>>() {
+                }, maxConcurrency).flatMap(new Func1<VirtualMachineSku, Observable<VirtualMachineImage>>() {
                     @Override
                     public Observable<VirtualMachineImage> call(VirtualMachineSku virtualMachineSku) {
                         return virtualMachineSku.images().listAsync();
                     }
-                });
+                }, maxConcurrency);
     }
 
     @Override
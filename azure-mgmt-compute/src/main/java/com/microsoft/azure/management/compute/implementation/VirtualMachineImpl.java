@@ -35,6 +35,9 @@ import com.microsoft.azure.management.compute.Plan;
 import com.microsoft.azure.management.compute.PowerState;
 import com.microsoft.azure.management.compute.PurchasePlan;
 import com.microsoft.azure.management.compute.ResourceIdentityType;
+import com.microsoft.azure.management.compute.RunCommandInputParameter;
+import com.microsoft.azure.management.compute.RunCommandInput;
+import com.microsoft.azure.management.compute.RunCommandResult;
 import com.microsoft.azure.management.compute.SshConfiguration;
 import com.microsoft.azure.management.compute.SshPublicKey;
 import com.microsoft.azure.management.compute.StorageAccountTypes;
@@ -298,6 +301,36 @@ class VirtualMachineImpl
         return ServiceFuture.fromBody(this.redeployAsync(), callback);
     }
 
+    @Override
+    public RunCommandResult runCommand(RunCommandInput inputCommand) {
+        return this.manager().virtualMachines().runCommand(this.resourceGroupName(), this.name(), inputCommand);
+    }
+
+    @Override
+    public Observable<RunCommandResult> runCommandAsync(RunCommandInput inputCommand) {
+        return this.manager().virtualMachines().runCommandAsync(this.resourceGroupName(), this.name(), inputCommand);
+    }
+
+    @Override
+    public RunCommandResult runShellScript(List<String> scriptLines, List<RunCommandInputParameter> scriptParameters) {
+        return this.manager().virtualMachines().runShellScript(this.resourceGroupName(), this.name(), scriptLines, scriptParameters);
+    }
+
+    @Override
+    public Observable<RunCommandResult> runShellScriptAsync(List<String> scriptLines, List<RunCommandInputParameter> scriptParameters) {
+        return this.manager().virtualMachines().runShellScriptAsync(this.resourceGroupName(), this.name(), scriptLines, scriptParameters);
+    }
+
+    @Override
+    public RunCommandResult runPowerShellScript(List<String> scriptLines, List<RunCommandInputParameter> scriptParameters) {
+        return this.manager().virtualMachines().runPowerShellScript(this.resourceGroupName(), this.name(), scriptLines, scriptParameters);
+    }
+
+    @Override
+    public Observable<RunCommandResult> runPowerShellScriptAsync(List<String> scriptLines, List<RunCommandInputParameter> scriptParameters) {
+        return this.manager().virtualMachines().runPowerShellScriptAsync(this.resourceGroupName(), this.name(), scriptLines, scriptParameters);
+    }
+
     @Override
     public void convertToManaged() {
         this.manager().inner().virtualMachines().convertToManagedDisks(this.resourceGroupName(), this.name());
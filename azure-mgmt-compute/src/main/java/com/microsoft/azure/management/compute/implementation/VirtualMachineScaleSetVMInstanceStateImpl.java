@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+package com.microsoft.azure.management.compute.implementation;
+
+import com.microsoft.azure.management.apigeneration.LangDefinition;
+import com.microsoft.azure.management.compute.PowerState;
+import com.microsoft.azure.management.compute.VirtualMachineScaleSetVMInstanceState;
+
+/**
+ * Implementation of VirtualMachineScaleSetVMInstanceState.
+ * <p>
+ * Only the state is kept, the rest of the inner model is left for the garbage collector.
+ */
+@LangDefinition
+class VirtualMachineScaleSetVMInstanceStateImpl implements VirtualMachineScaleSetVMInstanceState {
+    private final String id;
+    private final String instanceId;
+    private final String name;
+    private final PowerState powerState;
+    private final String provisioningState;
+    private final boolean latestModelApplied;
+
+    VirtualMachineScaleSetVMInstanceStateImpl(VirtualMachineScaleSetVMInner inner) {
+        this.id = inner.id();
+        this.instanceId = inner.instanceId();
+        this.name = inner.name();
+        this.powerState = PowerState.fromInstanceView(inner.instanceView());
+        this.provisioningState = inner.provisioningState();
+        this.latestModelApplied = inner.latestModelApplied() != null && inner.latestModelApplied();
+    }
+
+    @Override
+    public String id() {
+        return this.id;
+    }
+
+    @Override
+    public String instanceId() {
+        return this.instanceId;
+    }
+
+    @Override
+    public String name() {
+        return this.name;
+    }
+
+    @Override
+    public PowerState powerState() {
+        return this.powerState;
+    }
+
+    @Override
+    public String provisioningState() {
+        return this.provisioningState;
+    }
+
+    @Override
+    public boolean isLatestScaleSetUpdateApplied() {
+        return this.latestModelApplied;
+    }
+}
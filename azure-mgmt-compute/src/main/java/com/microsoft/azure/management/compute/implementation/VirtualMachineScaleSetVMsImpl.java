@@ -7,11 +7,15 @@ package com.microsoft.azure.management.compute.implementation;
 
 import com.microsoft.azure.PagedList;
 import com.microsoft.azure.management.apigeneration.LangDefinition;
+import com.microsoft.azure.management.compute.InstanceViewTypes;
 import com.microsoft.azure.management.compute.VirtualMachineScaleSetVM;
+import com.microsoft.azure.management.compute.VirtualMachineScaleSetVMInstanceState;
 import com.microsoft.azure.management.compute.VirtualMachineScaleSetVMs;
 import com.microsoft.azure.management.resources.fluentcore.arm.collection.implementation.ReadableWrappersImpl;
+import com.microsoft.azure.management.resources.fluentcore.utils.PagedListConverter;
 import rx.Completable;
 import rx.Observable;
+import rx.functions.Func1;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -63,6 +67,55 @@ class VirtualMachineScaleSetVMsImpl
         return super.wrapPageAsync(this.client.listAsync(this.scaleSet.resourceGroupName(), this.scaleSet.name()));
     }
 
+    @Override
+    public PagedList<VirtualMachineScaleSetVM> list(String filter, String select, InstanceViewTypes expand) {
+        return super.wrapList(this.client.list(this.scaleSet.resourceGroupName(),
+                this.scaleSet.name(),
+                filter,
+                select,
+                expand == null ? null : expand.toString()));
+    }
+
+    @Override
+    public Observable<VirtualMachineScaleSetVM> listAsync(String filter, String select, InstanceViewTypes expand) {
+        return super.wrapPageAsync(this.client.listAsync(this.scaleSet.resourceGroupName(),
+                this.scaleSet.name(),
+                filter,
+                select,
+                expand == null ? null : expand.toString()));
+    }
+
+    @Override
+    public PagedList<VirtualMachineScaleSetVMInstanceState> listInstanceStates() {
+        PagedListConverter<VirtualMachineScaleSetVMInner, VirtualMachineScaleSetVMInstanceState> converter =
+                new PagedListConverter<VirtualMachineScaleSetVMInner, VirtualMachineScaleSetVMInstanceState>() {
+                    @Override
+                    public Observable<VirtualMachineScaleSetVMInstanceState> typeConvertAsync(VirtualMachineScaleSetVMInner inner) {
+                        return Observable.<VirtualMachineScaleSetVMInstanceState>just(new VirtualMachineScaleSetVMInstanceStateImpl(inner));
+                    }
+                };
+        return converter.convert(this.client.list(this.scaleSet.resourceGroupName(),
+                this.scaleSet.name(),
+                null,
+                null,
+                InstanceViewTypes.INSTANCE_VIEW.toString()));
+    }
+
+    @Override
+    public Observable<VirtualMachineScaleSetVMInstanceState> listInstanceStatesAsync() {
+        return ReadableWrappersImpl.convertPageToInnerAsync(this.client.listAsync(this.scaleSet.resourceGroupName(),
+                this.scaleSet.name(),
+                null,
+                null,
+                InstanceViewTypes.INSTANCE_VIEW.toString()))
+                .map(new Func1<VirtualMachineScaleSetVMInner, VirtualMachineScaleSetVMInstanceState>() {
+                    @Override
+                    public VirtualMachineScaleSetVMInstanceState call(VirtualMachineScaleSetVMInner inner) {
+                        return new VirtualMachineScaleSetVMInstanceStateImpl(inner);
+                    }
+                });
+    }
+
     @Override
     public Completable deleteInstancesAsync(Collection<String> instanceIds) {
         if (instanceIds == null || instanceIds.size() == 0) {
@@ -13,12 +13,18 @@ import com.microsoft.azure.management.compute.HardwareProfile;
 import com.microsoft.azure.management.compute.NetworkProfile;
 import com.microsoft.azure.management.compute.OSDisk;
 import com.microsoft.azure.management.compute.OSProfile;
+import com.microsoft.azure.management.compute.RunCommandInputParameter;
+import com.microsoft.azure.management.compute.RunCommandInput;
+import com.microsoft.azure.management.compute.RunCommandResult;
 import com.microsoft.azure.management.compute.StorageProfile;
 import com.microsoft.azure.management.compute.VirtualMachine;
+import com.microsoft.azure.management.compute.VirtualMachineBulkOperationResult;
+import com.microsoft.azure.management.compute.VirtualMachineBulkOperationSettings;
 import com.microsoft.azure.management.compute.VirtualMachineSizes;
 import com.microsoft.azure.management.compute.VirtualMachines;
 import com.microsoft.azure.management.graphrbac.implementation.GraphRbacManager;
 import com.microsoft.azure.management.network.implementation.NetworkManager;
+import com.microsoft.azure.management.resources.fluentcore.arm.ResourceUtils;
 import com.microsoft.azure.management.resources.fluentcore.arm.collection.implementation.TopLevelModifiableResourcesImpl;
 import com.microsoft.azure.management.storage.implementation.StorageManager;
 import com.microsoft.rest.ServiceCallback;
@@ -26,9 +32,12 @@ import com.microsoft.rest.ServiceFuture;
 import rx.Completable;
 import rx.Observable;
 import rx.exceptions.Exceptions;
+import rx.functions.Func0;
 import rx.functions.Func1;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * The implementation for VirtualMachines.
@@ -42,6 +51,9 @@ class VirtualMachinesImpl
         VirtualMachinesInner,
         ComputeManager>
         implements VirtualMachines {
+    private static final String SHELL_SCRIPT_COMMAND_ID = "RunShellScript";
+    private static final String POWERSHELL_SCRIPT_COMMAND_ID = "RunPowerShellScript";
+
     private final StorageManager storageManager;
     private final NetworkManager networkManager;
     private final GraphRbacManager rbacManager;
@@ -155,6 +167,185 @@ class VirtualMachinesImpl
         return ServiceFuture.fromBody(redeployAsync(groupName, name), callback);
     }
 
+    @Override
+    public Observable<VirtualMachineBulkOperationResult> deallocateAsync(Collection<String> ids) {
+        return this.deallocateAsync(ids, new VirtualMachineBulkOperationSettings());
+    }
+
+    @Override
+    public Observable<VirtualMachineBulkOperationResult> deallocateAsync(Collection<String> ids, VirtualMachineBulkOperationSettings settings) {
+        return new VirtualMachineBulkOperation() {
+            @Override
+            Completable operateAsync(String resourceGroupName, String name) {
+                return deallocateAsync(resourceGroupName, name);
+            }
+        }.applyAsync(ids, settings);
+    }
+
+    @Override
+    public Observable<VirtualMachineBulkOperationResult> powerOffAsync(Collection<String> ids) {
+        return this.powerOffAsync(ids, new VirtualMachineBulkOperationSettings());
+    }
+
+    @Override
+    public Observable<VirtualMachineBulkOperationResult> powerOffAsync(Collection<String> ids, VirtualMachineBulkOperationSettings settings) {
+        return new VirtualMachineBulkOperation() {
+            @Override
+            Completable operateAsync(String resourceGroupName, String name) {
+                return powerOffAsync(resourceGroupName, name);
+            }
+        }.applyAsync(ids, settings);
+    }
+
+    @Override
+    public Observable<VirtualMachineBulkOperationResult> restartAsync(Collection<String> ids) {
+        return this.restartAsync(ids, new VirtualMachineBulkOperationSettings());
+    }
+
+    @Override
+    public Observable<VirtualMachineBulkOperationResult> restartAsync(Collection<String> ids, VirtualMachineBulkOperationSettings settings) {
+        return new VirtualMachineBulkOperation() {
+            @Override
+            Completable operateAsync(String resourceGroupName, String name) {
+                return restartAsync(resourceGroupName, name);
+            }
+        }.applyAsync(ids, settings);
+    }
+
+    @Override
+    public Observable<VirtualMachineBulkOperationResult> startAsync(Collection<String> ids) {
+        return this.startAsync(ids, new VirtualMachineBulkOperationSettings());
+    }
+
+    @Override
+    public Observable<VirtualMachineBulkOperationResult> startAsync(Collection<String> ids, VirtualMachineBulkOperationSettings settings) {
+        return new VirtualMachineBulkOperation() {
+            @Override
+            Completable operateAsync(String resourceGroupName, String name) {
+                return startAsync(resourceGroupName, name);
+            }
+        }.applyAsync(ids, settings);
+    }
+
+    @Override
+    public Observable<VirtualMachineBulkOperationResult> redeployAsync(Collection<String> ids) {
+        return this.redeployAsync(ids, new VirtualMachineBulkOperationSettings());
+    }
+
+    @Override
+    public Observable<VirtualMachineBulkOperationResult> redeployAsync(Collection<String> ids, VirtualMachineBulkOperationSettings settings) {
+        return new VirtualMachineBulkOperation() {
+            @Override
+            Completable operateAsync(String resourceGroupName, String name) {
+                return redeployAsync(resourceGroupName, name);
+            }
+        }.applyAsync(ids, settings);
+    }
+
+    @Override
+    public RunCommandResult runCommand(String groupName, String name, RunCommandInput inputCommand) {
+        return this.runCommandAsync(groupName, name, inputCommand).toBlocking().last();
+    }
+
+    @Override
+    public Observable<RunCommandResult> runCommandAsync(String groupName, String name, RunCommandInput inputCommand) {
+        final String id = ResourceUtils.constructResourceId(this.manager().subscriptionId(),
+                groupName,
+                "Microsoft.Compute",
+                "virtualMachines",
+                name,
+                "");
+        return this.inner().runCommandAsync(groupName, name, toInner(inputCommand))
+                .map(new Func1<RunCommandResultInner, RunCommandResult>() {
+                    @Override
+                    public RunCommandResult call(RunCommandResultInner inner) {
+                        return new RunCommandResultImpl(id, inner, null);
+                    }
+                });
+    }
+
+    @Override
+    public RunCommandResult runShellScript(String groupName, String name, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters) {
+        return this.runCommand(groupName, name, scriptCommand(SHELL_SCRIPT_COMMAND_ID, scriptLines, scriptParameters));
+    }
+
+    @Override
+    public Observable<RunCommandResult> runShellScriptAsync(String groupName, String name, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters) {
+        return this.runCommandAsync(groupName, name, scriptCommand(SHELL_SCRIPT_COMMAND_ID, scriptLines, scriptParameters));
+    }
+
+    @Override
+    public RunCommandResult runPowerShellScript(String groupName, String name, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters) {
+        return this.runCommand(groupName, name, scriptCommand(POWERSHELL_SCRIPT_COMMAND_ID, scriptLines, scriptParameters));
+    }
+
+    @Override
+    public Observable<RunCommandResult> runPowerShellScriptAsync(String groupName, String name, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters) {
+        return this.runCommandAsync(groupName, name, scriptCommand(POWERSHELL_SCRIPT_COMMAND_ID, scriptLines, scriptParameters));
+    }
+
+    @Override
+    public Observable<RunCommandResult> runCommandAsync(Collection<String> ids, RunCommandInput inputCommand, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive.");
+        }
+        final RunCommandInputInner inputInner = toInner(inputCommand);
+        if (ids == null || ids.isEmpty()) {
+            return Observable.empty();
+        }
+        return Observable.from(ids).flatMap(new Func1<String, Observable<RunCommandResult>>() {
+            @Override
+            public Observable<RunCommandResult> call(final String id) {
+                // Deferred so that a malformed ID fails only the run on that ID
+                return Observable.defer(new Func0<Observable<RunCommandResultInner>>() {
+                            @Override
+                            public Observable<RunCommandResultInner> call() {
+                                return inner().runCommandAsync(ResourceUtils.groupFromResourceId(id), ResourceUtils.nameFromResourceId(id), inputInner);
+                            }
+                        })
+                        .map(new Func1<RunCommandResultInner, RunCommandResult>() {
+                            @Override
+                            public RunCommandResult call(RunCommandResultInner inner) {
+                                return new RunCommandResultImpl(id, inner, null);
+                            }
+                        })
+                        .onErrorReturn(new Func1<Throwable, RunCommandResult>() {
+                            @Override
+                            public RunCommandResult call(Throwable error) {
+                                return new RunCommandResultImpl(id, null, error);
+                            }
+                        });
+            }
+        }, maxConcurrency);
+    }
+
+    @Override
+    public Observable<RunCommandResult> runShellScriptAsync(Collection<String> ids, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters, int maxConcurrency) {
+        return this.runCommandAsync(ids, scriptCommand(SHELL_SCRIPT_COMMAND_ID, scriptLines, scriptParameters), maxConcurrency);
+    }
+
+    @Override
+    public Observable<RunCommandResult> runPowerShellScriptAsync(Collection<String> ids, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters, int maxConcurrency) {
+        return this.runCommandAsync(ids, scriptCommand(POWERSHELL_SCRIPT_COMMAND_ID, scriptLines, scriptParameters), maxConcurrency);
+    }
+
+    private static RunCommandInput scriptCommand(String commandId, List<String> scriptLines, List<RunCommandInputParameter> scriptParameters) {
+        return new RunCommandInput()
+                .withCommandId(commandId)
+                .withScript(scriptLines)
+                .withParameters(scriptParameters);
+    }
+
+    private static RunCommandInputInner toInner(RunCommandInput inputCommand) {
+        if (inputCommand == null || inputCommand.commandId() == null) {
+            throw new IllegalArgumentException("inputCommand must have a command ID.");
+        }
+        return new RunCommandInputInner()
+                .withCommandId(inputCommand.commandId())
+                .withScript(inputCommand.script())
+                .withParameters(inputCommand.parameters().isEmpty() ? null : inputCommand.parameters());
+    }
+
     @Override
     public String capture(String groupName, String name,
                           String containerName,
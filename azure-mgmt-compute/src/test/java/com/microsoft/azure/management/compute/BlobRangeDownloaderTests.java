@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class BlobRangeDownloaderTests {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final int PAGE = 512;
+
+    private HttpServer server;
+    private byte[] blob;
+    private String pageList;
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicInteger failuresToInject = new AtomicInteger();
+    private volatile int failureStatus = 503;
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        // A sparse page blob, data in the first page and from the 9th to the 20th page
+        blob = new byte[32 * PAGE];
+        Random random = new Random(7);
+        byte[] data = new byte[13 * PAGE];
+        random.nextBytes(data);
+        System.arraycopy(data, 0, blob, 0, PAGE);
+        System.arraycopy(data, PAGE, blob, 8 * PAGE, 12 * PAGE);
+        pageList = "<?xml version=\"1.0\" encoding=\"utf-8\"?><PageList>"
+                + "<PageRange><Start>0</Start><End>" + (PAGE - 1) + "</End></PageRange>"
+                + "<PageRange><Start>" + (8 * PAGE) + "</Start><End>" + (20 * PAGE - 1) + "</End></PageRange>"
+                + "</PageList>";
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        server.start();
+        file = File.createTempFile("blob", ".vhd");
+    }
+
+    @After
+    public void cleanup() {
+        server.stop(0);
+        file.delete();
+    }
+
+    @Test
+    public void canDownloadOnlyWrittenPages() throws IOException {
+        // Leftover content must not survive in the ranges skipped
+        Files.write(file.toPath(), filled(blob.length * 2, (byte) 1));
+
+        long downloaded = new BlobRangeDownloader()
+                .withChunkSize(3 * PAGE)
+                .withParallelism(4)
+                .download(url(), file);
+
+        Assert.assertEquals(13 * PAGE, downloaded);
+        // One range for the first page, four for the twelve pages from the 9th
+        Assert.assertEquals(5, rangeRequests.get());
+        Assert.assertArrayEquals(blob, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void canDownloadWholeBlobWithoutPageList() throws IOException {
+        pageList = null;
+
+        long downloaded = new BlobRangeDownloader()
+                .withChunkSize(5 * PAGE)
+                .download(url(), file);
+
+        Assert.assertEquals(blob.length, downloaded);
+        Assert.assertEquals(7, rangeRequests.get());
+        Assert.assertArrayEquals(blob, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void retriesFailedRanges() throws IOException {
+        failuresToInject.set(3);
+
+        long downloaded = new BlobRangeDownloader()
+                .withChunkSize(PAGE)
+                .withParallelism(2)
+                .withMaxRetries(3)
+                .withRetryDelay(1)
+                .download(url(), file);
+
+        Assert.assertEquals(13 * PAGE, downloaded);
+        Assert.assertEquals(16, rangeRequests.get());
+        Assert.assertArrayEquals(blob, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void failsOnceRetriesAreExhausted() {
+        failuresToInject.set(Integer.MAX_VALUE);
+        try {
+            new BlobRangeDownloader().withMaxRetries(1).withRetryDelay(1).download(url(), file);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("status code 503"));
+        }
+    }
+
+    @Test
+    public void doesNotRetryForbiddenRanges() {
+        failureStatus = 403;
+        failuresToInject.set(Integer.MAX_VALUE);
+        try {
+            new BlobRangeDownloader().withChunkSize(PAGE).withParallelism(1).withMaxRetries(3).withRetryDelay(1).download(url(), file);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("status code 403"));
+        }
+        Assert.assertEquals(1, rangeRequests.get());
+    }
+
+    private String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/disks/abcd?sv=2016-05-31&sig=signature";
+    }
+
+    private static byte[] filled(int length, byte value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, value);
+        return bytes;
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("x-ms-blob-content-length", String.valueOf(blob.length));
+            exchange.sendResponseHeaders(200, -1);
+        } else if (query.contains("comp=pagelist")) {
+            if (pageList == null) {
+                exchange.sendResponseHeaders(400, -1);
+            } else {
+                respond(exchange, 200, pageList.getBytes(StandardCharsets.UTF_8));
+            }
+        } else {
+            rangeRequests.incrementAndGet();
+            if (failuresToInject.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(failureStatus, -1);
+            } else {
+                Matcher matcher = RANGE.matcher(exchange.getRequestHeaders().getFirst("Range"));
+                Assert.assertTrue(matcher.matches());
+                int start = Integer.parseInt(matcher.group(1));
+                int end = Integer.parseInt(matcher.group(2));
+                respond(exchange, 206, Arrays.copyOfRange(blob, start, end + 1));
+            }
+        }
+        exchange.close();
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
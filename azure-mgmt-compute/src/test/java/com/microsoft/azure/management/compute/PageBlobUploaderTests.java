@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.AzureResponseBuilder;
+import com.microsoft.azure.management.compute.implementation.ComputeManager;
+import com.microsoft.azure.management.resources.core.AzureTestCredentials;
+import com.microsoft.azure.management.resources.core.MockArmServer;
+import com.microsoft.azure.management.resources.fluentcore.arm.Region;
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import com.microsoft.rest.RestClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.ByteString;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class PageBlobUploaderTests {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final int PAGE = PageBlobUploader.PAGE_SIZE;
+    private static final String SAS_TOKEN = "sv=2016-05-31&sig=signature";
+
+    private HttpServer server;
+    private byte[] blob;
+    private byte[] vhd;
+    private final AtomicInteger creations = new AtomicInteger();
+    private final AtomicInteger pageWrites = new AtomicInteger();
+    private final AtomicInteger failuresToInject = new AtomicInteger();
+    private volatile int failingPageWrite;
+    private volatile int failureStatus = 503;
+    private File vhdFile;
+    private File checkpointFile;
+
+    @Before
+    public void setup() throws IOException {
+        // A sparse VHD, data in the 2nd page and from the 17th to the 24th page
+        vhd = new byte[32 * PAGE];
+        Random random = new Random(11);
+        byte[] data = new byte[9 * PAGE];
+        random.nextBytes(data);
+        System.arraycopy(data, 0, vhd, PAGE, PAGE);
+        System.arraycopy(data, PAGE, vhd, 16 * PAGE, 8 * PAGE);
+        vhdFile = File.createTempFile("disk", ".vhd");
+        Files.write(vhdFile.toPath(), vhd);
+        checkpointFile = new File(vhdFile.getPath() + ".checkpoint");
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void cleanup() {
+        server.stop(0);
+        vhdFile.delete();
+        checkpointFile.delete();
+    }
+
+    @Test
+    public void canUploadOnlyNonEmptyPages() {
+        long uploaded = new PageBlobUploader()
+                .withChunkSize(4 * PAGE)
+                .withParallelism(4)
+                .upload(vhdFile, url());
+
+        // One chunk holds the 2nd page, two chunks hold the 17th to the 24th page
+        Assert.assertEquals(9 * PAGE, uploaded);
+        Assert.assertEquals(1, creations.get());
+        Assert.assertEquals(3, pageWrites.get());
+        Assert.assertArrayEquals(vhd, blob);
+    }
+
+    @Test
+    public void canSplitChunkIntoNonEmptyRanges() {
+        long uploaded = new PageBlobUploader()
+                .withChunkSize(32 * PAGE)
+                .upload(vhdFile, url());
+
+        // The single chunk is written as the 2nd page and the range of the 17th to the 24th page
+        Assert.assertEquals(9 * PAGE, uploaded);
+        Assert.assertEquals(2, pageWrites.get());
+        Assert.assertArrayEquals(vhd, blob);
+    }
+
+    @Test
+    public void canResumeFromCheckpoint() throws IOException {
+        PageBlobUploader uploader = new PageBlobUploader()
+                .withChunkSize(PAGE)
+                .withParallelism(1)
+                .withMaxRetries(0)
+                .withCheckpointFile(checkpointFile);
+
+        // The upload is interrupted once three pages are written
+        failingPageWrite = 4;
+        try {
+            uploader.upload(vhdFile, url());
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(checkpointFile.isFile());
+        }
+        Assert.assertEquals(4, pageWrites.get());
+        // The header, the empty chunks 1 and 3 to 16 and the chunks 2, 17 and 18 written
+        Assert.assertEquals(19, Files.readAllLines(checkpointFile.toPath(), StandardCharsets.UTF_8).size());
+
+        long uploaded = uploader.upload(vhdFile, url());
+        Assert.assertEquals(6 * PAGE, uploaded);
+        Assert.assertEquals(1, creations.get());
+        Assert.assertEquals(10, pageWrites.get());
+        Assert.assertArrayEquals(vhd, blob);
+        Assert.assertFalse(checkpointFile.exists());
+    }
+
+    @Test
+    public void retriesFailedPageWrites() {
+        failuresToInject.set(2);
+
+        long uploaded = new PageBlobUploader()
+                .withChunkSize(PAGE)
+                .withMaxRetries(2)
+                .withRetryDelay(1)
+                .upload(vhdFile, url());
+
+        Assert.assertEquals(9 * PAGE, uploaded);
+        Assert.assertEquals(11, pageWrites.get());
+        Assert.assertArrayEquals(vhd, blob);
+    }
+
+    @Test
+    public void doesNotRetryForbiddenPageWrites() {
+        failureStatus = 403;
+        failuresToInject.set(Integer.MAX_VALUE);
+        try {
+            new PageBlobUploader().withParallelism(1).withMaxRetries(3).withRetryDelay(1).upload(vhdFile, url());
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("status code 403"));
+        }
+        Assert.assertEquals(1, pageWrites.get());
+    }
+
+    @Test
+    public void canUploadBeforeCreatingDisk() throws IOException {
+        final StringBuilder armRequests = new StringBuilder();
+        MockArmServer armServer = new MockArmServer()
+                .withResponse("PUT", ".*/resourceGroups/rg1/providers/Microsoft.Compute/disks/disk1", 200,
+                        "{\"id\":\"/subscriptions/sub1/resourceGroups/rg1/providers/Microsoft.Compute/disks/disk1\","
+                                + "\"name\":\"disk1\",\"location\":\"eastus\",\"properties\":{\"osType\":\"Linux\","
+                                + "\"creationData\":{\"createOption\":\"Import\",\"sourceUri\":\"" + blobUrl() + "\"},"
+                                + "\"provisioningState\":\"Succeeded\"}}")
+                .start();
+        try {
+            ComputeManager computeManager = ComputeManager.authenticate(new RestClient.Builder()
+                    .withBaseUrl(armServer.baseUrl())
+                    .withSerializerAdapter(new AzureJacksonAdapter())
+                    .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                    .withCredentials(new AzureTestCredentials(armServer.baseUrl(), "tenant", true))
+                    .withInterceptor(new Interceptor() {
+                        @Override
+                        public Response intercept(Chain chain) throws IOException {
+                            Buffer body = new Buffer();
+                            if (chain.request().body() != null) {
+                                chain.request().body().writeTo(body);
+                            }
+                            armRequests.append(body.readUtf8());
+                            return chain.proceed(chain.request());
+                        }
+                    })
+                    .build(), "sub1");
+
+            Disk disk = computeManager.disks().define("disk1")
+                    .withRegion(Region.US_EAST)
+                    .withExistingResourceGroup("rg1")
+                    .withLinuxFromVhd(vhdFile, blobUrl(), SAS_TOKEN, new PageBlobUploader().withChunkSize(8 * PAGE))
+                    .create();
+
+            Assert.assertEquals("disk1", disk.name());
+            Assert.assertEquals(blobUrl(), disk.source().sourceId());
+            Assert.assertEquals(1, armServer.requestCount());
+            // The token allowing to write the blob is not sent to Resource Manager
+            Assert.assertTrue(armRequests.toString().contains(blobUrl()));
+            Assert.assertFalse(armRequests.toString().contains("sig="));
+            Assert.assertArrayEquals(vhd, blob);
+        } finally {
+            armServer.stop();
+        }
+    }
+
+    @Test
+    public void doesNotUploadOnceSourceIsVhdUrl() throws IOException {
+        MockArmServer armServer = new MockArmServer()
+                .withResponse("PUT", ".*/resourceGroups/rg1/providers/Microsoft.Compute/disks/disk1", 200,
+                        "{\"id\":\"/subscriptions/sub1/resourceGroups/rg1/providers/Microsoft.Compute/disks/disk1\","
+                                + "\"name\":\"disk1\",\"location\":\"eastus\",\"properties\":{\"osType\":\"Linux\","
+                                + "\"creationData\":{\"createOption\":\"Import\",\"sourceUri\":\"" + blobUrl() + "\"},"
+                                + "\"provisioningState\":\"Succeeded\"}}")
+                .start();
+        try {
+            ComputeManager computeManager = ComputeManager.authenticate(new RestClient.Builder()
+                    .withBaseUrl(armServer.baseUrl())
+                    .withSerializerAdapter(new AzureJacksonAdapter())
+                    .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                    .withCredentials(new AzureTestCredentials(armServer.baseUrl(), "tenant", true))
+                    .build(), "sub1");
+
+            // The source stage is kept and given the URL of a VHD already in place after the local file
+            Disk.DefinitionStages.WithLinuxDiskSource source = computeManager.disks().define("disk1")
+                    .withRegion(Region.US_EAST)
+                    .withExistingResourceGroup("rg1");
+            source.withLinuxFromVhd(vhdFile, blobUrl(), SAS_TOKEN, new PageBlobUploader());
+            source.withLinuxFromVhd(blobUrl()).create();
+
+            Assert.assertEquals(1, armServer.requestCount());
+            Assert.assertEquals(0, creations.get());
+            Assert.assertEquals(0, pageWrites.get());
+        } finally {
+            armServer.stop();
+        }
+    }
+
+    private String url() {
+        return blobUrl() + "?" + SAS_TOKEN;
+    }
+
+    private String blobUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/vhds/disk1.vhd";
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        byte[] body = read(exchange.getRequestBody());
+        int status;
+        if (!query.contains("comp=page")) {
+            Assert.assertEquals("PageBlob", exchange.getRequestHeaders().getFirst("x-ms-blob-type"));
+            blob = new byte[Integer.parseInt(exchange.getRequestHeaders().getFirst("x-ms-blob-content-length"))];
+            creations.incrementAndGet();
+            status = 201;
+        } else {
+            if (pageWrites.incrementAndGet() == failingPageWrite || failuresToInject.getAndDecrement() > 0) {
+                status = failureStatus;
+            } else {
+                Assert.assertEquals("update", exchange.getRequestHeaders().getFirst("x-ms-page-write"));
+                Matcher matcher = RANGE.matcher(exchange.getRequestHeaders().getFirst("x-ms-range"));
+                Assert.assertTrue(matcher.matches());
+                int start = Integer.parseInt(matcher.group(1));
+                Assert.assertEquals(Integer.parseInt(matcher.group(2)) - start + 1, body.length);
+                String md5 = ByteString.of(body).md5().base64();
+                if (md5.equals(exchange.getRequestHeaders().getFirst("Content-MD5"))) {
+                    System.arraycopy(body, 0, blob, start, body.length);
+                    exchange.getResponseHeaders().add("Content-MD5", md5);
+                    status = 201;
+                } else {
+                    status = 400;
+                }
+            }
+        }
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private static byte[] read(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+}
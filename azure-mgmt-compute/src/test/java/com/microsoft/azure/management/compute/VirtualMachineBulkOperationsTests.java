@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.AzureResponseBuilder;
+import com.microsoft.azure.management.compute.implementation.ComputeManager;
+import com.microsoft.azure.management.resources.core.AzureTestCredentials;
+import com.microsoft.azure.management.resources.core.MockArmServer;
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import com.microsoft.rest.RestClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class VirtualMachineBulkOperationsTests {
+    private static final String VM_ID_PREFIX = "/subscriptions/sub1/resourceGroups/rg1/providers/Microsoft.Compute/virtualMachines/";
+
+    private MockArmServer server;
+
+    @After
+    public void cleanup() {
+        server.stop();
+    }
+
+    @Test
+    public void retriesThrottledOperations() throws IOException {
+        server = new MockArmServer()
+                .withResponse("POST", ".*/virtualMachines/vm\\d+/deallocate", 200, "{\"status\":\"Succeeded\"}")
+                .withThrottling(4, 0)
+                .start();
+
+        List<VirtualMachineBulkOperationResult> results = newComputeManager().virtualMachines()
+                .deallocateAsync(vmIds(10), new VirtualMachineBulkOperationSettings().withMaxConcurrency(3).withRetries(5, 1))
+                .toList().toBlocking().single();
+
+        Set<String> succeeded = new HashSet<>();
+        int retried = 0;
+        for (VirtualMachineBulkOperationResult result : results) {
+            if (result.outcome() == VirtualMachineBulkOperationResult.Outcome.SUCCEEDED) {
+                succeeded.add(result.virtualMachineId());
+            } else {
+                Assert.assertEquals(VirtualMachineBulkOperationResult.Outcome.RETRIED, result.outcome());
+                Assert.assertNotNull(result.error());
+                retried++;
+            }
+        }
+        Assert.assertEquals(10, succeeded.size());
+        Assert.assertTrue(retried > 0);
+        Assert.assertEquals(server.throttledCount(), retried);
+    }
+
+    @Test
+    public void failureDoesNotStopOtherVirtualMachines() throws IOException {
+        server = new MockArmServer()
+                .withResponse("POST", ".*/virtualMachines/vm\\d+/restart", 200, "{\"status\":\"Succeeded\"}")
+                .start();
+        List<String> ids = vmIds(4);
+        ids.add(2, VM_ID_PREFIX + "missing");
+
+        List<VirtualMachineBulkOperationResult> results = newComputeManager().virtualMachines()
+                .restartAsync(ids)
+                .toList().toBlocking().single();
+
+        Assert.assertEquals(5, results.size());
+        int failed = 0;
+        for (VirtualMachineBulkOperationResult result : results) {
+            if (result.outcome() == VirtualMachineBulkOperationResult.Outcome.FAILED) {
+                Assert.assertEquals(VM_ID_PREFIX + "missing", result.virtualMachineId());
+                Assert.assertEquals(1, result.attempt());
+                failed++;
+            } else {
+                Assert.assertEquals(VirtualMachineBulkOperationResult.Outcome.SUCCEEDED, result.outcome());
+            }
+        }
+        Assert.assertEquals(1, failed);
+    }
+
+    @Test
+    public void pacesStartsPerSubscription() throws IOException {
+        server = new MockArmServer()
+                .withResponse("POST", ".*/virtualMachines/vm\\d+/start", 200, "{\"status\":\"Succeeded\"}")
+                .start();
+
+        long startTime = System.currentTimeMillis();
+        int count = newComputeManager().virtualMachines()
+                .startAsync(vmIds(5), new VirtualMachineBulkOperationSettings().withStartIntervalPerSubscription(50))
+                .count().toBlocking().single();
+
+        Assert.assertEquals(5, count);
+        Assert.assertTrue(System.currentTimeMillis() - startTime >= 200);
+    }
+
+    private ComputeManager newComputeManager() {
+        return ComputeManager.authenticate(new RestClient.Builder()
+                .withBaseUrl(server.baseUrl())
+                .withSerializerAdapter(new AzureJacksonAdapter())
+                .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                .withCredentials(new AzureTestCredentials(server.baseUrl(), "tenant", true))
+                .build(), "sub1");
+    }
+
+    private static List<String> vmIds(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(VM_ID_PREFIX + "vm" + i);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.AzureResponseBuilder;
+import com.microsoft.azure.management.compute.implementation.ComputeManager;
+import com.microsoft.azure.management.resources.core.AzureTestCredentials;
+import com.microsoft.azure.management.resources.core.MockArmServer;
+import com.microsoft.azure.management.resources.core.NetworkCallRecord;
+import com.microsoft.azure.management.resources.core.RecordedData;
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import com.microsoft.rest.RestClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class VirtualMachineRunCommandTests {
+    private static final String VM_PATH_PREFIX = "/subscriptions/sub1/resourceGroups/rg1/providers/Microsoft.Compute/virtualMachines/";
+    private static final int VM_COUNT = 6;
+
+    private MockArmServer server;
+    private ComputeManager computeManager;
+
+    @Before
+    public void setup() throws IOException {
+        // Every run is a long running operation, polled on the server until the result is served from its location
+        RecordedData recordedData = new RecordedData();
+        for (int i = 0; i < VM_COUNT; i++) {
+            NetworkCallRecord record = new NetworkCallRecord();
+            record.Method = "POST";
+            record.Uri = "http://localhost:1234" + VM_PATH_PREFIX + "vm" + i + "/runCommand?api-version=2017-03-30";
+            record.Response = new HashMap<>();
+            record.Response.put("StatusCode", "202");
+            record.Response.put("location", "http://localhost:1234" + VM_PATH_PREFIX + "vm" + i + "/runCommandResult");
+            record.Response.put("Body", "");
+            recordedData.getNetworkCallRecords().add(record);
+        }
+        server = new MockArmServer()
+                .withRecordedData(recordedData)
+                .withResponse("GET", ".*/virtualMachines/(vm\\d+)/runCommandResult", 200,
+                        "{\"name\":\"$1\",\"status\":\"Succeeded\",\"properties\":{\"output\":\"hello from $1\"}}")
+                .withLongRunningOperationPolls(2)
+                .start();
+        computeManager = ComputeManager.authenticate(new RestClient.Builder()
+                .withBaseUrl(server.baseUrl())
+                .withSerializerAdapter(new AzureJacksonAdapter())
+                .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                .withCredentials(new AzureTestCredentials(server.baseUrl(), "tenant", true))
+                .build(), "sub1");
+    }
+
+    @After
+    public void cleanup() {
+        server.stop();
+    }
+
+    @Test
+    public void canRunShellScript() {
+        RunCommandResult result = computeManager.virtualMachines()
+                .runShellScript("rg1", "vm0", Arrays.asList("echo hello"), null);
+
+        Assert.assertEquals("Succeeded", result.status());
+        Assert.assertEquals("hello from vm0", result.output());
+        Assert.assertNull(result.error());
+        Assert.assertTrue(result.virtualMachineId().endsWith("/virtualMachines/vm0"));
+    }
+
+    @Test
+    public void canFanOutAcrossVirtualMachines() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < VM_COUNT; i++) {
+            ids.add(VM_PATH_PREFIX + "vm" + i);
+        }
+        ids.add(VM_PATH_PREFIX + "missing");
+
+        List<RunCommandResult> results = computeManager.virtualMachines()
+                .runPowerShellScriptAsync(ids, Arrays.asList("Write-Output hello"), null, 3)
+                .toList().toBlocking().single();
+
+        Assert.assertEquals(VM_COUNT + 1, results.size());
+        int failed = 0;
+        for (RunCommandResult result : results) {
+            String name = result.virtualMachineId().substring(VM_PATH_PREFIX.length());
+            if (result.error() != null) {
+                Assert.assertEquals("missing", name);
+                Assert.assertNull(result.output());
+                failed++;
+            } else {
+                Assert.assertEquals("hello from " + name, result.output());
+            }
+        }
+        Assert.assertEquals(1, failed);
+        Assert.assertEquals(0, server.pendingOperationCount());
+    }
+
+    @Test
+    public void malformedIdFailsOnlyItsRun() {
+        List<RunCommandResult> results = computeManager.virtualMachines()
+                .runShellScriptAsync(Arrays.asList("not-a-resource-id", VM_PATH_PREFIX + "vm0"), Arrays.asList("echo hello"), null, 2)
+                .toList().toBlocking().single();
+
+        Assert.assertEquals(2, results.size());
+        for (RunCommandResult result : results) {
+            if (result.virtualMachineId().equals("not-a-resource-id")) {
+                Assert.assertNotNull(result.error());
+            } else {
+                Assert.assertNull(result.error());
+                Assert.assertEquals("hello from vm0", result.output());
+            }
+        }
+    }
+
+    @Test
+    public void canRunCommandInput() {
+        RunCommandResult result = computeManager.virtualMachines()
+                .runCommand("rg1", "vm1", new RunCommandInput()
+                        .withCommandId("RunShellScript")
+                        .withScript("echo hello")
+                        .withParameter("name", "value"));
+
+        Assert.assertEquals("hello from vm1", result.output());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fanOutRejectsNonPositiveConcurrency() {
+        computeManager.virtualMachines()
+                .runShellScriptAsync(Arrays.asList(VM_PATH_PREFIX + "vm0"), Arrays.asList("echo hello"), null, 0);
+    }
+}
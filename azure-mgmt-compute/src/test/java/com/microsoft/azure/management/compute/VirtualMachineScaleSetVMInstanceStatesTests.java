@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute;
+
+import com.microsoft.azure.AzureResponseBuilder;
+import com.microsoft.azure.management.compute.implementation.ComputeManager;
+import com.microsoft.azure.management.resources.core.AzureTestCredentials;
+import com.microsoft.azure.management.resources.core.MockArmServer;
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import com.microsoft.rest.RestClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+public class VirtualMachineScaleSetVMInstanceStatesTests {
+    private static final String SCALE_SET_ID = "/subscriptions/sub1/resourceGroups/rg1/providers/Microsoft.Compute/virtualMachineScaleSets/vmss1";
+    private static final String SCALE_SET = "{\"id\":\"" + SCALE_SET_ID + "\",\"name\":\"vmss1\",\"location\":\"eastus\","
+            + "\"sku\":{\"name\":\"Standard_A1\",\"tier\":\"Standard\",\"capacity\":3},"
+            + "\"properties\":{\"virtualMachineProfile\":{\"storageProfile\":{},\"networkProfile\":{}}}}";
+
+    private MockArmServer server;
+    private VirtualMachineScaleSet scaleSet;
+
+    @Before
+    public void setup() throws IOException {
+        server = new MockArmServer()
+                .withResponse("GET", ".*/virtualMachineScaleSets/vmss1", 200, SCALE_SET)
+                .withResponse("GET", ".*/virtualMachineScaleSets/vmss1/virtualMachines", 200, instancesPage(3))
+                .start();
+        ComputeManager computeManager = ComputeManager.authenticate(new RestClient.Builder()
+                .withBaseUrl(server.baseUrl())
+                .withSerializerAdapter(new AzureJacksonAdapter())
+                .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                .withCredentials(new AzureTestCredentials(server.baseUrl(), "tenant", true))
+                .build(), "sub1");
+        scaleSet = computeManager.virtualMachineScaleSets().getByResourceGroup("rg1", "vmss1");
+    }
+
+    @After
+    public void cleanup() {
+        server.stop();
+    }
+
+    @Test
+    public void canListInstanceStatesInOneSweep() {
+        long requestsBefore = server.requestCount();
+
+        List<VirtualMachineScaleSetVMInstanceState> states = scaleSet.virtualMachines().listInstanceStates();
+        Assert.assertEquals(3, states.size());
+        Assert.assertEquals("1", states.get(1).instanceId());
+        Assert.assertEquals("vmss1_1", states.get(1).name());
+        Assert.assertEquals(PowerState.RUNNING, states.get(0).powerState());
+        Assert.assertEquals(PowerState.DEALLOCATED, states.get(1).powerState());
+        Assert.assertEquals("Succeeded", states.get(2).provisioningState());
+        Assert.assertTrue(states.get(2).isLatestScaleSetUpdateApplied());
+
+        Assert.assertEquals(3, scaleSet.virtualMachines().listInstanceStatesAsync().count().toBlocking().single().intValue());
+        Assert.assertEquals(requestsBefore + 2, server.requestCount());
+    }
+
+    @Test
+    public void expandedListingNeedsNoInstanceViewRequests() {
+        long requestsBefore = server.requestCount();
+
+        for (VirtualMachineScaleSetVM instance : scaleSet.virtualMachines().list(null, null, InstanceViewTypes.INSTANCE_VIEW)) {
+            Assert.assertNotNull(instance.instanceView());
+            Assert.assertNotNull(instance.powerState());
+        }
+        Assert.assertEquals(requestsBefore + 1, server.requestCount());
+    }
+
+    private static String instancesPage(int count) {
+        StringBuilder page = new StringBuilder("{\"value\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                page.append(',');
+            }
+            String powerState = i % 2 == 0 ? "PowerState/running" : "PowerState/deallocated";
+            page.append("{\"id\":\"").append(SCALE_SET_ID).append("/virtualMachines/").append(i)
+                    .append("\",\"name\":\"vmss1_").append(i)
+                    .append("\",\"instanceId\":\"").append(i)
+                    .append("\",\"location\":\"eastus\",\"properties\":{\"latestModelApplied\":true,"
+                            + "\"provisioningState\":\"Succeeded\",\"instanceView\":{\"statuses\":["
+                            + "{\"code\":\"ProvisioningState/succeeded\"},{\"code\":\"").append(powerState).append("\"}]}}}");
+        }
+        return page.append("]}").toString();
+    }
+}
@@ -14,6 +14,8 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class ChildListFlattenerTests {
@@ -50,6 +52,46 @@ public class ChildListFlattenerTests {
         Assert.assertEquals(6, (int) flattenedList.get(5));
     }
 
+    @Test
+    public void testParallelFlattenerPreservesOrder() throws Exception {
+        ChildListFlattener<Integer, Integer> flattener = new ChildListFlattener<>(parentList(), childListLoader(), 3, true);
+
+        List<Integer> flattenedList = flattener.flatten();
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 2, 4, 6), new ArrayList<>(flattenedList));
+    }
+
+    @Test
+    public void testParallelFlattenerWithRelaxedOrder() throws Exception {
+        ChildListFlattener<Integer, Integer> flattener = new ChildListFlattener<>(parentList(), childListLoader(), 4, false);
+
+        List<Integer> flattenedList = new ArrayList<>(flattener.flatten());
+        Collections.sort(flattenedList);
+        Assert.assertEquals(Arrays.asList(1, 2, 2, 3, 4, 6), flattenedList);
+    }
+
+    private PagedList<Integer> parentList() {
+        return new PagedList<Integer>(new ParentPage(0)) {
+            @Override
+            public Page<Integer> nextPage(String nextPageLink) throws RestException, IOException {
+                return new ParentPage(Integer.parseInt(nextPageLink));
+            }
+        };
+    }
+
+    private ChildListFlattener.ChildListLoader<Integer, Integer> childListLoader() {
+        return new ChildListFlattener.ChildListLoader<Integer, Integer>() {
+            @Override
+            public PagedList<Integer> loadList(final Integer parent) {
+                return new PagedList<Integer>(new ChildPage(parent, 0)) {
+                    @Override
+                    public Page<Integer> nextPage(String nextPageLink) throws RestException, IOException {
+                        return new ChildPage(parent, Integer.parseInt(nextPageLink));
+                    }
+                };
+            }
+        };
+    }
+
     private class EmptyPage implements Page<Integer> {
         @Override
         public String nextPageLink() {
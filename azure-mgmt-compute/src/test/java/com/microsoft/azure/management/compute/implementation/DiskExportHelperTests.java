@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute.implementation;
+
+import com.microsoft.azure.management.compute.BlobRangeDownloader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import rx.Completable;
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Action0;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DiskExportHelperTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger revocations = new AtomicInteger();
+    private final Completable revokeAccess = Completable.fromAction(new Action0() {
+        @Override
+        public void call() {
+            revocations.incrementAndGet();
+        }
+    });
+
+    @Test
+    public void revokesAfterFailedDownload() throws IOException {
+        // Nothing listens on port 1, the download fails right away
+        Observable<Long> export = DiskExportHelper.exportAsync(Observable.just("http://127.0.0.1:1/disk?sig=signature"),
+                revokeAccess, folder.newFile(), new BlobRangeDownloader().withMaxRetries(0));
+        try {
+            export.toBlocking().last();
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertEquals(1, revocations.get());
+        }
+    }
+
+    @Test
+    public void revokesWhenGrantFails() throws IOException {
+        Observable<Long> export = DiskExportHelper.exportAsync(Observable.<String>error(new IllegalStateException("denied")),
+                revokeAccess, folder.newFile(), new BlobRangeDownloader());
+        try {
+            export.toBlocking().last();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("denied", e.getMessage());
+            Assert.assertEquals(1, revocations.get());
+        }
+    }
+
+    @Test
+    public void revokesWhenUnsubscribedEarly() throws IOException {
+        Subscription subscription = DiskExportHelper.exportAsync(Observable.<String>never(),
+                revokeAccess, folder.newFile(), new BlobRangeDownloader()).subscribe();
+        Assert.assertEquals(0, revocations.get());
+
+        subscription.unsubscribe();
+        Assert.assertEquals(1, revocations.get());
+        subscription.unsubscribe();
+        Assert.assertEquals(1, revocations.get());
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.compute.implementation;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class VirtualMachineImageCatalogTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void canLookupLatestVersions() throws Exception {
+        FakeCatalogSource source = new FakeCatalogSource();
+        VirtualMachineImageCatalogImpl catalog = new VirtualMachineImageCatalogImpl(folder.getRoot(),
+                TimeUnit.HOURS.toMillis(1), 2, source);
+
+        Assert.assertEquals(Arrays.asList("Canonical", "MicrosoftWindowsServer"), catalog.publisherNames("westus2"));
+        Assert.assertEquals(Arrays.asList("14.04.5-LTS", "16.04-LTS"), catalog.skuNames("westus2", "canonical", "UbuntuServer"));
+        Assert.assertEquals(Arrays.asList("16.04.201609071", "16.04.201701130", "16.04.201711210"),
+                catalog.imageVersions("westus2", "Canonical", "UbuntuServer", "16.04-LTS"));
+        Assert.assertEquals("16.04.201711210", catalog.latestImageVersion("West US 2", "Canonical", "UbuntuServer", "16.04-lts"));
+        Assert.assertEquals("1.10", catalog.latestExtensionVersion("westus2", "Canonical", "LinuxDiagnostic"));
+        Assert.assertNull(catalog.latestImageVersion("westus2", "Canonical", "Unknown", "16.04-LTS"));
+        Assert.assertTrue(catalog.offerNames("westus2", "Unknown").isEmpty());
+
+        int calls = source.calls.get();
+        catalog.latestImageVersion("westus2", "MicrosoftWindowsServer", "WindowsServer", "2016-Datacenter");
+        Assert.assertEquals(calls, source.calls.get());
+    }
+
+    @Test
+    public void canLoadCatalogFromCacheFile() throws Exception {
+        FakeCatalogSource source = new FakeCatalogSource();
+        new VirtualMachineImageCatalogImpl(folder.getRoot(), TimeUnit.HOURS.toMillis(1), 2, source).publisherNames("westus2");
+        Assert.assertTrue(new File(folder.getRoot(), "westus2.vmimagecatalog").isFile());
+
+        FakeCatalogSource otherSource = new FakeCatalogSource();
+        VirtualMachineImageCatalogImpl catalog = new VirtualMachineImageCatalogImpl(folder.getRoot(),
+                TimeUnit.HOURS.toMillis(1), 2, otherSource);
+        Assert.assertEquals("2016.127.20171116", catalog.latestImageVersion("westus2", "MicrosoftWindowsServer", "WindowsServer", "2016-Datacenter"));
+        Assert.assertEquals(0, otherSource.calls.get());
+    }
+
+    @Test
+    public void refreshPicksUpNewVersionsOfUnchangedSkus() throws Exception {
+        FakeCatalogSource source = new FakeCatalogSource();
+        VirtualMachineImageCatalogImpl catalog = new VirtualMachineImageCatalogImpl(folder.getRoot(),
+                TimeUnit.HOURS.toMillis(1), 2, source);
+        Assert.assertEquals("16.04.201711210", catalog.latestImageVersion("westus2", "Canonical", "UbuntuServer", "16.04-LTS"));
+
+        source.versions.put("16.04-LTS", Arrays.asList("16.04.201711210", "16.04.201712010"));
+        source.skus.put("Canonical/UbuntuServer", Arrays.asList("14.04.5-LTS", "16.04-LTS", "17.10"));
+        source.versions.put("17.10", Arrays.asList("17.10.201712010"));
+        catalog.refresh("westus2");
+
+        Assert.assertEquals("16.04.201712010", catalog.latestImageVersion("westus2", "Canonical", "UbuntuServer", "16.04-LTS"));
+        Assert.assertEquals("17.10.201712010", catalog.latestImageVersion("westus2", "Canonical", "UbuntuServer", "17.10"));
+        Assert.assertEquals("2016.127.20171116", catalog.latestImageVersion("westus2", "MicrosoftWindowsServer", "WindowsServer", "2016-Datacenter"));
+    }
+
+    @Test
+    public void lookupsSucceedWhenCacheFileCannotBeWritten() throws Exception {
+        File notADirectory = folder.newFile();
+        VirtualMachineImageCatalogImpl catalog = new VirtualMachineImageCatalogImpl(notADirectory,
+                TimeUnit.HOURS.toMillis(1), 2, new FakeCatalogSource());
+        Assert.assertEquals("16.04.201711210", catalog.latestImageVersion("westus2", "Canonical", "UbuntuServer", "16.04-LTS"));
+    }
+
+    @Test
+    public void expiredCatalogIsServedWhileRefreshing() throws Exception {
+        final CountDownLatch refreshing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final FakeCatalogSource source = new FakeCatalogSource() {
+            @Override
+            public List<String> listPublishers(String regionName) {
+                if (calls.get() > 0) {
+                    refreshing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.listPublishers(regionName);
+            }
+        };
+        final VirtualMachineImageCatalogImpl catalog = new VirtualMachineImageCatalogImpl(folder.getRoot(), 0, 2, source);
+        catalog.publisherNames("westus2");
+
+        Thread refresher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                catalog.publisherNames("westus2");
+            }
+        });
+        refresher.start();
+        Assert.assertTrue(refreshing.await(10, TimeUnit.SECONDS));
+        // Another caller gets the expired catalog instead of waiting for the refresh
+        Assert.assertEquals("16.04.201711210", catalog.latestImageVersion("westus2", "Canonical", "UbuntuServer", "16.04-LTS"));
+        release.countDown();
+        refresher.join();
+    }
+
+    @Test
+    public void refreshesWhenTimeToLiveElapses() throws Exception {
+        FakeCatalogSource source = new FakeCatalogSource();
+        VirtualMachineImageCatalogImpl catalog = new VirtualMachineImageCatalogImpl(folder.getRoot(), 0, 2, source);
+        catalog.publisherNames("westus2");
+        int calls = source.calls.get();
+        catalog.publisherNames("westus2");
+        Assert.assertTrue(source.calls.get() > calls);
+    }
+
+    @Test
+    public void canInvalidateCatalog() throws Exception {
+        FakeCatalogSource source = new FakeCatalogSource();
+        VirtualMachineImageCatalogImpl catalog = new VirtualMachineImageCatalogImpl(folder.getRoot(),
+                TimeUnit.HOURS.toMillis(1), 2, source);
+        catalog.publisherNames("westus2");
+        catalog.invalidate("westus2");
+        Assert.assertFalse(new File(folder.getRoot(), "westus2.vmimagecatalog").exists());
+
+        source.versionListings.set(0);
+        catalog.publisherNames("westus2");
+        Assert.assertEquals(4, source.versionListings.get());
+    }
+
+    @Test
+    public void ordersVersionsNumerically() {
+        List<String> versions = new ArrayList<>(Arrays.asList("1.10", "1.9", "1.2.3", "1.2", "10.0"));
+        Collections.sort(versions, ImageCatalogSnapshot.VERSION_ORDER);
+        Assert.assertEquals(Arrays.asList("1.2", "1.2.3", "1.9", "1.10", "10.0"), versions);
+    }
+
+    private static class FakeCatalogSource implements VirtualMachineImageCatalogImpl.CatalogSource {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger versionListings = new AtomicInteger();
+        final Map<String, List<String>> skus = Collections.synchronizedMap(new HashMap<String, List<String>>());
+        final Map<String, List<String>> versions = Collections.synchronizedMap(new HashMap<String, List<String>>());
+
+        FakeCatalogSource() {
+            skus.put("Canonical/UbuntuServer", Arrays.asList("14.04.5-LTS", "16.04-LTS"));
+            skus.put("MicrosoftWindowsServer/WindowsServer", Arrays.asList("2012-R2-Datacenter", "2016-Datacenter"));
+            versions.put("14.04.5-LTS", Arrays.asList("14.04.201703280"));
+            versions.put("16.04-LTS", Arrays.asList("16.04.201711210", "16.04.201609071", "16.04.201701130"));
+            versions.put("2012-R2-Datacenter", Arrays.asList("4.127.20171017"));
+            versions.put("2016-Datacenter", Arrays.asList("2016.127.20171116", "2016.127.20170918"));
+        }
+
+        @Override
+        public List<String> listPublishers(String regionName) {
+            calls.incrementAndGet();
+            return Arrays.asList("MicrosoftWindowsServer", "Canonical");
+        }
+
+        @Override
+        public List<String> listOffers(String regionName, String publisherName) {
+            calls.incrementAndGet();
+            return Collections.singletonList(publisherName.equals("Canonical") ? "UbuntuServer" : "WindowsServer");
+        }
+
+        @Override
+        public List<String> listSkus(String regionName, String publisherName, String offerName) {
+            calls.incrementAndGet();
+            return skus.get(publisherName + "/" + offerName);
+        }
+
+        @Override
+        public List<String> listImageVersions(String regionName, String publisherName, String offerName, String skuName) {
+            calls.incrementAndGet();
+            versionListings.incrementAndGet();
+            return versions.get(skuName);
+        }
+
+        @Override
+        public List<String> listExtensionTypes(String regionName, String publisherName) {
+            calls.incrementAndGet();
+            if (publisherName.equals("Canonical")) {
+                return Collections.singletonList("LinuxDiagnostic");
+            }
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<String> listExtensionVersions(String regionName, String publisherName, String typeName) {
+            calls.incrementAndGet();
+            return Arrays.asList("1.9", "1.10", "1.2");
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.microsoft.azure.management.locks.ManagementLocks;
 import com.microsoft.azure.management.resources.fluentcore.arm.AzureConfigurable;
 import com.microsoft.azure.management.resources.fluentcore.arm.implementation.AzureConfigurableImpl;
 import com.microsoft.azure.management.resources.fluentcore.arm.implementation.Manager;
+import com.microsoft.azure.management.resources.fluentcore.utils.MetricsInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ProviderRegistrationInterceptor;
 import com.microsoft.azure.serializer.AzureJacksonAdapter;
 import com.microsoft.rest.RestClient;
@@ -50,7 +51,9 @@ public final class AuthorizationManager extends Manager<AuthorizationManager, Ma
             .withCredentials(credentials)
             .withSerializerAdapter(new AzureJacksonAdapter())
             .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+            .withInterceptor(MetricsInterceptor.retryCounter())
             .withInterceptor(new ProviderRegistrationInterceptor(credentials))
+            .withNetworkInterceptor(new MetricsInterceptor())
             .build(), subscriptionId);
     }
     /**
@@ -15,6 +15,7 @@ import com.microsoft.azure.management.apigeneration.Beta.SinceVersion;
 import com.microsoft.azure.management.resources.fluentcore.arm.AzureConfigurable;
 import com.microsoft.azure.management.resources.fluentcore.arm.implementation.AzureConfigurableImpl;
 import com.microsoft.azure.management.resources.fluentcore.arm.implementation.Manager;
+import com.microsoft.azure.management.resources.fluentcore.utils.MetricsInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ProviderRegistrationInterceptor;
 import com.microsoft.azure.serializer.AzureJacksonAdapter;
 import com.microsoft.rest.RestClient;
@@ -59,7 +60,9 @@ public final class MonitorManager extends Manager<MonitorManager, MonitorManagem
             .withCredentials(credentials)
             .withSerializerAdapter(new AzureJacksonAdapter())
             .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+            .withInterceptor(MetricsInterceptor.retryCounter())
             .withInterceptor(new ProviderRegistrationInterceptor(credentials))
+            .withNetworkInterceptor(new MetricsInterceptor())
             .build(), subscriptionId);
     }
     /**
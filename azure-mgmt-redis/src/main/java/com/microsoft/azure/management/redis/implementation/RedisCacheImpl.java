@@ -27,6 +27,7 @@ import com.microsoft.azure.management.resources.fluentcore.utils.Utils;
 import org.joda.time.Period;
 import rx.Observable;
 import rx.functions.Action1;
+import rx.functions.Func1;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -476,21 +477,41 @@ class RedisCacheImpl
         final RedisCacheImpl self = this;
         return this.manager().inner().redis().updateAsync(resourceGroupName(), name(), updateParameters)
                 .map(innerToFluentMap(this))
+                .flatMap(new Func1<RedisCache, Observable<RedisCache>>() {
+                    @Override
+                    public Observable<RedisCache> call(RedisCache redisCache) {
+                        return self.waitForProvisioningSucceededAsync();
+                    }
+                })
                 .doOnNext(new Action1<RedisCache>() {
                     @Override
                     public void call(RedisCache redisCache) {
-                        while (!redisCache.provisioningState().equalsIgnoreCase("Succeeded")) {
-                            SdkContext.sleep(30 * 1000);
-
-                            RedisResourceInner innerResource = self.manager().inner().redis().getByResourceGroup(resourceGroupName(), name());
-                            ((RedisCacheImpl) redisCache).setInner(innerResource);
-                            self.setInner(innerResource);
-                        }
                         updatePatchSchedules();
                     }
                 });
     }
 
+    private Observable<RedisCache> waitForProvisioningSucceededAsync() {
+        if ("Succeeded".equalsIgnoreCase(this.provisioningState())) {
+            return Observable.<RedisCache>just(this);
+        }
+        final RedisCacheImpl self = this;
+        return SdkContext.delayedEmitAsync(this, 30 * 1000)
+                .flatMap(new Func1<RedisCacheImpl, Observable<RedisResourceInner>>() {
+                    @Override
+                    public Observable<RedisResourceInner> call(RedisCacheImpl redisCache) {
+                        return redisCache.getInnerAsync();
+                    }
+                })
+                .flatMap(new Func1<RedisResourceInner, Observable<RedisCache>>() {
+                    @Override
+                    public Observable<RedisCache> call(RedisResourceInner innerResource) {
+                        self.setInner(innerResource);
+                        return self.waitForProvisioningSucceededAsync();
+                    }
+                });
+    }
+
     @Override
     public Observable<RedisCache> createResourceAsync() {
         createParameters.withLocation(this.regionName());
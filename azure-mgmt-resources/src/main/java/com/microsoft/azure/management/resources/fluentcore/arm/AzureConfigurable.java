@@ -6,6 +6,8 @@
 
 package com.microsoft.azure.management.resources.fluentcore.arm;
 
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.resources.fluentcore.utils.LongRunningOperationPollingInterceptor;
 import com.microsoft.rest.LogLevel;
 import okhttp3.Authenticator;
 import okhttp3.Interceptor;
@@ -93,4 +95,35 @@ public interface AzureConfigurable<T extends AzureConfigurable<T>> {
      * @return the configurable object itself for chaining
      */
     T withProxyAuthenticator(Authenticator proxyAuthenticator);
+
+    /**
+     * Polls the long running operations started through the HTTP client on the shared schedule of
+     * the given interceptor, which caps the rate of polls and backs off adaptively per resource type.
+     * Configure several clients with the same interceptor to share one schedule across them.
+     *
+     * @param pollingInterceptor the interceptor scheduling the polls
+     * @return the configurable object itself for chaining
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    T withLongRunningOperationPolling(LongRunningOperationPollingInterceptor pollingInterceptor);
+
+    /**
+     * Joins concurrent identical GET requests sent through the HTTP client onto the one already in
+     * flight, so that reading the same resource from many threads at once sends a single request.
+     * The requests are joined by URL, for the credentials this object is authenticated with.
+     *
+     * @return the configurable object itself for chaining
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    T withGetRequestCoalescing();
+
+    /**
+     * Sends the repeated GETs of a resource as conditional requests, answering them from the last
+     * body received for the resource when its ETag did not change.
+     *
+     * @param maxCachedResources the maximum number of resources whose last body is kept
+     * @return the configurable object itself for chaining
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    T withETagRefreshCache(int maxCachedResources);
 }
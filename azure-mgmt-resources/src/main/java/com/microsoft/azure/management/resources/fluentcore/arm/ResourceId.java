@@ -8,14 +8,32 @@ package com.microsoft.azure.management.resources.fluentcore.arm;
 
 import com.microsoft.azure.management.apigeneration.LangDefinition;
 import java.security.InvalidParameterException;
-import org.apache.commons.lang3.StringUtils;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Instantiate itself from a resource id, and give easy access to resource information like subscription, resourceGroup,
  * resource name.
+ * <p>
+ * The id is parsed in a single pass that records the offsets of its segments, the subscription ID, resource
+ * group name and provider namespace are shared with the other parsed ids of the same subscription, group
+ * and provider.
  */
 @LangDefinition
 public final class ResourceId {
+    /**
+     * The number of slots in the table of interned subscription IDs, group names and provider namespaces.
+     */
+    private static final int INTERNED_SEGMENTS_SIZE = 4096;
+    /**
+     * Direct mapped table of the segments seen most recently, so that the resource IDs of the same
+     * subscription, group or provider share the same string instances.
+     */
+    private static final String[] INTERNED_SEGMENTS = new String[INTERNED_SEGMENTS_SIZE];
+    /**
+     * The parsed resource IDs by ID, null when caching is disabled.
+     */
+    private static volatile ParsedIdCache parsedIdCache;
 
     private String subscriptionId = null;
     private String resourceGroupName = null;
@@ -23,7 +41,10 @@ public final class ResourceId {
     private String providerNamespace = null;
     private String resourceType = null;
     private String id = null;
-    private String parentId = null;
+    /**
+     * the start offset in the ID of each segment, followed by the offset one past the end of the last segment plus one.
+     */
+    private int[] segmentStarts;
 
     private static String badIdErrorText(String id) {
         return String.format("The specified ID `%s` is not a valid Azure resource ID.", id);
@@ -34,67 +55,74 @@ public final class ResourceId {
             // Protect against NPEs from null IDs, preserving legacy behavior for null IDs
             return;
         } else {
-            // Skip the first '/' if any, and then split using '/'
-            String[] splits = (id.startsWith("/")) ? id.substring(1).split("/") : id.split("/");
-            if (splits.length % 2 == 1) {
+            // Skip the first '/' if any, and locate the segments separated by '/' in a single pass,
+            // trailing empty segments are ignored
+            int begin = id.startsWith("/") ? 1 : 0;
+            int end = id.length();
+            while (end > begin && id.charAt(end - 1) == '/') {
+                end--;
+            }
+            int count = 1;
+            for (int i = begin; i < end; i++) {
+                if (id.charAt(i) == '/') {
+                    count++;
+                }
+            }
+            if (count % 2 == 1) {
                 throw new InvalidParameterException(badIdErrorText(id));
             }
+            int[] starts = new int[count + 1];
+            starts[0] = begin;
+            for (int i = begin, segment = 1; i < end; i++) {
+                if (id.charAt(i) == '/') {
+                    starts[segment++] = i + 1;
+                }
+            }
+            starts[count] = end + 1;
 
             // Save the ID itself
             this.id = id;
+            this.segmentStarts = starts;
 
             // Format of id:
             // /subscriptions/<subscriptionId>/resourceGroups/<resourceGroupName>/providers/<providerNamespace>(/<parentResourceType>/<parentName>)*/<resourceType>/<name>
             //  0             1                2              3                   4         5                                                        N-2            N-1
 
             // Extract resource type and name
-            if (splits.length < 2) {
-                throw new InvalidParameterException(badIdErrorText(id));
-            } else {
-                this.name = splits[splits.length - 1];
-                this.resourceType = splits[splits.length - 2];
-            }
-
-            // Extract parent ID
-            if (splits.length < 10) {
-                this.parentId = null;
-            } else {
-                String[] parentSplits = new String[splits.length - 2];
-                System.arraycopy(splits, 0, parentSplits, 0, splits.length - 2);
-                this.parentId = "/" + StringUtils.join(parentSplits, "/");
-            }
+            this.name = segment(count - 1);
+            this.resourceType = segment(count - 2);
 
-            for (int i = 0; i < splits.length && i < 6; i++) {
+            for (int i = 0; i < count && i < 6; i++) {
                 switch (i) {
                 case 0:
                     // Ensure "subscriptions"
-                    if (!splits[i].equalsIgnoreCase("subscriptions")) {
+                    if (!segmentEquals(i, "subscriptions")) {
                         throw new InvalidParameterException(badIdErrorText(id));
                     }
                     break;
                 case 1:
                     // Extract subscription ID
-                    this.subscriptionId = splits[i];
+                    this.subscriptionId = internedSegment(i);
                     break;
                 case 2:
                     // Ensure "resourceGroups"
-                    if (!splits[i].equalsIgnoreCase("resourceGroups")) {
+                    if (!segmentEquals(i, "resourceGroups")) {
                         throw new InvalidParameterException(badIdErrorText(id));
                     }
                     break;
                 case 3:
                     // Extract resource group name
-                    this.resourceGroupName = splits[i];
+                    this.resourceGroupName = internedSegment(i);
                     break;
                 case 4:
                     // Ensure "providers"
-                    if (!splits[i].equalsIgnoreCase("providers")) {
+                    if (!segmentEquals(i, "providers")) {
                         throw new InvalidParameterException(badIdErrorText(id));
                     }
                     break;
                 case 5:
                     // Extract provider namespace
-                    this.providerNamespace = splits[i];
+                    this.providerNamespace = internedSegment(i);
                     break;
                 default:
                     break;
@@ -109,7 +137,30 @@ public final class ResourceId {
      * @return ResourceId object
      */
     public static ResourceId fromString(String id) {
-        return new ResourceId(id);
+        ParsedIdCache cache = parsedIdCache;
+        if (cache == null || id == null) {
+            return new ResourceId(id);
+        }
+        ResourceId resourceId = cache.get(id);
+        if (resourceId == null) {
+            resourceId = new ResourceId(id);
+            cache.put(id, resourceId);
+        }
+        return resourceId;
+    }
+
+    /**
+     * Enables caching of the parsed resource IDs returned by {@link #fromString(String)} and the
+     * {@link ResourceUtils} methods, evicting the least recently used IDs beyond the given size.
+     * The cache is disabled by default.
+     *
+     * @param maxSize the maximum number of parsed IDs to keep, 0 to disable the cache
+     */
+    public static void setParsedIdCacheSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative.");
+        }
+        parsedIdCache = maxSize == 0 ? null : new ParsedIdCache(maxSize);
     }
 
     /**
@@ -137,10 +188,11 @@ public final class ResourceId {
      * @return parent resource id of the resource if any, otherwise null.
      */
     public ResourceId parent() {
-        if (this.id == null || this.parentId == null) {
+        String parentId = parentId();
+        if (parentId == null) {
             return null;
         } else {
-            return fromString(this.parentId);
+            return fromString(parentId);
         }
     }
 
@@ -162,10 +214,16 @@ public final class ResourceId {
      * @return full type of the resource.
      */
     public String fullResourceType() {
-        if (this.parentId == null) {
+        int count = segmentCount();
+        if (count < 10) {
             return this.providerNamespace + "/" + this.resourceType;
         } else {
-            return this.parent().fullResourceType() + "/" + this.resourceType;
+            // The provider namespace followed by the types of the ancestors and of the resource
+            StringBuilder fullType = new StringBuilder(this.providerNamespace);
+            for (int i = 6; i < count; i += 2) {
+                fullType.append('/').append(this.id, segmentStarts[i], segmentStarts[i + 1] - 1);
+            }
+            return fullType.toString();
         }
     }
 
@@ -175,4 +233,73 @@ public final class ResourceId {
     public String id() {
         return id;
     }
+
+    private int segmentCount() {
+        return this.segmentStarts == null ? 0 : this.segmentStarts.length - 1;
+    }
+
+    private String parentId() {
+        int count = segmentCount();
+        if (count < 10) {
+            return null;
+        }
+        // The ID up to the segment of the resource type, always starting with '/'
+        int parentEnd = segmentStarts[count - 2] - 1;
+        return this.id.charAt(0) == '/' ? this.id.substring(0, parentEnd) : "/" + this.id.substring(0, parentEnd);
+    }
+
+    private String segment(int index) {
+        return this.id.substring(segmentStarts[index], segmentStarts[index + 1] - 1);
+    }
+
+    private boolean segmentEquals(int index, String value) {
+        int length = segmentStarts[index + 1] - 1 - segmentStarts[index];
+        return length == value.length() && this.id.regionMatches(true, segmentStarts[index], value, 0, length);
+    }
+
+    /**
+     * Gets a segment of the ID, returning the string instance of an earlier ID with the same segment
+     * when it is still in the interned segments table, without allocating a new string.
+     */
+    private String internedSegment(int index) {
+        int start = segmentStarts[index];
+        int length = segmentStarts[index + 1] - 1 - start;
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + this.id.charAt(i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (INTERNED_SEGMENTS_SIZE - 1);
+        String interned = INTERNED_SEGMENTS[slot];
+        if (interned != null && interned.length() == length && this.id.regionMatches(start, interned, 0, length)) {
+            return interned;
+        }
+        // Racing writers may replace each other's entries, which only costs a later miss
+        interned = this.id.substring(start, start + length);
+        INTERNED_SEGMENTS[slot] = interned;
+        return interned;
+    }
+
+    /**
+     * A bounded cache of parsed IDs that evicts the least recently used ID.
+     */
+    private static final class ParsedIdCache {
+        private final Map<String, ResourceId> parsedIds;
+
+        ParsedIdCache(final int maxSize) {
+            this.parsedIds = new LinkedHashMap<String, ResourceId>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ResourceId> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized ResourceId get(String id) {
+            return this.parsedIds.get(id);
+        }
+
+        synchronized void put(String id, ResourceId resourceId) {
+            this.parsedIds.put(id, resourceId);
+        }
+    }
 }
@@ -9,6 +9,8 @@ package com.microsoft.azure.management.resources.fluentcore.arm;
 import com.microsoft.azure.management.resources.Provider;
 import com.microsoft.azure.management.resources.ProviderResourceType;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -16,6 +18,12 @@ import java.util.regex.Pattern;
  * Utility methods for Azure resource IDs.
  */
 public final class ResourceUtils {
+    private static final int MAX_IDENTIFIER_PATTERNS = 256;
+    /**
+     * The compiled patterns used by extractFromResourceId by identifier.
+     */
+    private static final ConcurrentMap<String, Pattern> IDENTIFIER_PATTERNS = new ConcurrentHashMap<>();
+
     private ResourceUtils() { }
 
     /**
@@ -66,9 +74,9 @@ public final class ResourceUtils {
         if (id == null) {
             return null;
         }
-        ResourceId resourceId = ResourceId.fromString(id);
-        if (resourceId != null && resourceId.parent() != null) {
-            return ResourceId.fromString(id).parent().id();
+        ResourceId parent = ResourceId.fromString(id).parent();
+        if (parent != null) {
+            return parent.id();
         }
 
         return null;
@@ -105,11 +113,12 @@ public final class ResourceUtils {
         if (id == null) {
             return null;
         }
-        String[] paths = id.split("/providers/" + resourceProviderFromResourceId(id) + "/", 2);
-        if (paths.length == 1) {
+        String separator = "/providers/" + resourceProviderFromResourceId(id) + "/";
+        int index = id.indexOf(separator);
+        if (index < 0) {
             return "";
         } else {
-            return paths[1];
+            return id.substring(index + separator.length());
         }
     }
 
@@ -125,10 +134,19 @@ public final class ResourceUtils {
         if (id == null || identifier == null) {
             return id;
         }
-        Pattern pattern = Pattern.compile(identifier + "/[-\\w._]+");
+        Pattern pattern = IDENTIFIER_PATTERNS.get(identifier);
+        if (pattern == null) {
+            pattern = Pattern.compile(identifier + "/[-\\w._]+");
+            if (IDENTIFIER_PATTERNS.size() < MAX_IDENTIFIER_PATTERNS) {
+                IDENTIFIER_PATTERNS.put(identifier, pattern);
+            }
+        }
         Matcher matcher = pattern.matcher(id);
         if (matcher.find()) {
-            return matcher.group().split("/")[1];
+            // The text between the first and the second '/' of the match
+            int start = id.indexOf('/', matcher.start()) + 1;
+            int end = id.indexOf('/', start);
+            return id.substring(start, end < 0 || end > matcher.end() ? matcher.end() : end);
         } else {
             return null;
         }
@@ -7,6 +7,7 @@
 package com.microsoft.azure.management.resources.fluentcore.arm.collection.implementation;
 
 import com.microsoft.azure.management.resources.fluentcore.collection.SupportsBatchCreation;
+import com.microsoft.azure.management.resources.fluentcore.dag.TaskGroup;
 import com.microsoft.azure.management.resources.fluentcore.model.Creatable;
 import com.microsoft.azure.management.resources.fluentcore.model.CreatedResources;
 import com.microsoft.azure.management.resources.fluentcore.model.Indexable;
@@ -36,10 +37,25 @@ public abstract class CreatableResourcesImpl<T extends Indexable, ImplT extends
         extends CreatableWrappersImpl<T, ImplT, InnerT>
         implements
             SupportsBatchCreation<T> {
+    /**
+     * The default maximum number of resources in a batch that are created at the same time.
+     */
+    public static final int DEFAULT_BATCH_MAX_CONCURRENCY = 32;
+
+    private volatile int batchMaxConcurrency = DEFAULT_BATCH_MAX_CONCURRENCY;
 
     protected CreatableResourcesImpl() {
     }
 
+    @Override
+    public SupportsBatchCreation<T> withBatchMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive.");
+        }
+        this.batchMaxConcurrency = maxConcurrency;
+        return this;
+    }
+
     @Override
     @SafeVarargs
     public final CreatedResources<T> create(Creatable<T> ... creatables) {
@@ -58,14 +74,14 @@ public abstract class CreatableResourcesImpl<T extends Indexable, ImplT extends
     @Override
     @SafeVarargs
     public final Observable<Indexable> createAsync(Creatable<T> ... creatables) {
-        CreatableUpdatableResourcesRootImpl<T> rootResource = new CreatableUpdatableResourcesRootImpl<>();
+        CreatableUpdatableResourcesRootImpl<T> rootResource = new CreatableUpdatableResourcesRootImpl<>(this.batchMaxConcurrency);
         rootResource.addCreatableDependencies(creatables);
         return rootResource.createAsync();
     }
 
     @Override
     public final Observable<Indexable> createAsync(List<Creatable<T>> creatables) {
-        CreatableUpdatableResourcesRootImpl<T> rootResource = new CreatableUpdatableResourcesRootImpl<>();
+        CreatableUpdatableResourcesRootImpl<T> rootResource = new CreatableUpdatableResourcesRootImpl<>(this.batchMaxConcurrency);
         rootResource.addCreatableDependencies(creatables);
         return rootResource.createAsync();
     }
@@ -169,10 +185,15 @@ public abstract class CreatableResourcesImpl<T extends Indexable, ImplT extends
          * Collection of keys of top level resources in this batch.
          */
         private List<String> keys;
+        /**
+         * The maximum number of resources in this batch that are created at the same time.
+         */
+        private final int maxConcurrency;
 
-        CreatableUpdatableResourcesRootImpl() {
+        CreatableUpdatableResourcesRootImpl(int maxConcurrency) {
             super("CreatableUpdatableResourcesRoot", null);
             this.keys = new ArrayList<>();
+            this.maxConcurrency = maxConcurrency;
         }
 
         @SuppressWarnings("unchecked")
@@ -205,6 +226,11 @@ public abstract class CreatableResourcesImpl<T extends Indexable, ImplT extends
             }
         }
 
+        @Override
+        protected TaskGroup.InvocationContext newInvocationContext() {
+            return super.newInvocationContext().withMaxConcurrency(this.maxConcurrency);
+        }
+
         @Override
         public Observable<CreatableUpdatableResourcesRoot<ResourceT>> createResourceAsync() {
             return Observable.just((CreatableUpdatableResourcesRoot<ResourceT>) this);
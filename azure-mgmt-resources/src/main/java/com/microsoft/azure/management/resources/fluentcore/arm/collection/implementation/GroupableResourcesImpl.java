@@ -7,7 +7,6 @@ package com.microsoft.azure.management.resources.fluentcore.arm.collection.imple
 
 import com.microsoft.azure.Resource;
 import com.microsoft.azure.management.resources.fluentcore.arm.ResourceId;
-import com.microsoft.azure.management.resources.fluentcore.arm.ResourceUtils;
 import com.microsoft.azure.management.resources.fluentcore.arm.collection.SupportsDeletingByResourceGroup;
 import com.microsoft.azure.management.resources.fluentcore.arm.collection.SupportsGettingByResourceGroup;
 import com.microsoft.azure.management.resources.fluentcore.arm.collection.SupportsGettingById;
@@ -102,7 +101,8 @@ public abstract class GroupableResourcesImpl<
 
     @Override
     public Completable deleteByIdAsync(String id) {
-        return deleteByResourceGroupAsync(ResourceUtils.groupFromResourceId(id), ResourceUtils.nameFromResourceId(id));
+        ResourceId resourceId = ResourceId.fromString(id);
+        return deleteByResourceGroupAsync(resourceId.resourceGroupName(), resourceId.name());
     }
 
     @Override
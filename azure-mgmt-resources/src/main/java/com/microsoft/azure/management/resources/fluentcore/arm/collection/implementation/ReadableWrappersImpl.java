@@ -25,6 +25,15 @@ public abstract class ReadableWrappersImpl<
         T,
         ImplT extends T,
         InnerT> {
+    /**
+     * The default maximum number of pages fetched ahead of the consumer of an asynchronous listing.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_PAGES = 2;
+
+    /**
+     * The default number of items requested at a time from each page fetched by an asynchronous listing.
+     */
+    public static final int DEFAULT_ITEMS_REQUESTED_PER_PAGE = 128;
 
     private final PagedListConverter<InnerT, T> converter;
 
@@ -70,6 +79,20 @@ public abstract class ReadableWrappersImpl<
         return wrapModelAsync(convertPageToInnerAsync(innerPage));
     }
 
+    /**
+     * Wraps the items of the pages of an asynchronous listing, requesting the next pages only when
+     * there is demand from the subscriber.
+     *
+     * @param innerPage the pages of inner items
+     * @param maxConcurrentPages the maximum number of pages fetched ahead of the subscriber, a page fetched
+     *                           is held in memory whole until its last item is emitted
+     * @param itemsRequestedPerPage the number of items requested at a time from each page fetched
+     * @return the wrapped items, in page order
+     */
+    protected Observable<T> wrapPageAsync(Observable<Page<InnerT>> innerPage, int maxConcurrentPages, int itemsRequestedPerPage) {
+        return wrapModelAsync(convertPageToInnerAsync(innerPage, maxConcurrentPages, itemsRequestedPerPage));
+    }
+
     protected Observable<T> wrapListAsync(Observable<List<InnerT>> innerList) {
         return wrapModelAsync(convertListToInnerAsync(innerList));
     }
@@ -91,17 +114,50 @@ public abstract class ReadableWrappersImpl<
 
     /**
      * Converts Observable of page to Observable of Inner.
+     * <p>
+     * The next pages are requested only when there is demand from the subscriber, with at most
+     * {@link #DEFAULT_MAX_CONCURRENT_PAGES} pages in flight and {@link #DEFAULT_ITEMS_REQUESTED_PER_PAGE}
+     * items requested at a time from each of them.
+     *
      * @param <InnerT> type of inner.
      * @param innerPage Page to be converted.
      * @return Observable for list of inner.
      */
     public static <InnerT> Observable<InnerT> convertPageToInnerAsync(Observable<Page<InnerT>> innerPage) {
-        return innerPage.flatMap(new Func1<Page<InnerT>, Observable<InnerT>>() {
+        return convertPageToInnerAsync(innerPage, DEFAULT_MAX_CONCURRENT_PAGES, DEFAULT_ITEMS_REQUESTED_PER_PAGE);
+    }
+
+    /**
+     * Converts Observable of page to Observable of Inner, requesting the next pages only when
+     * there is demand from the subscriber. The items are emitted in page order.
+     * <p>
+     * The memory used is bounded by the pages in flight, which are held whole until their last item
+     * is emitted, not by the number of items requested from each of them.
+     *
+     * @param <InnerT> type of inner.
+     * @param innerPage Page to be converted.
+     * @param maxConcurrentPages the maximum number of pages requested ahead of the subscriber
+     * @param itemsRequestedPerPage the number of items requested at a time from each page in flight
+     * @return Observable for list of inner.
+     */
+    public static <InnerT> Observable<InnerT> convertPageToInnerAsync(Observable<Page<InnerT>> innerPage,
+                                                                      int maxConcurrentPages,
+                                                                      int itemsRequestedPerPage) {
+        if (maxConcurrentPages <= 0) {
+            throw new IllegalArgumentException("maxConcurrentPages must be positive.");
+        }
+        if (itemsRequestedPerPage <= 0) {
+            throw new IllegalArgumentException("itemsRequestedPerPage must be positive.");
+        }
+        return innerPage.concatMapEager(new Func1<Page<InnerT>, Observable<InnerT>>() {
             @Override
             public Observable<InnerT> call(Page<InnerT> pageInner) {
+                if (pageInner.items() == null) {
+                    return Observable.empty();
+                }
                 return Observable.from(pageInner.items());
             }
-        });
+        }, itemsRequestedPerPage, maxConcurrentPages);
     }
 
     private Observable<T> wrapModelAsync(Observable<InnerT> inner) {
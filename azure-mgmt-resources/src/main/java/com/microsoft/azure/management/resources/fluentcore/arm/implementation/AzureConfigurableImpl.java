@@ -10,6 +10,10 @@ import com.microsoft.azure.AzureEnvironment;
 import com.microsoft.azure.AzureResponseBuilder;
 import com.microsoft.azure.credentials.AzureTokenCredentials;
 import com.microsoft.azure.management.resources.fluentcore.arm.AzureConfigurable;
+import com.microsoft.azure.management.resources.fluentcore.utils.ETagRefreshCacheInterceptor;
+import com.microsoft.azure.management.resources.fluentcore.utils.GetRequestCoalescingInterceptor;
+import com.microsoft.azure.management.resources.fluentcore.utils.LongRunningOperationPollingInterceptor;
+import com.microsoft.azure.management.resources.fluentcore.utils.MetricsInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ProviderRegistrationInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ResourceManagerThrottlingInterceptor;
 import com.microsoft.azure.serializer.AzureJacksonAdapter;
@@ -17,6 +21,8 @@ import com.microsoft.rest.LogLevel;
 import com.microsoft.rest.RestClient;
 import okhttp3.Authenticator;
 import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
 
 import java.net.Proxy;
 import java.util.concurrent.Executor;
@@ -33,7 +39,8 @@ public class AzureConfigurableImpl<T extends AzureConfigurable<T>>
     protected RestClient.Builder restClientBuilder;
 
     protected AzureConfigurableImpl() {
-        this.restClientBuilder = new RestClient.Builder()
+        this.restClientBuilder = new RestClient.Builder(new OkHttpClient.Builder(), new Retrofit.Builder()
+                .addCallAdapterFactory(ResourceManagerThrottlingInterceptor.callAdapterFactory()))
             .withSerializerAdapter(new AzureJacksonAdapter())
             .withResponseBuilderFactory(new AzureResponseBuilder.Factory());
     }
@@ -101,12 +108,35 @@ public class AzureConfigurableImpl<T extends AzureConfigurable<T>>
         return (T) this;
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public T withLongRunningOperationPolling(LongRunningOperationPollingInterceptor pollingInterceptor) {
+        this.restClientBuilder = restClientBuilder.withInterceptor(pollingInterceptor);
+        return (T) this;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T withGetRequestCoalescing() {
+        this.restClientBuilder = restClientBuilder.withInterceptor(new GetRequestCoalescingInterceptor());
+        return (T) this;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T withETagRefreshCache(int maxCachedResources) {
+        this.restClientBuilder = restClientBuilder.withInterceptor(new ETagRefreshCacheInterceptor(maxCachedResources));
+        return (T) this;
+    }
+
     protected RestClient buildRestClient(AzureTokenCredentials credentials, AzureEnvironment.Endpoint endpoint) {
         RestClient client =  restClientBuilder
                 .withBaseUrl(credentials.environment(), endpoint)
                 .withCredentials(credentials)
+                .withInterceptor(MetricsInterceptor.retryCounter())
                 .withInterceptor(new ProviderRegistrationInterceptor(credentials))
                 .withInterceptor(new ResourceManagerThrottlingInterceptor())
+                .withNetworkInterceptor(new MetricsInterceptor())
                 .build();
         if (client.httpClient().proxy() != null) {
             credentials.withProxy(client.httpClient().proxy());
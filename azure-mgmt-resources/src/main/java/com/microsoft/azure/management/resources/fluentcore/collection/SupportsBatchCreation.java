@@ -6,6 +6,7 @@
 
 package com.microsoft.azure.management.resources.fluentcore.collection;
 
+import com.microsoft.azure.management.apigeneration.Beta;
 import com.microsoft.azure.management.apigeneration.LangDefinition;
 import com.microsoft.azure.management.apigeneration.LangDefinition.MethodConversion;
 import com.microsoft.azure.management.resources.fluentcore.model.Creatable;
@@ -25,6 +26,18 @@ import java.util.List;
  */
 @LangDefinition(ContainerName = "CollectionActions", MethodConversionType = MethodConversion.OnlyMethod)
 public interface SupportsBatchCreation<ResourceT extends Indexable> {
+    /**
+     * Sets the maximum number of resources of a batch that are created at the same time, 32 by default.
+     * <p>
+     * The limit applies to the batches created through this collection afterwards.
+     *
+     * @param maxConcurrency the maximum number of resources created at the same time
+     * @return the collection itself
+     * @throws IllegalArgumentException if maxConcurrency is not positive
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    SupportsBatchCreation<ResourceT> withBatchMaxConcurrency(int maxConcurrency);
+
     /**
      * Executes the create requests on a collection (batch) of resources.
      *
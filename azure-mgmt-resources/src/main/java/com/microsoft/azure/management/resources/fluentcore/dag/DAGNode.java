@@ -9,6 +9,7 @@ package com.microsoft.azure.management.resources.fluentcore.dag;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -23,15 +24,19 @@ public class DAGNode<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Node<Da
      */
     private List<String> dependentKeys;
     /**
-     * to track the dependency resolution count.
+     * to track the dependency resolution count, decremented concurrently as dependencies resolve.
      */
-    private int toBeResolved;
+    private final AtomicInteger toBeResolved;
+    /**
+     * the cost of the longest path from this node to the root, this node included.
+     */
+    private volatile long criticalPathCost;
     /**
      * indicates this node is the preparer or not.
      */
     private boolean isPreparer;
     /**
-     * lock used while performing concurrent safe operation on the node.
+     * lock used while performing concurrent safe operation on the node, created on demand.
      */
     private ReentrantLock lock;
 
@@ -44,13 +49,18 @@ public class DAGNode<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Node<Da
     public DAGNode(final String key, final DataT data) {
         super(key, data);
         dependentKeys = new ArrayList<>();
-        lock = new ReentrantLock();
+        toBeResolved = new AtomicInteger();
     }
 
     /**
      * @return the lock to be used while performing thread safe operation on this node.
+     * @deprecated {@link DAGraph} resolves dependencies using an atomic counter and no longer locks the nodes
      */
-    public ReentrantLock lock() {
+    @Deprecated
+    public synchronized ReentrantLock lock() {
+        if (this.lock == null) {
+            this.lock = new ReentrantLock();
+        }
         return this.lock;
     }
 
@@ -122,7 +132,7 @@ public class DAGNode<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Node<Da
      * Initialize the node so that traversal can be performed on the parent DAG.
      */
     public void initialize() {
-        this.toBeResolved = this.dependencyKeys().size();
+        this.toBeResolved.set(this.dependencyKeys().size());
         this.dependentKeys.clear();
     }
 
@@ -130,19 +140,43 @@ public class DAGNode<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Node<Da
      * @return <tt>true</tt> if all dependencies of this node are resolved
      */
     boolean hasAllResolved() {
-        return toBeResolved == 0;
+        return toBeResolved.get() == 0;
+    }
+
+    /**
+     * Counts one dependency of this node as resolved.
+     *
+     * @return <tt>true</tt> if this call resolved the last pending dependency, exactly one of the
+     * concurrent callers observes <tt>true</tt>
+     */
+    boolean markResolved() {
+        return toBeResolved.decrementAndGet() == 0;
+    }
+
+    /**
+     * @return the total cost of the most expensive chain of nodes from this node up to the root
+     * of the graph that prepared it, used to run the nodes on the critical path first
+     */
+    long criticalPathCost() {
+        return this.criticalPathCost;
+    }
+
+    /**
+     * @param criticalPathCost the total cost of the most expensive chain of nodes from this node up to the root
+     */
+    void setCriticalPathCost(long criticalPathCost) {
+        this.criticalPathCost = criticalPathCost;
     }
 
     /**
      * Reports a dependency of this node has been successfully resolved.
+     * <p>
+     * This is invoked before the dependency is counted as resolved by {@link DAGraph}.
      *
      * @param dependencyKey the id of the dependency node
      */
     protected void onSuccessfulResolution(String dependencyKey) {
-        if (toBeResolved == 0) {
-            throw new RuntimeException("invalid state - " + this.key() + ": The dependency '" + dependencyKey + "' is already reported or there is no such dependencyKey");
-        }
-        toBeResolved--;
+        ensurePending(dependencyKey);
     }
 
     /**
@@ -152,9 +186,12 @@ public class DAGNode<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Node<Da
      * @param throwable the reason for unsuccessful resolution
      */
     protected void onFaultedResolution(String dependencyKey, Throwable throwable) {
-        if (toBeResolved == 0) {
+        ensurePending(dependencyKey);
+    }
+
+    private void ensurePending(String dependencyKey) {
+        if (toBeResolved.get() == 0) {
             throw new RuntimeException("invalid state - " + this.key() + ": The dependency '" + dependencyKey + "' is already reported or there is no such dependencyKey");
         }
-        toBeResolved--;
     }
 }
@@ -8,21 +8,36 @@ package com.microsoft.azure.management.resources.fluentcore.dag;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Type representing a DAG (directed acyclic graph).
  * <p>
  * each node in a DAG is represented by {@link DAGNode}
+ * <p>
+ * When the DAG is prepared for enumeration its nodes are indexed by position, the dependents of
+ * each node are kept as arrays of positions and each node tracks its unresolved dependencies with
+ * an atomic counter, so that completions reported concurrently never lock the nodes. Each node is
+ * also given the cost of the longest chain of dependents above it, which lets the consumers of
+ * the graph start the nodes on the critical path first.
  *
  * @param <DataT> the type of the data stored in the graph nodes
  * @param <NodeT> the type of the nodes in the graph
  */
 public class DAGraph<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Graph<DataT, NodeT> {
+    private static final int[] NO_DEPENDENTS = new int[0];
+
     /**
      * the root node in the graph.
      * {@link this#nodeTable} contains all the nodes in this graph with this as the root.
@@ -37,7 +52,20 @@ public class DAGraph<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Graph<D
      * to perform topological sort on the graph. During sorting queue contains the nodes which
      * are ready to invoke.
      */
-    protected ConcurrentLinkedQueue<String> queue;
+    protected ConcurrentLinkedQueue<NodeT> queue;
+    /**
+     * the nodes of the graph by position, as indexed by the last call to {@link this#buildIndex()}.
+     */
+    private List<NodeT> indexedNodes;
+    /**
+     * the position of each indexed node, by node key. Kept on the graph rather than on the nodes,
+     * since the nodes are shared with the graphs merged into this one.
+     */
+    private Map<String, Integer> positions;
+    /**
+     * the positions of the dependents of each indexed node.
+     */
+    private int[][] dependents;
 
     /**
      * Creates a new DAG.
@@ -48,6 +76,9 @@ public class DAGraph<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Graph<D
         this.parentDAGs = new ArrayList<>();
         this.rootNode = rootNode;
         this.queue = new ConcurrentLinkedQueue<>();
+        this.indexedNodes = Collections.emptyList();
+        this.positions = Collections.emptyMap();
+        this.dependents = new int[0][];
         this.rootNode.setPreparer(true);
         this.addNode(rootNode);
     }
@@ -99,13 +130,12 @@ public class DAGraph<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Graph<D
      * @param dependencyGraph the dependency DAG
      */
     public void addDependencyGraph(DAGraph<DataT, NodeT> dependencyGraph) {
+        this.ensureNoCircularDependency(dependencyGraph);
         this.rootNode.addDependency(dependencyGraph.rootNode.key());
-        Map<String, NodeT> sourceNodeTable = dependencyGraph.nodeTable;
-        Map<String, NodeT> targetNodeTable = this.nodeTable;
-        this.merge(sourceNodeTable, targetNodeTable);
         dependencyGraph.parentDAGs.add(this);
-        if (this.hasParents()) {
-            this.bubbleUpNodeTable(this, new LinkedList<String>());
+        List<NodeT> added = merge(dependencyGraph.nodeTable.values(), this.nodeTable);
+        if (!added.isEmpty() && this.hasParents()) {
+            this.propagateToAncestors(added);
         }
     }
 
@@ -132,6 +162,7 @@ public class DAGraph<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Graph<D
                     node.setPreparer(false);
                 }
             }
+            buildIndex();
             initializeDependentKeys();
             initializeQueue();
         }
@@ -144,11 +175,7 @@ public class DAGraph<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Graph<D
      * @return next node or null if all the nodes have been explored or no node is available at this moment.
      */
     public NodeT getNext() {
-        String nextItemKey = queue.poll();
-        if (nextItemKey == null) {
-            return null;
-        }
-        return nodeTable.get(nextItemKey);
+        return queue.poll();
     }
 
     /**
@@ -159,16 +186,11 @@ public class DAGraph<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Graph<D
     public void reportCompletion(NodeT completed) {
         completed.setPreparer(true);
         String dependency = completed.key();
-        for (String dependentKey : nodeTable.get(dependency).dependentKeys()) {
-            DAGNode<DataT, NodeT> dependent = nodeTable.get(dependentKey);
-            dependent.lock().lock();
-            try {
-                dependent.onSuccessfulResolution(dependency);
-                if (dependent.hasAllResolved()) {
-                    queue.add(dependent.key());
-                }
-            } finally {
-                dependent.lock().unlock();
+        for (int dependentIndex : dependentsOf(completed)) {
+            NodeT dependent = indexedNodes.get(dependentIndex);
+            dependent.onSuccessfulResolution(dependency);
+            if (dependent.markResolved()) {
+                queue.add(dependent);
             }
         }
     }
@@ -182,49 +204,93 @@ public class DAGraph<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Graph<D
     public void reportError(NodeT faulted, Throwable throwable) {
         faulted.setPreparer(true);
         String dependency = faulted.key();
-        for (String dependentKey : nodeTable.get(dependency).dependentKeys()) {
-            DAGNode<DataT, NodeT> dependent = nodeTable.get(dependentKey);
-            dependent.lock().lock();
-            try {
-                dependent.onFaultedResolution(dependency, throwable);
-                if (dependent.hasAllResolved()) {
-                    queue.add(dependent.key());
-                }
-            } finally {
-                dependent.lock().unlock();
+        for (int dependentIndex : dependentsOf(faulted)) {
+            NodeT dependent = indexedNodes.get(dependentIndex);
+            dependent.onFaultedResolution(dependency, throwable);
+            if (dependent.markResolved()) {
+                queue.add(dependent);
             }
         }
     }
 
     /**
-     * Initializes dependents of all nodes.
+     * Gets the nodes of this graph sorted such that every node comes after all of its dependencies.
      * <p>
-     * The DAG will be explored in DFS order and all node's dependents will be identified,
-     * this prepares the DAG for traversal using getNext method, each call to getNext returns next node
-     * in the DAG with no dependencies.
+     * Unlike the enumeration through getNext, this does not change the resolution state of the nodes.
+     *
+     * @return the nodes in topological order
      */
-    private void initializeDependentKeys() {
-        visit(new Visitor<NodeT>() {
-            @Override
-            public void visitNode(NodeT node) {
-                if (node.dependencyKeys().isEmpty()) {
-                    return;
-                }
+    protected List<NodeT> topologicalOrder() {
+        buildIndex();
+        int[] order = sortTopologically();
+        List<NodeT> nodes = new ArrayList<>(order.length);
+        for (int position : order) {
+            nodes.add(indexedNodes.get(position));
+        }
+        return nodes;
+    }
 
-                String dependentKey = node.key();
-                for (String dependencyKey : node.dependencyKeys()) {
-                    nodeTable.get(dependencyKey)
-                            .addDependent(dependentKey);
-                }
+    /**
+     * Indexes the nodes in the node table by position and computes the positions of the
+     * dependents of every node.
+     */
+    private void buildIndex() {
+        List<NodeT> nodes = new ArrayList<>(nodeTable.values());
+        Map<String, Integer> nodePositions = new HashMap<>(nodes.size() * 2);
+        for (int i = 0; i < nodes.size(); i++) {
+            nodePositions.put(nodes.get(i).key(), i);
+        }
+        int[] dependentCounts = new int[nodes.size()];
+        for (NodeT node : nodes) {
+            for (String dependencyKey : node.dependencyKeys()) {
+                dependentCounts[dependencyIndex(nodePositions, node, dependencyKey)]++;
             }
+        }
+        int[][] dependentIndexes = new int[nodes.size()][];
+        for (int i = 0; i < nodes.size(); i++) {
+            dependentIndexes[i] = dependentCounts[i] == 0 ? NO_DEPENDENTS : new int[dependentCounts[i]];
+            dependentCounts[i] = 0;
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            for (String dependencyKey : nodes.get(i).dependencyKeys()) {
+                int dependency = nodePositions.get(dependencyKey);
+                dependentIndexes[dependency][dependentCounts[dependency]++] = i;
+            }
+        }
+        this.indexedNodes = nodes;
+        this.positions = nodePositions;
+        this.dependents = dependentIndexes;
+    }
 
-            @Override
-            public  void visitEdge(String fromKey, String toKey, EdgeType edgeType) {
-                if (edgeType == EdgeType.BACK) {
-                    throw new IllegalStateException("Detected circular dependency: " + findPath(fromKey, toKey));
-                }
+    private static int dependencyIndex(Map<String, Integer> nodePositions, DAGNode<?, ?> node, String dependencyKey) {
+        Integer dependency = nodePositions.get(dependencyKey);
+        if (dependency == null) {
+            throw new IllegalStateException("The dependency '" + dependencyKey + "' of '" + node.key() + "' is not in the graph");
+        }
+        return dependency;
+    }
+
+    /**
+     * Gets the positions of the dependents of a node indexed by this graph.
+     */
+    private int[] dependentsOf(NodeT node) {
+        Integer position = positions.get(node.key());
+        if (position == null || indexedNodes.get(position) != node) {
+            throw new IllegalStateException("The node '" + node.key() + "' is not prepared for enumeration by this graph");
+        }
+        return dependents[position];
+    }
+
+    /**
+     * Initializes dependents of all nodes from the index.
+     */
+    private void initializeDependentKeys() {
+        for (int i = 0; i < indexedNodes.size(); i++) {
+            NodeT node = indexedNodes.get(i);
+            for (int dependent : dependents[i]) {
+                node.addDependent(indexedNodes.get(dependent).key());
             }
-        });
+        }
     }
 
     /**
@@ -232,45 +298,173 @@ public class DAGraph<DataT, NodeT extends DAGNode<DataT, NodeT>> extends Graph<D
      * whose dependencies are resolved.
      */
     private void initializeQueue() {
+        // Fails on circular dependencies before any node is handed out
+        int[] order = sortTopologically();
+        computeCriticalPathCosts(order);
         this.queue.clear();
-        for (Map.Entry<String, NodeT> entry: nodeTable.entrySet()) {
-            if (!entry.getValue().hasDependencies()) {
-                this.queue.add(entry.getKey());
+        for (NodeT node : indexedNodes) {
+            if (!node.hasDependencies()) {
+                this.queue.add(node);
+            }
+        }
+    }
+
+    /**
+     * Gets the cost of invoking a node, used to find the critical path of the graph.
+     *
+     * @param node the node
+     * @return the cost of the node, 1 unless overridden
+     */
+    protected long costOf(NodeT node) {
+        return 1;
+    }
+
+    /**
+     * Computes, for every indexed node, the total cost of the most expensive chain of dependents
+     * from the node up to the root, visiting the nodes in reverse topological order.
+     *
+     * @param order the positions of the nodes in topological order
+     */
+    private void computeCriticalPathCosts(int[] order) {
+        long[] costs = new long[order.length];
+        for (int i = order.length - 1; i >= 0; i--) {
+            int position = order[i];
+            long longestDependentPath = 0;
+            for (int dependent : dependents[position]) {
+                longestDependentPath = Math.max(longestDependentPath, costs[dependent]);
             }
+            NodeT node = indexedNodes.get(position);
+            costs[position] = costOf(node) + longestDependentPath;
+            node.setCriticalPathCost(costs[position]);
         }
-        if (queue.isEmpty()) {
-            throw new IllegalStateException("Detected circular dependency");
+    }
+
+    /**
+     * Sorts the indexed nodes in a single pass over the dependents arrays.
+     *
+     * @return the positions of the nodes in topological order
+     */
+    private int[] sortTopologically() {
+        int size = indexedNodes.size();
+        int[] pending = new int[size];
+        int[] order = new int[size];
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            pending[i] = indexedNodes.get(i).dependencyKeys().size();
+            if (pending[i] == 0) {
+                order[tail++] = i;
+            }
         }
+        for (int head = 0; head < tail; head++) {
+            for (int dependent : dependents[order[head]]) {
+                if (--pending[dependent] == 0) {
+                    order[tail++] = dependent;
+                }
+            }
+        }
+        if (tail < size) {
+            throw new IllegalStateException("Detected circular dependency: " + findCycle(pending));
+        }
+        return order;
     }
 
     /**
-     * Copies entries in the source map to target map.
+     * Finds a cycle among the nodes left with pending dependencies by the topological sort.
      *
-     * @param source source map
+     * @param pending the pending dependency count of each indexed node
+     * @return the keys in the cycle separated by arrow symbol
+     */
+    private String findCycle(int[] pending) {
+        int start = 0;
+        while (pending[start] == 0) {
+            start++;
+        }
+        // Every node left pending has a dependency that is also left pending, so following them
+        // from any pending node eventually revisits a node
+        int[] visitOrder = new int[pending.length];
+        Arrays.fill(visitOrder, -1);
+        List<String> path = new ArrayList<>();
+        int current = start;
+        while (visitOrder[current] < 0) {
+            visitOrder[current] = path.size();
+            NodeT node = indexedNodes.get(current);
+            path.add(node.key());
+            for (String dependencyKey : node.dependencyKeys()) {
+                int dependency = positions.get(dependencyKey);
+                if (pending[dependency] > 0) {
+                    current = dependency;
+                    break;
+                }
+            }
+        }
+        List<String> cycle = new ArrayList<>(path.subList(visitOrder[current], path.size()));
+        cycle.add(indexedNodes.get(current).key());
+        return StringUtils.join(cycle, " -> ");
+    }
+
+    /**
+     * Copies the given nodes to the target map, unless the map already has a node with the same key.
+     *
+     * @param source the nodes to copy
      * @param target target map
+     * @return the nodes copied
      */
-    private void merge(Map<String, NodeT> source, Map<String, NodeT> target) {
-        for (Map.Entry<String, NodeT> entry : source.entrySet()) {
-            String key = entry.getKey();
-            if (!target.containsKey(key)) {
-                target.put(key, entry.getValue());
+    private List<NodeT> merge(Collection<NodeT> source, Map<String, NodeT> target) {
+        List<NodeT> added = new ArrayList<>();
+        for (NodeT node : source) {
+            if (!target.containsKey(node.key())) {
+                target.put(node.key(), node);
+                added.add(node);
             }
         }
+        return added;
     }
 
     /**
-     * Propagates node table of given DAG to all of it ancestors.
+     * Propagates nodes newly added to this DAG to all of its ancestors, visiting each ancestor once.
+     *
+     * @param added the nodes added to this DAG
      */
-    private void bubbleUpNodeTable(DAGraph<DataT, NodeT> from, LinkedList<String> path) {
-        if (path.contains(from.rootNode.key())) {
-            path.push(from.rootNode.key()); // For better error message
-            throw new IllegalStateException("Detected circular dependency: " + StringUtils.join(path, " -> "));
+    private void propagateToAncestors(List<NodeT> added) {
+        Set<DAGraph<DataT, NodeT>> visited = Collections.newSetFromMap(new IdentityHashMap<DAGraph<DataT, NodeT>, Boolean>());
+        ArrayDeque<DAGraph<DataT, NodeT>> pending = new ArrayDeque<>(this.parentDAGs);
+        while (!pending.isEmpty()) {
+            DAGraph<DataT, NodeT> ancestor = pending.poll();
+            if (visited.add(ancestor)) {
+                merge(added, ancestor.nodeTable);
+                pending.addAll(ancestor.parentDAGs);
+            }
         }
-        path.push(from.rootNode.key());
-        for (DAGraph<DataT, NodeT> to : from.parentDAGs) {
-            this.merge(from.nodeTable, to.nodeTable);
-            this.bubbleUpNodeTable(to, path);
+    }
+
+    /**
+     * Checks that this DAG's root can depend on the given DAG's root, that is the given DAG is
+     * neither this DAG nor one of its ancestors.
+     *
+     * @param dependencyGraph the dependency DAG
+     */
+    private void ensureNoCircularDependency(DAGraph<DataT, NodeT> dependencyGraph) {
+        // Maps each ancestor reached to the graph it was reached from
+        Map<DAGraph<DataT, NodeT>, DAGraph<DataT, NodeT>> reachedFrom = new IdentityHashMap<>();
+        ArrayDeque<DAGraph<DataT, NodeT>> pending = new ArrayDeque<>();
+        reachedFrom.put(this, null);
+        pending.add(this);
+        while (!pending.isEmpty()) {
+            DAGraph<DataT, NodeT> current = pending.poll();
+            if (current == dependencyGraph) {
+                LinkedList<String> path = new LinkedList<>();
+                path.add(this.rootNode.key());
+                for (DAGraph<DataT, NodeT> graph = current; graph != null; graph = reachedFrom.get(graph)) {
+                    path.add(graph.rootNode.key());
+                }
+                throw new IllegalStateException("Detected circular dependency: " + StringUtils.join(path, " -> "));
+            }
+            for (DAGraph<DataT, NodeT> parent : current.parentDAGs) {
+                if (!reachedFrom.containsKey(parent)) {
+                    reachedFrom.put(parent, current);
+                    pending.add(parent);
+                }
+            }
         }
-        path.pop();
     }
 }
@@ -6,15 +6,32 @@
 
 package com.microsoft.azure.management.resources.fluentcore.dag;
 
+import com.microsoft.azure.management.resources.fluentcore.metrics.MetricsRecorder;
+import com.microsoft.azure.management.resources.fluentcore.metrics.NoOpMetricsRecorder;
+import com.microsoft.azure.management.resources.fluentcore.utils.SdkContext;
 import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.functions.Action1;
 import rx.functions.Func0;
 import rx.functions.Func1;
+import rx.observers.SerializedSubscriber;
+import rx.schedulers.Schedulers;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Type representing a group of task entries with dependencies between them. Initially a task
@@ -165,9 +182,10 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
                     // Prepare tasks and queue the ready tasks (terminal tasks with no dependencies)
                     //
                     prepareTasks();
-                    // Runs the ready tasks concurrently
+                    // Runs the ready tasks concurrently, up to the limits set in the context
                     //
-                    return invokeReadyTasksAsync(context);
+                    ConcurrencyLimiter<ResultT, TaskT> limiter = new ConcurrencyLimiter<>(context);
+                    return limiter.invoke(invokeReadyTasksAsync(context, limiter));
                 }
             });
         }
@@ -176,44 +194,21 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
     /**
      * Run the prepare stage of the tasks in the group, preparation allows tasks to define additional
      * task dependencies.
+     * <p>
+     * The tasks are prepared in topological order in a single pass; another pass is made only for
+     * the tasks added to the group by the 'prepare' of other tasks.
      */
     private void prepareTasks() {
-        boolean isPreparePending;
         HashSet<String> preparedTasksKeys = new HashSet<>();
-        // Invokes 'prepare' on a subset of non-prepared tasks in the group. Initially preparation
-        // is pending on all task items.
-        List<TaskGroupEntry<ResultT, TaskT>> entries = this.entriesSnapshot();
         do {
-            isPreparePending = false;
-            for (TaskGroupEntry<ResultT, TaskT> entry : entries) {
-                if (!preparedTasksKeys.contains(entry.key())) {
+            for (TaskGroupEntry<ResultT, TaskT> entry : super.topologicalOrder()) {
+                if (preparedTasksKeys.add(entry.key())) {
                     entry.data().prepare();
-                    preparedTasksKeys.add(entry.key());
                 }
             }
-            int prevSize = entries.size();
-            entries = this.entriesSnapshot();
-            if (entries.size() > prevSize) {
-                // If new task dependencies/dependents added in 'prepare' then set the
-                // flag which indicates another pass is required to 'prepare' new task
-                // items
-                isPreparePending = true;
-            }
-        } while (isPreparePending);  // Run another pass if new dependencies were added in this pass
-        super.prepareForEnumeration();
-    }
-
-    /**
-     * @return list with nodes in the graph.
-     */
-    private List<TaskGroupEntry<ResultT, TaskT>> entriesSnapshot() {
-        List<TaskGroupEntry<ResultT, TaskT>> entries = new ArrayList<>();
+            // Run another pass if new dependencies were added in this pass
+        } while (preparedTasksKeys.size() < super.nodeTable.size());
         super.prepareForEnumeration();
-        for (TaskGroupEntry<ResultT, TaskT> current = super.getNext(); current != null; current = super.getNext()) {
-            entries.add(current);
-            super.reportCompletion(current);
-        }
-        return entries;
     }
 
     /**
@@ -222,16 +217,21 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
      * @param context group level shared context that need be passed to
      *                {@link TaskGroupEntry#invokeTaskAsync(boolean, InvocationContext)}
      *                method of each entry in the group when it is selected for execution
+     * @param limiter the limiter that admits the ready tasks within the concurrency limits of the context
      *
      * @return an observable that emits the result of tasks in the order they finishes.
      */
-    private Observable<ResultT> invokeReadyTasksAsync(final InvocationContext context) {
-        TaskGroupEntry<ResultT, TaskT> entry = super.getNext();
+    private Observable<ResultT> invokeReadyTasksAsync(final InvocationContext context,
+                                                      final ConcurrencyLimiter<ResultT, TaskT> limiter) {
+        List<TaskGroupEntry<ResultT, TaskT>> readyEntries = new ArrayList<>();
+        for (TaskGroupEntry<ResultT, TaskT> entry = super.getNext(); entry != null; entry = super.getNext()) {
+            readyEntries.add(entry);
+        }
         final List<Observable<ResultT>> observables = new ArrayList<>();
-        // Enumerate the ready tasks (those with dependencies resolved) and kickoff them concurrently
+        // Kickoff the ready tasks (those with dependencies resolved) the limiter admits concurrently, the rest
+        // are admitted as the running tasks complete
         //
-        while (entry != null) {
-            final TaskGroupEntry<ResultT, TaskT> currentEntry = entry;
+        for (final TaskGroupEntry<ResultT, TaskT> currentEntry : limiter.admit(readyEntries)) {
             Observable<ResultT> currentTaskObservable = invokeTaskAsync(currentEntry, context);
             Func1<ResultT, Observable<ResultT>> onNext = new Func1<ResultT, Observable<ResultT>>() {
                 @Override
@@ -242,19 +242,20 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
             Func1<Throwable, Observable<ResultT>> onError = new Func1<Throwable, Observable<ResultT>>() {
                 @Override
                 public Observable<ResultT> call(Throwable throwable) {
+                    limiter.release(currentEntry);
                     // Append next observable on error terminate event of this observable
-                    return processFaultedTaskAsync(currentEntry, throwable, context);
+                    return limiter.continueWith(processFaultedTaskAsync(currentEntry, throwable, context, limiter));
                 }
             };
             Func0<Observable<ResultT>> onComplete = new Func0<Observable<ResultT>>() {
                 @Override
                 public Observable<ResultT> call() {
+                    limiter.release(currentEntry);
                     // Append next observable on successful terminate event of this observable
-                    return processCompletedTaskAsync(currentEntry, context);
+                    return limiter.continueWith(processCompletedTaskAsync(currentEntry, context, limiter));
                 }
             };
             observables.add(currentTaskObservable.flatMap(onNext, onError, onComplete));
-            entry = super.getNext();
         }
         return Observable.mergeDelayError(observables);
     }
@@ -275,7 +276,52 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
         if (this.isGroupCancelled) {
             return toErrorObservable(taskCancelledException);
         }
-        return entry.invokeTaskAsync(isRootEntry(entry), context);
+        Observable<ResultT> taskObservable = entry.invokeTaskAsync(isRootEntry(entry), context);
+        MetricsRecorder recorder = SdkContext.getMetricsRecorder();
+        if (recorder.getClass() == NoOpMetricsRecorder.class) {
+            return taskObservable;
+        }
+        return timed(taskObservable, taskType(entry.data()), recorder);
+    }
+
+    /**
+     * Records the time from the subscription to a task observable until it terminates.
+     *
+     * @param taskObservable the observable of the task
+     * @param taskType the type of the task
+     * @param recorder the recorder of the task duration
+     * @return the observable of the task recording its duration
+     */
+    private Observable<ResultT> timed(final Observable<ResultT> taskObservable,
+                                      final String taskType,
+                                      final MetricsRecorder recorder) {
+        return Observable.defer(new Func0<Observable<ResultT>>() {
+            @Override
+            public Observable<ResultT> call() {
+                final long start = System.currentTimeMillis();
+                return taskObservable
+                        .doOnCompleted(new Action0() {
+                            @Override
+                            public void call() {
+                                recorder.recordTask(taskType, System.currentTimeMillis() - start, true);
+                            }
+                        })
+                        .doOnError(new Action1<Throwable>() {
+                            @Override
+                            public void call(Throwable throwable) {
+                                recorder.recordTask(taskType, System.currentTimeMillis() - start, false);
+                            }
+                        });
+            }
+        });
+    }
+
+    private static String taskType(Object task) {
+        if (task instanceof HasInvocationTarget) {
+            task = ((HasInvocationTarget) task).invocationTarget();
+        }
+        String name = task.getClass().getSimpleName();
+        return name.isEmpty() ? task.getClass().getName() : name;
     }
 
     /**
@@ -285,16 +331,18 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
      *
      * @param completedEntry the entry holding completed task
      * @param context the context object shared across all the task entries in this group during execution
+     * @param limiter the limiter that admits the ready tasks
      *
      * @return an observable represents asynchronous operation in the next stage
      */
     private Observable<ResultT> processCompletedTaskAsync(final TaskGroupEntry<ResultT, TaskT> completedEntry,
-                                                          final InvocationContext context) {
+                                                          final InvocationContext context,
+                                                          final ConcurrencyLimiter<ResultT, TaskT> limiter) {
         reportCompletion(completedEntry);
         if (isRootEntry(completedEntry)) {
             return Observable.empty();
         }
-        return invokeReadyTasksAsync(context);
+        return invokeReadyTasksAsync(context, limiter);
     }
 
     /**
@@ -303,12 +351,14 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
      * @param faultedEntry the entry holding faulted task
      * @param throwable the reason for fault
      * @param context the context object shared across all the task entries in this group during execution
+     * @param limiter the limiter that admits the ready tasks
      *
      * @return an observable represents asynchronous operation in the next stage
      */
     private Observable<ResultT> processFaultedTaskAsync(final TaskGroupEntry<ResultT, TaskT> faultedEntry,
                                                         final Throwable throwable,
-                                                        final InvocationContext context) {
+                                                        final InvocationContext context,
+                                                        final ConcurrencyLimiter<ResultT, TaskT> limiter) {
         this.isGroupCancelled = this.taskGroupTerminateOnErrorStrategy
                 == TaskGroupTerminateOnErrorStrategy.TERMINATE_ON_INPROGRESS_TASKS_COMPLETION;
         reportError(faultedEntry, throwable);
@@ -319,9 +369,28 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
             return Observable.empty();
         }
         if (shouldPropagateException(throwable)) {
-            return Observable.concatDelayError(invokeReadyTasksAsync(context), toErrorObservable(throwable));
+            return Observable.concatDelayError(invokeReadyTasksAsync(context, limiter), toErrorObservable(throwable));
         }
-        return invokeReadyTasksAsync(context);
+        return invokeReadyTasksAsync(context, limiter);
+    }
+
+    /**
+     * Gets the cost hint of the task in the given entry, or of the object the task creates, updates
+     * or executes, so that the ready tasks on the critical path are invoked first.
+     *
+     * @param entry the entry
+     * @return the cost of the task, 1 if it has no cost hint
+     */
+    @Override
+    protected long costOf(TaskGroupEntry<ResultT, TaskT> entry) {
+        Object task = entry.data();
+        if (!(task instanceof HasCostHint) && task instanceof HasInvocationTarget) {
+            task = ((HasInvocationTarget) task).invocationTarget();
+        }
+        if (task instanceof HasCostHint) {
+            return Math.max(1, ((HasCostHint) task).costHint());
+        }
+        return 1;
     }
 
     /**
@@ -387,6 +456,29 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
         TaskGroup<T, U> taskGroup();
     }
 
+    /**
+     * An interface representing a {@link TaskItem} that creates, updates or executes an object,
+     * used to apply the concurrency limits set per type in {@link InvocationContext}.
+     */
+    public interface HasInvocationTarget {
+        /**
+         * @return the object the task creates, updates or executes when invoked
+         */
+        Object invocationTarget();
+    }
+
+    /**
+     * An interface representing a {@link TaskItem}, or the object it creates, updates or executes,
+     * that knows the relative cost of its invocation. When the number of tasks running at the same
+     * time is bounded, the ready tasks on the most expensive chain of dependents are invoked first.
+     */
+    public interface HasCostHint {
+        /**
+         * @return the relative cost of invoking the task, such as its expected duration in seconds
+         */
+        long costHint();
+    }
+
     /**
      * A mutable type that can be used to pass data around task items during the invocation
      * of the TaskGroup.
@@ -394,6 +486,8 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
     public static final class InvocationContext {
         private final Map<String, Object> properties;
         private final TaskGroup<?, ?> taskGroup;
+        private final Map<Class<?>, Integer> maxConcurrencyPerType;
+        private volatile int maxConcurrency;
 
         /**
          * Creates InvocationContext instance.
@@ -403,6 +497,53 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
         private InvocationContext(final TaskGroup<?, ?> taskGroup) {
             this.properties = new ConcurrentHashMap<>();
             this.taskGroup = taskGroup;
+            this.maxConcurrencyPerType = new ConcurrentHashMap<>();
+            this.maxConcurrency = Integer.MAX_VALUE;
+        }
+
+        /**
+         * Limits the number of tasks in the group that run at the same time. The tasks that become
+         * ready beyond the limit are invoked as the running tasks complete.
+         *
+         * @param maxConcurrency the maximum number of tasks running at the same time
+         * @return the context itself
+         */
+        public InvocationContext withMaxConcurrency(int maxConcurrency) {
+            if (maxConcurrency <= 0) {
+                throw new IllegalArgumentException("maxConcurrency must be positive.");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Limits the number of tasks running at the same time whose invocation target, or the task itself
+         * when it has no target, is an instance of the given type.
+         *
+         * @param targetType the type of the objects the tasks create, update or execute
+         * @param maxConcurrency the maximum number of such tasks running at the same time
+         * @return the context itself
+         */
+        public InvocationContext withMaxConcurrency(Class<?> targetType, int maxConcurrency) {
+            if (maxConcurrency <= 0) {
+                throw new IllegalArgumentException("maxConcurrency must be positive.");
+            }
+            this.maxConcurrencyPerType.put(targetType, maxConcurrency);
+            return this;
+        }
+
+        /**
+         * @return the maximum number of tasks running at the same time, Integer.MAX_VALUE if unbounded
+         */
+        public int maxConcurrency() {
+            return this.maxConcurrency;
+        }
+
+        /**
+         * @return the maximum number of tasks running at the same time per invocation target type
+         */
+        public Map<Class<?>, Integer> maxConcurrencyPerType() {
+            return Collections.unmodifiableMap(this.maxConcurrencyPerType);
         }
 
         /**
@@ -587,4 +728,203 @@ public class TaskGroup<ResultT, TaskT extends TaskItem<ResultT>>
             }
         }
     }
+
+    /**
+     * Admits ready tasks for invocation within the concurrency limits of an {@link InvocationContext},
+     * holding back the rest until running tasks complete. The waiting tasks are admitted starting
+     * from the one with the most expensive chain of dependents, in the order they became ready
+     * when the costs are equal.
+     * <p>
+     * When the concurrency is bounded, the tasks admitted as running tasks complete are merged into
+     * the observable of the invocation rather than into the one of the completed task, and they are
+     * subscribed to one at a time, so that neither the stack nor the chain of merged observables
+     * grows with the number of tasks in the group.
+     *
+     * @param <ResultT> the type of the result returned by the tasks
+     * @param <TaskT> the type of the tasks
+     */
+    static final class ConcurrencyLimiter<ResultT, TaskT extends TaskItem<ResultT>> {
+        private static final Comparator<WaitingEntry<?>> CRITICAL_PATH_FIRST = new Comparator<WaitingEntry<?>>() {
+            @Override
+            public int compare(WaitingEntry<?> left, WaitingEntry<?> right) {
+                int compare = Long.compare(right.entry.criticalPathCost(), left.entry.criticalPathCost());
+                return compare != 0 ? compare : Long.compare(left.sequence, right.sequence);
+            }
+        };
+        private final int maxConcurrency;
+        private final Map<Class<?>, Integer> maxConcurrencyPerType;
+        private final boolean isBounded;
+        private final Map<Class<?>, Integer> runningPerType = new HashMap<>();
+        private final PriorityQueue<WaitingEntry<TaskGroupEntry<ResultT, TaskT>>> waiting =
+                new PriorityQueue<>(11, CRITICAL_PATH_FIRST);
+        private final Scheduler subscribeScheduler = Schedulers.from(new TrampolineExecutor());
+        private final AtomicInteger pendingObservables = new AtomicInteger();
+        private Subscriber<? super Observable<ResultT>> invocation;
+        private long sequence;
+        private int running;
+
+        ConcurrencyLimiter(InvocationContext context) {
+            this.maxConcurrency = context.maxConcurrency();
+            this.maxConcurrencyPerType = new HashMap<>(context.maxConcurrencyPerType());
+            this.isBounded = this.maxConcurrency != Integer.MAX_VALUE || !this.maxConcurrencyPerType.isEmpty();
+        }
+
+        /**
+         * Queues the given ready entries and admits as many of the queued entries as the limits allow.
+         *
+         * @param readyEntries the entries whose tasks became ready
+         * @return the entries whose tasks can be invoked now
+         */
+        List<TaskGroupEntry<ResultT, TaskT>> admit(List<TaskGroupEntry<ResultT, TaskT>> readyEntries) {
+            if (!isBounded) {
+                return readyEntries;
+            }
+            synchronized (this) {
+                for (TaskGroupEntry<ResultT, TaskT> entry : readyEntries) {
+                    waiting.add(new WaitingEntry<>(entry, sequence++));
+                }
+                List<TaskGroupEntry<ResultT, TaskT>> admitted = new ArrayList<>();
+                List<WaitingEntry<TaskGroupEntry<ResultT, TaskT>>> skipped = new ArrayList<>();
+                while (!waiting.isEmpty() && running < maxConcurrency) {
+                    WaitingEntry<TaskGroupEntry<ResultT, TaskT>> waitingEntry = waiting.poll();
+                    List<Class<?>> types = limitedTypes(waitingEntry.entry);
+                    if (hasCapacity(types)) {
+                        running++;
+                        for (Class<?> type : types) {
+                            runningPerType.put(type, runningPerType.get(type) == null ? 1 : runningPerType.get(type) + 1);
+                        }
+                        admitted.add(waitingEntry.entry);
+                    } else {
+                        skipped.add(waitingEntry);
+                    }
+                }
+                // The entries whose types are at their limit keep their place in the queue
+                waiting.addAll(skipped);
+                return admitted;
+            }
+        }
+
+        /**
+         * Releases the capacity taken by an admitted entry once its task is done.
+         *
+         * @param entry the entry
+         */
+        void release(TaskGroupEntry<ResultT, TaskT> entry) {
+            if (!isBounded) {
+                return;
+            }
+            synchronized (this) {
+                running--;
+                for (Class<?> type : limitedTypes(entry)) {
+                    runningPerType.put(type, runningPerType.get(type) - 1);
+                }
+            }
+        }
+
+        /**
+         * Gets the observable of an invocation.
+         *
+         * @param readyTasks the observable of the tasks ready when the invocation starts
+         * @return the observable emitting the results of all the tasks of the invocation
+         */
+        Observable<ResultT> invoke(final Observable<ResultT> readyTasks) {
+            if (!isBounded) {
+                return readyTasks;
+            }
+            return Observable.mergeDelayError(Observable.create(new Observable.OnSubscribe<Observable<ResultT>>() {
+                @Override
+                public void call(Subscriber<? super Observable<ResultT>> subscriber) {
+                    invocation = new SerializedSubscriber<>(subscriber);
+                    continueWith(readyTasks);
+                }
+            }));
+        }
+
+        /**
+         * Continues an invocation once a task is done.
+         *
+         * @param nextTasks the observable of the tasks that follow the task
+         * @return the observable to merge into the one of the task
+         */
+        Observable<ResultT> continueWith(Observable<ResultT> nextTasks) {
+            if (!isBounded) {
+                return nextTasks;
+            }
+            pendingObservables.incrementAndGet();
+            invocation.onNext(nextTasks
+                    .doOnTerminate(new Action0() {
+                        @Override
+                        public void call() {
+                            // The last observable terminates only once the group has no task left to run
+                            if (pendingObservables.decrementAndGet() == 0) {
+                                invocation.onCompleted();
+                            }
+                        }
+                    })
+                    .subscribeOn(subscribeScheduler));
+            return Observable.empty();
+        }
+
+        private boolean hasCapacity(List<Class<?>> types) {
+            for (Class<?> type : types) {
+                Integer typeRunning = runningPerType.get(type);
+                if (typeRunning != null && typeRunning >= maxConcurrencyPerType.get(type)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private List<Class<?>> limitedTypes(TaskGroupEntry<ResultT, TaskT> entry) {
+            if (maxConcurrencyPerType.isEmpty()) {
+                return Collections.emptyList();
+            }
+            Object target = entry.data();
+            if (target instanceof HasInvocationTarget) {
+                target = ((HasInvocationTarget) target).invocationTarget();
+            }
+            List<Class<?>> types = new ArrayList<>();
+            for (Class<?> type : maxConcurrencyPerType.keySet()) {
+                if (type.isInstance(target)) {
+                    types.add(type);
+                }
+            }
+            return types;
+        }
+
+        /**
+         * An entry waiting for capacity, with the order in which it became ready.
+         *
+         * @param <EntryT> the type of the entry
+         */
+        private static final class WaitingEntry<EntryT extends TaskGroupEntry<?, ?>> {
+            private final EntryT entry;
+            private final long sequence;
+
+            WaitingEntry(EntryT entry, long sequence) {
+                this.entry = entry;
+                this.sequence = sequence;
+            }
+        }
+    }
+
+    /**
+     * Runs the submitted actions on the thread submitting them, unless an action is already running,
+     * in which case the submitted action runs once the running one returns.
+     */
+    private static final class TrampolineExecutor implements Executor {
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        @Override
+        public void execute(Runnable action) {
+            queue.add(action);
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                queue.poll().run();
+            } while (wip.decrementAndGet() != 0);
+        }
+    }
 }
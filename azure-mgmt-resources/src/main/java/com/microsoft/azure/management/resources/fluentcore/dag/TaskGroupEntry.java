@@ -23,7 +23,7 @@ final class TaskGroupEntry<ResultT, TaskT extends TaskItem<ResultT>>
     /**
      * indicates that one or more decedent dependency tasks are faulted.
      */
-    private boolean hasFaultedDescentDependencyTask;
+    private volatile boolean hasFaultedDescentDependencyTask;
     /**
      * Creates TaskGroupEntry.
      *
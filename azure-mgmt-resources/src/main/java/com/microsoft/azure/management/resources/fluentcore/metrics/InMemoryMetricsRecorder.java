@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.metrics;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A metrics recorder that aggregates the metrics in memory, to be read and exported periodically.
+ * <p>
+ * The latencies of the HTTP requests are kept in one histogram per resource provider, resource type
+ * and HTTP method, keyed as "provider/type METHOD", such as "microsoft.compute/virtualmachines GET".
+ */
+@Beta(Beta.SinceVersion.V1_4_0)
+public class InMemoryMetricsRecorder implements MetricsRecorder {
+    private final ConcurrentMap<String, LatencyHistogram> requestLatencies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> longRunningOperationDurations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> taskDurations = new ConcurrentHashMap<>();
+    private final AtomicLong failedRequestCount = new AtomicLong();
+    private final AtomicLong retriedRequestCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong throttledRequestCount = new AtomicLong();
+    private final AtomicLong retryAfterMillis = new AtomicLong();
+    private final AtomicLong longRunningOperationPollCount = new AtomicLong();
+    private final AtomicLong failedTaskCount = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    @Override
+    public void recordHttpRequest(String resourceProvider, String resourceType, String httpMethod,
+                                  int statusCode, long latencyMillis, long bytesSent, long bytesReceived) {
+        histogram(requestLatencies, requestKey(resourceProvider, resourceType, httpMethod)).record(latencyMillis);
+        if (statusCode < 0 || statusCode >= 400) {
+            failedRequestCount.incrementAndGet();
+        }
+        this.bytesSent.addAndGet(Math.max(0, bytesSent));
+        this.bytesReceived.addAndGet(Math.max(0, bytesReceived));
+    }
+
+    @Override
+    public void recordHttpRetries(String resourceProvider, String resourceType, String httpMethod, int retryCount) {
+        retriedRequestCount.incrementAndGet();
+        this.retryCount.addAndGet(retryCount);
+    }
+
+    @Override
+    public void recordThrottledRequest(String resourceProvider, String httpMethod, long retryAfterMillis) {
+        throttledRequestCount.incrementAndGet();
+        this.retryAfterMillis.addAndGet(Math.max(0, retryAfterMillis));
+    }
+
+    @Override
+    public void recordLongRunningOperation(String resourceType, long durationMillis, int pollCount) {
+        histogram(longRunningOperationDurations, resourceType.toLowerCase(Locale.ROOT)).record(durationMillis);
+        longRunningOperationPollCount.addAndGet(pollCount);
+    }
+
+    @Override
+    public void recordTask(String taskType, long durationMillis, boolean succeeded) {
+        histogram(taskDurations, taskType).record(durationMillis);
+        if (!succeeded) {
+            failedTaskCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the latencies of the requests sent with a method to a resource type.
+     *
+     * @param resourceProvider the resource provider namespace, such as "Microsoft.Compute"
+     * @param resourceType the resource type, such as "virtualMachines"
+     * @param httpMethod the HTTP method
+     * @return the histogram of the latencies in milliseconds, null if no such request was recorded
+     */
+    public LatencyHistogram requestLatency(String resourceProvider, String resourceType, String httpMethod) {
+        return requestLatencies.get(requestKey(resourceProvider, resourceType, httpMethod));
+    }
+
+    /**
+     * @return the histograms of the request latencies in milliseconds, keyed as "provider/type METHOD"
+     */
+    public Map<String, LatencyHistogram> requestLatencies() {
+        return Collections.unmodifiableMap(requestLatencies);
+    }
+
+    /**
+     * @return the histograms of the long running operation durations in milliseconds, keyed by resource type
+     */
+    public Map<String, LatencyHistogram> longRunningOperationDurations() {
+        return Collections.unmodifiableMap(longRunningOperationDurations);
+    }
+
+    /**
+     * @return the histograms of the task durations in milliseconds, keyed by task type
+     */
+    public Map<String, LatencyHistogram> taskDurations() {
+        return Collections.unmodifiableMap(taskDurations);
+    }
+
+    /**
+     * @return the number of requests that failed or received an error response
+     */
+    public long failedRequestCount() {
+        return failedRequestCount.get();
+    }
+
+    /**
+     * @return the number of requests sent more than once
+     */
+    public long retriedRequestCount() {
+        return retriedRequestCount.get();
+    }
+
+    /**
+     * @return the total number of retries, the attempts after the first one of each request
+     */
+    public long retryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return the number of requests throttled by Azure Resource Manager
+     */
+    public long throttledRequestCount() {
+        return throttledRequestCount.get();
+    }
+
+    /**
+     * @return the total delay Azure Resource Manager asked to wait before retrying the throttled requests
+     */
+    public long retryAfterMillis() {
+        return retryAfterMillis.get();
+    }
+
+    /**
+     * @return the total number of polls sent for the completed long running operations
+     */
+    public long longRunningOperationPollCount() {
+        return longRunningOperationPollCount.get();
+    }
+
+    /**
+     * @return the number of tasks that failed
+     */
+    public long failedTaskCount() {
+        return failedTaskCount.get();
+    }
+
+    /**
+     * @return the total length of the request bodies sent
+     */
+    public long bytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * @return the total length of the response bodies received, for the responses declaring it
+     */
+    public long bytesReceived() {
+        return bytesReceived.get();
+    }
+
+    private static String requestKey(String resourceProvider, String resourceType, String httpMethod) {
+        return (resourceProvider + "/" + resourceType).toLowerCase(Locale.ROOT) + " " + httpMethod.toUpperCase(Locale.ROOT);
+    }
+
+    private static LatencyHistogram histogram(ConcurrentMap<String, LatencyHistogram> histograms, String key) {
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(key, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.metrics;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+
+/**
+ * The sink of the metrics recorded by the SDK.
+ * <p>
+ * Set the recorder in use with {@link com.microsoft.azure.management.resources.fluentcore.utils.SdkContext#setMetricsRecorder(MetricsRecorder)}.
+ * The methods are called on the threads sending the requests and running the tasks, so an
+ * implementation must be thread safe and should return quickly. Extend {@link NoOpMetricsRecorder}
+ * to record only some of the metrics.
+ */
+@Beta(Beta.SinceVersion.V1_4_0)
+public interface MetricsRecorder {
+    /**
+     * Records an HTTP request sent to Azure Resource Manager. Each attempt of a retried request that
+     * reached the server is recorded separately, the attempts that could not connect are not recorded.
+     *
+     * @param resourceProvider the resource provider namespace addressed, such as "Microsoft.Compute"
+     * @param resourceType the resource type addressed, such as "virtualMachines"
+     * @param httpMethod the HTTP method
+     * @param statusCode the HTTP status code of the response, -1 if no response was received
+     * @param latencyMillis the time until the response headers were received, in milliseconds
+     * @param bytesSent the length of the request body
+     * @param bytesReceived the length of the response body, -1 if not known upfront
+     */
+    void recordHttpRequest(String resourceProvider, String resourceType, String httpMethod,
+                           int statusCode, long latencyMillis, long bytesSent, long bytesReceived);
+
+    /**
+     * Records a request to Azure Resource Manager that was sent more than once, because an attempt
+     * failed or was throttled.
+     *
+     * @param resourceProvider the resource provider namespace addressed
+     * @param resourceType the resource type addressed
+     * @param httpMethod the HTTP method
+     * @param retryCount the number of attempts after the first one
+     */
+    void recordHttpRetries(String resourceProvider, String resourceType, String httpMethod, int retryCount);
+
+    /**
+     * Records a request throttled by Azure Resource Manager with a "429 Too Many Requests" response.
+     *
+     * @param resourceProvider the resource provider namespace addressed
+     * @param httpMethod the HTTP method
+     * @param retryAfterMillis the delay Azure Resource Manager asked to wait before retrying, -1 if none
+     */
+    void recordThrottledRequest(String resourceProvider, String httpMethod, long retryAfterMillis);
+
+    /**
+     * Records a completed long running operation.
+     *
+     * @param resourceType the resource type of the operation, such as "microsoft.compute/virtualmachines"
+     * @param durationMillis the time from the start of the operation to its completion, in milliseconds
+     * @param pollCount the number of polls sent until the completion
+     */
+    void recordLongRunningOperation(String resourceType, long durationMillis, int pollCount);
+
+    /**
+     * Records a task of a task group that completed or failed.
+     *
+     * @param taskType the type of the task, such as "VirtualMachineImpl"
+     * @param durationMillis the time the task ran, in milliseconds
+     * @param succeeded true if the task completed, false if it failed
+     */
+    void recordTask(String taskType, long durationMillis, boolean succeeded);
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.metrics;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+
+/**
+ * A metrics recorder that discards the metrics, the default recorder of the SDK.
+ */
+@Beta(Beta.SinceVersion.V1_4_0)
+public class NoOpMetricsRecorder implements MetricsRecorder {
+    @Override
+    public void recordHttpRequest(String resourceProvider, String resourceType, String httpMethod,
+                                  int statusCode, long latencyMillis, long bytesSent, long bytesReceived) {
+    }
+
+    @Override
+    public void recordHttpRetries(String resourceProvider, String resourceType, String httpMethod, int retryCount) {
+    }
+
+    @Override
+    public void recordThrottledRequest(String resourceProvider, String httpMethod, long retryAfterMillis) {
+    }
+
+    @Override
+    public void recordLongRunningOperation(String resourceType, long durationMillis, int pollCount) {
+    }
+
+    @Override
+    public void recordTask(String taskType, long durationMillis, boolean succeeded) {
+    }
+}
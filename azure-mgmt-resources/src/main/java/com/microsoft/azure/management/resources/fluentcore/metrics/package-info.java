@@ -0,0 +1,9 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License. See License.txt in the project root for
+// license information.
+
+/**
+ * This package contains the classes for recording metrics of the Azure Resource Manager traffic
+ * and of the fluent operations.
+ */
+package com.microsoft.azure.management.resources.fluentcore.metrics;
@@ -122,9 +122,19 @@ public abstract class CreatableUpdatableImpl<
         return false;
     }
 
+    /**
+     * Creates the context shared by the tasks in the task group of this model when it is created or applied.
+     * Derived types can override this to set the concurrency limits of the invocation.
+     *
+     * @return the invocation context
+     */
+    protected TaskGroup.InvocationContext newInvocationContext() {
+        return this.taskGroup.newInvocationContext();
+    }
+
     @Override
     public Observable<Indexable> createAsync() {
-        return taskGroup.invokeAsync(this.taskGroup.newInvocationContext())
+        return taskGroup.invokeAsync(this.newInvocationContext())
                 .map(new Func1<FluentModelT, Indexable>() {
                     @Override
                     public Indexable call(FluentModelT fluentModel) {
@@ -135,7 +145,7 @@ public abstract class CreatableUpdatableImpl<
 
     @Override
     public Observable<FluentModelT> applyAsync() {
-        return taskGroup.invokeAsync(this.taskGroup.newInvocationContext()).last();
+        return taskGroup.invokeAsync(this.newInvocationContext()).last();
     }
 
     @Override
@@ -17,7 +17,7 @@ import rx.functions.Action1;
  *
  * @param <ResourceT> the type of the resource that this task creates or update
  */
-public class CreateUpdateTask<ResourceT> implements TaskItem<ResourceT> {
+public class CreateUpdateTask<ResourceT> implements TaskItem<ResourceT>, TaskGroup.HasInvocationTarget {
     /**
      * the underlying instance that can create and update the resource.
      */
@@ -46,6 +46,11 @@ public class CreateUpdateTask<ResourceT> implements TaskItem<ResourceT> {
         this.resourceCreatorUpdater.prepare();
     }
 
+    @Override
+    public Object invocationTarget() {
+        return this.resourceCreatorUpdater;
+    }
+
     @Override
     public boolean isHot() {
         return this.resourceCreatorUpdater.isHot();
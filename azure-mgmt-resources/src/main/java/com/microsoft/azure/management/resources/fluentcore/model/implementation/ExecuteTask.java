@@ -17,7 +17,7 @@ import rx.functions.Action1;
  *
  * @param <ResultT> the type of the resource that execution of this task produces
  */
-public class ExecuteTask<ResultT> implements TaskItem<ResultT> {
+public class ExecuteTask<ResultT> implements TaskItem<ResultT>, TaskGroup.HasInvocationTarget {
     /**
      * the underlying instance that can execute the task.
      */
@@ -47,6 +47,11 @@ public class ExecuteTask<ResultT> implements TaskItem<ResultT> {
 
     }
 
+    @Override
+    public Object invocationTarget() {
+        return this.executor;
+    }
+
     @Override
     public boolean isHot() {
         return executor.isHot();
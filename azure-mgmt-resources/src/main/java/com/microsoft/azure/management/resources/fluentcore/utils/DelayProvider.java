@@ -6,8 +6,13 @@
 
 package com.microsoft.azure.management.resources.fluentcore.utils;
 
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
 /**
- * A wrapper class for thread sleep.
+ * A wrapper class for thread sleep and for timer based delays.
  */
 public class DelayProvider {
     /**
@@ -20,4 +25,19 @@ public class DelayProvider {
         } catch (InterruptedException e) {
         }
     }
+
+    /**
+     * Creates an observable that emits the given item after the specified delay.
+     * <p>
+     * The delay is timer based and does not occupy a thread while waiting, the item is
+     * emitted on the computation scheduler.
+     *
+     * @param event the item to emit
+     * @param milliseconds the delay in milliseconds
+     * @param <T> the type of the item
+     * @return a delayed observable emitting the item
+     */
+    public <T> Observable<T> delayedEmitAsync(T event, int milliseconds) {
+        return Observable.just(event).delay(milliseconds, TimeUnit.MILLISECONDS, Schedulers.computation());
+    }
 }
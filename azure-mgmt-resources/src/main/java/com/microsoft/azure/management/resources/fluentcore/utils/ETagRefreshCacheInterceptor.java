@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.microsoft.azure.management.apigeneration.Beta;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An interceptor that turns repeated GETs of the same resource into conditional requests.
+ * <p>
+ * The last JSON body received for a URL is kept along with its ETag, taken from the "ETag" header
+ * or from the top-level "etag" property of the body. Pages of a collection are not kept, since the
+ * etags they hold belong to their items. The next GET of the URL is sent with "If-None-Match",
+ * and when the resource has not changed the "304 Not Modified" response is answered with the kept
+ * body. Refreshing a resource that did not change then costs no download. The bodies are kept for
+ * the least recently read resources only, and are dropped when the resource is written or deleted
+ * through the client.
+ */
+@Beta(Beta.SinceVersion.V1_4_0)
+public final class ETagRefreshCacheInterceptor implements Interceptor {
+    private static final String ETAG_HEADER = "ETag";
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    private static final int NOT_MODIFIED = 304;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /** The default maximum number of resources whose last body is kept. */
+    public static final int DEFAULT_MAX_CACHED_RESOURCES = 1024;
+
+    private final Map<String, CachedBody> cachedBodies;
+
+    /**
+     * Creates an interceptor keeping the bodies of up to {@link #DEFAULT_MAX_CACHED_RESOURCES} resources.
+     */
+    public ETagRefreshCacheInterceptor() {
+        this(DEFAULT_MAX_CACHED_RESOURCES);
+    }
+
+    /**
+     * Creates an interceptor.
+     *
+     * @param maxCachedResources the maximum number of resources whose last body is kept
+     */
+    public ETagRefreshCacheInterceptor(final int maxCachedResources) {
+        if (maxCachedResources <= 0) {
+            throw new IllegalArgumentException("maxCachedResources must be positive.");
+        }
+        this.cachedBodies = new LinkedHashMap<String, CachedBody>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedBody> eldest) {
+                return size() > maxCachedResources;
+            }
+        };
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String url = request.url().toString();
+        if (!"GET".equalsIgnoreCase(request.method())) {
+            Response response = chain.proceed(request);
+            // A write makes the kept body stale, whether it succeeded or not
+            remove(url);
+            return response;
+        }
+        if (request.header(IF_NONE_MATCH_HEADER) != null) {
+            // The caller handles the conditional request itself
+            return chain.proceed(request);
+        }
+
+        CachedBody cached = get(url);
+        if (cached == null) {
+            return keep(url, chain.proceed(request));
+        }
+        Response response = chain.proceed(request.newBuilder()
+                .header(IF_NONE_MATCH_HEADER, cached.eTag)
+                .build());
+        if (response.code() == NOT_MODIFIED) {
+            if (response.body() != null) {
+                response.body().close();
+            }
+            return response.newBuilder()
+                    .request(request)
+                    .code(200)
+                    .message("OK")
+                    .header(ETAG_HEADER, cached.eTag)
+                    .body(ResponseBody.create(cached.contentType, cached.content))
+                    .build();
+        }
+        return keep(url, response.newBuilder().request(request).build());
+    }
+
+    /**
+     * @return the number of resources whose last body is kept
+     */
+    public int cachedResourceCount() {
+        synchronized (cachedBodies) {
+            return cachedBodies.size();
+        }
+    }
+
+    private Response keep(String url, Response response) throws IOException {
+        ResponseBody body = response.body();
+        if (response.code() != 200 || body == null || !isJson(body.contentType())) {
+            remove(url);
+            return response;
+        }
+        MediaType contentType = body.contentType();
+        byte[] content = body.bytes();
+        String eTag = eTag(response.header(ETAG_HEADER), content);
+        if (eTag != null) {
+            synchronized (cachedBodies) {
+                cachedBodies.put(url, new CachedBody(eTag, contentType, content));
+            }
+        } else {
+            remove(url);
+        }
+        return response.newBuilder().body(ResponseBody.create(contentType, content)).build();
+    }
+
+    private CachedBody get(String url) {
+        synchronized (cachedBodies) {
+            return cachedBodies.get(url);
+        }
+    }
+
+    private void remove(String url) {
+        synchronized (cachedBodies) {
+            cachedBodies.remove(url);
+        }
+    }
+
+    /**
+     * Gets the ETag of a resource from the ETag header or, without one, from the top-level "etag" property of its body.
+     *
+     * @return the ETag, null if the resource has none or if the body is not a single resource
+     */
+    private static String eTag(String eTagHeader, byte[] content) {
+        String eTagProperty = null;
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("value".equals(field) && value == JsonToken.START_ARRAY) {
+                    // A page of a collection, the etags it holds are those of its items
+                    return null;
+                } else if ("etag".equalsIgnoreCase(field) && value == JsonToken.VALUE_STRING) {
+                    eTagProperty = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return eTagHeader != null ? eTagHeader : eTagProperty;
+    }
+
+    private static boolean isJson(MediaType contentType) {
+        return contentType != null && contentType.subtype().toLowerCase().contains("json");
+    }
+
+    /**
+     * The last body received for a resource.
+     */
+    private static final class CachedBody {
+        private final String eTag;
+        private final MediaType contentType;
+        private final byte[] content;
+
+        CachedBody(String eTag, MediaType contentType, byte[] content) {
+            this.eTag = eTag;
+            this.contentType = contentType;
+            this.content = content;
+        }
+    }
+}
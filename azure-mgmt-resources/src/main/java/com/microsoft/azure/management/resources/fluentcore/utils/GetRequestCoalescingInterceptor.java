@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.utils;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * An interceptor that joins concurrent identical GET requests onto the one already in flight.
+ * <p>
+ * The first GET of a URL is sent as usual, the GETs of the same URL sent while it is in flight
+ * wait for it and receive a copy of its response. Each caller deserializes its own copy, so the
+ * models built from it do not share state. Only JSON responses are shared, the callers waiting
+ * on a GET with any other response send their own request. Nothing is cached once the GET completes.
+ * <p>
+ * The interceptor runs before the credentials are applied to the request, so it cannot tell the
+ * callers of different credentials apart. Use an instance only with the clients authenticated
+ * with the same credentials.
+ */
+@Beta(Beta.SinceVersion.V1_4_0)
+public final class GetRequestCoalescingInterceptor implements Interceptor {
+    private final ConcurrentMap<String, InFlightGet> inFlightGets = new ConcurrentHashMap<>();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equalsIgnoreCase(request.method())) {
+            return chain.proceed(request);
+        }
+        String key = request.url().toString();
+        InFlightGet get = new InFlightGet();
+        InFlightGet existing = inFlightGets.putIfAbsent(key, get);
+        if (existing != null) {
+            Response shared = existing.awaitResponse(request);
+            return shared != null ? shared : chain.proceed(request);
+        }
+        try {
+            Response response = chain.proceed(request);
+            ResponseBody body = response.body();
+            if (body == null || !isJson(body.contentType())) {
+                get.complete(null, null, null);
+                return response;
+            }
+            MediaType contentType = body.contentType();
+            byte[] content = body.bytes();
+            get.complete(response, contentType, content);
+            return response.newBuilder().body(ResponseBody.create(contentType, content)).build();
+        } catch (IOException | RuntimeException e) {
+            get.fail(e);
+            throw e;
+        } finally {
+            inFlightGets.remove(key, get);
+        }
+    }
+
+    /**
+     * @return the number of distinct GET requests in flight
+     */
+    public int inFlightCount() {
+        return inFlightGets.size();
+    }
+
+    private static boolean isJson(MediaType contentType) {
+        return contentType != null && contentType.subtype().toLowerCase().contains("json");
+    }
+
+    /**
+     * A GET request in flight and the callers waiting for its response.
+     */
+    private static final class InFlightGet {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Response response;
+        private volatile MediaType contentType;
+        private volatile byte[] content;
+        private volatile Exception failure;
+
+        void complete(Response response, MediaType contentType, byte[] content) {
+            this.response = response;
+            this.contentType = contentType;
+            this.content = content;
+            done.countDown();
+        }
+
+        void fail(Exception failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        /**
+         * Waits for the GET to complete.
+         *
+         * @param request the request of the waiting caller
+         * @return a copy of the response, null if the response cannot be shared
+         * @throws IOException if the GET failed
+         */
+        Response awaitResponse(Request request) throws IOException {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a GET in flight");
+            }
+            if (failure != null) {
+                if (failure instanceof IOException) {
+                    throw new IOException(failure.getMessage(), failure);
+                }
+                throw new RuntimeException(failure.getMessage(), failure);
+            }
+            if (response == null) {
+                return null;
+            }
+            return response.newBuilder()
+                    .request(request)
+                    .body(ResponseBody.create(contentType, content))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.utils;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An interceptor that schedules the polling of all the long running operations started through the
+ * clients it is plugged into on one shared schedule.
+ * <p>
+ * The Azure client polls a long running operation after the delay given by the "Retry-After" header
+ * of the last response. This interceptor tracks the operations started and rewrites that header, so
+ * that every poll lands on a slot of a shared schedule that:
+ * <ul>
+ *     <li>never polls earlier than Azure Resource Manager asks to,</li>
+ *     <li>backs off the polls of an operation exponentially, starting from an interval derived from
+ *     how long the operations of the same resource type took so far,</li>
+ *     <li>caps the number of polls sent per second across all the operations, by giving every poll
+ *     the earliest slot not taken by another poll at or after the time the poll is due.</li>
+ * </ul>
+ * Use the same instance with all the clients whose operations should share the schedule.
+ */
+@Beta(Beta.SinceVersion.V1_4_0)
+public class LongRunningOperationPollingInterceptor implements Interceptor {
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final String ASYNC_OPERATION_HEADER = "Azure-AsyncOperation";
+    private static final String LOCATION_HEADER = "Location";
+    private static final Pattern RESOURCE_TYPE_PATTERN = Pattern.compile("/providers/([^/?]+)/([^/?]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern STATUS_PATTERN = Pattern.compile("\"(?:status|provisioningState)\"\\s*:\\s*\"([^\"]*)\"");
+    private static final long PEEK_LIMIT = 64 * 1024;
+    private static final double BACKOFF_MULTIPLIER = 1.5;
+    // The share of the expected duration of an operation used as its first poll interval
+    private static final int EXPECTED_DURATION_DIVISOR = 8;
+
+    /** The default maximum number of polls sent per second. */
+    public static final int DEFAULT_MAX_POLLS_PER_SECOND = 10;
+    /** The default shortest interval between two polls of an operation, in seconds. */
+    public static final int DEFAULT_MIN_POLL_INTERVAL_SECONDS = 1;
+    /** The default longest interval between two polls of an operation, in seconds. */
+    public static final int DEFAULT_MAX_POLL_INTERVAL_SECONDS = 60;
+
+    private final long pollSpacingMillis;
+    private final long minPollIntervalMillis;
+    private final long maxPollIntervalMillis;
+    // The poll slots taken, as the number of poll spacings since the epoch
+    private final ConcurrentSkipListSet<Long> reservedSlots = new ConcurrentSkipListSet<>();
+    // The operations being polled by poll URL
+    private final ConcurrentMap<String, PendingOperation> pendingOperations = new ConcurrentHashMap<>();
+    // The average duration of the operations by resource type
+    private final ConcurrentMap<String, AverageDuration> durations = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an interceptor using the default poll rate and intervals.
+     */
+    public LongRunningOperationPollingInterceptor() {
+        this(DEFAULT_MAX_POLLS_PER_SECOND, DEFAULT_MIN_POLL_INTERVAL_SECONDS, DEFAULT_MAX_POLL_INTERVAL_SECONDS);
+    }
+
+    /**
+     * Creates an interceptor using a custom poll rate and intervals.
+     *
+     * @param maxPollsPerSecond the maximum number of polls sent per second across all the operations
+     * @param minPollIntervalSeconds the shortest interval between two polls of an operation
+     * @param maxPollIntervalSeconds the longest interval between two polls of an operation, unless
+     *                               Azure Resource Manager asks for a longer one
+     */
+    public LongRunningOperationPollingInterceptor(int maxPollsPerSecond, int minPollIntervalSeconds, int maxPollIntervalSeconds) {
+        if (maxPollsPerSecond <= 0) {
+            throw new IllegalArgumentException("maxPollsPerSecond must be positive.");
+        }
+        if (minPollIntervalSeconds <= 0 || maxPollIntervalSeconds < minPollIntervalSeconds) {
+            throw new IllegalArgumentException("The poll intervals must be positive and the maximum not less than the minimum.");
+        }
+        this.pollSpacingMillis = TimeUnit.SECONDS.toMillis(1) / maxPollsPerSecond;
+        this.minPollIntervalMillis = TimeUnit.SECONDS.toMillis(minPollIntervalSeconds);
+        this.maxPollIntervalMillis = TimeUnit.SECONDS.toMillis(maxPollIntervalSeconds);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        PendingOperation operation = null;
+        if ("GET".equalsIgnoreCase(request.method())) {
+            operation = pendingOperations.get(request.url().toString());
+        }
+        Response response = chain.proceed(request);
+        if (operation != null) {
+            return onPolled(operation, response);
+        }
+        if (isLongRunningOperationStarted(request, response)) {
+            return onStarted(request, response);
+        }
+        return response;
+    }
+
+    /**
+     * @return the number of long running operations being polled
+     */
+    public int pendingOperationCount() {
+        Set<PendingOperation> operations = Collections.newSetFromMap(new IdentityHashMap<PendingOperation, Boolean>());
+        operations.addAll(pendingOperations.values());
+        return operations.size();
+    }
+
+    private Response onStarted(Request request, Response response) throws IOException {
+        long now = System.currentTimeMillis();
+        removeAbandoned(now);
+        PendingOperation operation = new PendingOperation(resourceType(request), now);
+        // Only the URLs returned for the operation are polls, a GET of the resource itself is left alone
+        operation.addPollUrl(response.header(ASYNC_OPERATION_HEADER));
+        operation.addPollUrl(response.header(LOCATION_HEADER));
+        if (operation.pollUrls.isEmpty()) {
+            return response;
+        }
+        for (String pollUrl : operation.pollUrls) {
+            pendingOperations.put(pollUrl, operation);
+        }
+        return withRetryAfter(response, scheduleNextPoll(operation, now, retryAfterMillis(response)));
+    }
+
+    private Response onPolled(PendingOperation operation, Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            // A failed or throttled poll says nothing about the operation, which stays pending
+            return response;
+        }
+        long now = System.currentTimeMillis();
+        if (isInProgress(response)) {
+            return withRetryAfter(response, scheduleNextPoll(operation, now, retryAfterMillis(response)));
+        }
+        for (String pollUrl : operation.pollUrls) {
+            pendingOperations.remove(pollUrl, operation);
+        }
+        int pollCount;
+        synchronized (operation) {
+            pollCount = operation.pollCount;
+        }
+        averageDuration(operation.resourceType).add(now - operation.startedAt);
+        SdkContext.getMetricsRecorder().recordLongRunningOperation(operation.resourceType, now - operation.startedAt, pollCount);
+        return response;
+    }
+
+    /**
+     * Picks the slot of the next poll of an operation.
+     *
+     * @param operation the operation
+     * @param now the current time in milliseconds
+     * @param serverRetryAfterMillis the delay asked for by Azure Resource Manager, -1 if none
+     * @return the delay until the slot in milliseconds
+     */
+    long scheduleNextPoll(PendingOperation operation, long now, long serverRetryAfterMillis) {
+        long interval;
+        synchronized (operation) {
+            if (operation.pollCount == 0) {
+                long expected = averageDuration(operation.resourceType).millis();
+                interval = expected > 0 ? expected / EXPECTED_DURATION_DIVISOR : minPollIntervalMillis;
+            } else {
+                interval = (long) (operation.lastIntervalMillis * BACKOFF_MULTIPLIER);
+            }
+            interval = Math.min(maxPollIntervalMillis, Math.max(minPollIntervalMillis, interval));
+            operation.pollCount++;
+            operation.lastIntervalMillis = interval;
+        }
+
+        long earliest = now + Math.max(interval, serverRetryAfterMillis);
+        // The slots in the past are free again
+        reservedSlots.headSet(now / pollSpacingMillis).clear();
+        // A slot is one poll spacing wide and holds one poll
+        long slot = earliest / pollSpacingMillis;
+        while (!reservedSlots.add(slot)) {
+            slot++;
+        }
+        long pollAt = Math.max(earliest, slot * pollSpacingMillis);
+        operation.nextPollAt = pollAt;
+        return pollAt - now;
+    }
+
+    private AverageDuration averageDuration(String resourceType) {
+        AverageDuration duration = durations.get(resourceType);
+        if (duration == null) {
+            AverageDuration newDuration = new AverageDuration();
+            duration = durations.putIfAbsent(resourceType, newDuration);
+            if (duration == null) {
+                duration = newDuration;
+            }
+        }
+        return duration;
+    }
+
+    /**
+     * Forgets the operations whose client stopped polling them.
+     */
+    private void removeAbandoned(long now) {
+        long abandonedBefore = now - 10 * maxPollIntervalMillis;
+        Iterator<Map.Entry<String, PendingOperation>> iterator = pendingOperations.entrySet().iterator();
+        while (iterator.hasNext()) {
+            PendingOperation operation = iterator.next().getValue();
+            if (operation.nextPollAt < abandonedBefore) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isLongRunningOperationStarted(Request request, Response response) throws IOException {
+        String method = request.method().toUpperCase(Locale.ROOT);
+        if (!(method.equals("PUT") || method.equals("PATCH") || method.equals("POST") || method.equals("DELETE"))) {
+            return false;
+        }
+        if (response.code() == 201 || response.code() == 202 || response.header(ASYNC_OPERATION_HEADER) != null) {
+            return true;
+        }
+        return response.code() == 200 && (method.equals("PUT") || method.equals("PATCH")) && isInProgress(response);
+    }
+
+    private static boolean isInProgress(Response response) throws IOException {
+        if (response.code() >= 300) {
+            return false;
+        }
+        Matcher matcher = STATUS_PATTERN.matcher(response.peekBody(PEEK_LIMIT).string());
+        if (matcher.find()) {
+            String status = matcher.group(1);
+            return !(status.equalsIgnoreCase("Succeeded") || status.equalsIgnoreCase("Failed") || status.equalsIgnoreCase("Canceled"));
+        }
+        return response.code() == 202;
+    }
+
+    private static String resourceType(Request request) {
+        Matcher matcher = RESOURCE_TYPE_PATTERN.matcher(request.url().encodedPath());
+        if (matcher.find()) {
+            return (matcher.group(1) + "/" + matcher.group(2)).toLowerCase(Locale.ROOT);
+        }
+        return "";
+    }
+
+    private static long retryAfterMillis(Response response) {
+        String value = response.header(RETRY_AFTER_HEADER);
+        if (value != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static Response withRetryAfter(Response response, long delayMillis) {
+        long seconds = (delayMillis + TimeUnit.SECONDS.toMillis(1) - 1) / TimeUnit.SECONDS.toMillis(1);
+        return response.newBuilder()
+                .header(RETRY_AFTER_HEADER, String.valueOf(Math.max(1, seconds)))
+                .build();
+    }
+
+    /**
+     * A long running operation being polled.
+     */
+    static final class PendingOperation {
+        private final String resourceType;
+        private final long startedAt;
+        private final List<String> pollUrls = new ArrayList<>();
+        private volatile long nextPollAt;
+        private int pollCount;
+        private long lastIntervalMillis;
+
+        PendingOperation(String resourceType, long startedAt) {
+            this.resourceType = resourceType;
+            this.startedAt = startedAt;
+            this.nextPollAt = startedAt;
+        }
+
+        private void addPollUrl(String pollUrl) {
+            if (pollUrl != null && !pollUrls.contains(pollUrl)) {
+                pollUrls.add(pollUrl);
+            }
+        }
+    }
+
+    /**
+     * The exponentially weighted moving average of the duration of the operations of a resource type.
+     */
+    static final class AverageDuration {
+        private long millis;
+
+        synchronized void add(long duration) {
+            this.millis = this.millis == 0 ? duration : (this.millis * 3 + duration) / 4;
+        }
+
+        synchronized long millis() {
+            return this.millis;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.utils;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.resources.fluentcore.metrics.MetricsRecorder;
+import com.microsoft.azure.management.resources.fluentcore.metrics.NoOpMetricsRecorder;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A network interceptor that records the metrics of the HTTP requests to the metrics recorder of
+ * the {@link SdkContext}.
+ * <p>
+ * Added with {@code RestClient.Builder.withNetworkInterceptor}, it runs below the retry handler
+ * and records every attempt of a retried request that reached the server. The retries themselves
+ * are counted by the interceptor returned by {@link #retryCounter()}, added with
+ * {@code RestClient.Builder.withInterceptor} ahead of the interceptors that retry requests.
+ */
+@Beta(Beta.SinceVersion.V1_4_0)
+public final class MetricsInterceptor implements Interceptor {
+    private static final Pattern RESOURCE_TYPE_PATTERN = Pattern.compile("/providers/([^/?]+)/([^/?]+)", Pattern.CASE_INSENSITIVE);
+    private static final String DEFAULT_PROVIDER = "Microsoft.Resources";
+    /**
+     * The number of attempts of the call running on the thread, OkHttp runs all the interceptors
+     * of a call on the same thread.
+     */
+    private static final ThreadLocal<int[]> ATTEMPTS = new ThreadLocal<>();
+
+    /**
+     * Gets the interceptor counting the retries of each call and recording them with
+     * {@link MetricsRecorder#recordHttpRetries(String, String, String, int)}.
+     *
+     * @return the interceptor
+     */
+    public static Interceptor retryCounter() {
+        return new RetryCounter();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        MetricsRecorder recorder = SdkContext.getMetricsRecorder();
+        Request request = chain.request();
+        if (recorder.getClass() == NoOpMetricsRecorder.class) {
+            return chain.proceed(request);
+        }
+        int[] attempts = ATTEMPTS.get();
+        if (attempts != null) {
+            attempts[0]++;
+        }
+
+        String[] providerAndType = providerAndType(request);
+        long bytesSent = request.body() != null ? Math.max(0, request.body().contentLength()) : 0;
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException | RuntimeException e) {
+            recorder.recordHttpRequest(providerAndType[0], providerAndType[1], request.method(),
+                    -1, elapsedMillis(start), bytesSent, 0);
+            throw e;
+        }
+        long bytesReceived = response.body() != null ? response.body().contentLength() : 0;
+        recorder.recordHttpRequest(providerAndType[0], providerAndType[1], request.method(),
+                response.code(), elapsedMillis(start), bytesSent, bytesReceived);
+        if (response.code() == 429) {
+            recorder.recordThrottledRequest(providerAndType[0], request.method(), retryAfterMillis(response));
+        }
+        return response;
+    }
+
+    /**
+     * Counts the attempts of a call, made by the retry handler or by the interceptors below this one.
+     */
+    private static final class RetryCounter implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            MetricsRecorder recorder = SdkContext.getMetricsRecorder();
+            Request request = chain.request();
+            if (recorder.getClass() == NoOpMetricsRecorder.class) {
+                return chain.proceed(request);
+            }
+            int[] outerAttempts = ATTEMPTS.get();
+            int[] attempts = new int[1];
+            ATTEMPTS.set(attempts);
+            try {
+                return chain.proceed(request);
+            } finally {
+                if (outerAttempts != null) {
+                    ATTEMPTS.set(outerAttempts);
+                } else {
+                    ATTEMPTS.remove();
+                }
+                if (attempts[0] > 1) {
+                    String[] providerAndType = providerAndType(request);
+                    recorder.recordHttpRetries(providerAndType[0], providerAndType[1], request.method(), attempts[0] - 1);
+                }
+            }
+        }
+    }
+
+    private static String[] providerAndType(Request request) {
+        String path = request.url().encodedPath();
+        Matcher matcher = RESOURCE_TYPE_PATTERN.matcher(path);
+        if (matcher.find()) {
+            return new String[] {matcher.group(1), matcher.group(2)};
+        }
+        // The requests not addressing a provider are the resource group and subscription ones
+        if (path.toLowerCase(Locale.ROOT).contains("/resourcegroups")) {
+            return new String[] {DEFAULT_PROVIDER, "resourceGroups"};
+        }
+        return new String[] {DEFAULT_PROVIDER, "subscriptions"};
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static long retryAfterMillis(Response response) {
+        String value = response.header("Retry-After");
+        if (value != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
@@ -11,21 +11,46 @@ import com.microsoft.azure.PagedList;
 import com.microsoft.azure.management.resources.implementation.PageImpl;
 import com.microsoft.rest.RestException;
 import rx.Observable;
-import rx.functions.Func1;
+import rx.functions.Action1;
 
 import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * The base class for converting {@link PagedList} of one type of resource to
  * another, without polling down all the items in a list.
  * This converter is useful in converting inner top level resources into fluent
  * top level resources.
+ * <p>
+ * The items of the converted list are converted one at a time, when they are first
+ * accessed, so each inner item must convert to exactly one item. While a page is being
+ * consumed, the converter can fetch the following pages in the background, up to the
+ * prefetch depth set with {@link #withPrefetchDepth(int)}, or else with
+ * {@link SdkContext#setPagedListPrefetchDepth(int)}.
  *
  * @param <U> the type of Resource to convert from
  * @param <V> the type of Resource to convert to
  */
 public abstract class PagedListConverter<U, V> {
+    /**
+     * The number of pages fetched ahead of the page being consumed by default, that is none.
+     */
+    public static final int DEFAULT_PREFETCH_DEPTH = 0;
+
+    private volatile Integer prefetchDepth;
+
     /**
      * Override this method to define how to convert each Resource item
      * individually.
@@ -44,6 +69,29 @@ public abstract class PagedListConverter<U, V> {
         return true;
     }
 
+    /**
+     * Sets the number of pages to fetch ahead of the page being consumed, overriding
+     * {@link SdkContext#getPagedListPrefetchDepth()} for the lists converted afterwards.
+     *
+     * @param prefetchDepth the number of pages to prefetch, 0 disables prefetching
+     * @return the converter itself
+     */
+    public PagedListConverter<U, V> withPrefetchDepth(int prefetchDepth) {
+        if (prefetchDepth < 0) {
+            throw new IllegalArgumentException("prefetchDepth must not be negative.");
+        }
+        this.prefetchDepth = prefetchDepth;
+        return this;
+    }
+
+    /**
+     * @return the number of pages fetched ahead of the page being consumed
+     */
+    public int prefetchDepth() {
+        Integer depth = this.prefetchDepth;
+        return depth != null ? depth : SdkContext.getPagedListPrefetchDepth();
+    }
+
     /**
      * Converts the paged list.
      *
@@ -59,44 +107,507 @@ public abstract class PagedListConverter<U, V> {
                 }
             };
         }
-        Page<U> uPage = uList.currentPage();
-        final PageImpl<V> vPage = new PageImpl<>();
-        vPage.setNextPageLink(uPage.nextPageLink());
-        vPage.setItems(new ArrayList<V>());
-        loadConvertedList(uPage, vPage);
-        return new PagedList<V>(vPage) {
-            @Override
-            public Page<V> nextPage(String nextPageLink) throws RestException, IOException {
-                Page<U> uPage = uList.nextPage(nextPageLink);
-                final PageImpl<V> vPage = new PageImpl<>();
-                vPage.setNextPageLink(uPage.nextPageLink());
-                vPage.setItems(new ArrayList<V>());
-                loadConvertedList(uPage, vPage);
-                return vPage;
-            }
-        };
+        return new ConvertedPagedList(uList, new PagePrefetcher(uList, prefetchDepth()));
     }
 
-    private void loadConvertedList(final Page<U> uPage, final Page<V> vPage) {
-        Observable.from(uPage.items())
-                .filter(new Func1<U, Boolean>() {
-                    @Override
-                    public Boolean call(U u) {
-                        return filter(u);
-                    }
-                })
-                .flatMap(new Func1<U, Observable<V>>() {
-                    @Override
-                    public Observable<V> call(U u) {
-                        return typeConvertAsync(u);
+    private PageImpl<U> filterPage(Page<U> uPage) {
+        List<U> items = new ArrayList<>();
+        if (uPage.items() != null) {
+            for (U u : uPage.items()) {
+                if (filter(u)) {
+                    items.add(u);
+                }
+            }
+        }
+        PageImpl<U> page = new PageImpl<>();
+        page.setNextPageLink(uPage.nextPageLink());
+        page.setItems(items);
+        return page;
+    }
+
+    /**
+     * An item of the converted list, converted on first access.
+     */
+    private final class LazyItem {
+        private U source;
+        private V value;
+        private boolean converted;
+
+        LazyItem(U source) {
+            this.source = source;
+        }
+
+        LazyItem(V value, boolean converted) {
+            this.value = value;
+            this.converted = converted;
+        }
+
+        V value() {
+            if (!converted) {
+                value = typeConvertAsync(source).toBlocking().single();
+                source = null;
+                converted = true;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * A list of lazily converted items, backed by a list of {@link LazyItem}.
+     */
+    private final class LazyItemList extends AbstractList<V> {
+        private final List<LazyItem> items;
+
+        LazyItemList(List<LazyItem> items) {
+            this.items = items;
+        }
+
+        @Override
+        public V get(int index) {
+            return items.get(index).value();
+        }
+
+        @Override
+        public int size() {
+            return items.size();
+        }
+
+        @Override
+        public V set(int index, V element) {
+            V previous = get(index);
+            items.set(index, new LazyItem(element, true));
+            return previous;
+        }
+
+        @Override
+        public void add(int index, V element) {
+            modCount++;
+            items.add(index, new LazyItem(element, true));
+        }
+
+        @Override
+        public V remove(int index) {
+            V previous = get(index);
+            modCount++;
+            items.remove(index);
+            return previous;
+        }
+    }
+
+    /**
+     * The converted list. The following page is fetched only when the consumer needs it,
+     * and its items are converted only when they are accessed.
+     */
+    private final class ConvertedPagedList extends PagedList<V> {
+        private final PagePrefetcher prefetcher;
+        private final List<LazyItem> items = new ArrayList<>();
+        private final LazyItemList loadedItems = new LazyItemList(items);
+        private Page<V> currentPage;
+        private Page<U> cachedPage;
+        private String nextPageLink;
+
+        ConvertedPagedList(PagedList<U> uList, PagePrefetcher prefetcher) {
+            super();
+            this.prefetcher = prefetcher;
+            append(filterPage(uList.currentPage()));
+        }
+
+        @Override
+        public Page<V> nextPage(String nextPageLink) throws RestException, IOException {
+            Page<U> uPage = prefetcher.take(nextPageLink);
+            if (uPage == null) {
+                return null;
+            }
+            return lazyPage(uPage, lazyItems(uPage));
+        }
+
+        @Override
+        public boolean hasNextPage() {
+            return peekNextPage() != null;
+        }
+
+        @Override
+        public void loadNextPage() {
+            Page<U> uPage = peekNextPage();
+            if (uPage != null) {
+                cachedPage = null;
+                append(uPage);
+            }
+        }
+
+        @Override
+        public void loadAll() {
+            while (hasNextPage()) {
+                loadNextPage();
+            }
+        }
+
+        @Override
+        public Page<V> currentPage() {
+            return currentPage;
+        }
+
+        private void append(Page<U> uPage) {
+            List<LazyItem> pageItems = lazyItems(uPage);
+            items.addAll(pageItems);
+            currentPage = lazyPage(uPage, pageItems);
+            nextPageLink = uPage.nextPageLink();
+            prefetcher.prefetch(nextPageLink);
+        }
+
+        private List<LazyItem> lazyItems(Page<U> uPage) {
+            List<LazyItem> pageItems = new ArrayList<>();
+            for (U u : uPage.items()) {
+                pageItems.add(new LazyItem(u));
+            }
+            return pageItems;
+        }
+
+        private Page<V> lazyPage(Page<U> uPage, List<LazyItem> pageItems) {
+            return new PageImpl<V>()
+                    .setNextPageLink(uPage.nextPageLink())
+                    .setItems(new LazyItemList(pageItems));
+        }
+
+        /**
+         * Fetches the next page with items, skipping the pages left empty by the filter,
+         * unless it is already fetched.
+         *
+         * @return the next page, or null if there is none
+         */
+        private Page<U> peekNextPage() {
+            try {
+                while (cachedPage == null && nextPageLink != null && !nextPageLink.isEmpty()) {
+                    Page<U> uPage = prefetcher.take(nextPageLink);
+                    if (uPage == null) {
+                        nextPageLink = null;
+                    } else if (uPage.items().isEmpty()) {
+                        nextPageLink = uPage.nextPageLink();
+                    } else {
+                        cachedPage = uPage;
                     }
-                })
-                .map(new Func1<V, V>() {
-                    @Override
-                    public V call(V v) {
-                        vPage.items().add(v);
-                        return v;
+                }
+                return cachedPage;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private void loadUntil(int size) {
+            while (items.size() < size && hasNextPage()) {
+                loadNextPage();
+            }
+        }
+
+        @Override
+        public int size() {
+            loadAll();
+            return items.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return items.isEmpty() && !hasNextPage();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return listIterator();
+        }
+
+        @Override
+        public Object[] toArray() {
+            loadAll();
+            return loadedItems.toArray();
+        }
+
+        @Override
+        public <T> T[] toArray(T[] a) {
+            loadAll();
+            return loadedItems.toArray(a);
+        }
+
+        @Override
+        public boolean add(V v) {
+            return loadedItems.add(v);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return loadedItems.remove(o);
+        }
+
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            loadAll();
+            return loadedItems.containsAll(c);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends V> c) {
+            return loadedItems.addAll(c);
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends V> c) {
+            return loadedItems.addAll(index, c);
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            return loadedItems.removeAll(c);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> c) {
+            return loadedItems.retainAll(c);
+        }
+
+        @Override
+        public void clear() {
+            loadedItems.clear();
+        }
+
+        @Override
+        public V get(int index) {
+            loadUntil(index + 1);
+            return loadedItems.get(index);
+        }
+
+        @Override
+        public V set(int index, V element) {
+            return loadedItems.set(index, element);
+        }
+
+        @Override
+        public void add(int index, V element) {
+            loadedItems.add(index, element);
+        }
+
+        @Override
+        public V remove(int index) {
+            return loadedItems.remove(index);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            loadAll();
+            return loadedItems.indexOf(o);
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            loadAll();
+            return loadedItems.lastIndexOf(o);
+        }
+
+        @Override
+        public ListIterator<V> listIterator() {
+            return listIterator(0);
+        }
+
+        @Override
+        public ListIterator<V> listIterator(int index) {
+            loadUntil(index);
+            return new ListItr(index);
+        }
+
+        @Override
+        public List<V> subList(int fromIndex, int toIndex) {
+            loadUntil(toIndex);
+            return loadedItems.subList(fromIndex, toIndex);
+        }
+
+        /**
+         * Iterates over the converted list, loading the next page when the end of the
+         * loaded items is reached.
+         */
+        private class ListItr implements ListIterator<V> {
+            private int nextIndex;
+            private int lastRetIndex = -1;
+
+            ListItr(int index) {
+                this.nextIndex = index;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextIndex < items.size() || hasNextPage();
+            }
+
+            @Override
+            public V next() {
+                if (nextIndex >= items.size()) {
+                    if (!hasNextPage()) {
+                        throw new NoSuchElementException();
                     }
-                }).toBlocking().subscribe();
+                    loadNextPage();
+                }
+                lastRetIndex = nextIndex;
+                nextIndex++;
+                return loadedItems.get(lastRetIndex);
+            }
+
+            @Override
+            public void remove() {
+                if (lastRetIndex < 0) {
+                    throw new IllegalStateException();
+                }
+                loadedItems.remove(lastRetIndex);
+                nextIndex = lastRetIndex;
+                lastRetIndex = -1;
+            }
+
+            @Override
+            public boolean hasPrevious() {
+                return nextIndex > 0;
+            }
+
+            @Override
+            public V previous() {
+                if (nextIndex <= 0) {
+                    throw new NoSuchElementException();
+                }
+                nextIndex--;
+                lastRetIndex = nextIndex;
+                return loadedItems.get(lastRetIndex);
+            }
+
+            @Override
+            public int nextIndex() {
+                return nextIndex;
+            }
+
+            @Override
+            public int previousIndex() {
+                return nextIndex - 1;
+            }
+
+            @Override
+            public void set(V v) {
+                if (lastRetIndex < 0) {
+                    throw new IllegalStateException();
+                }
+                loadedItems.set(lastRetIndex, v);
+            }
+
+            @Override
+            public void add(V v) {
+                loadedItems.add(nextIndex++, v);
+                lastRetIndex = -1;
+            }
+        }
+    }
+
+    /**
+     * Fetches and filters the pages of one converted list, keeping up to
+     * prefetchDepth pages in flight ahead of the consumer.
+     */
+    private class PagePrefetcher {
+        private final PagedList<U> uList;
+        private final int depth;
+        private final Map<String, Future<PageImpl<U>>> inFlight = new HashMap<>();
+
+        PagePrefetcher(PagedList<U> uList, int depth) {
+            this.uList = uList;
+            this.depth = depth;
+        }
+
+        /**
+         * Starts fetching the page behind the given link in the background,
+         * unless the prefetch depth is already reached.
+         *
+         * @param nextPageLink the link to the page to fetch
+         */
+        void prefetch(final String nextPageLink) {
+            if (depth == 0 || nextPageLink == null || nextPageLink.isEmpty()) {
+                return;
+            }
+            final FutureTask<PageImpl<U>> task = new FutureTask<>(new Callable<PageImpl<U>>() {
+                @Override
+                public PageImpl<U> call() throws Exception {
+                    return load(nextPageLink);
+                }
+            });
+            synchronized (inFlight) {
+                if (inFlight.size() >= depth || inFlight.containsKey(nextPageLink)) {
+                    return;
+                }
+                inFlight.put(nextPageLink, task);
+            }
+            Observable.just(task)
+                    .subscribeOn(SdkContext.getRxScheduler())
+                    .subscribe(new Action1<FutureTask<PageImpl<U>>>() {
+                        @Override
+                        public void call(FutureTask<PageImpl<U>> t) {
+                            t.run();
+                            try {
+                                PageImpl<U> page = t.get();
+                                if (page != null) {
+                                    prefetch(page.nextPageLink());
+                                }
+                            } catch (InterruptedException | ExecutionException e) {
+                                // The failure is surfaced to the consumer when it takes the page
+                            }
+                        }
+                    });
+        }
+
+        /**
+         * Gets the page behind the given link, waiting for it if it is being prefetched.
+         *
+         * @param nextPageLink the link to the page
+         * @return the filtered page
+         * @throws RestException exceptions thrown from the REST call
+         * @throws IOException exceptions thrown from serialization/deserialization
+         */
+        PageImpl<U> take(String nextPageLink) throws RestException, IOException {
+            Future<PageImpl<U>> future;
+            synchronized (inFlight) {
+                future = inFlight.remove(nextPageLink);
+            }
+            PageImpl<U> uPage;
+            if (future == null) {
+                uPage = load(nextPageLink);
+            } else {
+                uPage = await(future);
+            }
+            if (uPage != null) {
+                prefetch(uPage.nextPageLink());
+            }
+            return uPage;
+        }
+
+        private PageImpl<U> load(String nextPageLink) throws RestException, IOException {
+            Page<U> uPage = uList.nextPage(nextPageLink);
+            if (uPage == null) {
+                return null;
+            }
+            return filterPage(uPage);
+        }
+
+        private PageImpl<U> await(Future<PageImpl<U>> future) throws RestException, IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RestException) {
+                    throw (RestException) cause;
+                } else if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
     }
 }
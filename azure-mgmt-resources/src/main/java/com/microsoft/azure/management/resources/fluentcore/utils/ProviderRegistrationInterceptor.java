@@ -9,6 +9,7 @@ package com.microsoft.azure.management.resources.fluentcore.utils;
 import com.microsoft.azure.AzureResponseBuilder;
 import com.microsoft.azure.CloudError;
 import com.microsoft.azure.credentials.AzureTokenCredentials;
+import com.microsoft.azure.management.apigeneration.Beta;
 import com.microsoft.azure.management.resources.Provider;
 import com.microsoft.azure.management.resources.implementation.ResourceManager;
 import com.microsoft.azure.serializer.AzureJacksonAdapter;
@@ -18,16 +19,42 @@ import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okio.Buffer;
 import okio.BufferedSource;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * An interceptor for automatic provider registration in Azure.
+ * <p>
+ * The namespaces registered are remembered per subscription, and a namespace is registered only
+ * once at a time: the requests failing because of the same missing registration all wait for
+ * the registration started by the first of them.
  */
 public final class ProviderRegistrationInterceptor implements Interceptor {
+    private static final String MISSING_REGISTRATION_CODE = "MissingSubscriptionRegistration";
+    private static final Pattern SUBSCRIPTION_PATTERN = Pattern.compile("/subscriptions/([\\w-]+)/", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NAMESPACE_PATTERN = Pattern.compile(".*'(.*)'");
+    private static final int REGISTRATION_POLL_DELAY_MILLIS = 5 * 1000;
+    private static final AzureJacksonAdapter JACKSON_ADAPTER = new AzureJacksonAdapter();
+    // The namespaces known to be registered, keyed by subscription and namespace
+    private static final Set<String> REGISTERED_NAMESPACES = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    // The registrations in progress, keyed by subscription and namespace
+    private static final ConcurrentMap<String, Observable<Provider>> PENDING_REGISTRATIONS = new ConcurrentHashMap<>();
+
     private final AzureTokenCredentials credentials;
+    // The resource managers used to register, keyed by host and subscription
+    private final ConcurrentMap<String, ResourceManager> resourceManagers = new ConcurrentHashMap<>();
 
     /**
      * Initialize a provider registration interceptor with a credential that's authorized
@@ -38,41 +65,158 @@ public final class ProviderRegistrationInterceptor implements Interceptor {
         this.credentials = credentials;
     }
 
+    /**
+     * Registers a set of resource provider namespaces ahead of their first use.
+     * <p>
+     * The namespaces already registered are not registered again. The registrations run concurrently
+     * and share the registrations of the same namespaces started by the interceptors.
+     *
+     * @param resourceManager the resource manager of the subscription to register the namespaces with
+     * @param namespaces the namespaces to register, such as "Microsoft.Compute"
+     * @return an observable that emits the registered providers
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    public static Observable<Provider> registerProvidersAsync(final ResourceManager resourceManager, String... namespaces) {
+        final String subscriptionId = resourceManager.subscriptionId();
+        return Observable.from(namespaces)
+                .filter(new Func1<String, Boolean>() {
+                    @Override
+                    public Boolean call(String namespace) {
+                        return !isRegistered(subscriptionId, namespace);
+                    }
+                })
+                .flatMap(new Func1<String, Observable<Provider>>() {
+                    @Override
+                    public Observable<Provider> call(final String namespace) {
+                        return registerOnceAsync(subscriptionId, namespace, new Func0<Observable<Provider>>() {
+                            @Override
+                            public Observable<Provider> call() {
+                                return resourceManager.providers().getByNameAsync(namespace)
+                                        .flatMap(new Func1<Provider, Observable<Provider>>() {
+                                            @Override
+                                            public Observable<Provider> call(Provider provider) {
+                                                if ("Registered".equalsIgnoreCase(provider.registrationState())) {
+                                                    return Observable.just(provider);
+                                                }
+                                                return registerProviderAsync(namespace, resourceManager);
+                                            }
+                                        });
+                            }
+                        });
+                    }
+                });
+    }
+
     @Override
     public Response intercept(Chain chain) throws IOException {
         Response response = chain.proceed(chain.request());
         if (!response.isSuccessful()) {
             String content = errorBody(response.body());
-            AzureJacksonAdapter jacksonAdapter = new AzureJacksonAdapter();
-            CloudError cloudError = jacksonAdapter.deserialize(content, CloudError.class);
-            if (cloudError != null && "MissingSubscriptionRegistration".equals(cloudError.code())) {
-                Pattern pattern = Pattern.compile("/subscriptions/([\\w-]+)/", Pattern.CASE_INSENSITIVE);
-                Matcher matcher = pattern.matcher(chain.request().url().toString());
+            // Most of the failures are not about registration, skip deserializing those
+            if (content == null || !content.contains(MISSING_REGISTRATION_CODE)) {
+                return response;
+            }
+            CloudError cloudError = JACKSON_ADAPTER.deserialize(content, CloudError.class);
+            if (cloudError != null && MISSING_REGISTRATION_CODE.equals(cloudError.code())) {
+                Matcher matcher = SUBSCRIPTION_PATTERN.matcher(chain.request().url().toString());
                 matcher.find();
-                RestClient restClient = new RestClient.Builder()
-                        .withBaseUrl("https://" + chain.request().url().host())
-                        .withCredentials(credentials)
-                        .withSerializerAdapter(jacksonAdapter)
-                        .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
-                        .build();
-                ResourceManager resourceManager = ResourceManager.authenticate(restClient)
-                        .withSubscription(matcher.group(1));
-                pattern = Pattern.compile(".*'(.*)'");
-                matcher = pattern.matcher(cloudError.message());
+                final String subscriptionId = matcher.group(1);
+                matcher = NAMESPACE_PATTERN.matcher(cloudError.message());
                 matcher.find();
-                Provider provider = registerProvider(matcher.group(1), resourceManager);
-                while (provider.registrationState().equalsIgnoreCase("Unregistered")
-                        || provider.registrationState().equalsIgnoreCase("Registering")) {
-                    SdkContext.sleep(5 * 1000);
-                    provider = resourceManager.providers().getByName(provider.namespace());
+                final String namespace = matcher.group(1);
+                if (isRegistered(subscriptionId, namespace)) {
+                    // The registration may not have reached every region yet, retry without
+                    // registering again but let a repeated failure register
+                    REGISTERED_NAMESPACES.remove(registrationKey(subscriptionId, namespace));
+                } else {
+                    final ResourceManager resourceManager = resourceManager(chain.request().url().host(), subscriptionId);
+                    // The request is retried only once the registration completes
+                    registerOnceAsync(subscriptionId, namespace, new Func0<Observable<Provider>>() {
+                        @Override
+                        public Observable<Provider> call() {
+                            return registerProviderAsync(namespace, resourceManager);
+                        }
+                    }).toBlocking().last();
                 }
                 // Retry
+                response.body().close();
                 response = chain.proceed(chain.request());
             }
         }
         return response;
     }
 
+    /**
+     * Runs a registration unless one of the same namespace is already in progress, in which case
+     * the registration in progress is shared.
+     *
+     * @param subscriptionId the subscription ID
+     * @param namespace the resource provider namespace
+     * @param registration the factory of the registration
+     * @return an observable that emits the registered provider
+     */
+    static Observable<Provider> registerOnceAsync(final String subscriptionId, final String namespace,
+                                                  Func0<Observable<Provider>> registration) {
+        final String key = registrationKey(subscriptionId, namespace);
+        Observable<Provider> pending = PENDING_REGISTRATIONS.get(key);
+        if (pending != null) {
+            return pending;
+        }
+        Observable<Provider> newPending = Observable.defer(registration)
+                .last()
+                .doOnNext(new Action1<Provider>() {
+                    @Override
+                    public void call(Provider provider) {
+                        REGISTERED_NAMESPACES.add(key);
+                    }
+                })
+                .doOnTerminate(new Action0() {
+                    @Override
+                    public void call() {
+                        PENDING_REGISTRATIONS.remove(key);
+                    }
+                })
+                .cache();
+        pending = PENDING_REGISTRATIONS.putIfAbsent(key, newPending);
+        return pending != null ? pending : newPending;
+    }
+
+    /**
+     * Checks whether a namespace is known to be registered with a subscription.
+     *
+     * @param subscriptionId the subscription ID
+     * @param namespace the resource provider namespace
+     * @return true if the namespace was registered through an interceptor
+     */
+    static boolean isRegistered(String subscriptionId, String namespace) {
+        return REGISTERED_NAMESPACES.contains(registrationKey(subscriptionId, namespace));
+    }
+
+    private static String registrationKey(String subscriptionId, String namespace) {
+        return (subscriptionId + "/" + namespace).toLowerCase(Locale.ROOT);
+    }
+
+    private ResourceManager resourceManager(String host, String subscriptionId) {
+        String key = host + "/" + subscriptionId;
+        ResourceManager resourceManager = resourceManagers.get(key);
+        if (resourceManager == null) {
+            RestClient restClient = new RestClient.Builder()
+                    .withBaseUrl("https://" + host)
+                    .withCredentials(credentials)
+                    .withSerializerAdapter(JACKSON_ADAPTER)
+                    .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                    .withInterceptor(MetricsInterceptor.retryCounter())
+                    .withNetworkInterceptor(new MetricsInterceptor())
+                    .build();
+            resourceManager = ResourceManager.authenticate(restClient).withSubscription(subscriptionId);
+            ResourceManager existing = resourceManagers.putIfAbsent(key, resourceManager);
+            if (existing != null) {
+                resourceManager = existing;
+            }
+        }
+        return resourceManager;
+    }
+
     private String errorBody(ResponseBody responseBody) throws IOException {
         if (responseBody == null) {
             return null;
@@ -83,7 +227,34 @@ public final class ProviderRegistrationInterceptor implements Interceptor {
         return buffer.clone().readUtf8();
     }
 
-    private Provider registerProvider(String namespace, ResourceManager resourceManager) {
-        return resourceManager.providers().register(namespace);
+    private static Observable<Provider> registerProviderAsync(String namespace, final ResourceManager resourceManager) {
+        return resourceManager.providers().registerAsync(namespace)
+                .flatMap(new Func1<Provider, Observable<Provider>>() {
+                    @Override
+                    public Observable<Provider> call(Provider provider) {
+                        return waitForRegistrationAsync(provider, resourceManager);
+                    }
+                });
+    }
+
+    private static Observable<Provider> waitForRegistrationAsync(Provider provider, final ResourceManager resourceManager) {
+        if (!provider.registrationState().equalsIgnoreCase("Unregistered")
+                && !provider.registrationState().equalsIgnoreCase("Registering")) {
+            return Observable.just(provider);
+        }
+        // The poll is timer based, no thread is held between two polls
+        return SdkContext.delayedEmitAsync(provider.namespace(), REGISTRATION_POLL_DELAY_MILLIS)
+                .flatMap(new Func1<String, Observable<Provider>>() {
+                    @Override
+                    public Observable<Provider> call(String namespace) {
+                        return resourceManager.providers().getByNameAsync(namespace);
+                    }
+                })
+                .flatMap(new Func1<Provider, Observable<Provider>>() {
+                    @Override
+                    public Observable<Provider> call(Provider provider) {
+                        return waitForRegistrationAsync(provider, resourceManager);
+                    }
+                });
     }
 }
@@ -7,88 +7,230 @@
 package com.microsoft.azure.management.resources.fluentcore.utils;
 
 import okhttp3.Interceptor;
+import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okio.Buffer;
 import okio.BufferedSource;
 import org.slf4j.LoggerFactory;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Retrofit;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Func0;
+import rx.functions.Func1;
 
 import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+
 /**
  * An interceptor for automatic retry when Azure Resource Manager is throttling because of too many read/write requests.
  * <p>
  * For each subscription and tenant, Azure Resource Manager limits read requests to 15,000 per hour and
  *   write requests to 1,200 per hour. These limits apply to each Azure Resource Manager instance.
+ * <p>
+ * Throttling state is tracked separately for every subscription and for the read and write bucket
+ * of that subscription, so a throttled subscription never stalls requests made against another
+ * subscription or against the other bucket of the same subscription. The interceptor also tracks the
+ * remaining quota reported through the "x-ms-ratelimit-remaining-subscription-reads/writes" headers
+ * and, once the quota runs low, paces requests at the rate Azure Resource Manager replenishes it so
+ * that a 429 is avoided rather than waited out.
+ * <p>
+ * The waits are left to the Retrofit call adapter returned by {@link #callAdapterFactory()}: a request
+ * that has to wait fails with an internal error, and the adapter sends it again once a timer of
+ * {@link SdkContext#delayedEmitAsync(Object, int)} fires, so no thread is held while waiting. Requests
+ * made through a Retrofit instance without this adapter wait on the calling thread instead.
  */
 public class ResourceManagerThrottlingInterceptor implements Interceptor {
     private static final String LOGGING_HEADER = "x-ms-logging-context";
-    private static final ReentrantLock REENTRANT_LOCK = new ReentrantLock();
+    private static final String REMAINING_READS_HEADER = "x-ms-ratelimit-remaining-subscription-reads";
+    private static final String REMAINING_WRITES_HEADER = "x-ms-ratelimit-remaining-subscription-writes";
+    private static final String REMAINING_TENANT_READS_HEADER = "x-ms-ratelimit-remaining-tenant-reads";
+    private static final String REMAINING_TENANT_WRITES_HEADER = "x-ms-ratelimit-remaining-tenant-writes";
+    private static final Pattern SUBSCRIPTION_PATTERN = Pattern.compile("/subscriptions/([^/?]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern RETRY_AFTER_PATTERN = Pattern.compile("try again after '([0-9]*)' minutes", Pattern.CASE_INSENSITIVE);
+
+    /** The default number of read requests Azure Resource Manager allows per hour. */
+    public static final int DEFAULT_READS_PER_HOUR = 15000;
+    /** The default number of write requests Azure Resource Manager allows per hour. */
+    public static final int DEFAULT_WRITES_PER_HOUR = 1200;
+    /** The default remaining quota, in percent of the hourly limit, below which requests are paced. */
+    public static final int DEFAULT_PACING_THRESHOLD_PERCENT = 10;
+    /** The default number of times a throttled request is retried. */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    // Shared by all the interceptor instances so that the managers created for the same subscription
+    // observe each other's throttling state
+    private static final ThrottlingBuckets SHARED_BUCKETS = new ThrottlingBuckets();
+
+    // The retries of the request being sent on this thread, set while the call adapter sends it
+    private static final ThreadLocal<RetryState> RETRY_STATE = new ThreadLocal<>();
+
+    private final ThrottlingBuckets buckets;
+    private final int readsPerHour;
+    private final int writesPerHour;
+    private final int pacingThresholdPercent;
+    private final int maxRetries;
+
+    /**
+     * Creates an interceptor using the default Azure Resource Manager limits.
+     */
+    public ResourceManagerThrottlingInterceptor() {
+        this(DEFAULT_READS_PER_HOUR, DEFAULT_WRITES_PER_HOUR, DEFAULT_PACING_THRESHOLD_PERCENT, DEFAULT_MAX_RETRIES);
+    }
+
+    /**
+     * Creates an interceptor using custom limits.
+     *
+     * @param readsPerHour the number of read requests allowed per subscription per hour
+     * @param writesPerHour the number of write requests allowed per subscription per hour
+     * @param pacingThresholdPercent the remaining quota, in percent of the hourly limit, below which
+     *                               requests are paced; 0 disables pacing
+     * @param maxRetries the maximum number of times a throttled request is retried
+     */
+    public ResourceManagerThrottlingInterceptor(int readsPerHour, int writesPerHour, int pacingThresholdPercent, int maxRetries) {
+        this(SHARED_BUCKETS, readsPerHour, writesPerHour, pacingThresholdPercent, maxRetries);
+    }
+
+    ResourceManagerThrottlingInterceptor(ThrottlingBuckets buckets, int readsPerHour, int writesPerHour,
+                                         int pacingThresholdPercent, int maxRetries) {
+        if (readsPerHour <= 0 || writesPerHour <= 0) {
+            throw new IllegalArgumentException("The hourly request limits must be positive.");
+        }
+        if (pacingThresholdPercent < 0 || pacingThresholdPercent > 100) {
+            throw new IllegalArgumentException("The pacing threshold must be between 0 and 100 percent.");
+        }
+        this.buckets = buckets;
+        this.readsPerHour = readsPerHour;
+        this.writesPerHour = writesPerHour;
+        this.pacingThresholdPercent = pacingThresholdPercent;
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    /**
+     * Gets the factory of the Retrofit call adapter that waits for throttled requests on a timer and
+     * sends them again, instead of holding the calling thread. Add it to the Retrofit builder of the
+     * REST client that uses this interceptor.
+     *
+     * @return the call adapter factory
+     */
+    public static CallAdapter.Factory callAdapterFactory() {
+        return new RetryingCallAdapterFactory();
+    }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
-        // Gate control
-        try {
-            synchronized (REENTRANT_LOCK) {
-                if (REENTRANT_LOCK.isLocked()) {
-                    REENTRANT_LOCK.wait();
+        Request request = chain.request();
+        boolean isRead = isRead(request);
+        int perHour = isRead ? readsPerHour : writesPerHour;
+        long pacingIntervalMillis = TimeUnit.HOURS.toMillis(1) / perHour;
+        long pacingThreshold = (long) perHour * pacingThresholdPercent / 100;
+        ThrottlingBucket bucket = buckets.bucketFor(subscriptionId(request), isRead);
+        RetryState retryState = RETRY_STATE.get();
+
+        Response response = null;
+        for (int attempt = 0;; attempt++) {
+            // Only the callers of the same subscription and bucket are held back here
+            long delayMillis;
+            if (retryState != null && retryState.paced) {
+                // The paced slot was reserved before the call adapter waited for it
+                delayMillis = bucket.blockedDelay(System.currentTimeMillis());
+            } else {
+                delayMillis = bucket.reserve(System.currentTimeMillis(), pacingIntervalMillis, pacingThreshold);
+            }
+            if (delayMillis > 0) {
+                if (retryState != null) {
+                    retryState.paced = true;
+                    throw new ThrottledException(delayMillis);
                 }
+                SdkContext.sleep((int) Math.min(Integer.MAX_VALUE, delayMillis));
+            }
+            if (retryState != null) {
+                retryState.paced = false;
+            }
+            response = chain.proceed(request);
+            bucket.updateRemaining(remainingQuota(response, isRead));
+            int retries = retryState != null ? retryState.retries : attempt;
+            if (response.code() != 429 || retries >= maxRetries) {
+                return response;
             }
-        } catch (InterruptedException e) {
-            throw new IOException(e);
-        }
-        Response response = chain.proceed(chain.request());
-        if (response.code() != 429) {
-            return response;
-        }
 
-        try {
-            synchronized (REENTRANT_LOCK) {
-                if (REENTRANT_LOCK.isLocked()) {
-                    REENTRANT_LOCK.wait();
-                    return chain.proceed(chain.request());
-                } else {
-                    REENTRANT_LOCK.lock();
+            long retryAfterSeconds = retryAfterSeconds(response);
+            closeQuietly(response);
+            if (retryAfterSeconds > 0) {
+                String context = request.header(LOGGING_HEADER);
+                if (context == null) {
+                    context = "";
                 }
+                LoggerFactory.getLogger(context)
+                    .info("Azure Resource Manager read/write per hour limit reached. Will retry in: " + retryAfterSeconds + " seconds");
+            }
+            long blockMillis = TimeUnit.SECONDS.toMillis(retryAfterSeconds) + 100;
+            bucket.blockFor(System.currentTimeMillis(), blockMillis);
+            if (retryState != null) {
+                retryState.retries++;
+                throw new ThrottledException(blockMillis);
             }
-        } catch (InterruptedException e) {
-            throw new IOException(e);
         }
+    }
+
+    private static boolean isRead(Request request) {
+        return "GET".equalsIgnoreCase(request.method()) || "HEAD".equalsIgnoreCase(request.method());
+    }
+
+    private static String subscriptionId(Request request) {
+        Matcher matcher = SUBSCRIPTION_PATTERN.matcher(request.url().encodedPath());
+        if (matcher.find()) {
+            return matcher.group(1).toLowerCase(Locale.ROOT);
+        }
+        // Tenant level requests share a single bucket
+        return "";
+    }
 
+    private static long remainingQuota(Response response, boolean isRead) {
+        String value = response.header(isRead ? REMAINING_READS_HEADER : REMAINING_WRITES_HEADER);
+        if (value == null) {
+            value = response.header(isRead ? REMAINING_TENANT_READS_HEADER : REMAINING_TENANT_WRITES_HEADER);
+        }
+        if (value == null) {
+            return -1;
+        }
         try {
-            String retryAfterHeader = response.header("Retry-After");
-            int retryAfter = 0;
-            if (retryAfterHeader != null) {
-                retryAfter = Integer.parseInt(retryAfterHeader);
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private long retryAfterSeconds(Response response) throws IOException {
+        String retryAfterHeader = response.header("Retry-After");
+        long retryAfter = 0;
+        if (retryAfterHeader != null) {
+            try {
+                retryAfter = Long.parseLong(retryAfterHeader.trim());
+            } catch (NumberFormatException e) {
+                retryAfter = 0;
             }
-            if (retryAfter <= 0) {
-                Pattern pattern = Pattern.compile("try again after '([0-9]*)' minutes", Pattern.CASE_INSENSITIVE);
-                Matcher matcher = pattern.matcher(content(response.body()));
+        }
+        if (retryAfter <= 0) {
+            String content = content(response.body());
+            if (content != null) {
+                Matcher matcher = RETRY_AFTER_PATTERN.matcher(content);
                 if (matcher.find()) {
-                    retryAfter = (int) TimeUnit.MINUTES.toSeconds(Integer.parseInt(matcher.group(1)));
+                    retryAfter = TimeUnit.MINUTES.toSeconds(Integer.parseInt(matcher.group(1)));
                 }
             }
-            if (retryAfter > 0) {
-                String context = chain.request().header(LOGGING_HEADER);
-                if (context == null) {
-                    context = "";
-                }
-                LoggerFactory.getLogger(context)
-                    .info("Azure Resource Manager read/write per hour limit reached. Will retry in: " + retryAfter + " seconds");
-                SdkContext.sleep((int) (TimeUnit.SECONDS.toMillis(retryAfter) + 100));
-            }
-            return chain.proceed(chain.request());
-        } catch (Throwable t) {
-            throw new IOException(t);
-        } finally {
-            synchronized (REENTRANT_LOCK) {
-                REENTRANT_LOCK.unlock();
-                REENTRANT_LOCK.notifyAll();
-            }
         }
+        return retryAfter;
     }
 
     private String content(ResponseBody responseBody) throws IOException {
@@ -100,4 +242,181 @@ public class ResourceManagerThrottlingInterceptor implements Interceptor {
         Buffer buffer = source.buffer();
         return buffer.readUtf8();
     }
+
+    private static void closeQuietly(Response response) {
+        if (response.body() != null) {
+            response.body().close();
+        }
+    }
+
+    /**
+     * The throttling buckets of the subscriptions, keyed by subscription and by read/write bucket.
+     */
+    static final class ThrottlingBuckets {
+        private final ConcurrentMap<String, ThrottlingBucket> buckets = new ConcurrentHashMap<>();
+
+        ThrottlingBucket bucketFor(String subscriptionId, boolean isRead) {
+            String key = subscriptionId + (isRead ? "|reads" : "|writes");
+            ThrottlingBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                ThrottlingBucket newBucket = new ThrottlingBucket();
+                bucket = buckets.putIfAbsent(key, newBucket);
+                if (bucket == null) {
+                    bucket = newBucket;
+                }
+            }
+            return bucket;
+        }
+    }
+
+    /**
+     * The throttling state of the read or write bucket of a subscription. The pacing parameters
+     * come from the interceptor sending the request, so that interceptors with different limits
+     * can share the state of a subscription.
+     */
+    static final class ThrottlingBucket {
+        private final AtomicLong blockedUntil = new AtomicLong();
+        private final AtomicLong nextPermit = new AtomicLong();
+        private volatile long remaining = -1;
+
+        /**
+         * Reserves a slot for a request and returns how long the caller must wait before sending it.
+         *
+         * @param now the current time in milliseconds
+         * @param pacingIntervalMillis the interval between two requests while pacing
+         * @param pacingThreshold the remaining quota below which requests are paced
+         * @return the delay in milliseconds, 0 if the request can be sent right away
+         */
+        long reserve(long now, long pacingIntervalMillis, long pacingThreshold) {
+            long delay = blockedDelay(now);
+            if (isPacing(pacingThreshold)) {
+                long start = Math.max(now, blockedUntil.get());
+                while (true) {
+                    long current = nextPermit.get();
+                    long slot = Math.max(start, current);
+                    if (nextPermit.compareAndSet(current, slot + pacingIntervalMillis)) {
+                        delay = Math.max(delay, slot - now);
+                        break;
+                    }
+                }
+            }
+            return delay;
+        }
+
+        /**
+         * @param now the current time in milliseconds
+         * @return how long the bucket stays blocked by a 429, 0 if it is not blocked
+         */
+        long blockedDelay(long now) {
+            return Math.max(0, blockedUntil.get() - now);
+        }
+
+        void updateRemaining(long remaining) {
+            if (remaining >= 0) {
+                this.remaining = remaining;
+            }
+        }
+
+        void blockFor(long now, long millis) {
+            long until = now + millis;
+            while (true) {
+                long current = blockedUntil.get();
+                if (current >= until || blockedUntil.compareAndSet(current, until)) {
+                    return;
+                }
+            }
+        }
+
+        boolean isPacing(long pacingThreshold) {
+            long remaining = this.remaining;
+            return remaining >= 0 && remaining <= pacingThreshold;
+        }
+    }
+
+    /**
+     * The retries of a request sent through the call adapter, kept across its attempts.
+     */
+    private static final class RetryState {
+        private int retries;
+        private boolean paced;
+    }
+
+    /**
+     * Signals the call adapter that the request has to wait before being sent again.
+     */
+    private static final class ThrottledException extends IOException {
+        private final long delayMillis;
+
+        ThrottledException(long delayMillis) {
+            super("The request is throttled by Azure Resource Manager, retrying in " + delayMillis + " ms.");
+            this.delayMillis = delayMillis;
+        }
+    }
+
+    /**
+     * Adapts the observables of Retrofit so that a throttled request is sent again after a timer,
+     * instead of waiting on the thread sending it.
+     */
+    private static final class RetryingCallAdapterFactory extends CallAdapter.Factory {
+        @Override
+        public CallAdapter<?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+            if (getRawType(returnType) != Observable.class) {
+                return null;
+            }
+            final CallAdapter<?> delegate = retrofit.nextCallAdapter(this, returnType, annotations);
+            return new CallAdapter<Observable<?>>() {
+                @Override
+                public Type responseType() {
+                    return delegate.responseType();
+                }
+
+                @Override
+                public <R> Observable<?> adapt(Call<R> call) {
+                    return retryWhenThrottled((Observable<?>) delegate.adapt(call));
+                }
+            };
+        }
+
+        private static <T> Observable<T> retryWhenThrottled(final Observable<T> source) {
+            return Observable.defer(new Func0<Observable<T>>() {
+                @Override
+                public Observable<T> call() {
+                    final RetryState retryState = new RetryState();
+                    return Observable.create(new Observable.OnSubscribe<T>() {
+                        @Override
+                        public void call(Subscriber<? super T> subscriber) {
+                            // Retrofit sends the request while subscribing, on this thread
+                            RetryState outer = RETRY_STATE.get();
+                            RETRY_STATE.set(retryState);
+                            try {
+                                source.unsafeSubscribe(subscriber);
+                            } finally {
+                                if (outer == null) {
+                                    RETRY_STATE.remove();
+                                } else {
+                                    RETRY_STATE.set(outer);
+                                }
+                            }
+                        }
+                    }).retryWhen(new Func1<Observable<? extends Throwable>, Observable<?>>() {
+                        @Override
+                        public Observable<?> call(Observable<? extends Throwable> errors) {
+                            return errors.flatMap(new Func1<Throwable, Observable<?>>() {
+                                @Override
+                                public Observable<?> call(Throwable t) {
+                                    if (!(t instanceof ThrottledException)) {
+                                        return Observable.error(t);
+                                    }
+                                    long delayMillis = ((ThrottledException) t).delayMillis;
+                                    // Send the request again from the SDK scheduler rather than from the timer
+                                    return SdkContext.delayedEmitAsync(t, (int) Math.min(Integer.MAX_VALUE, delayMillis))
+                                            .observeOn(SdkContext.getRxScheduler());
+                                }
+                            });
+                        }
+                    });
+                }
+            });
+        }
+    }
 }
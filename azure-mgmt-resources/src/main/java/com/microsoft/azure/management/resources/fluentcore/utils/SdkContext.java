@@ -6,6 +6,10 @@
 
 package com.microsoft.azure.management.resources.fluentcore.utils;
 
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.resources.fluentcore.metrics.MetricsRecorder;
+import com.microsoft.azure.management.resources.fluentcore.metrics.NoOpMetricsRecorder;
+import rx.Observable;
 import rx.Scheduler;
 import rx.schedulers.Schedulers;
 
@@ -16,6 +20,8 @@ public class SdkContext {
     private static ResourceNamerFactory resourceNamerFactory = new ResourceNamerFactory();
     private static DelayProvider delayProvider = new DelayProvider();
     private static Scheduler rxScheduler = Schedulers.io();
+    private static volatile MetricsRecorder metricsRecorder = new NoOpMetricsRecorder();
+    private static volatile int pagedListPrefetchDepth = PagedListConverter.DEFAULT_PREFETCH_DEPTH;
 
     /**
      * Function to override the ResourceNamerFactory.
@@ -89,6 +95,19 @@ public class SdkContext {
         delayProvider.sleep(milliseconds);
     }
 
+    /**
+     * Wrapper for a timer based delay, based on delayProvider. Unlike {@link #sleep(int)} no
+     * thread is blocked while waiting.
+     *
+     * @param event the item to emit after the delay
+     * @param milliseconds the delay in milliseconds
+     * @param <T> the type of the item
+     * @return a delayed observable emitting the item
+     */
+    public static <T> Observable<T> delayedEmitAsync(T event, int milliseconds) {
+        return delayProvider.delayedEmitAsync(event, milliseconds);
+    }
+
     /**
      * Gets the current Rx Scheduler for the SDK framework.
      * @return current rx scheduler.
@@ -104,4 +123,45 @@ public class SdkContext {
     public static void setRxScheduler(Scheduler rxScheduler) {
         SdkContext.rxScheduler = rxScheduler;
     }
+
+    /**
+     * Gets the recorder of the metrics of the HTTP requests, long running operations and tasks.
+     * @return current metrics recorder.
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    public static MetricsRecorder getMetricsRecorder() {
+        return metricsRecorder;
+    }
+
+    /**
+     * Sets the recorder of the metrics of the HTTP requests, long running operations and tasks,
+     * by default the metrics are discarded.
+     * @param metricsRecorder the metrics recorder to be used in SDK framework, null to discard the metrics.
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    public static void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+        SdkContext.metricsRecorder = metricsRecorder != null ? metricsRecorder : new NoOpMetricsRecorder();
+    }
+
+    /**
+     * Gets the number of pages the lists returned by list() fetch ahead of the page being consumed.
+     * @return the number of pages to prefetch.
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    public static int getPagedListPrefetchDepth() {
+        return pagedListPrefetchDepth;
+    }
+
+    /**
+     * Sets the number of pages the lists returned by list() fetch ahead of the page being consumed,
+     * by default no page is prefetched. Applies to the lists returned afterwards.
+     * @param prefetchDepth the number of pages to prefetch, 0 disables prefetching.
+     */
+    @Beta(Beta.SinceVersion.V1_4_0)
+    public static void setPagedListPrefetchDepth(int prefetchDepth) {
+        if (prefetchDepth < 0) {
+            throw new IllegalArgumentException("prefetchDepth must not be negative.");
+        }
+        SdkContext.pagedListPrefetchDepth = prefetchDepth;
+    }
 }
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources;
+
+import com.microsoft.azure.Page;
+import com.microsoft.azure.management.resources.fluentcore.arm.collection.implementation.ReadableWrappersImpl;
+import com.microsoft.azure.management.resources.implementation.PageImpl;
+import org.junit.Assert;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Action1;
+import rx.functions.Func1;
+import rx.observers.TestSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PageToInnerAsyncTests {
+    @Test
+    public void fetchesPagesOnDemand() {
+        final AtomicInteger fetchedPages = new AtomicInteger();
+        Observable<Page<Integer>> pages = pages(100, 10, fetchedPages);
+
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(0L);
+        ReadableWrappersImpl.convertPageToInnerAsync(pages, 2, 10).subscribe(subscriber);
+        Assert.assertTrue(fetchedPages.get() <= 2);
+
+        subscriber.requestMore(25);
+        subscriber.assertValueCount(25);
+        Assert.assertTrue(fetchedPages.get() <= 5);
+
+        subscriber.requestMore(Long.MAX_VALUE - 25);
+        subscriber.assertValueCount(1000);
+        subscriber.assertCompleted();
+        Assert.assertEquals(100, fetchedPages.get());
+    }
+
+    @Test
+    public void preservesPageOrder() {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            expected.add(i);
+        }
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(1L);
+        ReadableWrappersImpl.convertPageToInnerAsync(pages(10, 5, new AtomicInteger()), 3, 1).subscribe(subscriber);
+        for (int i = 1; i < 50; i++) {
+            subscriber.requestMore(1);
+        }
+        subscriber.assertValues(expected.toArray(new Integer[0]));
+        subscriber.assertCompleted();
+    }
+
+    private static Observable<Page<Integer>> pages(final int pageCount, final int pageSize, final AtomicInteger fetchedPages) {
+        return Observable.range(0, pageCount).map(new Func1<Integer, Page<Integer>>() {
+            @Override
+            public Page<Integer> call(Integer index) {
+                PageImpl<Integer> page = new PageImpl<>();
+                List<Integer> items = new ArrayList<>();
+                for (int i = 0; i < pageSize; i++) {
+                    items.add(index * pageSize + i);
+                }
+                page.setItems(items);
+                return page;
+            }
+        }).doOnNext(new Action1<Page<Integer>>() {
+            @Override
+            public void call(Page<Integer> page) {
+                fetchedPages.incrementAndGet();
+            }
+        });
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources;
+
+import com.microsoft.azure.Page;
+import com.microsoft.azure.PagedList;
+import com.microsoft.azure.management.resources.fluentcore.utils.PagedListConverter;
+import com.microsoft.azure.management.resources.fluentcore.utils.SdkContext;
+import com.microsoft.azure.management.resources.implementation.PageImpl;
+import org.junit.Assert;
+import org.junit.Test;
+import rx.Observable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PagedListConverterTests {
+    @Test
+    public void canConvertAllPagesInOrder() {
+        PagedList<String> converted = new PagedListConverter<Integer, String>() {
+            @Override
+            public Observable<String> typeConvertAsync(Integer i) {
+                return Observable.just("item" + i);
+            }
+        }.withPrefetchDepth(2).convert(pagedList(pages(5, 3), null, null));
+
+        List<String> actual = new ArrayList<>(converted);
+        Assert.assertEquals(15, actual.size());
+        for (int i = 0; i < actual.size(); i++) {
+            Assert.assertEquals("item" + i, actual.get(i));
+        }
+    }
+
+    @Test
+    public void canFilterItems() {
+        PagedList<String> converted = new PagedListConverter<Integer, String>() {
+            @Override
+            public Observable<String> typeConvertAsync(Integer i) {
+                return Observable.just("item" + i);
+            }
+
+            @Override
+            protected boolean filter(Integer i) {
+                return i % 2 == 0;
+            }
+        }.convert(pagedList(pages(3, 4), null, null));
+
+        Assert.assertEquals(Arrays.asList("item0", "item2", "item4", "item6", "item8", "item10"), new ArrayList<>(converted));
+    }
+
+    @Test
+    public void prefetchesNextPagesWhileCurrentPageIsConsumed() throws Exception {
+        final CountDownLatch thirdPageRequested = new CountDownLatch(1);
+        PagedList<String> converted = new PagedListConverter<Integer, String>() {
+            @Override
+            public Observable<String> typeConvertAsync(Integer i) {
+                return Observable.just("item" + i);
+            }
+        }.withPrefetchDepth(2).convert(pagedList(pages(4, 2), thirdPageRequested, null));
+
+        // The converter fetches the second and the third pages ahead, before the first page is consumed
+        Assert.assertTrue(thirdPageRequested.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(8, new ArrayList<>(converted).size());
+    }
+
+    @Test
+    public void prefetchDepthDefaultsToSdkContext() throws Exception {
+        SdkContext.setPagedListPrefetchDepth(2);
+        try {
+            final CountDownLatch thirdPageRequested = new CountDownLatch(1);
+            PagedList<String> converted = new PagedListConverter<Integer, String>() {
+                @Override
+                public Observable<String> typeConvertAsync(Integer i) {
+                    return Observable.just("item" + i);
+                }
+            }.convert(pagedList(pages(4, 2), thirdPageRequested, null));
+
+            Assert.assertTrue(thirdPageRequested.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(8, new ArrayList<>(converted).size());
+        } finally {
+            SdkContext.setPagedListPrefetchDepth(PagedListConverter.DEFAULT_PREFETCH_DEPTH);
+        }
+    }
+
+    @Test
+    public void doesNotPrefetchByDefault() {
+        AtomicInteger fetched = new AtomicInteger();
+        PagedList<String> converted = new PagedListConverter<Integer, String>() {
+            @Override
+            public Observable<String> typeConvertAsync(Integer i) {
+                return Observable.just("item" + i);
+            }
+        }.convert(pagedList(pages(4, 2), null, fetched));
+
+        // Only the second page, cached on construction by the inner list, and no page for the items already loaded
+        Assert.assertEquals(1, fetched.get());
+        Assert.assertEquals("item1", converted.get(1));
+        Assert.assertEquals(1, fetched.get());
+        Assert.assertEquals(8, new ArrayList<>(converted).size());
+        Assert.assertEquals(4, fetched.get());
+    }
+
+    @Test
+    public void convertsItemsOnAccess() {
+        final AtomicInteger conversions = new AtomicInteger();
+        PagedList<String> converted = new PagedListConverter<Integer, String>() {
+            @Override
+            public Observable<String> typeConvertAsync(Integer i) {
+                conversions.incrementAndGet();
+                return Observable.just("item" + i);
+            }
+        }.convert(pagedList(pages(2, 3), null, null));
+
+        Assert.assertEquals(0, conversions.get());
+        Assert.assertEquals("item4", converted.get(4));
+        Assert.assertEquals(1, conversions.get());
+        Iterator<String> iterator = converted.iterator();
+        Assert.assertEquals("item0", iterator.next());
+        Assert.assertEquals(2, conversions.get());
+        Assert.assertEquals(Arrays.asList("item0", "item1", "item2", "item3", "item4", "item5"), new ArrayList<>(converted));
+        Assert.assertEquals(6, conversions.get());
+    }
+
+    private static List<PageImpl<Integer>> pages(int pageCount, int pageSize) {
+        List<PageImpl<Integer>> pages = new ArrayList<>();
+        int item = 0;
+        for (int i = 0; i < pageCount; i++) {
+            PageImpl<Integer> page = new PageImpl<>();
+            List<Integer> items = new ArrayList<>();
+            for (int j = 0; j < pageSize; j++) {
+                items.add(item++);
+            }
+            page.setItems(items);
+            page.setNextPageLink(i + 1 < pageCount ? String.valueOf(i + 1) : null);
+            pages.add(page);
+        }
+        return Collections.unmodifiableList(pages);
+    }
+
+    private static PagedList<Integer> pagedList(final List<PageImpl<Integer>> pages,
+                                                final CountDownLatch thirdPageRequested,
+                                                final AtomicInteger fetched) {
+        return new PagedList<Integer>(pages.get(0)) {
+            @Override
+            public Page<Integer> nextPage(String nextPageLink) throws IOException {
+                int index = Integer.parseInt(nextPageLink);
+                if (index == 2 && thirdPageRequested != null) {
+                    thirdPageRequested.countDown();
+                }
+                if (fetched != null) {
+                    fetched.incrementAndGet();
+                }
+                return pages.get(index);
+            }
+        };
+    }
+}
@@ -10,6 +10,8 @@ import com.microsoft.azure.management.resources.fluentcore.arm.ResourceId;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.security.InvalidParameterException;
+
 /**
  * Test class to test ResourceId class.
  */
@@ -75,4 +77,70 @@ public class ResourceIdTests {
         Assert.assertEquals(resourceId.parent().parent().resourceType(), "applicationGateways");
         Assert.assertEquals(resourceId.parent().parent().fullResourceType(), "Microsoft.Network/applicationGateways");
     }
+
+    @Test
+    public void resourceIdWithoutLeadingOrWithTrailingSlashWorksFine() {
+        ResourceId resourceId = ResourceId.fromString("subscriptions/123/resourceGroups/foo/providers/Microsoft.Bar/bars/bar1/bazs/baz1/");
+
+        Assert.assertEquals("baz1", resourceId.name());
+        Assert.assertEquals("bazs", resourceId.resourceType());
+        Assert.assertEquals("123", resourceId.subscriptionId());
+        Assert.assertEquals("foo", resourceId.resourceGroupName());
+        Assert.assertEquals("Microsoft.Bar/bars/bazs", resourceId.fullResourceType());
+        Assert.assertEquals("/subscriptions/123/resourceGroups/foo/providers/Microsoft.Bar/bars/bar1", resourceId.parent().id());
+
+        ResourceId groupId = ResourceId.fromString("/subscriptions/123/resourcegroups/foo");
+        Assert.assertEquals("foo", groupId.name());
+        Assert.assertEquals("foo", groupId.resourceGroupName());
+        Assert.assertNull(groupId.providerNamespace());
+        Assert.assertNull(groupId.parent());
+    }
+
+    @Test
+    public void invalidResourceIdsAreRejected() {
+        String[] invalidIds = new String[] {
+            "",
+            "/",
+            "/subscriptions",
+            "/subscriptions/123/resourceGroups",
+            "/subscription/123/resourceGroups/foo",
+            "/subscriptions/123/groups/foo",
+            "/subscriptions/123/resourceGroups/foo/provider/Microsoft.Bar/bars/bar1"
+        };
+        for (String invalidId : invalidIds) {
+            try {
+                ResourceId.fromString(invalidId);
+                Assert.fail("Expected the ID '" + invalidId + "' to be rejected");
+            } catch (InvalidParameterException e) {
+                Assert.assertTrue(e.getMessage().contains(invalidId));
+            }
+        }
+    }
+
+    @Test
+    public void repeatedSegmentsAreShared() {
+        ResourceId first = ResourceId.fromString("/subscriptions/" + new String("123") + "/resourceGroups/foo/providers/Microsoft.Bar/bars/bar1");
+        ResourceId second = ResourceId.fromString("/subscriptions/" + new String("123") + "/resourceGroups/foo/providers/Microsoft.Bar/bars/bar2");
+
+        Assert.assertSame(first.subscriptionId(), second.subscriptionId());
+        Assert.assertSame(first.resourceGroupName(), second.resourceGroupName());
+        Assert.assertSame(first.providerNamespace(), second.providerNamespace());
+    }
+
+    @Test
+    public void parsedIdsAreCachedWhenEnabled() {
+        String id = "/subscriptions/123/resourceGroups/foo/providers/Microsoft.Bar/bars/bar1";
+        Assert.assertNotSame(ResourceId.fromString(id), ResourceId.fromString(id));
+        ResourceId.setParsedIdCacheSize(2);
+        try {
+            ResourceId cached = ResourceId.fromString(id);
+            Assert.assertSame(cached, ResourceId.fromString(id));
+            ResourceId.fromString(id + "/bazs/baz1");
+            ResourceId.fromString(id + "/bazs/baz2");
+            // The least recently used ID is evicted
+            Assert.assertNotSame(cached, ResourceId.fromString(id));
+        } finally {
+            ResourceId.setParsedIdCacheSize(0);
+        }
+    }
 }
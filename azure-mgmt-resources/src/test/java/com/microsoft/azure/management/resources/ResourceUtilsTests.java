@@ -41,6 +41,15 @@ public class ResourceUtilsTests {
         Assert.assertEquals("providers/provider1/bars/bar1", ResourceUtils.relativePathFromResourceId("subscriptions/123/resourceGroups/foo/providers/Microsoft.Bar/providers/provider1/bars/bar1"));
     }
 
+    @Test
+    public void canExtractFromResourceId() throws Exception {
+        String id = "/subscriptions/123/resourceGroups/foo/providers/Microsoft.Resources/deployments/deployment-1.v2/operations/op1";
+        Assert.assertEquals("deployment-1.v2", ResourceUtils.extractFromResourceId(id, "deployments"));
+        Assert.assertEquals("deployment-1.v2", ResourceUtils.extractFromResourceId(id, "deployments"));
+        Assert.assertEquals("op1", ResourceUtils.extractFromResourceId(id, "operations"));
+        Assert.assertNull(ResourceUtils.extractFromResourceId(id, "virtualMachines"));
+    }
+
     @Test
     public void canDownloadFile() throws Exception {
         Retrofit retrofit = new Retrofit.Builder().baseUrl("http://microsoft.com").addCallAdapterFactory(RxJavaCallAdapterFactory.create()).build();
@@ -1,5 +1,7 @@
 package com.microsoft.azure.management.resources.core;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.microsoft.azure.management.resources.fluentcore.utils.SdkContext;
@@ -16,9 +18,16 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -28,12 +37,18 @@ public class InterceptorManager {
 
     private final static String RECORD_FOLDER = "session-records/";
 
-    private Map<String, String> textReplacementRules = new HashMap<>();
+    // Maps the regex of a rule to the compiled rule, so that the regex is compiled once,
+    // in the order the rules are added, which is the order they are applied in
+    private final Map<String, ReplacementRule> textReplacementRules = new LinkedHashMap<>();
     // Stores a map of all the HTTP properties in a session
     // A state machine ensuring a test is always reset before another one is setup
 
     protected RecordedData recordedData;
 
+    // The records to play back, in recorded order for each method and URL without host
+    private final ConcurrentMap<String, Queue<NetworkCallRecord>> playbackRecords = new ConcurrentHashMap<>();
+    private final AtomicInteger remainingPlaybackRecords = new AtomicInteger();
+
     private final String testName;
 
     private final TestBase.TestMode testMode;
@@ -44,7 +59,14 @@ public class InterceptorManager {
     }
 
     public void addTextReplacementRule(String regex, String replacement) {
-        textReplacementRules.put(regex, replacement);
+        synchronized (textReplacementRules) {
+            if (replacement == null) {
+                // Rules without replacement are never applied
+                textReplacementRules.remove(regex);
+            } else {
+                textReplacementRules.put(regex, new ReplacementRule(regex, replacement));
+            }
+        }
     }
 
     // factory method
@@ -147,22 +169,17 @@ public class InterceptorManager {
 
         incomingUrl = removeHost(incomingUrl);
         NetworkCallRecord networkCallRecord = null;
-        synchronized (recordedData) {
-            for (Iterator<NetworkCallRecord> iterator = recordedData.getNetworkCallRecords().iterator(); iterator.hasNext(); ) {
-                NetworkCallRecord record = iterator.next();
-                if (record.Method.equalsIgnoreCase(incomingMethod) && removeHost(record.Uri).equalsIgnoreCase(incomingUrl)) {
-                    networkCallRecord = record;
-                    iterator.remove();
-                    break;
-                }
-            }
+        Queue<NetworkCallRecord> records = playbackRecords.get(playbackKey(incomingMethod, incomingUrl));
+        if (records != null) {
+            networkCallRecord = records.poll();
         }
 
         if (networkCallRecord == null) {
             System.out.println("NOT FOUND - " + incomingMethod + " " + incomingUrl);
-            System.out.println("Remaining records " + recordedData.getNetworkCallRecords().size());
+            System.out.println("Remaining records " + remainingPlaybackRecords.get());
             throw new IOException("==> Unexpected request: " + incomingMethod + " " + incomingUrl);
         }
+        remainingPlaybackRecords.decrementAndGet();
 
         int recordStatusCode = Integer.parseInt(networkCallRecord.Response.get("StatusCode"));
 
@@ -174,23 +191,13 @@ public class InterceptorManager {
 
         for (Map.Entry<String, String> pair : networkCallRecord.Response.entrySet()) {
             if (!pair.getKey().equals("StatusCode") && !pair.getKey().equals("Body") && !pair.getKey().equals("Content-Length")) {
-                String rawHeader = pair.getValue();
-                for (Map.Entry<String, String> rule : textReplacementRules.entrySet()) {
-                    if (rule.getValue() != null) {
-                        rawHeader = rawHeader.replaceAll(rule.getKey(), rule.getValue());
-                    }
-                }
-                responseBuilder.addHeader(pair.getKey(), rawHeader);
+                responseBuilder.addHeader(pair.getKey(), applyReplacementRule(pair.getValue()));
             }
         }
 
         String rawBody = networkCallRecord.Response.get("Body");
         if (rawBody != null) {
-            for (Map.Entry<String, String> rule : textReplacementRules.entrySet()) {
-                if (rule.getValue() != null) {
-                    rawBody = rawBody.replaceAll(rule.getKey(), rule.getValue());
-                }
-            }
+            rawBody = applyReplacementRule(rawBody);
 
             String rawContentType = networkCallRecord.Response.get("content-type");
             String contentType =  rawContentType == null
@@ -250,9 +257,44 @@ public class InterceptorManager {
     private void readDataFromFile() throws IOException {
         File recordFile = getRecordFile(testName);
         ObjectMapper mapper = new ObjectMapper();
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
-        recordedData = mapper.readValue(recordFile, RecordedData.class);
-        System.out.println("Total records " + recordedData.getNetworkCallRecords().size());
+        recordedData = new RecordedData();
+        // Index the records one at a time rather than materializing the whole recording first
+        try (JsonParser parser = mapper.getFactory().createParser(recordFile)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("==> Invalid playback file: " + recordFile.getPath());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("networkCallRecords".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        addPlaybackRecord(mapper.readValue(parser, NetworkCallRecord.class));
+                    }
+                } else if ("variables".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                        recordedData.getVariables().add(parser.getText());
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        System.out.println("Total records " + remainingPlaybackRecords.get());
+    }
+
+    private void addPlaybackRecord(NetworkCallRecord record) {
+        String key = playbackKey(record.Method, removeHost(record.Uri));
+        Queue<NetworkCallRecord> records = playbackRecords.get(key);
+        if (records == null) {
+            records = new ConcurrentLinkedQueue<>();
+            playbackRecords.put(key, records);
+        }
+        records.add(record);
+        remainingPlaybackRecords.incrementAndGet();
+    }
+
+    private static String playbackKey(String method, String urlWithoutHost) {
+        return method.toUpperCase(Locale.ROOT) + " " + urlWithoutHost.toLowerCase(Locale.ROOT);
     }
 
     private void writeDataToFile() throws IOException {
@@ -275,9 +317,9 @@ public class InterceptorManager {
     }
 
     private String applyReplacementRule(String text) {
-        for (Map.Entry<String, String> rule : textReplacementRules.entrySet()) {
-            if (rule.getValue() != null) {
-                text = text.replaceAll(rule.getKey(), rule.getValue());
+        synchronized (textReplacementRules) {
+            for (ReplacementRule rule : textReplacementRules.values()) {
+                text = rule.pattern.matcher(text).replaceAll(rule.replacement);
             }
         }
         return text;
@@ -285,7 +327,7 @@ public class InterceptorManager {
 
     private String removeHost(String url) {
         URI uri = URI.create(url);
-        return String.format("%s?%s", uri.getPath(), uri.getQuery());
+        return uri.getPath() + "?" + uri.getQuery();
     }
 
     public void pushVariable(String variable) {
@@ -301,4 +343,14 @@ public class InterceptorManager {
             return recordedData.getVariables().remove();
         }
     }
+
+    private static final class ReplacementRule {
+        private final Pattern pattern;
+        private final String replacement;
+
+        private ReplacementRule(String regex, String replacement) {
+            this.pattern = Pattern.compile(regex);
+            this.replacement = replacement;
+        }
+    }
 }
@@ -0,0 +1,430 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An embeddable HTTP server standing in for Azure Resource Manager, serving the responses of
+ * session recordings and of response templates, so that control plane code can be load tested
+ * without a live subscription.
+ * <p>
+ * Unlike playback through {@link InterceptorManager}, recorded calls are not consumed: the recorded
+ * responses of a request are served round robin for as long as the server runs. Long running operations
+ * in the recordings are driven by a state machine of the server instead of the recorded polls, so that
+ * any number of them can be in progress at the same time.
+ */
+public class MockArmServer {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Pattern RECORDED_HOST = Pattern.compile("https?://localhost:\\d+/");
+    private static final String OPERATIONS_PATH = "/mockOperations/";
+    private static final String STATUS_CODE = "StatusCode";
+    private static final String BODY = "Body";
+
+    private final Map<String, List<NetworkCallRecord>> recordsByRequest = new HashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> nextRecordIndex = new ConcurrentHashMap<>();
+    // Templates may be added once the server runs, to refer to its URL
+    private final List<ResponseTemplate> templates = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, LongRunningOperation> operations = new ConcurrentHashMap<>();
+    private final AtomicLong operationCounter = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    private int latencyMillis;
+    private int throttleEvery;
+    private int retryAfterSeconds;
+    private int inProgressPollCount = 1;
+    private int threadCount = Runtime.getRuntime().availableProcessors() * 4;
+
+    private HttpServer server;
+    private ScheduledExecutorService executor;
+    private String baseUrl;
+
+    /**
+     * Adds the calls of a session recording to the responses served.
+     *
+     * @param recordedData the session recording
+     * @return the server itself
+     */
+    public MockArmServer withRecordedData(RecordedData recordedData) {
+        for (NetworkCallRecord record : recordedData.getNetworkCallRecords()) {
+            if (record.Response == null || isOperationPoll(record)) {
+                continue;
+            }
+            String key = requestKey(record.Method, URI.create(record.Uri));
+            List<NetworkCallRecord> records = recordsByRequest.get(key);
+            if (records == null) {
+                records = new ArrayList<>();
+                recordsByRequest.put(key, records);
+                nextRecordIndex.put(key, new AtomicInteger());
+            }
+            records.add(record);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the calls of a session recording in the session-records folder of the class path.
+     *
+     * @param testName the name of the test that made the recording
+     * @return the server itself
+     * @throws IOException if the recording cannot be read
+     */
+    public MockArmServer withSessionRecord(String testName) throws IOException {
+        InputStream stream = MockArmServer.class.getClassLoader().getResourceAsStream("session-records/" + testName + ".json");
+        if (stream == null) {
+            throw new IOException("No session record found for " + testName);
+        }
+        try {
+            return withRecordedData(new ObjectMapper().readValue(stream, RecordedData.class));
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Adds a templated response, served for the requests with no recorded response.
+     * <p>
+     * The body may refer to the groups of the path pattern as $1, $2 and so on. Templates can be added
+     * after the server started, for bodies that link to the server itself.
+     *
+     * @param method the HTTP method of the requests
+     * @param pathPattern the regular expression the whole request path has to match
+     * @param statusCode the status code of the response
+     * @param body the body of the response
+     * @return the server itself
+     */
+    public MockArmServer withResponse(String method, String pathPattern, int statusCode, String body) {
+        templates.add(new ResponseTemplate(method, Pattern.compile(pathPattern), statusCode, body));
+        return this;
+    }
+
+    /**
+     * Delays every response.
+     * <p>
+     * The delayed responses are scheduled, they do not hold a request handling thread while they wait.
+     *
+     * @param latencyMillis the time in milliseconds to wait before responding
+     * @return the server itself
+     */
+    public MockArmServer withLatency(int latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    /**
+     * Answers every n-th request with 429 (Too Many Requests).
+     *
+     * @param every the period of the throttled requests, 0 to never throttle
+     * @param retryAfterSeconds the value of the Retry-After header of the throttled responses
+     * @return the server itself
+     */
+    public MockArmServer withThrottling(int every, int retryAfterSeconds) {
+        this.throttleEvery = every;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    /**
+     * Sets the number of polls a long running operation is reported in progress before it completes.
+     *
+     * @param inProgressPollCount the number of polls answered with an in progress status
+     * @return the server itself
+     */
+    public MockArmServer withLongRunningOperationPolls(int inProgressPollCount) {
+        this.inProgressPollCount = inProgressPollCount;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads handling the requests.
+     *
+     * @param threadCount the number of threads
+     * @return the server itself
+     */
+    public MockArmServer withThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        return this;
+    }
+
+    /**
+     * Starts the server on a free local port.
+     *
+     * @return the server itself
+     * @throws IOException if the server cannot be started
+     */
+    public MockArmServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        executor = Executors.newScheduledThreadPool(threadCount);
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                if (latencyMillis <= 0) {
+                    serveAndClose(exchange);
+                    return;
+                }
+                executor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            serveAndClose(exchange);
+                        } catch (IOException e) {
+                            // The client went away while the response was delayed
+                        }
+                    }
+                }, latencyMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        return this;
+    }
+
+    /**
+     * Stops the server.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the base URL of the server, ending with a slash
+     */
+    public String baseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * @return the number of requests received
+     */
+    public long requestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of requests answered with 429
+     */
+    public long throttledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * @return the number of long running operations not polled to completion yet
+     */
+    public int pendingOperationCount() {
+        return operations.size();
+    }
+
+    private void serveAndClose(HttpExchange exchange) throws IOException {
+        try {
+            serve(exchange);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        long count = requestCount.incrementAndGet();
+        drain(exchange.getRequestBody());
+
+        if (throttleEvery > 0 && count % throttleEvery == 0) {
+            throttledCount.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", Integer.toString(retryAfterSeconds));
+            respond(exchange, 429, "{\"error\":{\"code\":\"TooManyRequests\",\"message\":\"The request is throttled.\"}}");
+            return;
+        }
+
+        String method = exchange.getRequestMethod();
+        URI uri = exchange.getRequestURI();
+        if (uri.getPath().startsWith(OPERATIONS_PATH)) {
+            poll(exchange, uri.getPath().substring(OPERATIONS_PATH.length()));
+            return;
+        }
+        if (!serveResource(exchange, method, uri)) {
+            respond(exchange, 404, "{\"error\":{\"code\":\"ResourceNotFound\",\"message\":\"No response for "
+                    + method + " " + uri.getPath() + ".\"}}");
+        }
+    }
+
+    private boolean serveResource(HttpExchange exchange, String method, URI uri) throws IOException {
+        String key = requestKey(method, uri);
+        List<NetworkCallRecord> records = recordsByRequest.get(key);
+        if (records != null) {
+            int index = nextRecordIndex.get(key).getAndIncrement() & Integer.MAX_VALUE;
+            replay(exchange, records.get(index % records.size()));
+            return true;
+        }
+
+        for (ResponseTemplate template : templates) {
+            if (template.method.equalsIgnoreCase(method)) {
+                Matcher matcher = template.pathPattern.matcher(uri.getPath());
+                if (matcher.matches()) {
+                    respond(exchange, template.statusCode, matcher.replaceFirst(template.body));
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void replay(HttpExchange exchange, NetworkCallRecord record) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        String asyncOperation = null;
+        String location = null;
+        for (Map.Entry<String, String> header : record.Response.entrySet()) {
+            String name = header.getKey();
+            if (name.equals(STATUS_CODE) || name.equals(BODY) || name.equalsIgnoreCase("content-length")
+                    || name.equalsIgnoreCase("transfer-encoding") || name.equalsIgnoreCase("connection")) {
+                continue;
+            }
+            if (name.equalsIgnoreCase("azure-asyncoperation")) {
+                asyncOperation = header.getValue();
+            } else if (name.equalsIgnoreCase("location")) {
+                location = header.getValue();
+            } else {
+                headers.set(name, rewriteHost(header.getValue()));
+            }
+        }
+
+        if (asyncOperation != null || location != null) {
+            String operationId = Long.toString(operationCounter.incrementAndGet());
+            String operationUrl = baseUrl + OPERATIONS_PATH.substring(1) + operationId;
+            operations.put(operationId, new LongRunningOperation(asyncOperation != null,
+                    location == null ? null : URI.create(rewriteHost(location)),
+                    inProgressPollCount));
+            if (asyncOperation != null) {
+                headers.set("Azure-AsyncOperation", operationUrl);
+                if (location != null) {
+                    headers.set("Location", rewriteHost(location));
+                }
+            } else {
+                headers.set("Location", operationUrl);
+            }
+            headers.set("Retry-After", "0");
+        }
+
+        String body = record.Response.get(BODY);
+        respond(exchange, Integer.parseInt(record.Response.get(STATUS_CODE)), body == null ? "" : rewriteHost(body));
+    }
+
+    private void poll(HttpExchange exchange, String operationId) throws IOException {
+        LongRunningOperation operation = operations.get(operationId);
+        if (operation == null) {
+            respond(exchange, 404, "{\"error\":{\"code\":\"OperationNotFound\",\"message\":\"Unknown operation "
+                    + operationId + ".\"}}");
+            return;
+        }
+        boolean completed = operation.remainingPolls.getAndDecrement() <= 0;
+        if (completed) {
+            operations.remove(operationId);
+        } else {
+            exchange.getResponseHeaders().set("Retry-After", "0");
+        }
+        if (operation.isAsyncOperation) {
+            respond(exchange, 200, completed ? "{\"status\":\"Succeeded\"}" : "{\"status\":\"InProgress\"}");
+        } else if (!completed) {
+            respond(exchange, 202, "");
+        } else if (operation.resultUri == null || !serveResource(exchange, "GET", operation.resultUri)) {
+            // The result of a completed operation is what the recorded location serves, if anything
+            respond(exchange, 200, "");
+        }
+    }
+
+    private String rewriteHost(String text) {
+        return RECORDED_HOST.matcher(text).replaceAll(Matcher.quoteReplacement(baseUrl));
+    }
+
+    private static boolean isOperationPoll(NetworkCallRecord record) {
+        // The polls are answered by the state machine of the server, the recorded ones would be out of order
+        String path = URI.create(record.Uri).getPath().toLowerCase(Locale.ROOT);
+        return "GET".equalsIgnoreCase(record.Method)
+                && (path.contains("/operations/") || path.contains("/operationresults/"));
+    }
+
+    private static String requestKey(String method, URI uri) {
+        String query = uri.getRawQuery();
+        return (method + " " + uri.getRawPath() + (query == null ? "" : "?" + query)).toLowerCase(Locale.ROOT);
+    }
+
+    private static void drain(InputStream input) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (input.read(buffer) != -1) {
+            // Discard the request body, the responses do not depend on it
+        }
+        input.close();
+    }
+
+    private static void respond(HttpExchange exchange, int statusCode, String body) throws IOException {
+        byte[] bytes = body.getBytes(UTF_8);
+        if (!exchange.getResponseHeaders().containsKey("Content-Type")) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        }
+        exchange.sendResponseHeaders(statusCode, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            OutputStream output = exchange.getResponseBody();
+            output.write(bytes);
+            output.close();
+        }
+    }
+
+    private static final class ResponseTemplate {
+        private final String method;
+        private final Pattern pathPattern;
+        private final int statusCode;
+        private final String body;
+
+        private ResponseTemplate(String method, Pattern pathPattern, int statusCode, String body) {
+            this.method = method;
+            this.pathPattern = pathPattern;
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+    }
+
+    private static final class LongRunningOperation {
+        private final boolean isAsyncOperation;
+        private final URI resultUri;
+        private final AtomicInteger remainingPolls;
+
+        private LongRunningOperation(boolean isAsyncOperation, URI resultUri, int inProgressPollCount) {
+            this.isAsyncOperation = isAsyncOperation;
+            this.resultUri = resultUri;
+            this.remainingPolls = new AtomicInteger(inProgressPollCount);
+        }
+    }
+}
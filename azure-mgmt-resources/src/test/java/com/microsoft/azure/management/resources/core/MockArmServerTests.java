@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.core;
+
+import com.microsoft.azure.AzureResponseBuilder;
+import com.microsoft.azure.management.resources.fluentcore.arm.Region;
+import com.microsoft.azure.management.resources.fluentcore.model.Indexable;
+import com.microsoft.azure.management.resources.implementation.ResourceManager;
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import com.microsoft.rest.RestClient;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+public class MockArmServerTests {
+    private static final String SUBSCRIPTION = "00000000-0000-0000-0000-000000000000";
+
+    private MockArmServer server;
+
+    @After
+    public void cleanup() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void canReplayRecordingConcurrently() throws IOException {
+        server = new MockArmServer()
+                .withSessionRecord("canCreateResourceGroup")
+                .withLongRunningOperationPolls(2)
+                .start();
+        final ResourceManager resourceManager = ResourceManager
+                .authenticate(new RestClient.Builder()
+                        .withBaseUrl(server.baseUrl())
+                        .withSerializerAdapter(new AzureJacksonAdapter())
+                        .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                        .withCredentials(new AzureTestCredentials(server.baseUrl(), "tenant", true))
+                        .build())
+                .withSubscription(SUBSCRIPTION);
+
+        int created = Observable.range(0, 50).flatMap(new Func1<Integer, Observable<Indexable>>() {
+            @Override
+            public Observable<Indexable> call(Integer i) {
+                return resourceManager.resourceGroups().define("rg470395")
+                        .withRegion(Region.US_SOUTH_CENTRAL)
+                        .createAsync()
+                        .subscribeOn(Schedulers.io())
+                        .last();
+            }
+        }, 10).count().toBlocking().single();
+        Assert.assertEquals(50, created);
+        Assert.assertEquals("rg470395", resourceManager.resourceGroups().getByName("rg470395").name());
+
+        // The deletion is a long running operation answered by the server instead of the recorded polls
+        resourceManager.resourceGroups().deleteByName("rg470395");
+        Assert.assertEquals(0, server.pendingOperationCount());
+    }
+
+    @Test
+    public void canServeTemplatedResponses() throws IOException {
+        server = new MockArmServer()
+                .withResponse("GET", "/subscriptions/([^/]+)/resourcegroups/([^/]+)", 200,
+                        "{\"id\":\"/subscriptions/$1/resourceGroups/$2\",\"name\":\"$2\"}")
+                .start();
+        OkHttpClient client = new OkHttpClient();
+
+        Response response = client.newCall(new Request.Builder()
+                .url(server.baseUrl() + "subscriptions/sub1/resourcegroups/myrg?api-version=2016-09-01").build()).execute();
+        Assert.assertEquals(200, response.code());
+        Assert.assertEquals("{\"id\":\"/subscriptions/sub1/resourceGroups/myrg\",\"name\":\"myrg\"}", response.body().string());
+
+        response = client.newCall(new Request.Builder().url(server.baseUrl() + "subscriptions/sub1").build()).execute();
+        Assert.assertEquals(404, response.code());
+        response.close();
+    }
+
+    @Test
+    public void canInjectThrottling() throws IOException {
+        server = new MockArmServer()
+                .withResponse("GET", "/ping", 200, "{}")
+                .withThrottling(3, 7)
+                .start();
+        OkHttpClient client = new OkHttpClient();
+
+        int throttled = 0;
+        for (int i = 0; i < 9; i++) {
+            Response response = client.newCall(new Request.Builder().url(server.baseUrl() + "ping").build()).execute();
+            if (response.code() == 429) {
+                Assert.assertEquals("7", response.header("Retry-After"));
+                throttled++;
+            }
+            response.close();
+        }
+        Assert.assertEquals(3, throttled);
+        Assert.assertEquals(3, server.throttledCount());
+        Assert.assertEquals(9, server.requestCount());
+    }
+
+    @Test
+    public void delayedResponsesDoNotHoldThreads() throws IOException {
+        server = new MockArmServer()
+                .withResponse("GET", "/ping", 200, "{}")
+                .withLatency(500)
+                .withThreadCount(1)
+                .start();
+        final OkHttpClient client = new OkHttpClient();
+
+        long start = System.currentTimeMillis();
+        int ok = Observable.range(0, 8).flatMap(new Func1<Integer, Observable<Integer>>() {
+            @Override
+            public Observable<Integer> call(Integer i) {
+                return Observable.fromCallable(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws IOException {
+                        Response response = client.newCall(new Request.Builder().url(server.baseUrl() + "ping").build()).execute();
+                        response.close();
+                        return response.code();
+                    }
+                }).subscribeOn(Schedulers.io());
+            }
+        }).filter(new Func1<Integer, Boolean>() {
+            @Override
+            public Boolean call(Integer code) {
+                return code == 200;
+            }
+        }).count().toBlocking().single();
+        Assert.assertEquals(8, ok);
+        // A single thread sleeping through the latency would take four seconds
+        Assert.assertTrue(System.currentTimeMillis() - start < 3000);
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.core;
+
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An interceptor chain answering the requests an interceptor proceeds with, to test interceptors without a network.
+ * <p>
+ * The chains derived with {@link #with(Request)} share the responder and the counters of the chain they derive from.
+ */
+public class MockInterceptorChain implements Interceptor.Chain {
+    /**
+     * The media type of the bodies of the responses built by {@link #response(int, String)}.
+     */
+    public static final MediaType JSON = MediaType.parse("application/json");
+
+    /**
+     * Answers the requests proceeding through the chain.
+     */
+    public interface Responder {
+        /**
+         * @param request the request proceeding through the chain
+         * @return the response to the request, the chain sets its request
+         * @throws IOException to simulate a network failure
+         */
+        Response.Builder respond(Request request) throws IOException;
+    }
+
+    private final Request request;
+    private final Responder responder;
+    private final AtomicInteger proceedCount;
+    private final AtomicReference<Request> lastRequest;
+
+    /**
+     * Creates a chain for a request, answering with the given responder.
+     *
+     * @param request the request the interceptor receives
+     * @param responder the responder answering the requests proceeding through the chain
+     */
+    public MockInterceptorChain(Request request, Responder responder) {
+        this(request, responder, new AtomicInteger(), new AtomicReference<Request>());
+    }
+
+    /**
+     * Creates a chain for a request, answering every request with the given response.
+     *
+     * @param request the request the interceptor receives
+     * @param response the response to answer with
+     */
+    public MockInterceptorChain(Request request, final Response.Builder response) {
+        this(request, new Responder() {
+            @Override
+            public Response.Builder respond(Request request) {
+                return response;
+            }
+        });
+    }
+
+    private MockInterceptorChain(Request request, Responder responder, AtomicInteger proceedCount, AtomicReference<Request> lastRequest) {
+        this.request = request;
+        this.responder = responder;
+        this.proceedCount = proceedCount;
+        this.lastRequest = lastRequest;
+    }
+
+    /**
+     * @param request another request the interceptor receives
+     * @return a chain for the request, sharing the responder and the counters of this chain
+     */
+    public MockInterceptorChain with(Request request) {
+        return new MockInterceptorChain(request, responder, proceedCount, lastRequest);
+    }
+
+    /**
+     * @return the number of requests that proceeded through this chain and the chains derived from it
+     */
+    public int proceedCount() {
+        return proceedCount.get();
+    }
+
+    /**
+     * @return the last request that proceeded through this chain and the chains derived from it, null if none did
+     */
+    public Request lastRequest() {
+        return lastRequest.get();
+    }
+
+    @Override
+    public Request request() {
+        return request;
+    }
+
+    @Override
+    public Response proceed(Request request) throws IOException {
+        proceedCount.incrementAndGet();
+        lastRequest.set(request);
+        return responder.respond(request).request(request).build();
+    }
+
+    @Override
+    public Connection connection() {
+        return null;
+    }
+
+    /**
+     * @param url the URL
+     * @return a GET request to the URL
+     */
+    public static Request get(String url) {
+        return new Request.Builder().url(url).get().build();
+    }
+
+    /**
+     * @param url the URL
+     * @return a PUT request to the URL with an empty JSON object as body
+     */
+    public static Request put(String url) {
+        return new Request.Builder().url(url).put(RequestBody.create(JSON, "{}")).build();
+    }
+
+    /**
+     * @param url the URL
+     * @return a DELETE request to the URL
+     */
+    public static Request delete(String url) {
+        return new Request.Builder().url(url).delete().build();
+    }
+
+    /**
+     * @param code the status code
+     * @param body the JSON body
+     * @return a builder of a response with the status code and the body
+     */
+    public static Response.Builder response(int code, String body) {
+        return new Response.Builder()
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .body(ResponseBody.create(JSON, body));
+    }
+}
@@ -7,6 +7,7 @@
 package com.microsoft.azure.management.resources.core;
 
 import com.microsoft.azure.management.resources.fluentcore.utils.DelayProvider;
+import rx.Observable;
 
 public class TestDelayProvider extends DelayProvider {
     private boolean isRecordMode;
@@ -20,4 +21,11 @@ public class TestDelayProvider extends DelayProvider {
         }
     }
 
+    @Override
+    public <T> Observable<T> delayedEmitAsync(T event, int milliseconds) {
+        if (isRecordMode) {
+            return super.delayedEmitAsync(event, milliseconds);
+        }
+        return Observable.just(event);
+    }
 }
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.dag;
+
+import com.microsoft.azure.management.resources.fluentcore.arm.collection.implementation.CreatableResourcesImpl;
+import com.microsoft.azure.management.resources.fluentcore.model.Creatable;
+import org.junit.Assert;
+import org.junit.Test;
+import rx.Completable;
+import rx.Observable;
+import rx.functions.Action0;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The tests for bounding the number of resources of a batch that are created at the same time.
+ */
+public class BatchCreationConcurrencyTests {
+    @Test
+    public void testBatchMaxConcurrency() {
+        Pancakes pancakes = new Pancakes();
+        pancakes.withBatchMaxConcurrency(3);
+
+        Assert.assertEquals(20, pancakes.create(pancakes.define(20)).size());
+        Assert.assertEquals(3, pancakes.maxInFlight.get());
+    }
+
+    @Test
+    public void testDefaultBatchMaxConcurrency() {
+        Pancakes pancakes = new Pancakes();
+
+        Assert.assertEquals(40, pancakes.create(pancakes.define(40)).size());
+        Assert.assertEquals(CreatableResourcesImpl.DEFAULT_BATCH_MAX_CONCURRENCY, pancakes.maxInFlight.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchMaxConcurrencyMustBePositive() {
+        new Pancakes().withBatchMaxConcurrency(0);
+    }
+
+    private static class Pancakes extends CreatableResourcesImpl<IPancake, PancakeImpl, PancakeInner> {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        List<Creatable<IPancake>> define(int count) {
+            List<Creatable<IPancake>> creatables = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                creatables.add(wrapModel("pancake" + i));
+            }
+            return creatables;
+        }
+
+        @Override
+        protected PancakeImpl wrapModel(String name) {
+            return new PancakeImpl(name, 200) {
+                @Override
+                public Observable<IPancake> createResourceAsync() {
+                    return super.createResourceAsync()
+                            .doOnSubscribe(new Action0() {
+                                @Override
+                                public void call() {
+                                    int current = inFlight.incrementAndGet();
+                                    synchronized (maxInFlight) {
+                                        maxInFlight.set(Math.max(maxInFlight.get(), current));
+                                    }
+                                }
+                            })
+                            .doOnTerminate(new Action0() {
+                                @Override
+                                public void call() {
+                                    inFlight.decrementAndGet();
+                                }
+                            });
+                }
+            };
+        }
+
+        @Override
+        protected PancakeImpl wrapModel(PancakeInner inner) {
+            return null;
+        }
+
+        @Override
+        public Completable deleteByIdAsync(String id) {
+            return Completable.error(new UnsupportedOperationException());
+        }
+    }
+}
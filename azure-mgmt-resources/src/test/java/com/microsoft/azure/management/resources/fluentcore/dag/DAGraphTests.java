@@ -11,9 +11,15 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DAGraphTests {
     @Test
@@ -463,6 +469,84 @@ public class DAGraphTests {
         assertExactMatch(nodeE_G41_noUpdate.owner().nodeTable.keySet(), new String[] {"E", "D", "G"});
     }
 
+    @Test
+    public void testConcurrentCompletionEnumeratesEachNodeOnce() throws Exception {
+        // A wide diamond chain, every node of a level depends on all the nodes of the level below
+        final int levels = 20;
+        final int width = 50;
+        DAGraph<String, ItemHolder> dag = createGraph("root");
+        List<ItemHolder> below = new ArrayList<>();
+        for (int level = 0; level < levels; level++) {
+            List<ItemHolder> current = new ArrayList<>();
+            for (int i = 0; i < width; i++) {
+                ItemHolder node = new ItemHolder(level + "-" + i, "data");
+                for (ItemHolder dependency : below) {
+                    node.addDependency(dependency.key());
+                }
+                dag.addNode(node);
+                current.add(node);
+            }
+            below = current;
+        }
+        for (ItemHolder dependency : below) {
+            dag.getNode("root").addDependency(dependency.key());
+        }
+        dag.prepareForEnumeration();
+
+        final DAGraph<String, ItemHolder> graph = dag;
+        final Set<String> enumerated = Collections.synchronizedSet(new HashSet<String>());
+        final AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        while (!enumerated.contains("root")) {
+                            ItemHolder next = graph.getNext();
+                            if (next == null) {
+                                Thread.yield();
+                                continue;
+                            }
+                            if (!enumerated.add(next.key())) {
+                                duplicates.incrementAndGet();
+                            }
+                            graph.reportCompletion(next);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(0, duplicates.get());
+        Assert.assertEquals(levels * width + 1, enumerated.size());
+    }
+
+    @Test
+    public void testNodeSharedWithAnotherGraphCanBeReported() {
+        // [X] ---> [S] <--- [Y] ---> [A]
+        DAGraph<String, ItemHolder> shared = createGraph("S");
+        DAGraph<String, ItemHolder> first = createGraph("X");
+        first.addDependencyGraph(shared);
+        DAGraph<String, ItemHolder> second = createGraph("Y");
+        second.addDependencyGraph(createGraph("A"));
+        second.addDependencyGraph(shared);
+
+        first.prepareForEnumeration();
+        // Indexes the shared node again, at another position
+        second.prepareForEnumeration();
+
+        ItemHolder next = first.getNext();
+        Assert.assertEquals("S", next.key());
+        first.reportCompletion(next);
+        Assert.assertEquals("X", first.getNext().key());
+    }
+
     private DAGraph<String, ItemHolder> createGraph(String resourceName) {
         ItemHolder node = new ItemHolder(resourceName, "data" + resourceName);
         DAGraph<String, ItemHolder> graph = new DAGraph<>(node);
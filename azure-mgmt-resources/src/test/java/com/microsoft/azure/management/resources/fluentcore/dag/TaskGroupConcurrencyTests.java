@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.dag;
+
+import org.junit.Assert;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The tests for bounding the number of tasks in a group that run at the same time and for
+ * invoking the tasks on the critical path first.
+ */
+public class TaskGroupConcurrencyTests {
+    @Test
+    public void testMaxConcurrencyIsNeverExceeded() {
+        final InFlightCounter counter = new InFlightCounter();
+        TaskGroup<String, SleepTask> group = newBatch(counter, 20, "vm");
+
+        TaskGroup.InvocationContext context = group.newInvocationContext().withMaxConcurrency(3);
+        int count = group.invokeAsync(context).count().toBlocking().single();
+
+        Assert.assertEquals(21, count);
+        Assert.assertEquals(21, counter.invoked.get());
+        Assert.assertEquals(3, counter.maxObserved.get());
+    }
+
+    @Test
+    public void testMaxConcurrencyPerType() {
+        final InFlightCounter counter = new InFlightCounter();
+        TaskGroup<String, SleepTask> group = newBatch(counter, 12, "vm");
+        for (int i = 0; i < 12; i++) {
+            group.addDependencyTaskGroup(new TaskGroup<String, SleepTask>("disk" + i,
+                    new DiskTask("disk" + i, counter),
+                    TaskGroupTerminateOnErrorStrategy.TERMINATE_ON_INPROGRESS_TASKS_COMPLETION));
+        }
+
+        TaskGroup.InvocationContext context = group.newInvocationContext()
+                .withMaxConcurrency(8)
+                .withMaxConcurrency(DiskTask.class, 2);
+        int count = group.invokeAsync(context).count().toBlocking().single();
+
+        Assert.assertEquals(25, count);
+        Assert.assertEquals(2, counter.maxObservedDisks.get());
+        Assert.assertTrue(counter.maxObserved.get() <= 8);
+    }
+
+    @Test
+    public void testUnboundedByDefault() {
+        final InFlightCounter counter = new InFlightCounter();
+        TaskGroup<String, SleepTask> group = newBatch(counter, 10, "vm");
+
+        int count = group.invokeAsync(group.newInvocationContext()).count().toBlocking().single();
+
+        Assert.assertEquals(11, count);
+        Assert.assertEquals(10, counter.maxObserved.get());
+    }
+
+    @Test
+    public void testCriticalPathIsInvokedFirst() {
+        /**
+         *  [A]---->[B]---->[C]----|
+         *                         |
+         *  [X]--------------------|---->[root]
+         *  [Y]--------------------|
+         */
+        final InFlightCounter counter = new InFlightCounter();
+        TaskGroup<String, SleepTask> group = newBatch(counter, 2, "leaf");
+        group.addDependencyTaskGroup(newChain(counter, "A", "B", "C"));
+
+        TaskGroup.InvocationContext context = group.newInvocationContext().withMaxConcurrency(1);
+        group.invokeAsync(context).toBlocking().last();
+
+        // A and B are ahead of the leaves on the longest chain, C ties with the leaves that became ready before it
+        Assert.assertEquals(Arrays.asList("A", "B"), counter.invocationOrder.subList(0, 2));
+        Assert.assertEquals("C", counter.invocationOrder.get(4));
+        Assert.assertEquals("root", counter.invocationOrder.get(5));
+    }
+
+    @Test
+    public void testCostHintRaisesPriority() {
+        final InFlightCounter counter = new InFlightCounter();
+        TaskGroup<String, SleepTask> group = newBatch(counter, 1, "leaf");
+        group.addDependencyTaskGroup(newChain(counter, "A", "B"));
+        group.addDependencyTaskGroup(new TaskGroup<String, SleepTask>("slow",
+                new CostlyTask("slow", counter, 10),
+                TaskGroupTerminateOnErrorStrategy.TERMINATE_ON_INPROGRESS_TASKS_COMPLETION));
+
+        TaskGroup.InvocationContext context = group.newInvocationContext().withMaxConcurrency(1);
+        group.invokeAsync(context).toBlocking().last();
+
+        Assert.assertEquals(Arrays.asList("slow", "A"), counter.invocationOrder.subList(0, 2));
+        Assert.assertEquals("root", counter.invocationOrder.get(4));
+    }
+
+    @Test
+    public void testLargeBatchOfImmediateTasks() {
+        final InFlightCounter counter = new InFlightCounter();
+        TaskGroup<String, SleepTask> root = new TaskGroup<String, SleepTask>("root",
+                new ImmediateTask("root", counter),
+                TaskGroupTerminateOnErrorStrategy.TERMINATE_ON_INPROGRESS_TASKS_COMPLETION);
+        for (int i = 0; i < 20000; i++) {
+            root.addDependencyTaskGroup(new TaskGroup<String, SleepTask>("vm" + i,
+                    new ImmediateTask("vm" + i, counter),
+                    TaskGroupTerminateOnErrorStrategy.TERMINATE_ON_INPROGRESS_TASKS_COMPLETION));
+        }
+
+        // Tasks completing as they are invoked must not nest the invocation of the next ones
+        TaskGroup.InvocationContext context = root.newInvocationContext().withMaxConcurrency(4);
+        int count = root.invokeAsync(context).count().toBlocking().single();
+
+        Assert.assertEquals(20001, count);
+        Assert.assertEquals(1, counter.maxObserved.get());
+    }
+
+    @Test
+    public void testFailureIsReportedWhenBounded() {
+        final InFlightCounter counter = new InFlightCounter();
+        TaskGroup<String, SleepTask> group = newBatch(counter, 5, "vm");
+        group.addDependencyTaskGroup(new TaskGroup<String, SleepTask>("broken",
+                new FailingTask("broken", counter),
+                TaskGroupTerminateOnErrorStrategy.TERMINATE_ON_INPROGRESS_TASKS_COMPLETION));
+
+        TaskGroup.InvocationContext context = group.newInvocationContext().withMaxConcurrency(2);
+        try {
+            group.invokeAsync(context).toBlocking().last();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("broken", e.getMessage());
+        }
+        Assert.assertFalse(counter.invocationOrder.contains("root"));
+    }
+
+    private static TaskGroup<String, SleepTask> newChain(InFlightCounter counter, String... names) {
+        TaskGroup<String, SleepTask> previous = null;
+        for (String name : names) {
+            TaskGroup<String, SleepTask> current = new TaskGroup<String, SleepTask>(name,
+                    new SleepTask(name, counter),
+                    TaskGroupTerminateOnErrorStrategy.TERMINATE_ON_INPROGRESS_TASKS_COMPLETION);
+            if (previous != null) {
+                current.addDependencyTaskGroup(previous);
+            }
+            previous = current;
+        }
+        return previous;
+    }
+
+    private static TaskGroup<String, SleepTask> newBatch(InFlightCounter counter, int size, String prefix) {
+        TaskGroup<String, SleepTask> root = new TaskGroup<String, SleepTask>("root",
+                new SleepTask("root", counter),
+                TaskGroupTerminateOnErrorStrategy.TERMINATE_ON_INPROGRESS_TASKS_COMPLETION);
+        for (int i = 0; i < size; i++) {
+            root.addDependencyTaskGroup(new TaskGroup<String, SleepTask>(prefix + i,
+                    new SleepTask(prefix + i, counter),
+                    TaskGroupTerminateOnErrorStrategy.TERMINATE_ON_INPROGRESS_TASKS_COMPLETION));
+        }
+        return root;
+    }
+
+    private static class InFlightCounter {
+        final AtomicInteger invoked = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxObserved = new AtomicInteger();
+        final AtomicInteger inFlightDisks = new AtomicInteger();
+        final AtomicInteger maxObservedDisks = new AtomicInteger();
+        final List<String> invocationOrder = Collections.synchronizedList(new ArrayList<String>());
+
+        void enter(String name, boolean isDisk) {
+            invoked.incrementAndGet();
+            invocationOrder.add(name);
+            updateMax(maxObserved, inFlight.incrementAndGet());
+            if (isDisk) {
+                updateMax(maxObservedDisks, inFlightDisks.incrementAndGet());
+            }
+        }
+
+        void exit(boolean isDisk) {
+            inFlight.decrementAndGet();
+            if (isDisk) {
+                inFlightDisks.decrementAndGet();
+            }
+        }
+
+        private static void updateMax(AtomicInteger max, int value) {
+            int current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
+        }
+    }
+
+    private static class SleepTask implements TaskItem<String> {
+        protected final String name;
+        protected final InFlightCounter counter;
+        private String result;
+
+        SleepTask(String name, InFlightCounter counter) {
+            this.name = name;
+            this.counter = counter;
+        }
+
+        protected boolean isDisk() {
+            return false;
+        }
+
+        @Override
+        public String result() {
+            return result;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public boolean isHot() {
+            return false;
+        }
+
+        @Override
+        public Observable<String> invokeAsync(TaskGroup.InvocationContext context) {
+            final boolean isDisk = isDisk();
+            return Observable.just(name)
+                    .doOnSubscribe(new Action0() {
+                        @Override
+                        public void call() {
+                            counter.enter(name, isDisk);
+                        }
+                    })
+                    .delay(20, TimeUnit.MILLISECONDS, Schedulers.io())
+                    .doOnNext(new Action1<String>() {
+                        @Override
+                        public void call(String value) {
+                            result = value;
+                            counter.exit(isDisk);
+                        }
+                    });
+        }
+    }
+
+    private static class CostlyTask extends SleepTask implements TaskGroup.HasCostHint {
+        private final long cost;
+
+        CostlyTask(String name, InFlightCounter counter, long cost) {
+            super(name, counter);
+            this.cost = cost;
+        }
+
+        @Override
+        public long costHint() {
+            return cost;
+        }
+    }
+
+    private static class ImmediateTask extends SleepTask {
+        ImmediateTask(String name, InFlightCounter counter) {
+            super(name, counter);
+        }
+
+        @Override
+        public Observable<String> invokeAsync(TaskGroup.InvocationContext context) {
+            counter.enter(name, false);
+            counter.exit(false);
+            return Observable.just(name);
+        }
+    }
+
+    private static class FailingTask extends SleepTask {
+        FailingTask(String name, InFlightCounter counter) {
+            super(name, counter);
+        }
+
+        @Override
+        public Observable<String> invokeAsync(TaskGroup.InvocationContext context) {
+            return Observable.error(new IllegalStateException(name));
+        }
+    }
+
+    private static class DiskTask extends SleepTask {
+        DiskTask(String name, InFlightCounter counter) {
+            super(name, counter);
+        }
+
+        @Override
+        protected boolean isDisk() {
+            return true;
+        }
+    }
+}
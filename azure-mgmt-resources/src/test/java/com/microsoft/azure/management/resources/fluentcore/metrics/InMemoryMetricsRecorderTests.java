@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.metrics;
+
+import com.microsoft.azure.management.resources.core.MockArmServer;
+import com.microsoft.azure.management.resources.fluentcore.utils.MetricsInterceptor;
+import com.microsoft.azure.management.resources.fluentcore.utils.SdkContext;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class InMemoryMetricsRecorderTests {
+    private static final String VM_URL = "https://management.azure.com/subscriptions/sub/resourceGroups/rg"
+            + "/providers/Microsoft.Compute/virtualMachines/vm";
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    @After
+    public void cleanup() {
+        SdkContext.setMetricsRecorder(null);
+    }
+
+    @Test
+    public void histogramReportsPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(10000, histogram.count());
+        Assert.assertEquals(10000, histogram.max());
+        Assert.assertEquals(5000.5, histogram.mean(), 0.001);
+        assertWithin(5000, histogram.percentile(50), 0.04);
+        assertWithin(9900, histogram.percentile(99), 0.04);
+        Assert.assertEquals(10000, histogram.percentile(100));
+        Assert.assertEquals(1, histogram.percentile(0));
+    }
+
+    @Test
+    public void histogramCountsSmallValuesExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(3);
+        histogram.record(63);
+        Assert.assertEquals(0, histogram.percentile(33));
+        Assert.assertEquals(3, histogram.percentile(66));
+        Assert.assertEquals(63, histogram.percentile(100));
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(Long.MAX_VALUE, histogram.percentile(100));
+    }
+
+    @Test
+    public void interceptorRecordsRequestsAndThrottling() throws IOException {
+        InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+        SdkContext.setMetricsRecorder(recorder);
+        MetricsInterceptor interceptor = new MetricsInterceptor();
+
+        interceptor.intercept(chain(new Request.Builder().url(VM_URL).get().build(), response(200, "{}")));
+        interceptor.intercept(chain(new Request.Builder().url(VM_URL).get().build(),
+                response(429, "{}").header("Retry-After", "17")));
+        interceptor.intercept(chain(new Request.Builder().url(VM_URL).put(RequestBody.create(JSON, "{\"a\":1}")).build(),
+                response(201, "{\"name\":\"vm\"}")));
+
+        Assert.assertEquals(2, recorder.requestLatency("Microsoft.Compute", "virtualMachines", "GET").count());
+        Assert.assertEquals(1, recorder.requestLatency("microsoft.compute", "VIRTUALMACHINES", "put").count());
+        Assert.assertEquals(1, recorder.throttledRequestCount());
+        Assert.assertEquals(17000, recorder.retryAfterMillis());
+        Assert.assertEquals(1, recorder.failedRequestCount());
+        Assert.assertEquals(7, recorder.bytesSent());
+        Assert.assertEquals(2 + 2 + 13, recorder.bytesReceived());
+    }
+
+    @Test
+    public void everyAttemptAndRetryIsRecorded() throws IOException {
+        InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+        SdkContext.setMetricsRecorder(recorder);
+        MockArmServer server = new MockArmServer()
+                .withResponse("GET", "/subscriptions/.*", 200, "{}")
+                .withThrottling(2, 0)
+                .start();
+        try {
+            OkHttpClient client = new OkHttpClient.Builder()
+                    .addInterceptor(MetricsInterceptor.retryCounter())
+                    .addInterceptor(new Interceptor() {
+                        @Override
+                        public Response intercept(Chain chain) throws IOException {
+                            // Retries a throttled request once, like the retry handler of the RestClient
+                            Response response = chain.proceed(chain.request());
+                            if (response.code() != 429) {
+                                return response;
+                            }
+                            response.close();
+                            return chain.proceed(chain.request());
+                        }
+                    })
+                    .addNetworkInterceptor(new MetricsInterceptor())
+                    .build();
+            String url = server.baseUrl() + "subscriptions/sub/providers/Microsoft.Compute/virtualMachines";
+            for (int i = 0; i < 2; i++) {
+                Response response = client.newCall(new Request.Builder().url(url).get().build()).execute();
+                Assert.assertEquals(200, response.code());
+                response.close();
+            }
+        } finally {
+            server.stop();
+        }
+
+        Assert.assertEquals(3, recorder.requestLatency("Microsoft.Compute", "virtualMachines", "GET").count());
+        Assert.assertEquals(1, recorder.throttledRequestCount());
+        Assert.assertEquals(1, recorder.retriedRequestCount());
+        Assert.assertEquals(1, recorder.retryCount());
+    }
+
+    @Test
+    public void noOpRecorderIsTheDefault() throws IOException {
+        Assert.assertSame(NoOpMetricsRecorder.class, SdkContext.getMetricsRecorder().getClass());
+        Response response = new MetricsInterceptor().intercept(chain(new Request.Builder().url(VM_URL).get().build(),
+                response(200, "{}")));
+        Assert.assertEquals(200, response.code());
+    }
+
+    private static void assertWithin(long expected, long actual, double relativeError) {
+        Assert.assertTrue(actual + " is not within " + relativeError + " of " + expected,
+                Math.abs(actual - expected) <= expected * relativeError);
+    }
+
+    private static Response.Builder response(int code, String body) {
+        return new Response.Builder()
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .body(ResponseBody.create(JSON, body));
+    }
+
+    private static Interceptor.Chain chain(final Request request, final Response.Builder response) {
+        return new Interceptor.Chain() {
+            @Override
+            public Request request() {
+                return request;
+            }
+
+            @Override
+            public Response proceed(Request request) throws IOException {
+                return response.request(request).build();
+            }
+
+            @Override
+            public Connection connection() {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.utils;
+
+import com.microsoft.azure.management.resources.core.MockInterceptorChain;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.get;
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.put;
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.response;
+
+public class ETagRefreshCacheInterceptorTests {
+    private static final String ZONE_URL = "https://management.azure.com/subscriptions/sub/resourceGroups/rg"
+            + "/providers/Microsoft.Network/dnszones/contoso.com";
+
+    @Test
+    public void unchangedResourceIsServedFromCache() throws IOException {
+        ETagRefreshCacheInterceptor interceptor = new ETagRefreshCacheInterceptor();
+        FakeResource resource = new FakeResource("{\"name\":\"contoso.com\",\"etag\":\"00000001\"}", "00000001");
+
+        Assert.assertEquals(resource.body, interceptor.intercept(resource.chain(get(ZONE_URL))).body().string());
+        Assert.assertNull(resource.lastIfNoneMatch);
+
+        Response refreshed = interceptor.intercept(resource.chain(get(ZONE_URL)));
+        Assert.assertEquals("00000001", resource.lastIfNoneMatch);
+        Assert.assertEquals(200, refreshed.code());
+        Assert.assertEquals(resource.body, refreshed.body().string());
+        Assert.assertEquals(1, resource.notModifiedCount);
+    }
+
+    @Test
+    public void changedResourceIsDownloaded() throws IOException {
+        ETagRefreshCacheInterceptor interceptor = new ETagRefreshCacheInterceptor();
+        FakeResource resource = new FakeResource("{\"name\":\"contoso.com\",\"etag\":\"00000001\"}", "00000001");
+        interceptor.intercept(resource.chain(get(ZONE_URL))).body().string();
+
+        resource.body = "{\"name\":\"contoso.com\",\"etag\":\"00000002\"}";
+        resource.eTag = "00000002";
+        Assert.assertEquals(resource.body, interceptor.intercept(resource.chain(get(ZONE_URL))).body().string());
+        Assert.assertEquals(0, resource.notModifiedCount);
+
+        interceptor.intercept(resource.chain(get(ZONE_URL))).body().string();
+        Assert.assertEquals("00000002", resource.lastIfNoneMatch);
+        Assert.assertEquals(1, resource.notModifiedCount);
+    }
+
+    @Test
+    public void writeDropsCachedBody() throws IOException {
+        ETagRefreshCacheInterceptor interceptor = new ETagRefreshCacheInterceptor();
+        FakeResource resource = new FakeResource("{\"name\":\"contoso.com\",\"etag\":\"00000001\"}", "00000001");
+        interceptor.intercept(resource.chain(get(ZONE_URL))).body().string();
+        Assert.assertEquals(1, interceptor.cachedResourceCount());
+
+        interceptor.intercept(resource.chain(put(ZONE_URL)));
+        Assert.assertEquals(0, interceptor.cachedResourceCount());
+
+        interceptor.intercept(resource.chain(get(ZONE_URL))).body().string();
+        Assert.assertNull(resource.lastIfNoneMatch);
+    }
+
+    @Test
+    public void onlyTopLevelETagIsUsed() throws IOException {
+        ETagRefreshCacheInterceptor interceptor = new ETagRefreshCacheInterceptor();
+        FakeResource resource = new FakeResource("{\"properties\":{\"subnets\":[{\"name\":\"s1\",\"etag\":\"child\"}]},"
+                + "\"etag\":\"parent\"}", "parent");
+        interceptor.intercept(resource.chain(get(ZONE_URL))).body().string();
+
+        interceptor.intercept(resource.chain(get(ZONE_URL))).body().string();
+        Assert.assertEquals("parent", resource.lastIfNoneMatch);
+
+        // The etag of a child resource is not the validator of its parent
+        resource.body = "{\"properties\":{\"subnets\":[{\"name\":\"s1\",\"etag\":\"child\"}]}}";
+        resource.eTag = null;
+        interceptor.intercept(resource.chain(get(ZONE_URL + "2"))).body().string();
+        interceptor.intercept(resource.chain(get(ZONE_URL + "2"))).body().string();
+        Assert.assertNull(resource.lastIfNoneMatch);
+    }
+
+    @Test
+    public void collectionPagesAreNotCached() throws IOException {
+        ETagRefreshCacheInterceptor interceptor = new ETagRefreshCacheInterceptor();
+        FakeResource resource = new FakeResource("{\"value\":[{\"name\":\"contoso.com\",\"etag\":\"00000001\"}]}", "00000001");
+
+        interceptor.intercept(resource.chain(get(ZONE_URL))).body().string();
+        Assert.assertEquals(0, interceptor.cachedResourceCount());
+        interceptor.intercept(resource.chain(get(ZONE_URL))).body().string();
+        Assert.assertNull(resource.lastIfNoneMatch);
+    }
+
+    @Test
+    public void leastRecentlyReadResourcesAreEvicted() throws IOException {
+        ETagRefreshCacheInterceptor interceptor = new ETagRefreshCacheInterceptor(2);
+        FakeResource resource = new FakeResource("{\"etag\":\"1\"}", null);
+        for (int i = 0; i < 5; i++) {
+            interceptor.intercept(resource.chain(get(ZONE_URL + i))).body().string();
+        }
+        Assert.assertEquals(2, interceptor.cachedResourceCount());
+    }
+
+    private static class FakeResource {
+        private String body;
+        private String eTag;
+        private String lastIfNoneMatch;
+        private int notModifiedCount;
+
+        FakeResource(String body, String eTag) {
+            this.body = body;
+            this.eTag = eTag;
+        }
+
+        Interceptor.Chain chain(Request request) {
+            return new MockInterceptorChain(request, new MockInterceptorChain.Responder() {
+                @Override
+                public Response.Builder respond(Request request) {
+                    lastIfNoneMatch = request.header("If-None-Match");
+                    if (eTag != null && eTag.equals(lastIfNoneMatch)) {
+                        notModifiedCount++;
+                        return response(304, "");
+                    }
+                    return response(200, body);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.utils;
+
+import com.microsoft.azure.management.resources.core.MockInterceptorChain;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.get;
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.put;
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.response;
+
+public class GetRequestCoalescingInterceptorTests {
+    private static final String NETWORK_URL = "https://management.azure.com/subscriptions/sub/resourceGroups/rg"
+            + "/providers/Microsoft.Network/virtualNetworks/vnet";
+
+    @Test
+    public void concurrentIdenticalGetsShareOneRequest() throws Exception {
+        final GetRequestCoalescingInterceptor interceptor = new GetRequestCoalescingInterceptor();
+        final MockInterceptorChain chain = chain(300);
+        final List<String> bodies = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        bodies.add(interceptor.intercept(chain.with(get(NETWORK_URL))).body().string());
+                    } catch (Exception e) {
+                        bodies.add(e.toString());
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(1, chain.proceedCount());
+        Assert.assertEquals(10, bodies.size());
+        for (String body : bodies) {
+            Assert.assertEquals("{\"name\":\"vnet\"}", body);
+        }
+        Assert.assertEquals(0, interceptor.inFlightCount());
+    }
+
+    @Test
+    public void sequentialGetsAreNotCached() throws IOException {
+        GetRequestCoalescingInterceptor interceptor = new GetRequestCoalescingInterceptor();
+        MockInterceptorChain chain = chain(0);
+
+        interceptor.intercept(chain.with(get(NETWORK_URL))).body().string();
+        interceptor.intercept(chain.with(get(NETWORK_URL))).body().string();
+
+        Assert.assertEquals(2, chain.proceedCount());
+    }
+
+    @Test
+    public void otherMethodsAreNotCoalesced() throws IOException {
+        GetRequestCoalescingInterceptor interceptor = new GetRequestCoalescingInterceptor();
+        MockInterceptorChain chain = chain(0);
+
+        interceptor.intercept(chain.with(put(NETWORK_URL)));
+
+        Assert.assertEquals(1, chain.proceedCount());
+        Assert.assertEquals(0, interceptor.inFlightCount());
+    }
+
+    private static MockInterceptorChain chain(final long delayMillis) {
+        return new MockInterceptorChain(get(NETWORK_URL), new MockInterceptorChain.Responder() {
+            @Override
+            public Response.Builder respond(Request request) throws IOException {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return response(200, "{\"name\":\"vnet\"}");
+            }
+        });
+    }
+}
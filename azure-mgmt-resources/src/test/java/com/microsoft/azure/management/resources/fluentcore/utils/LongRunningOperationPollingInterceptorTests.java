@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.utils;
+
+import com.microsoft.azure.management.resources.core.MockInterceptorChain;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.delete;
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.get;
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.put;
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.response;
+
+public class LongRunningOperationPollingInterceptorTests {
+    private static final String VM_URL = "https://management.azure.com/subscriptions/sub/resourceGroups/rg"
+            + "/providers/Microsoft.Compute/virtualMachines/vm";
+    private static final String OPERATION_URL = "https://management.azure.com/subscriptions/sub"
+            + "/providers/Microsoft.Compute/locations/westus/operations/op";
+
+    @Before
+    public void setup() {
+        // The polls are delayed by the client through Retry-After, never by blocking the calling thread
+        SdkContext.setDelayProvider(new DelayProvider() {
+            @Override
+            public void sleep(int milliseconds) {
+                Assert.fail("The interceptor must not sleep.");
+            }
+        });
+    }
+
+    @After
+    public void cleanup() {
+        SdkContext.setDelayProvider(new DelayProvider());
+    }
+
+    @Test
+    public void backsOffUntilOperationCompletes() throws IOException {
+        LongRunningOperationPollingInterceptor interceptor = new LongRunningOperationPollingInterceptor(100, 1, 60);
+
+        Response started = interceptor.intercept(new MockInterceptorChain(put(VM_URL),
+                response(201, "{\"properties\":{\"provisioningState\":\"Creating\"}}")
+                        .header("Azure-AsyncOperation", OPERATION_URL)));
+        Assert.assertEquals("1", started.header("Retry-After"));
+        Assert.assertEquals(1, interceptor.pendingOperationCount());
+
+        int previous = 1;
+        for (int i = 0; i < 4; i++) {
+            Response polled = interceptor.intercept(new MockInterceptorChain(get(OPERATION_URL),
+                    response(200, "{\"status\":\"InProgress\"}")));
+            int retryAfter = Integer.parseInt(polled.header("Retry-After"));
+            Assert.assertTrue(retryAfter >= previous);
+            previous = retryAfter;
+        }
+        Assert.assertTrue(previous > 1);
+
+        Response completed = interceptor.intercept(new MockInterceptorChain(get(OPERATION_URL),
+                response(200, "{\"status\":\"Succeeded\"}")));
+        Assert.assertNull(completed.header("Retry-After"));
+        Assert.assertEquals(0, interceptor.pendingOperationCount());
+    }
+
+    @Test
+    public void failedPollsLeaveOperationPending() throws IOException {
+        LongRunningOperationPollingInterceptor interceptor = new LongRunningOperationPollingInterceptor();
+
+        interceptor.intercept(new MockInterceptorChain(put(VM_URL),
+                response(201, "{\"properties\":{\"provisioningState\":\"Creating\"}}")
+                        .header("Azure-AsyncOperation", OPERATION_URL)));
+        Assert.assertEquals(1, interceptor.pendingOperationCount());
+
+        Response throttled = interceptor.intercept(new MockInterceptorChain(get(OPERATION_URL),
+                response(429, "").header("Retry-After", "17")));
+        Assert.assertEquals("17", throttled.header("Retry-After"));
+        Assert.assertEquals(1, interceptor.pendingOperationCount());
+
+        Response failed = interceptor.intercept(new MockInterceptorChain(get(OPERATION_URL),
+                response(500, "{\"error\":{\"code\":\"InternalServerError\"}}")));
+        Assert.assertNull(failed.header("Retry-After"));
+        Assert.assertEquals(1, interceptor.pendingOperationCount());
+
+        interceptor.intercept(new MockInterceptorChain(get(OPERATION_URL),
+                response(200, "{\"status\":\"Succeeded\"}")));
+        Assert.assertEquals(0, interceptor.pendingOperationCount());
+    }
+
+    @Test
+    public void neverPollsEarlierThanServerAsks() throws IOException {
+        LongRunningOperationPollingInterceptor interceptor = new LongRunningOperationPollingInterceptor();
+
+        Response started = interceptor.intercept(new MockInterceptorChain(delete(VM_URL),
+                response(202, "").header("Location", OPERATION_URL).header("Retry-After", "15")));
+        Assert.assertTrue(Integer.parseInt(started.header("Retry-After")) >= 15);
+        Assert.assertEquals(1, interceptor.pendingOperationCount());
+    }
+
+    @Test
+    public void capsPollsPerSecondAcrossOperations() throws IOException {
+        LongRunningOperationPollingInterceptor interceptor = new LongRunningOperationPollingInterceptor(2, 1, 60);
+
+        int lastRetryAfter = 0;
+        for (int i = 0; i < 20; i++) {
+            Response started = interceptor.intercept(new MockInterceptorChain(put(VM_URL + i),
+                    response(201, "{}").header("Azure-AsyncOperation", OPERATION_URL + i)));
+            lastRetryAfter = Integer.parseInt(started.header("Retry-After"));
+        }
+        Assert.assertEquals(20, interceptor.pendingOperationCount());
+        // Two polls per second spread twenty operations over ten seconds
+        Assert.assertTrue(lastRetryAfter >= 10);
+    }
+
+    @Test
+    public void longRetryAfterDoesNotDelayOtherOperations() throws IOException {
+        LongRunningOperationPollingInterceptor interceptor = new LongRunningOperationPollingInterceptor(10, 1, 60);
+
+        Response slow = interceptor.intercept(new MockInterceptorChain(delete(VM_URL),
+                response(202, "").header("Location", OPERATION_URL).header("Retry-After", "60")));
+        Assert.assertTrue(Integer.parseInt(slow.header("Retry-After")) >= 60);
+
+        Response fast = interceptor.intercept(new MockInterceptorChain(put(VM_URL + "2"),
+                response(201, "{}").header("Azure-AsyncOperation", OPERATION_URL + "2")));
+        Assert.assertTrue(Integer.parseInt(fast.header("Retry-After")) <= 2);
+    }
+
+    @Test
+    public void resourceReadsAreNotTreatedAsPolls() throws IOException {
+        LongRunningOperationPollingInterceptor interceptor = new LongRunningOperationPollingInterceptor();
+
+        interceptor.intercept(new MockInterceptorChain(put(VM_URL),
+                response(201, "{\"properties\":{\"provisioningState\":\"Creating\"}}")
+                        .header("Azure-AsyncOperation", OPERATION_URL)));
+        Assert.assertEquals(1, interceptor.pendingOperationCount());
+
+        Response read = interceptor.intercept(new MockInterceptorChain(get(VM_URL),
+                response(200, "{\"properties\":{\"provisioningState\":\"Creating\"}}")));
+        Assert.assertNull(read.header("Retry-After"));
+        Assert.assertEquals(1, interceptor.pendingOperationCount());
+    }
+
+    @Test
+    public void ignoresRequestsThatAreNotLongRunning() throws IOException {
+        LongRunningOperationPollingInterceptor interceptor = new LongRunningOperationPollingInterceptor();
+
+        Response response = interceptor.intercept(new MockInterceptorChain(put(VM_URL),
+                response(200, "{\"properties\":{\"provisioningState\":\"Succeeded\"}}")));
+        Assert.assertNull(response.header("Retry-After"));
+        response = interceptor.intercept(new MockInterceptorChain(get(VM_URL), response(200, "{}")));
+        Assert.assertNull(response.header("Retry-After"));
+        Assert.assertEquals(0, interceptor.pendingOperationCount());
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.utils;
+
+import com.microsoft.azure.management.resources.Provider;
+import org.junit.Assert;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Func0;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProviderRegistrationInterceptorTests {
+    @Test
+    public void concurrentRegistrationsAreShared() {
+        final AtomicInteger registrations = new AtomicInteger();
+        Func0<Observable<Provider>> registration = new Func0<Observable<Provider>>() {
+            @Override
+            public Observable<Provider> call() {
+                registrations.incrementAndGet();
+                return Observable.just((Provider) null).delay(100, TimeUnit.MILLISECONDS, Schedulers.io());
+            }
+        };
+
+        List<Observable<Provider>> callers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            callers.add(ProviderRegistrationInterceptor.registerOnceAsync("sub1", "Microsoft.Shared", registration)
+                    .subscribeOn(Schedulers.io()));
+        }
+        Observable.merge(callers).toBlocking().last();
+
+        Assert.assertEquals(1, registrations.get());
+        Assert.assertTrue(ProviderRegistrationInterceptor.isRegistered("sub1", "microsoft.shared"));
+        Assert.assertFalse(ProviderRegistrationInterceptor.isRegistered("sub2", "Microsoft.Shared"));
+    }
+
+    @Test
+    public void failedRegistrationIsRetried() {
+        final AtomicInteger registrations = new AtomicInteger();
+        Func0<Observable<Provider>> registration = new Func0<Observable<Provider>>() {
+            @Override
+            public Observable<Provider> call() {
+                if (registrations.incrementAndGet() == 1) {
+                    return Observable.error(new IllegalStateException("throttled"));
+                }
+                return Observable.just((Provider) null);
+            }
+        };
+
+        try {
+            ProviderRegistrationInterceptor.registerOnceAsync("sub1", "Microsoft.Failing", registration).toBlocking().last();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertFalse(ProviderRegistrationInterceptor.isRegistered("sub1", "Microsoft.Failing"));
+        }
+        ProviderRegistrationInterceptor.registerOnceAsync("sub1", "Microsoft.Failing", registration).toBlocking().last();
+
+        Assert.assertEquals(2, registrations.get());
+        Assert.assertTrue(ProviderRegistrationInterceptor.isRegistered("sub1", "Microsoft.Failing"));
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.utils;
+
+import com.microsoft.azure.management.resources.core.MockArmServer;
+import com.microsoft.azure.management.resources.core.MockInterceptorChain;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory;
+import retrofit2.http.GET;
+import rx.Observable;
+import rx.functions.Action1;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.get;
+import static com.microsoft.azure.management.resources.core.MockInterceptorChain.response;
+
+public class ResourceManagerThrottlingInterceptorTests {
+    private static final String VM_URL = "https://management.azure.com/subscriptions/%s/resourceGroups/rg"
+            + "/providers/Microsoft.Compute/virtualMachines/vm";
+
+    private final List<Integer> sleeps = Collections.synchronizedList(new ArrayList<Integer>());
+    private final List<Integer> timers = Collections.synchronizedList(new ArrayList<Integer>());
+    private final ResourceManagerThrottlingInterceptor.ThrottlingBuckets buckets =
+            new ResourceManagerThrottlingInterceptor.ThrottlingBuckets();
+    private MockArmServer server;
+
+    @Before
+    public void setup() {
+        // Record the waits instead of sleeping through them, the timers still wait
+        SdkContext.setDelayProvider(new DelayProvider() {
+            @Override
+            public void sleep(int milliseconds) {
+                sleeps.add(milliseconds);
+            }
+
+            @Override
+            public <T> Observable<T> delayedEmitAsync(T event, int milliseconds) {
+                timers.add(milliseconds);
+                return super.delayedEmitAsync(event, milliseconds);
+            }
+        });
+    }
+
+    @After
+    public void cleanup() {
+        SdkContext.setDelayProvider(new DelayProvider());
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void retriesAfterRetryAfterHeader() throws IOException {
+        ResourceManagerThrottlingInterceptor interceptor = interceptor(ResourceManagerThrottlingInterceptor.DEFAULT_PACING_THRESHOLD_PERCENT, ResourceManagerThrottlingInterceptor.DEFAULT_MAX_RETRIES);
+        MockInterceptorChain chain = throttledThenOk(get(vmUrl("sub1")), 1, "7", "{}");
+
+        Response response = interceptor.intercept(chain);
+
+        Assert.assertEquals(200, response.code());
+        Assert.assertEquals(2, chain.proceedCount());
+        Assert.assertEquals(1, sleeps.size());
+        Assert.assertTrue(sleeps.get(0) >= 7000);
+    }
+
+    @Test
+    public void retriesAfterDelayInThrottlingMessage() throws IOException {
+        ResourceManagerThrottlingInterceptor interceptor = interceptor(ResourceManagerThrottlingInterceptor.DEFAULT_PACING_THRESHOLD_PERCENT, ResourceManagerThrottlingInterceptor.DEFAULT_MAX_RETRIES);
+        MockInterceptorChain chain = throttledThenOk(get(vmUrl("sub1")), 1, null,
+                "{\"error\":{\"message\":\"Please try again after '2' minutes.\"}}");
+
+        Assert.assertEquals(200, interceptor.intercept(chain).code());
+        Assert.assertEquals(2, chain.proceedCount());
+        Assert.assertTrue(sleeps.get(0) >= 120000);
+    }
+
+    @Test
+    public void returnsThrottledResponseOnceRetriesAreExhausted() throws IOException {
+        ResourceManagerThrottlingInterceptor interceptor =
+                interceptor(ResourceManagerThrottlingInterceptor.DEFAULT_PACING_THRESHOLD_PERCENT, 2);
+        MockInterceptorChain chain = throttledThenOk(get(vmUrl("sub1")), 10, "1", "{}");
+
+        Assert.assertEquals(429, interceptor.intercept(chain).code());
+        Assert.assertEquals(3, chain.proceedCount());
+    }
+
+    @Test
+    public void throttlingDoesNotDelayOtherSubscriptions() throws IOException {
+        ResourceManagerThrottlingInterceptor interceptor = interceptor(ResourceManagerThrottlingInterceptor.DEFAULT_PACING_THRESHOLD_PERCENT, ResourceManagerThrottlingInterceptor.DEFAULT_MAX_RETRIES);
+        MockInterceptorChain throttled = throttledThenOk(get(vmUrl("sub1")), 1, "30", "{}");
+        Assert.assertEquals(200, interceptor.intercept(throttled).code());
+        Assert.assertEquals(1, sleeps.size());
+
+        Assert.assertEquals(200, interceptor.intercept(new MockInterceptorChain(get(vmUrl("sub2")), response(200, "{}"))).code());
+        Assert.assertEquals(1, sleeps.size());
+    }
+
+    @Test
+    public void customLimitsAreNotIgnored() throws IOException {
+        interceptor(ResourceManagerThrottlingInterceptor.DEFAULT_PACING_THRESHOLD_PERCENT,
+                ResourceManagerThrottlingInterceptor.DEFAULT_MAX_RETRIES)
+                .intercept(new MockInterceptorChain(get(vmUrl("sub1")), lowReadQuota()));
+
+        // 50 reads left is below 10% of the default limit but not below 1% of a limit of 3,600
+        ResourceManagerThrottlingInterceptor custom = new ResourceManagerThrottlingInterceptor(buckets, 3600, 1200, 1, 3);
+        for (int i = 0; i < 3; i++) {
+            custom.intercept(new MockInterceptorChain(get(vmUrl("sub1")), lowReadQuota()));
+        }
+        Assert.assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    public void callAdapterRetriesOnTimerWithoutHoldingThread() throws Exception {
+        server = new MockArmServer()
+                .withResponse("GET", "/subscriptions/sub1/ping", 200, "{}")
+                .withThrottling(2, 0)
+                .start();
+        Ping ping = new Retrofit.Builder()
+                .baseUrl(server.baseUrl())
+                .client(new OkHttpClient.Builder()
+                        .addInterceptor(interceptor(ResourceManagerThrottlingInterceptor.DEFAULT_PACING_THRESHOLD_PERCENT, 3))
+                        .build())
+                .addCallAdapterFactory(ResourceManagerThrottlingInterceptor.callAdapterFactory())
+                .addCallAdapterFactory(RxJavaCallAdapterFactory.create())
+                .build()
+                .create(Ping.class);
+
+        Assert.assertEquals(200, ping.ping().toBlocking().single().code());
+        final AtomicInteger code = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        ping.ping().subscribe(new Action1<retrofit2.Response<ResponseBody>>() {
+            @Override
+            public void call(retrofit2.Response<ResponseBody> response) {
+                code.set(response.code());
+                done.countDown();
+            }
+        });
+
+        // The second request is throttled, it is sent again once the timer fires
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(200, code.get());
+        Assert.assertEquals(1, server.throttledCount());
+        Assert.assertTrue(sleeps.isEmpty());
+        Assert.assertFalse(timers.isEmpty());
+    }
+
+    @Test
+    public void retriesAreLimitedWithCallAdapter() throws Exception {
+        server = new MockArmServer()
+                .withResponse("GET", "/subscriptions/sub1/ping", 200, "{}")
+                .withThrottling(1, 0)
+                .start();
+        Ping ping = new Retrofit.Builder()
+                .baseUrl(server.baseUrl())
+                .client(new OkHttpClient.Builder()
+                        .addInterceptor(interceptor(ResourceManagerThrottlingInterceptor.DEFAULT_PACING_THRESHOLD_PERCENT, 0))
+                        .build())
+                .addCallAdapterFactory(ResourceManagerThrottlingInterceptor.callAdapterFactory())
+                .addCallAdapterFactory(RxJavaCallAdapterFactory.create())
+                .build()
+                .create(Ping.class);
+
+        Assert.assertEquals(429, ping.ping().toBlocking().single().code());
+        Assert.assertTrue(timers.isEmpty());
+    }
+
+    interface Ping {
+        @GET("subscriptions/sub1/ping")
+        Observable<retrofit2.Response<ResponseBody>> ping();
+    }
+
+    private ResourceManagerThrottlingInterceptor interceptor(int pacingThresholdPercent, int maxRetries) {
+        return new ResourceManagerThrottlingInterceptor(buckets,
+                ResourceManagerThrottlingInterceptor.DEFAULT_READS_PER_HOUR,
+                ResourceManagerThrottlingInterceptor.DEFAULT_WRITES_PER_HOUR,
+                pacingThresholdPercent,
+                maxRetries);
+    }
+
+    private static Response.Builder lowReadQuota() {
+        return response(200, "{}").header("x-ms-ratelimit-remaining-subscription-reads", "50");
+    }
+
+    private static String vmUrl(String subscriptionId) {
+        return String.format(VM_URL, subscriptionId);
+    }
+
+    private static MockInterceptorChain throttledThenOk(Request request, final int throttledCount,
+                                                        final String retryAfter, final String body) {
+        return new MockInterceptorChain(request, new MockInterceptorChain.Responder() {
+            private int calls;
+
+            @Override
+            public Response.Builder respond(Request request) {
+                if (calls++ >= throttledCount) {
+                    return response(200, "{}");
+                }
+                Response.Builder throttled = response(429, body);
+                if (retryAfter != null) {
+                    throttled.header("Retry-After", retryAfter);
+                }
+                return throttled;
+            }
+        });
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management.resources.fluentcore.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ThrottlingBucketTests {
+    @Test
+    public void doesNotDelayWhenQuotaIsHealthy() {
+        ResourceManagerThrottlingInterceptor.ThrottlingBucket bucket =
+                new ResourceManagerThrottlingInterceptor.ThrottlingBucket();
+        Assert.assertEquals(0, bucket.reserve(1000, 300, 1200));
+        bucket.updateRemaining(5000);
+        Assert.assertFalse(bucket.isPacing(1200));
+        Assert.assertEquals(0, bucket.reserve(1000, 300, 1200));
+        Assert.assertEquals(0, bucket.reserve(1000, 300, 1200));
+    }
+
+    @Test
+    public void pacesWhenQuotaRunsLow() {
+        ResourceManagerThrottlingInterceptor.ThrottlingBucket bucket =
+                new ResourceManagerThrottlingInterceptor.ThrottlingBucket();
+        bucket.updateRemaining(100);
+        Assert.assertTrue(bucket.isPacing(1200));
+        Assert.assertEquals(0, bucket.reserve(1000, 300, 1200));
+        Assert.assertEquals(300, bucket.reserve(1000, 300, 1200));
+        Assert.assertEquals(600, bucket.reserve(1000, 300, 1200));
+        // Missing header values do not reset the tracked quota
+        bucket.updateRemaining(-1);
+        Assert.assertTrue(bucket.isPacing(1200));
+    }
+
+    @Test
+    public void blocksUntilRetryAfterElapses() {
+        ResourceManagerThrottlingInterceptor.ThrottlingBucket bucket =
+                new ResourceManagerThrottlingInterceptor.ThrottlingBucket();
+        bucket.blockFor(1000, 5000);
+        Assert.assertEquals(5000, bucket.reserve(1000, 300, 1200));
+        Assert.assertEquals(2000, bucket.reserve(4000, 300, 1200));
+        // A shorter retry-after does not shorten an existing block
+        bucket.blockFor(1000, 1000);
+        Assert.assertEquals(5000, bucket.reserve(1000, 300, 1200));
+        Assert.assertEquals(0, bucket.reserve(6000, 300, 1200));
+    }
+
+    @Test
+    public void bucketsAreIndependent() {
+        ResourceManagerThrottlingInterceptor.ThrottlingBucket throttled =
+                new ResourceManagerThrottlingInterceptor.ThrottlingBucket();
+        ResourceManagerThrottlingInterceptor.ThrottlingBucket healthy =
+                new ResourceManagerThrottlingInterceptor.ThrottlingBucket();
+        throttled.blockFor(0, 60000);
+        Assert.assertEquals(60000, throttled.reserve(0, 300, 1200));
+        Assert.assertEquals(0, healthy.reserve(0, 300, 1200));
+    }
+}
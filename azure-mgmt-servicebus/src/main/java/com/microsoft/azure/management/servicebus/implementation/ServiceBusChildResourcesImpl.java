@@ -66,18 +66,13 @@ abstract class ServiceBusChildResourcesImpl<
 
     @Override
     public Observable<T> listAsync() {
-        return this.listInnerAsync()
-                .flatMap(new Func1<ServiceResponse<Page<InnerT>>, Observable<T>>() {
+        return this.wrapPageAsync(this.listInnerAsync()
+                .map(new Func1<ServiceResponse<Page<InnerT>>, Page<InnerT>>() {
                     @Override
-                    public Observable<T> call(ServiceResponse<Page<InnerT>> r) {
-                        return Observable.from(r.body().items()).map(new Func1<InnerT, T>() {
-                            @Override
-                            public T call(InnerT inner) {
-                                return wrapModel(inner);
-                            }
-                        });
+                    public Page<InnerT> call(ServiceResponse<Page<InnerT>> r) {
+                        return r.body();
                     }
-                });
+                }));
     }
 
     @Override
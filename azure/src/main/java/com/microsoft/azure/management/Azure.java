@@ -78,6 +78,7 @@ import com.microsoft.azure.management.resources.Subscriptions;
 import com.microsoft.azure.management.resources.Tenants;
 import com.microsoft.azure.management.resources.fluentcore.arm.AzureConfigurable;
 import com.microsoft.azure.management.resources.fluentcore.arm.implementation.AzureConfigurableImpl;
+import com.microsoft.azure.management.resources.fluentcore.utils.MetricsInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ProviderRegistrationInterceptor;
 import com.microsoft.azure.management.resources.fluentcore.utils.ResourceManagerThrottlingInterceptor;
 import com.microsoft.azure.management.resources.implementation.ResourceManager;
@@ -94,33 +95,36 @@ import com.microsoft.azure.management.trafficmanager.TrafficManagerProfiles;
 import com.microsoft.azure.management.trafficmanager.implementation.TrafficManager;
 import com.microsoft.azure.serializer.AzureJacksonAdapter;
 import com.microsoft.rest.RestClient;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
 
 /**
  * The entry point for accessing resource management APIs in Azure.
  */
 public final class Azure {
-    private final ResourceManager resourceManager;
-    private final StorageManager storageManager;
-    private final ComputeManager computeManager;
-    private final NetworkManager networkManager;
-    private final KeyVaultManager keyVaultManager;
-    private final BatchManager batchManager;
-    private final TrafficManager trafficManager;
-    private final RedisManager redisManager;
-    private final CdnManager cdnManager;
-    private final DnsZoneManager dnsZoneManager;
-    private final AppServiceManager appServiceManager;
-    private final SqlServerManager sqlServerManager;
-    private final ServiceBusManager serviceBusManager;
-    private final ContainerInstanceManager containerInstanceManager;
-    private final ContainerRegistryManager containerRegistryManager;
-    private final ContainerServiceManager containerServiceManager;
-    private final SearchServiceManager searchServiceManager;
-    private final CosmosDBManager cosmosDBManager;
-    private final AuthorizationManager authorizationManager;
+    private final LazyManager<ResourceManager> resourceManager;
+    private final LazyManager<StorageManager> storageManager;
+    private final LazyManager<ComputeManager> computeManager;
+    private final LazyManager<NetworkManager> networkManager;
+    private final LazyManager<KeyVaultManager> keyVaultManager;
+    private final LazyManager<BatchManager> batchManager;
+    private final LazyManager<TrafficManager> trafficManager;
+    private final LazyManager<RedisManager> redisManager;
+    private final LazyManager<CdnManager> cdnManager;
+    private final LazyManager<DnsZoneManager> dnsZoneManager;
+    private final LazyManager<AppServiceManager> appServiceManager;
+    private final LazyManager<SqlServerManager> sqlServerManager;
+    private final LazyManager<ServiceBusManager> serviceBusManager;
+    private final LazyManager<ContainerInstanceManager> containerInstanceManager;
+    private final LazyManager<ContainerRegistryManager> containerRegistryManager;
+    private final LazyManager<ContainerServiceManager> containerServiceManager;
+    private final LazyManager<SearchServiceManager> searchServiceManager;
+    private final LazyManager<CosmosDBManager> cosmosDBManager;
+    private final LazyManager<AuthorizationManager> authorizationManager;
     private final String subscriptionId;
     private final Authenticated authenticated;
 
@@ -131,13 +135,16 @@ public final class Azure {
      * @return the authenticated Azure client
      */
     public static Authenticated authenticate(AzureTokenCredentials credentials) {
-        return new AuthenticatedImpl(new RestClient.Builder()
+        return new AuthenticatedImpl(new RestClient.Builder(new OkHttpClient.Builder(), new Retrofit.Builder()
+                .addCallAdapterFactory(ResourceManagerThrottlingInterceptor.callAdapterFactory()))
                 .withBaseUrl(credentials.environment(), AzureEnvironment.Endpoint.RESOURCE_MANAGER)
                 .withCredentials(credentials)
                 .withSerializerAdapter(new AzureJacksonAdapter())
                 .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                .withInterceptor(MetricsInterceptor.retryCounter())
                 .withInterceptor(new ProviderRegistrationInterceptor(credentials))
                 .withInterceptor(new ResourceManagerThrottlingInterceptor())
+                .withNetworkInterceptor(new MetricsInterceptor())
                 .build(), credentials.domain());
     }
 
@@ -159,13 +166,16 @@ public final class Azure {
      */
     public static Authenticated authenticate(File credentialsFile) throws IOException {
         ApplicationTokenCredentials credentials = ApplicationTokenCredentials.fromFile(credentialsFile);
-        return new AuthenticatedImpl(new RestClient.Builder()
+        return new AuthenticatedImpl(new RestClient.Builder(new OkHttpClient.Builder(), new Retrofit.Builder()
+                .addCallAdapterFactory(ResourceManagerThrottlingInterceptor.callAdapterFactory()))
                 .withBaseUrl(credentials.environment(), AzureEnvironment.Endpoint.RESOURCE_MANAGER)
                 .withCredentials(credentials)
                 .withSerializerAdapter(new AzureJacksonAdapter())
                 .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                .withInterceptor(MetricsInterceptor.retryCounter())
                 .withInterceptor(new ProviderRegistrationInterceptor(credentials))
                 .withInterceptor(new ResourceManagerThrottlingInterceptor())
+                .withNetworkInterceptor(new MetricsInterceptor())
                 .build(), credentials.domain()).withDefaultSubscription(credentials.defaultSubscriptionId());
     }
 
@@ -276,6 +286,17 @@ public final class Azure {
          */
         Azure withSubscription(String subscriptionId);
 
+        /**
+         * Selects a set of subscriptions for the APIs to work with, to run the same operations
+         * across all of them.
+         * <p>
+         * The clients of the subscriptions share the HTTP client and credentials of this client.
+         * @param subscriptionIds the IDs of the subscriptions
+         * @return an authenticated client configured to work with the specified subscriptions
+         */
+        @Beta(SinceVersion.V1_4_0)
+        MultiSubscriptionAzure withSubscriptions(Collection<String> subscriptionIds);
+
         /**
          * Selects the default subscription as the subscription for the APIs to work with.
          * <p>
@@ -361,6 +382,11 @@ public final class Azure {
             return new Azure(restClient, subscriptionId, tenantId, this);
         }
 
+        @Override
+        public MultiSubscriptionAzure withSubscriptions(Collection<String> subscriptionIds) {
+            return new MultiSubscriptionAzure(this, subscriptionIds);
+        }
+
         @Override
         public Azure withDefaultSubscription() throws CloudException, IOException {
             if (this.defaultSubscription != null) {
@@ -376,26 +402,122 @@ public final class Azure {
         }
     }
 
-    private Azure(RestClient restClient, String subscriptionId, String tenantId, Authenticated authenticated) {
-        this.resourceManager = ResourceManager.authenticate(restClient).withSubscription(subscriptionId);
-        this.storageManager = StorageManager.authenticate(restClient, subscriptionId);
-        this.computeManager = ComputeManager.authenticate(restClient, subscriptionId);
-        this.networkManager = NetworkManager.authenticate(restClient, subscriptionId);
-        this.keyVaultManager = KeyVaultManager.authenticate(restClient, tenantId, subscriptionId);
-        this.batchManager = BatchManager.authenticate(restClient, subscriptionId);
-        this.trafficManager = TrafficManager.authenticate(restClient, subscriptionId);
-        this.redisManager = RedisManager.authenticate(restClient, subscriptionId);
-        this.cdnManager = CdnManager.authenticate(restClient, subscriptionId);
-        this.dnsZoneManager = DnsZoneManager.authenticate(restClient, subscriptionId);
-        this.appServiceManager = AppServiceManager.authenticate(restClient, tenantId, subscriptionId);
-        this.sqlServerManager = SqlServerManager.authenticate(restClient, subscriptionId);
-        this.serviceBusManager = ServiceBusManager.authenticate(restClient, subscriptionId);
-        this.containerInstanceManager = ContainerInstanceManager.authenticate(restClient, subscriptionId);
-        this.containerRegistryManager = ContainerRegistryManager.authenticate(restClient, subscriptionId);
-        this.containerServiceManager = ContainerServiceManager.authenticate(restClient, subscriptionId);
-        this.cosmosDBManager = CosmosDBManager.authenticate(restClient, subscriptionId);
-        this.searchServiceManager = SearchServiceManager.authenticate(restClient, subscriptionId);
-        this.authorizationManager = AuthorizationManager.authenticate(restClient, subscriptionId);
+    private Azure(final RestClient restClient, final String subscriptionId, final String tenantId, Authenticated authenticated) {
+        // The managers are created on first access, so that a client builds only the service clients it uses
+        this.resourceManager = new LazyManager<ResourceManager>() {
+            @Override
+            protected ResourceManager create() {
+                return ResourceManager.authenticate(restClient).withSubscription(subscriptionId);
+            }
+        };
+        this.storageManager = new LazyManager<StorageManager>() {
+            @Override
+            protected StorageManager create() {
+                return StorageManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.computeManager = new LazyManager<ComputeManager>() {
+            @Override
+            protected ComputeManager create() {
+                return ComputeManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.networkManager = new LazyManager<NetworkManager>() {
+            @Override
+            protected NetworkManager create() {
+                return NetworkManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.keyVaultManager = new LazyManager<KeyVaultManager>() {
+            @Override
+            protected KeyVaultManager create() {
+                return KeyVaultManager.authenticate(restClient, tenantId, subscriptionId);
+            }
+        };
+        this.batchManager = new LazyManager<BatchManager>() {
+            @Override
+            protected BatchManager create() {
+                return BatchManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.trafficManager = new LazyManager<TrafficManager>() {
+            @Override
+            protected TrafficManager create() {
+                return TrafficManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.redisManager = new LazyManager<RedisManager>() {
+            @Override
+            protected RedisManager create() {
+                return RedisManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.cdnManager = new LazyManager<CdnManager>() {
+            @Override
+            protected CdnManager create() {
+                return CdnManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.dnsZoneManager = new LazyManager<DnsZoneManager>() {
+            @Override
+            protected DnsZoneManager create() {
+                return DnsZoneManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.appServiceManager = new LazyManager<AppServiceManager>() {
+            @Override
+            protected AppServiceManager create() {
+                return AppServiceManager.authenticate(restClient, tenantId, subscriptionId);
+            }
+        };
+        this.sqlServerManager = new LazyManager<SqlServerManager>() {
+            @Override
+            protected SqlServerManager create() {
+                return SqlServerManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.serviceBusManager = new LazyManager<ServiceBusManager>() {
+            @Override
+            protected ServiceBusManager create() {
+                return ServiceBusManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.containerInstanceManager = new LazyManager<ContainerInstanceManager>() {
+            @Override
+            protected ContainerInstanceManager create() {
+                return ContainerInstanceManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.containerRegistryManager = new LazyManager<ContainerRegistryManager>() {
+            @Override
+            protected ContainerRegistryManager create() {
+                return ContainerRegistryManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.containerServiceManager = new LazyManager<ContainerServiceManager>() {
+            @Override
+            protected ContainerServiceManager create() {
+                return ContainerServiceManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.cosmosDBManager = new LazyManager<CosmosDBManager>() {
+            @Override
+            protected CosmosDBManager create() {
+                return CosmosDBManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.searchServiceManager = new LazyManager<SearchServiceManager>() {
+            @Override
+            protected SearchServiceManager create() {
+                return SearchServiceManager.authenticate(restClient, subscriptionId);
+            }
+        };
+        this.authorizationManager = new LazyManager<AuthorizationManager>() {
+            @Override
+            protected AuthorizationManager create() {
+                return AuthorizationManager.authenticate(restClient, subscriptionId);
+            }
+        };
         this.subscriptionId = subscriptionId;
         this.authenticated = authenticated;
     }
@@ -425,140 +547,140 @@ public final class Azure {
      * @return entry point to managing resource groups
      */
     public ResourceGroups resourceGroups() {
-        return this.resourceManager.resourceGroups();
+        return this.resourceManager.get().resourceGroups();
     }
 
     /**
      * @return entry point to managing deployments
      */
     public Deployments deployments() {
-        return this.resourceManager.deployments();
+        return this.resourceManager.get().deployments();
     }
 
     /**
      * @return entry point to managing generic resources
      */
     public GenericResources genericResources() {
-        return resourceManager.genericResources();
+        return resourceManager.get().genericResources();
     }
 
     /**
      * @return entry point to managing management locks
      */
     public ManagementLocks managementLocks() {
-        return this.authorizationManager.managementLocks();
+        return this.authorizationManager.get().managementLocks();
     }
 
     /**
      * @return entry point to managing features
      */
     public Features features() {
-        return resourceManager.features();
+        return resourceManager.get().features();
     }
 
     /**
      * @return entry point to managing resource providers
      */
     public Providers providers() {
-        return resourceManager.providers();
+        return resourceManager.get().providers();
     }
 
     /**
      * @return entry point to managing policy definitions.
      */
     public PolicyDefinitions policyDefinitions() {
-        return resourceManager.policyDefinitions();
+        return resourceManager.get().policyDefinitions();
     }
 
     /**
      * @return entry point to managing policy assignments.
      */
     public PolicyAssignments policyAssignments() {
-        return resourceManager.policyAssignments();
+        return resourceManager.get().policyAssignments();
     }
 
     /**
      * @return entry point to managing storage accounts
      */
     public StorageAccounts storageAccounts() {
-        return storageManager.storageAccounts();
+        return storageManager.get().storageAccounts();
     }
 
     /**
      * @return entry point to managing storage account usages
      */
     public Usages storageUsages() {
-        return storageManager.usages();
+        return storageManager.get().usages();
     }
 
     /**
      * @return entry point to managing availability sets
      */
     public AvailabilitySets availabilitySets() {
-        return computeManager.availabilitySets();
+        return computeManager.get().availabilitySets();
     }
 
     /**
      * @return entry point to managing virtual networks
      */
     public Networks networks() {
-        return networkManager.networks();
+        return networkManager.get().networks();
     }
 
     /**
      * @return entry point to managing route tables
      */
     public RouteTables routeTables() {
-        return networkManager.routeTables();
+        return networkManager.get().routeTables();
     }
 
     /**
      * @return entry point to managing load balancers
      */
     public LoadBalancers loadBalancers() {
-        return networkManager.loadBalancers();
+        return networkManager.get().loadBalancers();
     }
 
     /**
      * @return entry point to managing application gateways
      */
     public ApplicationGateways applicationGateways() {
-        return networkManager.applicationGateways();
+        return networkManager.get().applicationGateways();
     }
 
     /**
      * @return entry point to managing network security groups
      */
     public NetworkSecurityGroups networkSecurityGroups() {
-        return networkManager.networkSecurityGroups();
+        return networkManager.get().networkSecurityGroups();
     }
 
     /**
      * @return entry point to managing network resource usages
      */
     public NetworkUsages networkUsages() {
-        return networkManager.usages();
+        return networkManager.get().usages();
     }
 
     /**
      * @return entry point to managing network watchers
      */
     public NetworkWatchers networkWatchers() {
-        return networkManager.networkWatchers();
+        return networkManager.get().networkWatchers();
     }
 
     /**
      * @return entry point to managing virtual network gateways
      */
     public VirtualNetworkGateways virtualNetworkGateways() {
-        return networkManager.virtualNetworkGateways();
+        return networkManager.get().virtualNetworkGateways();
     }
 
     /**
      * @return entry point to managing local network gateways
      */
     public LocalNetworkGateways localNetworkGateways() {
-        return networkManager.localNetworkGateways();
+        return networkManager.get().localNetworkGateways();
     }
 
     /**
@@ -566,112 +688,112 @@ public final class Azure {
      */
     @Beta(SinceVersion.V1_4_0)
     public ExpressRouteCircuits expressRouteCircuits() {
-        return networkManager.expressRouteCircuits();
+        return networkManager.get().expressRouteCircuits();
     }
 
     /**
      * @return entry point to managing virtual machines
      */
     public VirtualMachines virtualMachines() {
-        return computeManager.virtualMachines();
+        return computeManager.get().virtualMachines();
     }
 
     /**
      * @return entry point to managing virtual machine scale sets.
      */
     public VirtualMachineScaleSets virtualMachineScaleSets() {
-        return computeManager.virtualMachineScaleSets();
+        return computeManager.get().virtualMachineScaleSets();
     }
 
     /**
      * @return entry point to managing virtual machine images
      */
     public VirtualMachineImages virtualMachineImages() {
-        return computeManager.virtualMachineImages();
+        return computeManager.get().virtualMachineImages();
     }
 
     /**
      * @return entry point to managing virtual machine custom images
      */
     public VirtualMachineCustomImages virtualMachineCustomImages() {
-        return computeManager.virtualMachineCustomImages();
+        return computeManager.get().virtualMachineCustomImages();
     }
 
     /**
      * @return entry point to managing managed disks
      */
     public Disks disks() {
-        return computeManager.disks();
+        return computeManager.get().disks();
     }
 
     /**
      * @return entry point to managing managed snapshots
      */
     public Snapshots snapshots() {
-        return computeManager.snapshots();
+        return computeManager.get().snapshots();
     }
 
     /**
      * @return entry point to managing public IP addresses
      */
     public PublicIPAddresses publicIPAddresses() {
-        return this.networkManager.publicIPAddresses();
+        return this.networkManager.get().publicIPAddresses();
     }
 
     /**
      * @return entry point to managing network interfaces
      */
     public NetworkInterfaces networkInterfaces() {
-        return this.networkManager.networkInterfaces();
+        return this.networkManager.get().networkInterfaces();
     }
 
     /**
      * @return entry point to managing compute resource usages
      */
     public ComputeUsages computeUsages() {
-        return computeManager.usages();
+        return computeManager.get().usages();
     }
 
     /**
      * @return entry point to managing key vaults
      */
     public Vaults vaults() {
-        return this.keyVaultManager.vaults();
+        return this.keyVaultManager.get().vaults();
     }
 
     /**
      * @return entry point to managing batch accounts.
      */
     public BatchAccounts batchAccounts() {
-        return batchManager.batchAccounts();
+        return batchManager.get().batchAccounts();
     }
 
     /**
      * @return entry point to managing traffic manager profiles.
      */
     public TrafficManagerProfiles trafficManagerProfiles() {
-        return trafficManager.profiles();
+        return trafficManager.get().profiles();
     }
 
     /**
      * @return entry point to managing Redis Caches.
      */
     public RedisCaches redisCaches() {
-        return redisManager.redisCaches();
+        return redisManager.get().redisCaches();
     }
 
     /**
      * @return entry point to managing cdn manager profiles.
      */
     public CdnProfiles cdnProfiles() {
-        return cdnManager.profiles();
+        return cdnManager.get().profiles();
     }
 
     /**
      * @return entry point to managing DNS zones.
      */
     public DnsZones dnsZones() {
-        return dnsZoneManager.zones();
+        return dnsZoneManager.get().zones();
     }
 
     /**
@@ -679,7 +801,7 @@ public final class Azure {
      */
     @Beta
     public WebApps webApps() {
-        return appServiceManager.webApps();
+        return appServiceManager.get().webApps();
     }
 
     /**
@@ -687,14 +809,14 @@ public final class Azure {
      */
     @Beta
     public AppServiceManager appServices() {
-        return appServiceManager;
+        return appServiceManager.get();
     }
 
     /**
      * @return entry point to managing Sql server.
      */
     public SqlServers sqlServers() {
-        return sqlServerManager.sqlServers();
+        return sqlServerManager.get().sqlServers();
     }
 
     /**
@@ -702,7 +824,7 @@ public final class Azure {
      */
     @Beta
     public ServiceBusNamespaces serviceBusNamespaces() {
-        return serviceBusManager.namespaces();
+        return serviceBusManager.get().namespaces();
     }
 
     /**
@@ -719,7 +841,7 @@ public final class Azure {
      */
     @Beta(SinceVersion.V1_4_0)
     public ContainerServices containerServices() {
-        return containerServiceManager.containerServices();
+        return containerServiceManager.get().containerServices();
     }
 
     /**
@@ -727,7 +849,7 @@ public final class Azure {
      */
     @Beta(SinceVersion.V1_4_0)
     public KubernetesClusters kubernetesClusters() {
-        return containerServiceManager.kubernetesClusters();
+        return containerServiceManager.get().kubernetesClusters();
     }
 
     /**
@@ -735,7 +857,7 @@ public final class Azure {
      */
     @Beta(SinceVersion.V1_3_0)
     public ContainerGroups containerGroups() {
-        return containerInstanceManager.containerGroups();
+        return containerInstanceManager.get().containerGroups();
     }
 
     /**
@@ -743,7 +865,7 @@ public final class Azure {
      */
     @Beta(SinceVersion.V1_1_0)
     public Registries containerRegistries() {
-        return containerRegistryManager.containerRegistries();
+        return containerRegistryManager.get().containerRegistries();
     }
 
     /**
@@ -751,7 +873,7 @@ public final class Azure {
      */
     @Beta(SinceVersion.V1_2_0)
     public CosmosDBAccounts cosmosDBAccounts() {
-        return cosmosDBManager.databaseAccounts();
+        return cosmosDBManager.get().databaseAccounts();
     }
 
     /**
@@ -759,7 +881,7 @@ public final class Azure {
      */
     @Beta(SinceVersion.V1_2_0)
     public SearchServices searchServices() {
-        return searchServiceManager.searchServices();
+        return searchServiceManager.get().searchServices();
     }
 
     /**
@@ -769,4 +891,35 @@ public final class Azure {
     public AccessManagement accessManagement() {
         return this.authenticated;
     }
+
+    /**
+     * A service manager that is created on first access, thread safely.
+     *
+     * @param <ManagerT> the type of the manager
+     */
+    private abstract static class LazyManager<ManagerT> {
+        private volatile ManagerT manager;
+
+        /**
+         * @return a new manager
+         */
+        protected abstract ManagerT create();
+
+        /**
+         * @return the manager, created by the first call
+         */
+        ManagerT get() {
+            ManagerT current = this.manager;
+            if (current == null) {
+                synchronized (this) {
+                    current = this.manager;
+                    if (current == null) {
+                        current = create();
+                        this.manager = current;
+                    }
+                }
+            }
+            return current;
+        }
+    }
 }
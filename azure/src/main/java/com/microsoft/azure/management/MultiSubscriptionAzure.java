@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management;
+
+import com.microsoft.azure.management.apigeneration.Beta;
+import com.microsoft.azure.management.apigeneration.Beta.SinceVersion;
+import rx.Observable;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The entry point for running the same operations across a set of subscriptions.
+ * <p>
+ * The {@link Azure} clients of all the subscriptions are created from the same authenticated
+ * client, so they share one HTTP client, connection pool and credential token cache.
+ */
+@Beta(SinceVersion.V1_4_0)
+public final class MultiSubscriptionAzure {
+    /**
+     * The default maximum number of subscriptions whose operations run at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+    private final Azure.Authenticated authenticated;
+    private final Set<String> subscriptionIds;
+    private final ConcurrentMap<String, Azure> clients;
+    private volatile int maxConcurrency;
+
+    MultiSubscriptionAzure(Azure.Authenticated authenticated, Collection<String> subscriptionIds) {
+        this.authenticated = authenticated;
+        this.subscriptionIds = Collections.unmodifiableSet(new LinkedHashSet<>(subscriptionIds));
+        this.clients = new ConcurrentHashMap<>();
+        this.maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    }
+
+    /**
+     * Limits the number of subscriptions whose operations run at the same time.
+     *
+     * @param maxConcurrency the maximum number of subscriptions processed at the same time
+     * @return the multi-subscription client itself
+     */
+    public MultiSubscriptionAzure withMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive.");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of subscriptions whose operations run at the same time
+     */
+    public int maxConcurrency() {
+        return this.maxConcurrency;
+    }
+
+    /**
+     * @return the IDs of the subscriptions this client works with
+     */
+    public Set<String> subscriptionIds() {
+        return this.subscriptionIds;
+    }
+
+    /**
+     * Gets the client of one of the subscriptions.
+     *
+     * @param subscriptionId the ID of the subscription
+     * @return an Azure client configured to work with the subscription
+     */
+    public Azure forSubscription(String subscriptionId) {
+        if (!this.subscriptionIds.contains(subscriptionId)) {
+            throw new IllegalArgumentException("The subscription '" + subscriptionId + "' is not one of the selected subscriptions");
+        }
+        Azure azure = this.clients.get(subscriptionId);
+        if (azure == null) {
+            azure = this.authenticated.withSubscription(subscriptionId);
+            Azure existing = this.clients.putIfAbsent(subscriptionId, azure);
+            if (existing != null) {
+                azure = existing;
+            }
+        }
+        return azure;
+    }
+
+    /**
+     * Runs an operation against every subscription and merges the items emitted, in the order they are emitted.
+     * <p>
+     * At most {@link #maxConcurrency()} subscriptions are processed at the same time. A failure of one
+     * subscription does not stop the others, the errors are emitted once all the subscriptions are done.
+     *
+     * @param operation the operation returning the items of a subscription, such as
+     *                  <code>azure.virtualMachines().listAsync()</code>
+     * @param <T> the type of the items
+     * @return an observable that emits the items of all the subscriptions
+     */
+    public <T> Observable<T> listAcrossSubscriptionsAsync(final Func1<Azure, Observable<T>> operation) {
+        Observable<Observable<T>> perSubscription = Observable.from(this.subscriptionIds)
+                .map(new Func1<String, Observable<T>>() {
+                    @Override
+                    public Observable<T> call(final String subscriptionId) {
+                        return Observable.defer(new Func0<Observable<T>>() {
+                            @Override
+                            public Observable<T> call() {
+                                return operation.call(forSubscription(subscriptionId));
+                            }
+                        });
+                    }
+                });
+        return Observable.mergeDelayError(perSubscription, this.maxConcurrency);
+    }
+
+    /**
+     * Runs an operation against every subscription and collects the items emitted.
+     *
+     * @param operation the operation returning the items of a subscription
+     * @param <T> the type of the items
+     * @return the items of all the subscriptions
+     */
+    public <T> List<T> listAcrossSubscriptions(Func1<Azure, Observable<T>> operation) {
+        return listAcrossSubscriptionsAsync(operation).toList().toBlocking().single();
+    }
+}
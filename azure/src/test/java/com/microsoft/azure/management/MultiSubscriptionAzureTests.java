@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) Microsoft Corporation. All rights reserved.
+ * Licensed under the MIT License. See License.txt in the project root for
+ * license information.
+ */
+
+package com.microsoft.azure.management;
+
+import com.microsoft.azure.AzureResponseBuilder;
+import com.microsoft.azure.serializer.AzureJacksonAdapter;
+import com.microsoft.rest.RestClient;
+import org.junit.Assert;
+import org.junit.Test;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MultiSubscriptionAzureTests {
+    private static final List<String> SUBSCRIPTIONS = Arrays.asList("sub1", "sub2", "sub3", "sub4", "sub5", "sub6");
+
+    @Test
+    public void canListAcrossSubscriptionsWithBoundedConcurrency() {
+        MultiSubscriptionAzure azures = newAuthenticated().withSubscriptions(SUBSCRIPTIONS).withMaxConcurrency(2);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        List<String> items = azures.listAcrossSubscriptions(new Func1<Azure, Observable<String>>() {
+            @Override
+            public Observable<String> call(Azure azure) {
+                int current = inFlight.incrementAndGet();
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), current));
+                }
+                return Observable.just(azure.subscriptionId() + "/a", azure.subscriptionId() + "/b")
+                        .delay(20, TimeUnit.MILLISECONDS, Schedulers.io())
+                        .doOnCompleted(new Action0() {
+                            @Override
+                            public void call() {
+                                inFlight.decrementAndGet();
+                            }
+                        });
+            }
+        });
+
+        Assert.assertEquals(12, items.size());
+        List<String> sorted = new ArrayList<>(items);
+        Collections.sort(sorted);
+        Assert.assertEquals("sub1/a", sorted.get(0));
+        Assert.assertEquals("sub6/b", sorted.get(11));
+        Assert.assertTrue(maxInFlight.get() <= 2);
+    }
+
+    @Test
+    public void failedSubscriptionDoesNotStopOthers() {
+        MultiSubscriptionAzure azures = newAuthenticated().withSubscriptions(SUBSCRIPTIONS);
+        final List<String> items = Collections.synchronizedList(new ArrayList<String>());
+        try {
+            azures.listAcrossSubscriptionsAsync(new Func1<Azure, Observable<String>>() {
+                @Override
+                public Observable<String> call(Azure azure) {
+                    if (azure.subscriptionId().equals("sub3")) {
+                        return Observable.error(new IllegalStateException("sub3 is disabled"));
+                    }
+                    return Observable.just(azure.subscriptionId());
+                }
+            }).doOnNext(new Action1<String>() {
+                @Override
+                public void call(String item) {
+                    items.add(item);
+                }
+            }).toBlocking().last();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("sub3 is disabled", e.getMessage());
+        }
+        Assert.assertEquals(5, items.size());
+    }
+
+    @Test
+    public void subscriptionClientsAreReused() {
+        MultiSubscriptionAzure azures = newAuthenticated().withSubscriptions(SUBSCRIPTIONS);
+        Assert.assertSame(azures.forSubscription("sub1"), azures.forSubscription("sub1"));
+        Assert.assertEquals("sub2", azures.forSubscription("sub2").subscriptionId());
+        try {
+            azures.forSubscription("other");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    private static Azure.Authenticated newAuthenticated() {
+        RestClient restClient = new RestClient.Builder()
+                .withBaseUrl("https://management.azure.com/")
+                .withSerializerAdapter(new AzureJacksonAdapter())
+                .withResponseBuilderFactory(new AzureResponseBuilder.Factory())
+                .build();
+        return Azure.authenticate(restClient, "tenant");
+    }
+}